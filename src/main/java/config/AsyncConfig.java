@@ -7,6 +7,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Configuration for asynchronous task execution.
@@ -25,6 +26,12 @@ public class AsyncConfig {
     @Value("${app.download.queue-capacity:100}")
     private int queueCapacity;
 
+    @Value("${app.ingest.thread-pool-size:2}")
+    private int ingestThreadPoolSize;
+
+    @Value("${app.ingest.queue-capacity:50}")
+    private int ingestQueueCapacity;
+
     @Bean(name = "downloadTaskExecutor")
     public Executor downloadTaskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -37,5 +44,25 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Executor for the parse and load stages of the ingestion pipeline.
+     * Kept small because every worker holds a database connection while saving a file.
+     * When the queue is full the submitting download thread parses the file itself,
+     * which slows downloads down to the pace of ingestion instead of failing the file.
+     */
+    @Bean(name = "ingestTaskExecutor")
+    public Executor ingestTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ingestThreadPoolSize);
+        executor.setMaxPoolSize(ingestThreadPoolSize);
+        executor.setQueueCapacity(ingestQueueCapacity);
+        executor.setThreadNamePrefix("ingest-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
 }
 
@@ -0,0 +1,62 @@
+package config;
+
+import lombok.extern.slf4j.Slf4j;
+import model.EmployerKeys;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills lmia_employers.employer_key for employer rows created without it.
+ *
+ * DimensionCache sets the key when it creates an employer row; rows inserted by the
+ * {@link StarSchemaInitializer} migration only have the name. The key is computed in Java (see
+ * {@link EmployerKeys}), so those rows are read and updated in id-ordered batches; each batch
+ * commits on its own, and an interrupted run continues where it stopped on the next startup.
+ * Runs before {@link TrigramIndexInitializer} so the index is built on filled keys.
+ */
+@Slf4j
+@Component
+@Order(-1)
+public class EmployerKeyBackfill implements ApplicationRunner {
+
+    static final int BATCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmployerKeyBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int updated = backfill();
+        if (updated > 0) {
+            log.info("Backfilled employer_key for {} employers", updated);
+        }
+    }
+
+    /**
+     * @return Number of rows updated
+     */
+    public int backfill() {
+        int updated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> batch = jdbcTemplate.query(
+                    "SELECT id, name FROM lmia_employers WHERE employer_key IS NULL AND id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{EmployerKeys.normalize(rs.getString(2)), rs.getLong(1)},
+                    lastId, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                return updated;
+            }
+            jdbcTemplate.batchUpdate("UPDATE lmia_employers SET employer_key = ? WHERE id = ?", batch);
+            updated += batch.size();
+            lastId = (Long) batch.get(batch.size() - 1)[1];
+        }
+    }
+}
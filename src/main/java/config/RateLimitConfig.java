@@ -36,10 +36,10 @@ public class RateLimitConfig implements WebMvcConfigurer {
         registry.addInterceptor(loggingInterceptor())
                 .addPathPatterns("/api/**");
         
-        // Add rate limiting interceptor
+        // Add rate limiting interceptor; typeahead is answered from memory and called per keystroke
         registry.addInterceptor(rateLimitInterceptor())
                 .addPathPatterns("/api/**")
-                .excludePathPatterns("/api/datasets/statistics");
+                .excludePathPatterns("/api/datasets/statistics", "/api/datasets/employers/suggest");
     }
 
     @Getter
@@ -78,16 +78,26 @@ public class RateLimitConfig implements WebMvcConfigurer {
          * This method ensures thread-safety by performing check and increment in a single atomic operation.
          */
         public boolean tryIncrement() {
+            return tryIncrement(1);
+        }
+
+        /**
+         * As {@link #tryIncrement()}, for a request that counts as {@code permits} requests.
+         * A cost above the per-minute limit is charged as the whole limit, so such a request
+         * is still allowed in an otherwise unused window.
+         */
+        public boolean tryIncrement(int permits) {
             checkAndResetWindow();
-            // Atomically check and increment: if current value is less than limit, increment and return true
+            int cost = Math.min(Math.max(permits, 1), MAX_REQUESTS_PER_MINUTE);
+            // Atomically check and add: if the cost still fits under the limit, add it and return true
             // Otherwise, return false without incrementing
             int current;
             do {
                 current = count.get();
-                if (current >= MAX_REQUESTS_PER_MINUTE) {
+                if (current + cost > MAX_REQUESTS_PER_MINUTE) {
                     return false;
                 }
-            } while (!count.compareAndSet(current, current + 1));
+            } while (!count.compareAndSet(current, current + cost));
             return true;
         }
     }
@@ -7,9 +7,16 @@ import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Slf4j
 public class RateLimitInterceptor implements HandlerInterceptor {
 
+    private static final List<String> MULTI_VALUE_FILTERS = List.of("nocCode", "province", "stream", "status");
+    // Employer names of a batch lookup that count as one request
+    static final int EMPLOYERS_PER_PERMIT = 50;
+
     private final RateLimitConfig rateLimitConfig;
 
     public RateLimitInterceptor(RateLimitConfig rateLimitConfig) {
@@ -22,7 +29,7 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         RateLimitConfig.RequestCounter counter = rateLimitConfig.getOrCreateCounter(clientId);
 
         // Atomically check limit and increment if allowed
-        if (!counter.tryIncrement()) {
+        if (!counter.tryIncrement(requestCost(request))) {
             log.warn("Rate limit exceeded for client: {}", clientId);
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setHeader("Retry-After", "60");
@@ -32,6 +39,41 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         return true;
     }
 
+    /**
+     * A search with multi-value filters replaces one request per combination of values, e.g.
+     * two provinces and three NOC codes count as six requests.
+     */
+    static int requestCost(HttpServletRequest request) {
+        long cost = 1;
+        for (String filter : MULTI_VALUE_FILTERS) {
+            String[] values = request.getParameterValues(filter);
+            if (values != null) {
+                long count = Arrays.stream(values)
+                        .flatMap(value -> Arrays.stream(value.split(",")))
+                        .filter(value -> !value.isBlank())
+                        .count();
+                cost *= Math.max(count, 1);
+            }
+        }
+        return (int) Math.min(cost, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Charges a batch employer lookup one request per {@value #EMPLOYERS_PER_PERMIT} names. The
+     * names are in the request body, which preHandle doesn't read, so this is called by the
+     * handler and only charges what preHandle didn't.
+     *
+     * @return False when the client's limit doesn't allow the batch
+     */
+    public boolean tryChargeBatch(HttpServletRequest request, int employers) {
+        int remaining = batchCost(employers) - 1;
+        return remaining <= 0 || rateLimitConfig.getOrCreateCounter(getClientId(request)).tryIncrement(remaining);
+    }
+
+    static int batchCost(int employers) {
+        return Math.max(1, (employers + EMPLOYERS_PER_PERMIT - 1) / EMPLOYERS_PER_PERMIT);
+    }
+
     private String getClientId(HttpServletRequest request) {
         String forwarded = request.getHeader("X-Forwarded-For");
         if (forwarded != null && !forwarded.isEmpty()) {
@@ -0,0 +1,131 @@
+package config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import service.DatasetsChangedEvent;
+
+import javax.sql.DataSource;
+
+/**
+ * Periodically measures how far the read replica lags behind the primary.
+ *
+ * Reads are only routed to the replica while it answers and its replay lag is within
+ * {@code app.datasource.replica.max-lag-seconds}; otherwise they go to the primary until the
+ * next successful check. A caught-up replica reports 0 even when the primary has been idle,
+ * and a server that is not in recovery (e.g. a second standalone instance used for local
+ * testing) always reports 0.
+ *
+ * Caches keyed by the dataset generation must not store rows read from a replica that has not
+ * replayed the commit that advanced the generation. So every committed dataset change takes the
+ * replica out of use, before the generation advances, until a check sees it replay past the
+ * primary's WAL position. Reads go to the primary for up to one check interval after each
+ * ingested file.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final String PRIMARY_LSN_QUERY = "SELECT CAST(pg_current_wal_lsn() AS text)";
+
+    private static final String REPLAYED_QUERY =
+            "SELECT NOT pg_is_in_recovery() OR pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn)";
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final double maxLagSeconds;
+
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean replicaUsable;
+    // Committed dataset changes seen, and how many of them the replica is known to have replayed
+    private long changes;
+    private long replayedChanges;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, double maxLagSeconds, MeterRegistry meterRegistry) {
+        this(new JdbcTemplate(primary), new JdbcTemplate(replica), maxLagSeconds, meterRegistry);
+    }
+
+    ReplicaLagMonitor(JdbcTemplate primaryJdbcTemplate, JdbcTemplate replicaJdbcTemplate, double maxLagSeconds,
+                      MeterRegistry meterRegistry) {
+        this.primaryJdbcTemplate = primaryJdbcTemplate;
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.maxLagSeconds = maxLagSeconds;
+        Gauge.builder("lmia.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replay lag of the read replica (NaN when unreachable)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("lmia.datasource.replica.usable", this, monitor -> monitor.replicaUsable ? 1 : 0)
+                .description("Whether read-only transactions are currently routed to the replica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ordered first among the commit listeners, so the replica is out of use before
+     * DatasetGenerationService advances the generation.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onDatasetsChanged(DatasetsChangedEvent event) {
+        changes++;
+        replicaUsable = false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        boolean wasUsable = replicaUsable;
+        long awaited;
+        long replayed;
+        synchronized (this) {
+            awaited = changes;
+            replayed = replayedChanges;
+        }
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            if (awaited > replayed) {
+                // Read after the awaited commits, so replaying up to here covers all of them
+                String primaryLsn = primaryJdbcTemplate.queryForObject(PRIMARY_LSN_QUERY, String.class);
+                if (Boolean.TRUE.equals(replicaJdbcTemplate.queryForObject(REPLAYED_QUERY, Boolean.class, primaryLsn))) {
+                    replayed = awaited;
+                }
+            }
+            synchronized (this) {
+                replayedChanges = Math.max(replayedChanges, replayed);
+                lagSeconds = lag != null ? lag : 0;
+                // A change committed during this check keeps the replica out until the next one
+                replicaUsable = lagSeconds <= maxLagSeconds && replayedChanges == changes;
+            }
+        } catch (DataAccessException e) {
+            lagSeconds = Double.NaN;
+            replicaUsable = false;
+            if (wasUsable) {
+                log.warn("Read replica unreachable, routing reads to the primary: {}", e.getMostSpecificCause().getMessage());
+            }
+            return;
+        }
+        if (wasUsable != replicaUsable) {
+            if (replicaUsable) {
+                log.info("Read replica available (lag {}s), routing read-only transactions to it", lagSeconds);
+            } else if (lagSeconds > maxLagSeconds) {
+                log.warn("Read replica lag {}s exceeds {}s, routing reads to the primary", lagSeconds, maxLagSeconds);
+            }
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+}
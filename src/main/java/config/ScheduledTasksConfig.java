@@ -1,6 +1,7 @@
 package config;
 
 import lombok.extern.slf4j.Slf4j;
+import nocservice.dataProcessors.DatasetDownloader;
 import org.example.AppBody;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -36,6 +37,12 @@ public class ScheduledTasksConfig {
     @Autowired
     private CompanyWebsiteService companyWebsiteService;
 
+    @Autowired
+    private DatasetDownloader datasetDownloader;
+
+    @Value("${app.data-health-check.enabled:false}")
+    private boolean dataHealthCheckEnabled;
+
     @Value("${app.website-url-update.batch-size:50}")
     private int websiteUrlBatchSize;
 
@@ -119,16 +126,30 @@ public class ScheduledTasksConfig {
 
     /**
      * Optional: Daily health check to verify data freshness.
-     * Checks if data is older than expected threshold (default: 120 days).
-     * Logs a warning if data appears stale.
+     * Asks the CKAN catalogue how many LMIA packages changed after the last synced
+     * metadata_modified watermark (a single rows=0 request, no package bodies).
+     * Logs a warning if upstream has changes that have not been downloaded yet.
      */
     @Scheduled(cron = "${app.data-health-check.cron:0 0 3 * * *}")
     @ConditionalOnProperty(name = "app.data-health-check.enabled", havingValue = "true", matchIfMissing = false)
     public void dataHealthCheck() {
+        // @ConditionalOnProperty has no effect on @Scheduled methods, so check the flag explicitly
+        if (!dataHealthCheckEnabled) {
+            return;
+        }
         log.debug("Running data health check...");
-        // This could check the latest decision_date in the database
-        // and warn if it's older than expected
-        // Implementation can be added if needed
+        try {
+            DatasetDownloader.CatalogFreshness freshness = datasetDownloader.checkCatalogFreshness();
+            if (freshness.getPendingPackages() > 0) {
+                log.warn("Data may be stale: {} LMIA packages changed upstream since {} (last synced at {})",
+                        freshness.getPendingPackages(), freshness.getHighWatermark(), freshness.getLastSyncedAt());
+            } else {
+                log.info("Data is up to date with the catalogue (watermark {}, last synced at {})",
+                        freshness.getHighWatermark(), freshness.getLastSyncedAt());
+            }
+        } catch (Exception e) {
+            log.error("Error during data health check", e);
+        }
     }
 
     /**
@@ -0,0 +1,137 @@
+package config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves lmia_datasets onto the star schema and creates the lmia_datasets_star view.
+ *
+ * Records only store integer keys into lmia_employers, lmia_occupations, lmia_provinces and
+ * lmia_streams; DimensionCache assigns them during ingestion. A database from before the star
+ * schema still has the inline employer, employer_key, NOC title, province and stream columns.
+ * They are migrated in two steps, each cheap to repeat: the keys are backfilled with set-based
+ * statements (missing dimension rows inserted from the distinct fact values, then the fact keys
+ * set by lookup, only where still NULL), and once every row has its keys the inline columns are
+ * dropped. Until then the columns lose NOT NULL, so new rows can be saved without them.
+ *
+ * lmia_datasets_star rebuilds the wide row shape (the DatasetDTO columns plus employer_key and
+ * the keys) and is what every reader selects from. Its joins are LEFT JOINs on primary keys, so
+ * PostgreSQL removes those a query doesn't use. Runs before {@link EmployerKeyBackfill}, which
+ * fills the employer keys of the dimension rows inserted here.
+ */
+@Slf4j
+@Component
+@Order(-2)
+public class StarSchemaInitializer implements ApplicationRunner {
+
+    static final String STAR_VIEW = "CREATE VIEW lmia_datasets_star AS " +
+            "SELECT d.id, p.name AS province, s.name AS stream, e.name AS employer, e.employer_key, d.city, " +
+            "d.postal_code, d.noc_code, o.noc_title, d.positions_approved, d.status, d.decision_date, " +
+            "d.source_file, d.website_url, d.employer_id, d.noc_id, d.province_id, d.stream_id " +
+            "FROM lmia_datasets d " +
+            "LEFT JOIN lmia_employers e ON e.id = d.employer_id " +
+            "LEFT JOIN lmia_occupations o ON o.id = d.noc_id " +
+            "LEFT JOIN lmia_provinces p ON p.id = d.province_id " +
+            "LEFT JOIN lmia_streams s ON s.id = d.stream_id";
+
+    // Inline dimension text from before the star schema, dropped once the keys are backfilled
+    static final List<String> LEGACY_COLUMNS = List.of("employer", "employer_key", "noc_title", "province", "stream");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StarSchemaInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (hasLegacyColumns()) {
+                migrate();
+            }
+            jdbcTemplate.execute("DROP VIEW IF EXISTS lmia_datasets_star");
+            jdbcTemplate.execute(STAR_VIEW);
+        } catch (DataAccessException e) {
+            log.warn("Could not complete the star schema migration, it is retried on the next startup: {}",
+                    e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    /**
+     * Backfills the keys of rows saved with inline dimension text, then drops that text.
+     *
+     * @return Number of fact rows that received at least one key
+     */
+    public int migrate() {
+        for (String column : LEGACY_COLUMNS) {
+            jdbcTemplate.execute("ALTER TABLE lmia_datasets ALTER COLUMN " + column + " DROP NOT NULL");
+        }
+        int updated = backfill();
+        if (updated > 0) {
+            log.info("Backfilled star schema keys for {} existing records", updated);
+        }
+        Long missing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lmia_datasets WHERE employer_id IS NULL " +
+                "OR noc_id IS NULL OR province_id IS NULL OR stream_id IS NULL", Long.class);
+        if (missing != null && missing > 0) {
+            log.warn("{} records have no star schema keys, keeping the inline dimension columns", missing);
+            return updated;
+        }
+        // The view may still select the old columns; it is recreated afterwards
+        jdbcTemplate.execute("DROP VIEW IF EXISTS lmia_datasets_star");
+        for (String column : LEGACY_COLUMNS) {
+            jdbcTemplate.execute("ALTER TABLE lmia_datasets DROP COLUMN IF EXISTS " + column);
+        }
+        log.info("Dropped the inline dimension columns {} from lmia_datasets", LEGACY_COLUMNS);
+        return updated;
+    }
+
+    private boolean hasLegacyColumns() {
+        Integer columns = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE LOWER(table_name) = 'lmia_datasets' AND LOWER(column_name) = 'employer'", Integer.class);
+        return columns != null && columns > 0;
+    }
+
+    private int backfill() {
+        int updated = backfillEmployers();
+        updated = Math.max(updated, backfillOccupations());
+        updated = Math.max(updated, backfillNamed("lmia_provinces", "province", "province_id"));
+        return Math.max(updated, backfillNamed("lmia_streams", "stream", "stream_id"));
+    }
+
+    private int backfillEmployers() {
+        jdbcTemplate.update("INSERT INTO lmia_employers (name) " +
+                "SELECT DISTINCT d.employer FROM lmia_datasets d WHERE d.employer_id IS NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM lmia_employers e WHERE e.name = d.employer)");
+        return jdbcTemplate.update("UPDATE lmia_datasets SET employer_id = " +
+                "(SELECT e.id FROM lmia_employers e WHERE e.name = lmia_datasets.employer) WHERE employer_id IS NULL");
+    }
+
+    private int backfillOccupations() {
+        // noc_title is nullable; the noc_code equality keeps the lookup on uk_occupations_code_title
+        jdbcTemplate.update("INSERT INTO lmia_occupations (noc_code, noc_title) " +
+                "SELECT d.noc_code, d.noc_title FROM lmia_datasets d WHERE d.noc_id IS NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM lmia_occupations o WHERE o.noc_code = d.noc_code " +
+                "AND (o.noc_title = d.noc_title OR (o.noc_title IS NULL AND d.noc_title IS NULL))) " +
+                "GROUP BY d.noc_code, d.noc_title");
+        return jdbcTemplate.update("UPDATE lmia_datasets SET noc_id = " +
+                "(SELECT o.id FROM lmia_occupations o WHERE o.noc_code = lmia_datasets.noc_code " +
+                "AND (o.noc_title = lmia_datasets.noc_title OR (o.noc_title IS NULL AND lmia_datasets.noc_title IS NULL))) " +
+                "WHERE noc_id IS NULL");
+    }
+
+    private int backfillNamed(String dimensionTable, String column, String keyColumn) {
+        jdbcTemplate.update("INSERT INTO " + dimensionTable + " (name) " +
+                "SELECT DISTINCT d." + column + " FROM lmia_datasets d WHERE d." + keyColumn + " IS NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM " + dimensionTable + " x WHERE x.name = d." + column + ")");
+        return jdbcTemplate.update("UPDATE lmia_datasets SET " + keyColumn + " = " +
+                "(SELECT x.id FROM " + dimensionTable + " x WHERE x.name = lmia_datasets." + column + ") " +
+                "WHERE " + keyColumn + " IS NULL");
+    }
+}
@@ -0,0 +1,110 @@
+package config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the pg_trgm GIN index used by substring employer searches.
+ *
+ * A leading-wildcard LIKE ('%term%') cannot use a B-tree index, so without this index every
+ * employer search scans all employers. The index is built on lmia_employers.employer_key, the
+ * column the repository queries compare against before joining to the records by employer_id.
+ * The earlier index on LOWER(lmia_datasets.employer) is no longer used by any query and is
+ * dropped.
+ *
+ * schema.sql is not executed against PostgreSQL, so this runs on startup instead. It falls back
+ * gracefully: on other databases, or when the extension can't be created (missing privileges,
+ * extension not installed), a warning is logged and searches keep working without the index.
+ *
+ * Can be disabled via application.properties: app.search.trigram-index.enabled=false
+ */
+@Slf4j
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "app.search.trigram-index.enabled", havingValue = "true", matchIfMissing = true)
+public class TrigramIndexInitializer implements ApplicationRunner {
+
+    static final String INDEX_NAME = "idx_employers_key_trgm";
+    static final String LEGACY_INDEX_NAME = "idx_employer_trgm";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean trigramIndexAvailable;
+
+    public TrigramIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String databaseProduct = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(databaseProduct)) {
+            log.info("Trigram index not supported on {}, employer search will use LIKE without it", databaseProduct);
+            return;
+        }
+
+        if (!ensureExtension()) {
+            return;
+        }
+
+        try {
+            dropInvalidIndex();
+            long started = System.currentTimeMillis();
+            // CONCURRENTLY keeps ingestion able to add employers while an existing table is indexed
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + INDEX_NAME +
+                    " ON lmia_employers USING gin (employer_key gin_trgm_ops)");
+            trigramIndexAvailable = true;
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + LEGACY_INDEX_NAME);
+            log.info("Trigram index {} ready ({} ms)", INDEX_NAME, System.currentTimeMillis() - started);
+        } catch (DataAccessException e) {
+            log.warn("Could not create trigram index {}, employer search will fall back to sequential scans: {}",
+                    INDEX_NAME, e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    /**
+     * Whether substring employer searches are backed by the trigram index.
+     */
+    public boolean isTrigramIndexAvailable() {
+        return trigramIndexAvailable;
+    }
+
+    private boolean ensureExtension() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            return true;
+        } catch (DataAccessException e) {
+            // CREATE EXTENSION needs elevated privileges; a DBA may have installed it already
+            Integer installed = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_extension WHERE extname = 'pg_trgm'", Integer.class);
+            if (installed != null && installed > 0) {
+                return true;
+            }
+            log.warn("pg_trgm extension is not available ({}). Employer search will fall back to sequential scans. " +
+                    "Ask a superuser to run: CREATE EXTENSION pg_trgm;", e.getMostSpecificCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * A CREATE INDEX CONCURRENTLY that was interrupted leaves an INVALID index behind, which
+     * IF NOT EXISTS would then skip forever. Drop it so it is rebuilt.
+     */
+    private void dropInvalidIndex() {
+        Integer invalid = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                "WHERE c.relname = ? AND NOT i.indisvalid", Integer.class, INDEX_NAME);
+        if (invalid != null && invalid > 0) {
+            log.warn("Dropping invalid trigram index {} left by an interrupted build", INDEX_NAME);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + INDEX_NAME);
+        }
+    }
+}
@@ -8,8 +8,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.AppBody;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import service.StorageReportService;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -24,6 +26,7 @@ import java.util.Map;
 public class AdminController {
 
     private final AppBody appBody;
+    private final StorageReportService storageReportService;
 
     @Operation(
             summary = "Download and process datasets",
@@ -69,7 +72,7 @@ public class AdminController {
 
     @Operation(
             summary = "Process existing dataset files",
-            description = "Processes existing dataset files from the savedDatasets directory and saves them to the database. Skips duplicate records."
+            description = "Processes dataset files already in the raw dataset store and saves them to the database. Skips duplicate records."
     )
     @PostMapping("/process")
     public ResponseEntity<ApiResponse<Object>> processDatasets() {
@@ -86,6 +89,24 @@ public class AdminController {
         }
     }
 
+    @Operation(
+            summary = "Reload one quarter",
+            description = "Rebuilds all records with a decision date in the given quarter from the stored dataset files and swaps them in as a new partition. Requires lmia_datasets to be partitioned by quarter."
+    )
+    @PostMapping("/partitions/{year}/{quarter}/reload")
+    public ResponseEntity<ApiResponse<Object>> reloadQuarter(@PathVariable int year, @PathVariable int quarter) {
+        try {
+            int loaded = appBody.reloadQuarter(year, quarter);
+            Map<String, Object> data = new HashMap<>();
+            data.put("year", year);
+            data.put("quarter", quarter);
+            data.put("records", loaded);
+            return ResponseEntity.ok(ApiResponse.success("Quarter reloaded successfully", data));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @Operation(
             summary = "Get system statistics",
             description = "Returns system-level statistics including total number of records in the database."
@@ -96,5 +117,13 @@ public class AdminController {
         stats.put("totalRecords", appBody.getTotalRecordsCount());
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
-}
 
+    @Operation(
+            summary = "Get storage report",
+            description = "Returns row counts and, on PostgreSQL, table and index sizes of the dataset fact table and the star schema dimension tables, with the space the inline dimension text takes compared with integer keys."
+    )
+    @GetMapping("/storage")
+    public ResponseEntity<ApiResponse<Object>> getStorageReport() {
+        return ResponseEntity.ok(ApiResponse.success(storageReportService.report()));
+    }
+}
@@ -1,5 +1,6 @@
 package controller;
 
+import config.RateLimitInterceptor;
 import dto.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -7,7 +8,9 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,15 +25,32 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import repository.DatasetReadRepository;
 import repository.DatasetRepository;
+import repository.DatasetSearchSpec;
+import repository.FacetCounts;
+import repository.SearchCursor;
+import repository.SearchFacet;
+import repository.SearchSort;
+import service.EmployerClusteringService;
 import service.ExportService;
 import service.MetricsService;
 import service.ReferenceDataService;
+import service.SearchCountService;
+import service.SearchPrefetcher;
+import service.SearchResultCache;
+import service.search.ColumnarSearchEngine;
+import service.search.EmployerSpellService;
+import service.search.EmployerSuggestService;
+import service.search.FullTextSearchService;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,13 +62,23 @@ import java.util.stream.Collectors;
 public class DatasetController {
 
     private final DatasetRepository datasetRepository;
+    private final DatasetReadRepository datasetReadRepository;
     private final ExportService exportService;
     private final MetricsService metricsService;
     private final ReferenceDataService referenceDataService;
+    private final SearchCountService searchCountService;
+    private final SearchResultCache searchResultCache;
+    private final SearchPrefetcher searchPrefetcher;
+    private final ColumnarSearchEngine columnarSearchEngine;
+    private final EmployerSuggestService employerSuggestService;
+    private final EmployerSpellService employerSpellService;
+    private final EmployerClusteringService employerClusteringService;
+    private final FullTextSearchService fullTextSearchService;
+    private final RateLimitInterceptor rateLimitInterceptor;
 
     @Operation(
             summary = "Search datasets with filters",
-            description = "Search LMIA datasets using multiple filters: employer name, NOC code, province, status, and date range. Returns paginated results."
+            description = "Search LMIA datasets using multiple filters: employer name, NOC code, province, stream, status, and date range. NOC code, province, stream and status accept several comma-separated values and match any of them. Returns paginated results, newest decision first or in the requested sort order (decisionDate, positionsApproved or employer). Pass cursor (empty for the first page, then nextCursor) for keyset pagination, which stays fast at any depth. When an employer search finds nothing, misspelled words are corrected and correctedEmployer names the spelling the results are for."
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -69,39 +99,39 @@ public class DatasetController {
         
         try {
             Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
-            String statusString = null;
-            
-            if (request.getStatus() != null && !request.getStatus().isEmpty()) {
-                try {
-                    Dataset.DecisionStatus.valueOf(request.getStatus().toUpperCase());
-                    statusString = request.getStatus().toUpperCase();
-                } catch (IllegalArgumentException e) {
-                    log.warn("Invalid status parameter: {}", request.getStatus());
-                    metricsService.recordSearchError(searchType, "invalid_status");
-                    return ResponseEntity.badRequest()
-                            .body(ApiResponse.error("Invalid status parameter. Use APPROVED or DENIED"));
-                }
+            List<Dataset.DecisionStatus> statuses;
+            try {
+                statuses = parseStatuses(request.getStatus());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid status parameter: {}", request.getStatus());
+                metricsService.recordSearchError(searchType, "invalid_status");
+                return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
             }
 
-            long startTime = System.currentTimeMillis();
-            Page<Dataset> results = datasetRepository.searchDatasets(
-                    request.getEmployer(), request.getNocCode(), request.getProvince(), 
-                    statusString, request.getStartDate(), request.getEndDate(), pageable);
-            metricsService.recordDatabaseQuery("search", System.currentTimeMillis() - startTime);
-
-            List<DatasetDTO> dtoList = results.getContent().stream()
-                    .map(DatasetDTO::fromEntity)
-                    .collect(Collectors.toList());
-
-            PagedResponse<DatasetDTO> pagedResponse = PagedResponse.of(
-                    dtoList,
-                    results.getTotalElements(),
-                    results.getTotalPages(),
-                    results.getNumber(),
-                    results.getSize(),
-                    results.hasNext(),
-                    results.hasPrevious()
-            );
+            Set<SearchFacet> facets = SearchFacet.parse(request.getFacets());
+            SearchSort sort = SearchSort.parse(request.getSort());
+            DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                    .employer(request.getEmployer())
+                    .nocCodes(request.getNocCode())
+                    .provinces(request.getProvince())
+                    .streams(request.getStream())
+                    .statuses(statuses)
+                    .startDate(request.getStartDate())
+                    .endDate(request.getEndDate())
+                    .build();
+
+            PagedResponse<DatasetDTO> pagedResponse = searchResultCache.get(
+                    searchResultCache.keyForSearch(spec, facets, sort, request),
+                    () -> {
+                        PagedResponse<DatasetDTO> response = search(spec, facets, sort, request, pageable);
+                        return response.getContent().isEmpty()
+                                ? searchCorrected(spec, facets, sort, request, pageable).orElse(response)
+                                : response;
+                    });
+
+            if (searchPrefetcher.isEnabled()) {
+                prefetchNextPage(spec, facets, sort, request, pagedResponse);
+            }
 
             metricsService.recordSearch(searchType);
             return ResponseEntity.ok(ApiResponse.success(pagedResponse));
@@ -113,6 +143,176 @@ public class DatasetController {
         }
     }
     
+    private PagedResponse<DatasetDTO> search(DatasetSearchSpec spec, Set<SearchFacet> facets, SearchSort sort,
+                                             SearchRequest request, Pageable pageable) {
+        return request.isCursorMode()
+                ? searchAfterCursor(spec, facets, sort, request)
+                : searchPage(spec, facets, sort, pageable);
+    }
+
+    /**
+     * Queues the page a client most likely asks for next into the result cache: page + 1, or
+     * the page after nextCursor, for the corrected employer when the response was corrected.
+     * Only the paging fields of the next request matter; its filters are already in the spec.
+     */
+    private void prefetchNextPage(DatasetSearchSpec spec, Set<SearchFacet> facets, SearchSort sort,
+                                  SearchRequest request, PagedResponse<DatasetDTO> response) {
+        if (!response.isHasNext()) {
+            return;
+        }
+        SearchRequest next = new SearchRequest();
+        next.setSize(request.getSize());
+        if (request.isCursorMode()) {
+            if (response.getNextCursor() == null) {
+                return;
+            }
+            next.setCursor(response.getNextCursor());
+        } else {
+            next.setPage(request.getPage() + 1);
+        }
+        DatasetSearchSpec nextSpec = response.getCorrectedEmployer() == null
+                ? spec
+                : spec.toBuilder().employer(response.getCorrectedEmployer()).build();
+        Pageable pageable = PageRequest.of(next.getPage(), next.getSize());
+        searchPrefetcher.prefetch(searchResultCache.keyForSearch(nextSpec, facets, sort, next),
+                () -> search(nextSpec, facets, sort, next, pageable));
+    }
+
+    /**
+     * First page of the same search with the misspelled words of the employer corrected, when
+     * the search as typed found nothing and the corrected one finds rows. The response names the
+     * corrected employer, which the client sends for the following pages.
+     */
+    private Optional<PagedResponse<DatasetDTO>> searchCorrected(DatasetSearchSpec spec, Set<SearchFacet> facets,
+                                                               SearchSort sort, SearchRequest request,
+                                                               Pageable pageable) {
+        boolean firstPage = request.isCursorMode() ? request.getCursor().isBlank() : request.getPage() == 0;
+        if (spec.getEmployer() == null || !firstPage) {
+            return Optional.empty();
+        }
+        Optional<String> correction = employerSpellService.correct(spec.getEmployer());
+        if (correction.isEmpty()) {
+            return Optional.empty();
+        }
+        DatasetSearchSpec corrected = spec.toBuilder().employer(correction.get()).build();
+        PagedResponse<DatasetDTO> response = search(corrected, facets, sort, request, pageable);
+        if (response.getContent().isEmpty()) {
+            return Optional.empty();
+        }
+        employerSpellService.recordCorrection();
+        response.setCorrectedEmployer(correction.get());
+        return Optional.of(response);
+    }
+
+    /**
+     * Page-number page: fetches one row more than requested, so hasNext doesn't depend on the
+     * total and the last page needs no count. Served from the columnar snapshot when it is
+     * current.
+     */
+    private PagedResponse<DatasetDTO> searchPage(DatasetSearchSpec spec, Pageable pageable) {
+        return searchPage(spec, Set.of(), SearchSort.DECISION_DATE, pageable);
+    }
+
+    /**
+     * As {@link #searchPage(DatasetSearchSpec, Pageable)}, in the given order and with facet
+     * counts. The facet pass reads the matching rows once and its counts add up to the total,
+     * so it replaces the count query instead of adding to it.
+     */
+    private PagedResponse<DatasetDTO> searchPage(DatasetSearchSpec spec, Set<SearchFacet> facets, SearchSort sort,
+                                                 Pageable pageable) {
+        int size = pageable.getPageSize();
+        Optional<PagedResponse<DatasetDTO>> inMemory =
+                columnarSearchEngine.searchPage(spec, facets, sort, pageable.getPageNumber(), size);
+        if (inMemory.isPresent()) {
+            return inMemory.get();
+        }
+        long startTime = System.currentTimeMillis();
+        List<DatasetDTO> rows = datasetReadRepository.findSlice(spec, sort, pageable.getOffset(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<DatasetDTO> pageRows = hasNext ? rows.subList(0, size) : rows;
+        FacetCounts facetCounts = datasetReadRepository.facetCounts(spec, facets);
+        SearchCountService.TotalCount total = facets.isEmpty()
+                ? searchCountService.countForPage(spec, pageable, pageRows.size(), hasNext)
+                : SearchCountService.TotalCount.exact(facetCounts.getTotal());
+        metricsService.recordDatabaseQuery("search", System.currentTimeMillis() - startTime);
+
+        PagedResponse<DatasetDTO> response = PagedResponse.of(
+                pageRows,
+                total.getValue(),
+                total.isExact(),
+                pageable.getPageNumber(),
+                size,
+                hasNext
+        );
+        return withFacets(response, facetCounts);
+    }
+
+    /**
+     * Keyset page: fetches one row more than requested to learn whether another page exists,
+     * so no COUNT(*) is needed unless the client asked for the total. Served from the columnar
+     * snapshot when it is current.
+     */
+    private PagedResponse<DatasetDTO> searchAfterCursor(DatasetSearchSpec spec, Set<SearchFacet> facets,
+                                                        SearchSort sort, SearchRequest request) {
+        SearchCursor after = request.getCursor().isBlank() ? null : SearchCursor.decode(request.getCursor());
+        if (after != null && after.getSort() != sort) {
+            throw new IllegalArgumentException("Cursor belongs to a different sort order; start again with an empty cursor");
+        }
+        int size = request.getSize();
+        Optional<PagedResponse<DatasetDTO>> inMemory =
+                columnarSearchEngine.searchAfter(spec, facets, sort, after, size, request.isIncludeTotal());
+        if (inMemory.isPresent()) {
+            return inMemory.get();
+        }
+        long startTime = System.currentTimeMillis();
+
+        List<DatasetDTO> rows = datasetReadRepository.searchAfter(spec, sort, after, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<DatasetDTO> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            nextCursor = SearchCursor.after(pageRows.get(pageRows.size() - 1), sort).encode();
+        }
+        FacetCounts facetCounts = datasetReadRepository.facetCounts(spec, facets);
+        SearchCountService.TotalCount total = null;
+        if (request.isIncludeTotal()) {
+            total = facets.isEmpty()
+                    ? searchCountService.count(spec)
+                    : SearchCountService.TotalCount.exact(facetCounts.getTotal());
+        }
+        metricsService.recordDatabaseQuery("search", System.currentTimeMillis() - startTime);
+
+        PagedResponse<DatasetDTO> response = PagedResponse.ofCursor(pageRows, total != null ? total.getValue() : null,
+                total == null || total.isExact(), size, after != null, nextCursor);
+        return withFacets(response, facetCounts);
+    }
+
+    private static PagedResponse<DatasetDTO> withFacets(PagedResponse<DatasetDTO> response, FacetCounts facetCounts) {
+        if (!facetCounts.getCounts().isEmpty()) {
+            response.setFacets(SearchFacet.toResponse(facetCounts.getCounts()));
+        }
+        return response;
+    }
+
+    /**
+     * @throws IllegalArgumentException for a value other than APPROVED or DENIED (any case)
+     */
+    private static List<Dataset.DecisionStatus> parseStatuses(List<String> values) {
+        List<Dataset.DecisionStatus> statuses = new ArrayList<>();
+        for (String status : values == null ? List.<String>of() : values) {
+            if (status.isBlank()) {
+                continue;
+            }
+            try {
+                statuses.add(Dataset.DecisionStatus.valueOf(status.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status parameter. Use APPROVED or DENIED");
+            }
+        }
+        return statuses;
+    }
+
     private String determineSearchType(SearchRequest request) {
         if (request.getEmployer() != null) return "employer";
         if (request.getNocCode() != null) return "noc";
@@ -120,6 +320,19 @@ public class DatasetController {
         return "general";
     }
 
+    @Operation(
+            summary = "Full-text search",
+            description = "Ranked (BM25) search over employer name, NOC title, city and stream, e.g. \"software engineer Toronto\". Every word must match one of the fields; words are stemmed, \"quoted words\" match as a phrase, -word excludes and word* matches a prefix. Best matches first."
+    )
+    @GetMapping("/search/text")
+    public ResponseEntity<ApiResponse<PagedResponse<DatasetDTO>>> searchText(
+            @Parameter(description = "Search text", required = true)
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") @Valid @Min(0) int page,
+            @RequestParam(defaultValue = "20") @Valid @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(ApiResponse.success(fullTextSearchService.search(q, page, size)));
+    }
+
     @GetMapping("/search/legacy")
     public ResponseEntity<ApiResponse<PagedResponse<DatasetDTO>>> searchDatasetsLegacy(
             @RequestParam(required = false) String employer,
@@ -133,9 +346,9 @@ public class DatasetController {
 
         SearchRequest request = new SearchRequest();
         request.setEmployer(employer);
-        request.setNocCode(nocCode);
-        request.setProvince(province);
-        request.setStatus(status);
+        request.setNocCode(nocCode == null ? null : List.of(nocCode));
+        request.setProvince(province == null ? null : List.of(province));
+        request.setStatus(status == null ? null : List.of(status));
         request.setStartDate(startDate);
         request.setEndDate(endDate);
         request.setPage(page);
@@ -153,26 +366,62 @@ public class DatasetController {
             @Parameter(description = "Employer name (partial match supported)", required = true)
             @PathVariable String employerName,
             @RequestParam(defaultValue = "0") @Valid @Min(0) int page,
-            @RequestParam(defaultValue = "20") @Valid @Min(1) int size) {
+            @RequestParam(defaultValue = "20") @Valid @Min(1) @Max(100) int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Dataset> results = datasetRepository.findByEmployerContainingIgnoreCase(employerName, pageable);
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().employer(employerName).build();
+        PagedResponse<DatasetDTO> pagedResponse = searchResultCache.get(
+                searchResultCache.keyForPage("employer", spec, pageable),
+                () -> searchPage(spec, pageable));
 
-        List<DatasetDTO> dtoList = results.getContent().stream()
-                .map(DatasetDTO::fromEntity)
-                .collect(Collectors.toList());
+        return ResponseEntity.ok(ApiResponse.success(pagedResponse));
+    }
 
-        PagedResponse<DatasetDTO> pagedResponse = PagedResponse.of(
-                dtoList,
-                results.getTotalElements(),
-                results.getTotalPages(),
-                results.getNumber(),
-                results.getSize(),
-                results.hasNext(),
-                results.hasPrevious()
-        );
+    @Operation(
+            summary = "Suggest employer names",
+            description = "Typeahead for the employer filter: employers with a word starting with q (case, accents, punctuation and legal suffixes ignored), ranked by number of LMIA records. Served from an in-memory index rebuilt after each data update."
+    )
+    @GetMapping("/employers/suggest")
+    public ResponseEntity<ApiResponse<List<EmployerSuggestion>>> suggestEmployers(
+            @Parameter(description = "Beginning of an employer name or of any word in it", required = true)
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") @Valid @Min(1) int limit) {
+        return ResponseEntity.ok(ApiResponse.success(employerSuggestService.suggest(q, limit)));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success(pagedResponse));
+    @Operation(
+            summary = "Look up many employers at once",
+            description = "Record totals for up to 5000 employer names in one request, e.g. \"which of these employers had an approved LMIA since 2023-01-01\" (status APPROVED, startDate 2023-01-01). Names are matched case, accent, punctuation and legal-suffix insensitively; the optional filters work as in /search and apply to every name. Returns one summary per name, in request order; employers without matching records have 0 records. Counts against the rate limit as one request per 50 names."
+    )
+    @PostMapping("/employers/batch")
+    public ResponseEntity<ApiResponse<List<EmployerSummary>>> lookupEmployers(
+            @Valid @RequestBody EmployerBatchRequest request, HttpServletRequest httpRequest) {
+        if (!rateLimitInterceptor.tryChargeBatch(httpRequest, request.getEmployers().size())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "60")
+                    .body(ApiResponse.error("Rate limit exceeded: a batch counts as one request per 50 employers"));
+        }
+        DatasetSearchSpec filters = DatasetSearchSpec.builder()
+                .nocCodes(request.getNocCode())
+                .provinces(request.getProvince())
+                .streams(request.getStream())
+                .statuses(parseStatuses(request.getStatus()))
+                .startDate(request.getStartDate())
+                .endDate(request.getEndDate())
+                .build();
+        return ResponseEntity.ok(ApiResponse.success(
+                datasetReadRepository.summarizeEmployers(filters, request.getEmployers())));
+    }
+
+    @Operation(
+            summary = "List spellings of an employer",
+            description = "All employer spellings clustered with the given name as near-duplicates (e.g. \"ABC Food Ltd\" and \"A.B.C. Foods Inc.\"), with their number of LMIA records, most records first. The name is compared case, accent, punctuation and legal-suffix insensitively; clusters are recomputed after each data update."
+    )
+    @GetMapping("/employers/variants")
+    public ResponseEntity<ApiResponse<List<EmployerSuggestion>>> employerVariants(
+            @Parameter(description = "Employer name", required = true)
+            @RequestParam String name) {
+        return ResponseEntity.ok(ApiResponse.success(employerClusteringService.variants(name)));
     }
 
     @Operation(
@@ -184,24 +433,13 @@ public class DatasetController {
             @Parameter(description = "NOC code (e.g., 0211)", required = true)
             @PathVariable String nocCode,
             @RequestParam(defaultValue = "0") @Valid @Min(0) int page,
-            @RequestParam(defaultValue = "20") @Valid @Min(1) int size) {
+            @RequestParam(defaultValue = "20") @Valid @Min(1) @Max(100) int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Dataset> results = datasetRepository.findByNocCode(nocCode, pageable);
-
-        List<DatasetDTO> dtoList = results.getContent().stream()
-                .map(DatasetDTO::fromEntity)
-                .collect(Collectors.toList());
-
-        PagedResponse<DatasetDTO> pagedResponse = PagedResponse.of(
-                dtoList,
-                results.getTotalElements(),
-                results.getTotalPages(),
-                results.getNumber(),
-                results.getSize(),
-                results.hasNext(),
-                results.hasPrevious()
-        );
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().nocCode(nocCode).build();
+        PagedResponse<DatasetDTO> pagedResponse = searchResultCache.get(
+                searchResultCache.keyForPage("noc", spec, pageable),
+                () -> searchPage(spec, pageable));
 
         return ResponseEntity.ok(ApiResponse.success(pagedResponse));
     }
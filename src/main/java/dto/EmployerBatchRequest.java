@@ -0,0 +1,38 @@
+package dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Body of a batch employer lookup: the employer names plus the filters of a search, applied to
+ * every name.
+ */
+@Data
+public class EmployerBatchRequest {
+    public static final int MAX_EMPLOYERS = 5000;
+
+    @NotEmpty(message = "At least one employer name is required")
+    @Size(max = MAX_EMPLOYERS, message = "At most 5000 employers can be looked up at once")
+    private List<@NotBlank(message = "Employer name must not be blank")
+                 @Size(max = 500, message = "Employer name must not exceed 500 characters") String> employers;
+
+    @Size(max = SearchRequest.MAX_FILTER_VALUES, message = "At most 20 NOC codes can be combined")
+    private List<@Size(max = 10, message = "NOC code must not exceed 10 characters") String> nocCode;
+
+    @Size(max = SearchRequest.MAX_FILTER_VALUES, message = "At most 20 provinces can be combined")
+    private List<@Size(max = 100, message = "Province name must not exceed 100 characters") String> province;
+
+    @Size(max = SearchRequest.MAX_FILTER_VALUES, message = "At most 20 streams can be combined")
+    private List<@Size(max = 100, message = "Stream must not exceed 100 characters") String> stream;
+
+    private List<String> status;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+}
@@ -0,0 +1,18 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Typeahead entry for an employer: the most common spelling of its name, its normalized key
+ * and its number of LMIA records.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployerSuggestion {
+    private String employer;
+    private String employerKey;
+    private long records;
+}
@@ -0,0 +1,27 @@
+package dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * LMIA record totals of one employer of a batch lookup, over the records matching the lookup's
+ * filters. An employer without matching records has zero counts and null dates.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployerSummary {
+    // Name as sent in the request, and the key it was matched by
+    private String name;
+    private String employerKey;
+    // A spelling of the employer found in the records; null when none matched
+    private String employer;
+    private long records;
+    private long approvedRecords;
+    private long positionsApproved;
+    private LocalDate latestDecisionDate;
+    private LocalDate latestApprovalDate;
+}
@@ -1,26 +1,63 @@
 package dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class PagedResponse<T> {
     private List<T> content;
-    private long totalElements;
-    private int totalPages;
+    // Null in cursor mode unless the total was requested
+    private Long totalElements;
+    private Integer totalPages;
+    // False when totalElements is the query planner's estimate for a very broad search
+    private boolean totalExact = true;
     private int currentPage;
     private int pageSize;
     private boolean hasNext;
     private boolean hasPrevious;
+    // Opaque token for the next cursor-mode page; null in page mode or on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    // Row counts per value of each requested facet over all matching rows, e.g.
+    // {"province": {"Ontario": 120, ...}}; null when no facets were requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Map<String, Long>> facets;
+    // Set when the employer search found nothing as typed and these are the results for its
+    // corrected spelling (employer key form); null otherwise
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String correctedEmployer;
 
     public static <T> PagedResponse<T> of(List<T> content, long totalElements, int totalPages, 
                                           int currentPage, int pageSize, boolean hasNext, boolean hasPrevious) {
-        return new PagedResponse<>(content, totalElements, totalPages, currentPage, pageSize, hasNext, hasPrevious);
+        return new PagedResponse<>(content, totalElements, totalPages, true, currentPage, pageSize, hasNext, hasPrevious, null, null, null);
+    }
+
+    /**
+     * Page-mode response whose total may be an estimate; hasNext is then known from the rows
+     * fetched rather than derived from the total.
+     */
+    public static <T> PagedResponse<T> of(List<T> content, long totalElements, boolean totalExact,
+                                          int currentPage, int pageSize, boolean hasNext) {
+        int totalPages = (int) Math.ceil((double) totalElements / pageSize);
+        return new PagedResponse<>(content, totalElements, totalPages, totalExact, currentPage, pageSize,
+                hasNext, currentPage > 0, null, null, null);
     }
-}
 
+    /**
+     * Response for a cursor-mode page. There is no page number; {@code hasPrevious} is true
+     * whenever the request itself carried a cursor.
+     */
+    public static <T> PagedResponse<T> ofCursor(List<T> content, Long totalElements, boolean totalExact, int pageSize,
+                                                boolean hasPrevious, String nextCursor) {
+        Integer totalPages = totalElements == null ? null : (int) Math.ceil((double) totalElements / pageSize);
+        return new PagedResponse<>(content, totalElements, totalPages, totalExact, 0, pageSize,
+                nextCursor != null, hasPrevious, nextCursor, null, null);
+    }
+}
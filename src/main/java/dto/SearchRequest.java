@@ -1,24 +1,33 @@
 package dto;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Data
 public class SearchRequest {
+    public static final int MAX_FILTER_VALUES = 20;
+
     @Size(max = 500, message = "Employer name must not exceed 500 characters")
     private String employer;
 
-    @Size(max = 10, message = "NOC code must not exceed 10 characters")
-    private String nocCode;
+    // The list filters match any of their values: nocCode=62200,63200 or nocCode=62200&nocCode=63200
+
+    @Size(max = MAX_FILTER_VALUES, message = "At most 20 NOC codes can be combined")
+    private List<@Size(max = 10, message = "NOC code must not exceed 10 characters") String> nocCode;
 
-    @Size(max = 100, message = "Province name must not exceed 100 characters")
-    private String province;
+    @Size(max = MAX_FILTER_VALUES, message = "At most 20 provinces can be combined")
+    private List<@Size(max = 100, message = "Province name must not exceed 100 characters") String> province;
 
-    private String status;
+    @Size(max = MAX_FILTER_VALUES, message = "At most 20 streams can be combined")
+    private List<@Size(max = 100, message = "Stream must not exceed 100 characters") String> stream;
+
+    private List<String> status;
 
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate startDate;
@@ -30,6 +39,37 @@ public class SearchRequest {
     private int page = 0;
 
     @Min(value = 1, message = "Page size must be >= 1")
+    @Max(value = 100, message = "Page size must be <= 100")
     private int size = 20;
+
+    /**
+     * Switches to cursor (keyset) pagination when present: send an empty value for the first
+     * page, then the nextCursor of the previous response. {@code page} is ignored in this mode.
+     * Not length-limited: a cursor in employer order carries the whole employer name.
+     */
+    private String cursor;
+
+    /**
+     * In cursor mode the total is only counted when asked for, typically on the first page.
+     */
+    private boolean includeTotal = false;
+
+    /**
+     * Result order: decisionDate (newest first, the default), positionsApproved (most first) or
+     * employer (A to Z). Ties are broken by record id, so pages are stable.
+     */
+    @Size(max = 30, message = "Sort must not exceed 30 characters")
+    private String sort;
+
+    /**
+     * Comma-separated dimensions (province, status, nocCode, stream) to return row counts for
+     * over the whole result set, e.g. "province,status".
+     */
+    @Size(max = 100, message = "Facets must not exceed 100 characters")
+    private String facets;
+
+    public boolean isCursorMode() {
+        return cursor != null;
+    }
 }
 
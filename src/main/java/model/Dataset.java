@@ -4,17 +4,30 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
+import service.DimensionKeyListener;
 
 import java.time.LocalDate;
 
+/**
+ * One LMIA decision: the fact row of the star schema.
+ *
+ * Employer, NOC title, province and stream are stored once in their dimension tables and
+ * referenced by integer keys. The text fields are set by the parser and resolved to keys on
+ * insert (see {@link DimensionKeyListener}); on load they are read back from the dimensions.
+ */
 @Entity
 @Table(name = "lmia_datasets", indexes = {
-    @Index(name = "idx_employer", columnList = "employer"),
     @Index(name = "idx_noc", columnList = "noc_code"),
-    @Index(name = "idx_province", columnList = "province"),
     @Index(name = "idx_date", columnList = "decision_date"),
-    @Index(name = "idx_status", columnList = "status")
+    @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_date_id", columnList = "decision_date, id"),
+    @Index(name = "idx_positions_id", columnList = "positions_approved, id"),
+    @Index(name = "idx_employer_id", columnList = "employer_id"),
+    @Index(name = "idx_noc_id", columnList = "noc_id"),
+    @Index(name = "idx_province_id_status", columnList = "province_id, status")
 })
+@EntityListeners(DimensionKeyListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,13 +36,13 @@ public class Dataset {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
+    @Formula("(SELECT p.name FROM lmia_provinces p WHERE p.id = province_id)")
     private String province;
 
-    @Column(nullable = false)
+    @Formula("(SELECT s.name FROM lmia_streams s WHERE s.id = stream_id)")
     private String stream;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    @Formula("(SELECT e.name FROM lmia_employers e WHERE e.id = employer_id)")
     private String employer;
 
     @Column(length = 200)
@@ -41,7 +54,7 @@ public class Dataset {
     @Column(nullable = false, length = 10)
     private String nocCode;
 
-    @Column(columnDefinition = "TEXT")
+    @Formula("(SELECT o.noc_title FROM lmia_occupations o WHERE o.id = noc_id)")
     private String nocTitle;
 
     @Column(nullable = false)
@@ -60,6 +73,15 @@ public class Dataset {
     @Column(length = 500)
     private String websiteUrl;
 
+    // Star schema keys into lmia_employers, lmia_occupations, lmia_provinces and lmia_streams
+    private Integer employerId;
+
+    private Integer nocId;
+
+    private Integer provinceId;
+
+    private Integer streamId;
+
     public enum DecisionStatus {
         APPROVED, DENIED
     }
@@ -0,0 +1,34 @@
+package model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Employer dimension of the star schema: one row per distinct employer spelling, referenced by
+ * lmia_datasets.employer_id. Rows are created by DimensionCache during ingestion.
+ */
+@Entity
+@Table(name = "lmia_employers",
+        uniqueConstraints = @UniqueConstraint(name = "uk_employers_name", columnNames = "name"),
+        indexes = {
+                @Index(name = "idx_employers_key", columnList = "employer_key"),
+                @Index(name = "idx_employers_canonical", columnList = "canonical_id")
+        })
+@Data
+@NoArgsConstructor
+public class EmployerDimension {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String name;
+
+    @Column(columnDefinition = "TEXT")
+    private String employerKey;
+
+    // Employer row whose spelling stands for this one's near-duplicate cluster; set by
+    // EmployerClusteringService, null until its first run after the row was created
+    private Integer canonicalId;
+}
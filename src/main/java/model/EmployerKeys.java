@@ -0,0 +1,65 @@
+package model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized employer names as stored in lmia_employers.employer_key.
+ *
+ * The same employer appears in the source files as "ACME Inc.", "Acme, Inc" or "ACME  INC", so
+ * every employer lookup compares keys instead of applying LOWER() to every row: case-folded,
+ * accents removed, punctuation dropped, whitespace collapsed, and trailing legal suffixes
+ * (Inc., Ltd., Ltée, Corp., ...) removed. The key is computed once when a record is saved.
+ */
+public final class EmployerKeys {
+
+    // Trailing words that only state the legal form; compared after punctuation is removed
+    private static final Set<String> LEGAL_SUFFIXES = Set.of(
+            "inc", "incorporated", "ltd", "limited", "ltee", "corp", "corporation",
+            "co", "llc", "llp", "lp", "ulc", "plc", "senc", "sencrl", "srl", "cie");
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    // Dropped without a gap, so "A.B.C." and "O'Neil" stay one word
+    private static final Pattern JOINING_PUNCTUATION = Pattern.compile("[.'’]");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private EmployerKeys() {
+    }
+
+    /**
+     * Returns the employer_key for an employer name ("Tim Hortons Inc." and "TIM HORTONS, INC"
+     * -> "tim hortons"). A name made only of a legal suffix keeps it; null input returns null.
+     */
+    public static String normalize(String employer) {
+        String collapsed = normalizePrefix(employer);
+        if (collapsed == null || collapsed.isEmpty()) {
+            return collapsed;
+        }
+
+        List<String> words = new ArrayList<>(Arrays.asList(collapsed.split(" ")));
+        while (words.size() > 1 && LEGAL_SUFFIXES.contains(words.get(words.size() - 1))) {
+            words.remove(words.size() - 1);
+        }
+        return String.join(" ", words);
+    }
+
+    /**
+     * Folds a partly typed employer name like {@link #normalize} (case, accents, punctuation,
+     * whitespace) but keeps legal-suffix words, which may be the start of a longer word ("co"
+     * of "costco"). Null input returns null.
+     */
+    public static String normalizePrefix(String employer) {
+        if (employer == null) {
+            return null;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(employer, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        folded = JOINING_PUNCTUATION.matcher(folded).replaceAll("");
+        return SEPARATORS.matcher(folded).replaceAll(" ").trim();
+    }
+}
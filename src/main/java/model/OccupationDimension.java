@@ -0,0 +1,26 @@
+package model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * NOC dimension of the star schema: one row per NOC code and title pair (titles differ between
+ * NOC versions and source files), referenced by lmia_datasets.noc_id.
+ */
+@Entity
+@Table(name = "lmia_occupations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_occupations_code_title", columnNames = {"noc_code", "noc_title"}))
+@Data
+@NoArgsConstructor
+public class OccupationDimension {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, length = 10)
+    private String nocCode;
+
+    @Column(columnDefinition = "TEXT")
+    private String nocTitle;
+}
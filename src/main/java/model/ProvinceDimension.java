@@ -0,0 +1,22 @@
+package model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Province dimension of the star schema, referenced by lmia_datasets.province_id.
+ */
+@Entity
+@Table(name = "lmia_provinces",
+        uniqueConstraints = @UniqueConstraint(name = "uk_provinces_name", columnNames = "name"))
+@Data
+@NoArgsConstructor
+public class ProvinceDimension {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private String name;
+}
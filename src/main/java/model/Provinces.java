@@ -0,0 +1,48 @@
+package model;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Canadian provinces and territories as stored in lmia_datasets.province.
+ *
+ * Province input (search filters, parsed files) is canonicalized here, so queries can compare
+ * the column with '=' and use its index instead of applying LOWER() to every row.
+ */
+public final class Provinces {
+
+    public static final List<String> NAMES = List.of(
+            "Newfoundland and Labrador", "Ontario", "Quebec", "British Columbia",
+            "Alberta", "Manitoba", "Saskatchewan", "Nova Scotia",
+            "New Brunswick", "Prince Edward Island", "Yukon", "Northwest Territories",
+            "Nunavut");
+
+    public static final List<String> ABBREVIATIONS = List.of(
+            "NL", "ON", "QC", "BC", "AB", "MB", "SK", "NS", "NB", "PE", "YT", "NT", "NU");
+
+    // lower-case name or abbreviation -> canonical name
+    private static final Map<String, String> CANONICAL = IntStream.range(0, NAMES.size()).boxed()
+            .flatMap(i -> Stream.of(
+                    Map.entry(NAMES.get(i).toLowerCase(Locale.ROOT), NAMES.get(i)),
+                    Map.entry(ABBREVIATIONS.get(i).toLowerCase(Locale.ROOT), NAMES.get(i))))
+            .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+
+    private Provinces() {
+    }
+
+    /**
+     * Returns the canonical province name for a full name or abbreviation in any case
+     * ("ontario", "ON" -> "Ontario"). Unknown values are returned trimmed; blank input returns null.
+     */
+    public static String canonicalize(String province) {
+        if (province == null || province.isBlank()) {
+            return null;
+        }
+        String trimmed = province.trim();
+        return CANONICAL.getOrDefault(trimmed.toLowerCase(Locale.ROOT), trimmed);
+    }
+}
@@ -0,0 +1,22 @@
+package model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Program stream dimension of the star schema, referenced by lmia_datasets.stream_id.
+ */
+@Entity
+@Table(name = "lmia_streams",
+        uniqueConstraints = @UniqueConstraint(name = "uk_streams_name", columnNames = "name"))
+@Data
+@NoArgsConstructor
+public class StreamDimension {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private String name;
+}
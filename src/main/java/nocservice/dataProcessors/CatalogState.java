@@ -0,0 +1,34 @@
+package nocservice.dataProcessors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached view of the open.canada.ca catalogue between download runs.
+ *
+ * - packages: package id -> metadata_modified and the relevant resources filtered from it
+ * - downloadedVersions: resource URL -> version that was last downloaded successfully
+ * - highWatermark: newest package metadata_modified seen, used for incremental discovery
+ */
+@Data
+@NoArgsConstructor
+public class CatalogState {
+    private Map<String, PackageEntry> packages = new HashMap<>();
+    private Map<String, String> downloadedVersions = new HashMap<>();
+    private String highWatermark;
+    private String lastSyncedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PackageEntry {
+        private String metadataModified;
+        private List<CkanResource> resources = new ArrayList<>();
+    }
+}
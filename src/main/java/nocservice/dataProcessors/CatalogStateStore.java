@@ -0,0 +1,77 @@
+package nocservice.dataProcessors;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Persists the {@link CatalogState} as a JSON file so that subsequent download runs
+ * only fetch packages and resources that changed upstream.
+ */
+@Slf4j
+@Component
+public class CatalogStateStore {
+
+    private final File stateFile;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public CatalogStateStore(@Value("${app.download.catalog-state-file:savedDatasets/catalog-state.json}") String stateFile) {
+        this.stateFile = new File(stateFile);
+    }
+
+    /**
+     * Loads the cached catalogue state. Returns an empty state if the file
+     * does not exist yet or cannot be read (a full discovery will follow).
+     */
+    public synchronized CatalogState load() {
+        if (!stateFile.exists()) {
+            log.debug("Catalog state file {} not found, starting with empty state", stateFile.getAbsolutePath());
+            return new CatalogState();
+        }
+        try {
+            return objectMapper.readValue(stateFile, CatalogState.class);
+        } catch (IOException e) {
+            log.warn("Could not read catalog state file {}, starting with empty state: {}",
+                    stateFile.getAbsolutePath(), e.getMessage());
+            return new CatalogState();
+        }
+    }
+
+    /**
+     * Records the version of a resource whose rows were loaded and persists the state immediately,
+     * so progress survives a crash part-way through a run.
+     * Files finish loading on several threads; the read-modify-write goes through this monitor.
+     */
+    public synchronized void recordDownload(String url, String version) {
+        CatalogState state = load();
+        state.getDownloadedVersions().put(url, version != null ? version : "");
+        save(state);
+    }
+
+    /**
+     * Saves the catalogue state atomically (write to temp file, then rename).
+     */
+    public synchronized void save(CatalogState state) {
+        try {
+            File parent = stateFile.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                log.error("Failed to create directory for catalog state: {}", parent.getAbsolutePath());
+                return;
+            }
+            File tempFile = new File(stateFile.getAbsolutePath() + ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile, state);
+            Files.move(tempFile.toPath(), stateFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Error writing catalog state file {}: {}", stateFile.getAbsolutePath(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package nocservice.dataProcessors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A downloadable resource (CSV/Excel file) discovered in a CKAN package.
+ * The version is the resource's last_modified stamp, falling back to the
+ * package's metadata_modified when CKAN does not report one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CkanResource {
+    private String packageId;
+    private String name;
+    private String url;
+    private String format;
+    private String version;
+}
@@ -2,6 +2,7 @@ package nocservice.dataProcessors;
 
 import lombok.extern.slf4j.Slf4j;
 import model.Dataset;
+import model.Provinces;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -37,23 +38,36 @@ public class DataParser {
     // Pattern to match: "Street, City, Province PostalCode" or "Street, City, Province  PostalCode"
     // Example: "25 Trinity Street, St. John's, NL  A1E 2M3"
     private static final Pattern ADDRESS_PATTERN = Pattern.compile("(.+?),\\s*([^,]+),\\s*([A-Z]{2})\\s+([A-Z]\\d[A-Z]\\s?\\d[A-Z]\\d)");
-    
-    // Canadian provinces and territories
-    private static final String[] PROVINCES = {
-        "Newfoundland and Labrador", "Ontario", "Quebec", "British Columbia",
-        "Alberta", "Manitoba", "Saskatchewan", "Nova Scotia",
-        "New Brunswick", "Prince Edward Island", "Yukon", "Northwest Territories",
-        "Nunavut"
-    };
-    
-    // Province abbreviations
-    private static final String[] PROVINCE_ABBREVIATIONS = {
-        "NL", "ON", "QC", "BC", "AB", "MB", "SK", "NS", "NB", "PE", "YT", "NT", "NU"
-    };
+
+    /**
+     * Parses a dataset from a stream, choosing the CSV or Excel parser by file extension.
+     * The stream is read to the end but not closed.
+     *
+     * @param content Uncompressed file content
+     * @param sourceFileName Original file name, used for format, date and status detection
+     */
+    public List<Dataset> parse(InputStream content, String sourceFileName) {
+        String lowerName = sourceFileName.toLowerCase();
+        if (lowerName.endsWith(".csv")) {
+            return parseCsv(content, sourceFileName);
+        } else if (lowerName.endsWith(".xlsx") || lowerName.endsWith(".xls")) {
+            return parseExcel(content, sourceFileName);
+        }
+        log.warn("Unsupported file format for {}, skipping", sourceFileName);
+        return new ArrayList<>();
+    }
 
     public List<Dataset> parseCsvFile(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            return parseCsv(in, file.getName());
+        } catch (IOException e) {
+            log.error("Error reading CSV file {}: {}", file.getName(), e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    public List<Dataset> parseCsv(InputStream content, String sourceFileName) {
         List<Dataset> datasets = new ArrayList<>();
-        String sourceFileName = file.getName();
         
         try {
             // Smart parsing: handle files with different structures
@@ -61,13 +75,7 @@ public class DataParser {
             // Some files have province in a column
             // Some files have headers in different rows
             
-            List<String> allLines = new ArrayList<>();
-            try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    allLines.add(line);
-                }
-            }
+            List<String> allLines = readLines(content);
             
             if (allLines.isEmpty()) {
                 log.warn("CSV file {} is empty", sourceFileName);
@@ -144,7 +152,7 @@ public class DataParser {
                 log.error("Error parsing CSV file {}: {}", sourceFileName, e.getMessage(), e);
             }
         } catch (IOException e) {
-            log.error("Error reading CSV file {}: {}", file.getName(), e.getMessage(), e);
+            log.error("Error reading CSV file {}: {}", sourceFileName, e.getMessage(), e);
         } catch (Exception e) {
             log.error("Unexpected error parsing CSV file {}: {}", sourceFileName, e.getMessage(), e);
         }
@@ -152,6 +160,19 @@ public class DataParser {
         return datasets;
     }
     
+    /**
+     * Reads all lines of a UTF-8 stream. The stream is not closed: the caller owns it.
+     */
+    private List<String> readLines(InputStream content) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+    
     /**
      * Detects the structure of a CSV file by analyzing the first lines.
      */
@@ -218,7 +239,7 @@ public class DataParser {
         }
         
         // Check for full province names
-        for (String province : PROVINCES) {
+        for (String province : Provinces.NAMES) {
             if (trimmed.equalsIgnoreCase(province) || trimmed.contains(province)) {
                 return province;
             }
@@ -226,7 +247,7 @@ public class DataParser {
         
         // Check for province abbreviations (but only if it's a standalone line)
         if (trimmed.length() <= 3) {
-            for (String abbrev : PROVINCE_ABBREVIATIONS) {
+            for (String abbrev : Provinces.ABBREVIATIONS) {
                 if (trimmed.equalsIgnoreCase(abbrev)) {
                     // Map abbreviation to full name
                     return mapAbbreviationToProvince(abbrev);
@@ -241,14 +262,7 @@ public class DataParser {
      * Maps province abbreviation to full name.
      */
     private String mapAbbreviationToProvince(String abbrev) {
-        String[] abbrevs = {"NL", "ON", "QC", "BC", "AB", "MB", "SK", "NS", "NB", "PE", "YT", "NT", "NU"};
-        String[] provinces = PROVINCES;
-        for (int i = 0; i < abbrevs.length; i++) {
-            if (abbrevs[i].equalsIgnoreCase(abbrev)) {
-                return provinces[i];
-            }
-        }
-        return abbrev;
+        return Provinces.canonicalize(abbrev);
     }
     
     /**
@@ -262,11 +276,18 @@ public class DataParser {
     }
 
     public List<Dataset> parseExcelFile(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            return parseExcel(in, file.getName());
+        } catch (IOException e) {
+            log.error("Error reading Excel file {}: {}", file.getName(), e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    public List<Dataset> parseExcel(InputStream content, String sourceFileName) {
         List<Dataset> datasets = new ArrayList<>();
-        String sourceFileName = file.getName();
         
-        try (FileInputStream fis = new FileInputStream(file);
-             Workbook workbook = new XSSFWorkbook(fis)) {
+        try (Workbook workbook = new XSSFWorkbook(content)) {
             
             Sheet sheet = workbook.getSheetAt(0);
             if (sheet.getPhysicalNumberOfRows() < 2) {
@@ -305,7 +326,7 @@ public class DataParser {
             
             log.info("Parsed {} records from Excel file {}", datasets.size(), sourceFileName);
         } catch (IOException e) {
-            log.error("Error reading Excel file {}: {}", file.getName(), e.getMessage(), e);
+            log.error("Error reading Excel file {}: {}", sourceFileName, e.getMessage(), e);
         }
         
         return datasets;
@@ -417,7 +438,9 @@ public class DataParser {
                                        Dataset.DecisionStatus.APPROVED;
         
         Dataset dataset = new Dataset();
-        dataset.setProvince(province != null ? province.trim() : "Unknown");
+        // Canonical names let searches compare the province column with '='
+        String canonicalProvince = Provinces.canonicalize(province);
+        dataset.setProvince(canonicalProvince != null ? canonicalProvince : "Unknown");
         dataset.setStream(stream != null ? stream.trim() : "Unknown");
         dataset.setEmployer(employer.trim());
         dataset.setCity(city);
@@ -533,7 +556,9 @@ public class DataParser {
                                        Dataset.DecisionStatus.APPROVED;
         
         Dataset dataset = new Dataset();
-        dataset.setProvince(province != null ? province.trim() : "Unknown");
+        // Canonical names let searches compare the province column with '='
+        String canonicalProvince = Provinces.canonicalize(province);
+        dataset.setProvince(canonicalProvince != null ? canonicalProvince : "Unknown");
         dataset.setStream(stream != null ? stream.trim() : "Unknown");
         dataset.setEmployer(employer.trim());
         dataset.setCity(city);
@@ -1,28 +1,76 @@
 package nocservice.dataProcessors;
 
+import io.micrometer.core.instrument.Timer;
 import io.restassured.response.Response;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import service.MetricsService;
 
 import jakarta.annotation.PostConstruct;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
-import static io.restassured.RestAssured.baseURI;
 import static io.restassured.RestAssured.given;
 
 @Slf4j
 @Component
 public class DatasetDownloader {
 
+    private static final String CATALOG_QUERY = "lmia";
+    private static final DateTimeFormatter SOLR_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+    private static final int CONNECT_TIMEOUT_MS = 30_000;
+    private static final int READ_TIMEOUT_MS = 120_000;
+
     private final Executor downloadTaskExecutor;
+    private final CatalogStateStore catalogStateStore;
+    private final RawDatasetStore rawDatasetStore;
+    private final MetricsService metricsService;
+    // URL -> version of files downloaded but not yet recorded as ingested
+    private final Map<String, String> pendingVersions = new ConcurrentHashMap<>();
+
+    // CKAN instance used for discovery (a local replay server can be used for offline benchmarks)
+    @Value("${app.download.ckan-base-url:https://open.canada.ca}")
+    private String ckanBaseUrl = "https://open.canada.ca";
+
+    @Value("${app.download.max-retries:3}")
+    private int maxRetries = 3;
+
+    // Initial delay between file download retries (grows 1.5x per attempt)
+    @Value("${app.download.retry-delay-ms:3000}")
+    private long retryDelayMs = 3000;
+
+    // Initial delay between package_search retries (grows 1.5x per attempt)
+    @Value("${app.download.catalog-retry-delay-ms:5000}")
+    private long catalogRetryDelayMs = 5000;
+
+    // Number of packages requested per package_search call (CKAN caps rows at 1000)
+    @Value("${app.download.catalog-page-size:100}")
+    private int catalogPageSize = 100;
+
+    // Safety limit on the number of package_search pages fetched per discovery
+    @Value("${app.download.catalog-max-pages:50}")
+    private int catalogMaxPages = 50;
     
     @Value("${app.download.use-tor:false}")
     private boolean useTor;
@@ -33,8 +81,14 @@ public class DatasetDownloader {
     @Value("${app.download.tor-proxy-port:9050}")
     private int torProxyPort;
 
-    public DatasetDownloader(@Qualifier("downloadTaskExecutor") Executor downloadTaskExecutor) {
+    public DatasetDownloader(@Qualifier("downloadTaskExecutor") Executor downloadTaskExecutor,
+                             CatalogStateStore catalogStateStore,
+                             RawDatasetStore rawDatasetStore,
+                             MetricsService metricsService) {
         this.downloadTaskExecutor = downloadTaskExecutor;
+        this.catalogStateStore = catalogStateStore;
+        this.rawDatasetStore = rawDatasetStore;
+        this.metricsService = metricsService;
     }
     
     @PostConstruct
@@ -65,28 +119,29 @@ public class DatasetDownloader {
         return headers;
     }
 
-    private Response sendRequestAndGetResponse(Map<String, String> headers) {
-        return sendRequestWithRetry(headers, 3, 5000);
+    private Response sendRequestAndGetResponse(Map<String, String> headers, Map<String, Object> queryParams) {
+        return sendRequestWithRetry(headers, queryParams, maxRetries, catalogRetryDelayMs);
     }
     
     /**
      * Sends HTTP request with retry logic for handling connection timeouts and transient errors.
      * 
      * @param headers HTTP headers
+     * @param queryParams package_search query parameters (q, fq, rows, start, sort)
      * @param maxRetries Maximum number of retry attempts
      * @param retryDelayMs Delay between retries in milliseconds
      * @return HTTP response
      */
-    private Response sendRequestWithRetry(Map<String, String> headers, int maxRetries, long retryDelayMs) {
-        baseURI = "https://open.canada.ca";
+    private Response sendRequestWithRetry(Map<String, String> headers, Map<String, Object> queryParams,
+                                          int maxRetries, long retryDelayMs) {
         Exception lastException = null;
         
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
-                log.info("Attempting to get dataset list (attempt {}/{})", attempt, maxRetries);
-                Response response = given().when()
+                log.info("Attempting to get dataset list {} (attempt {}/{})", queryParams, attempt, maxRetries);
+                Response response = given().baseUri(ckanBaseUrl).when()
                         .headers(headers)
-                        .queryParam("q", "lmia")
+                        .queryParams(queryParams)
                         .get("/data/en/api/3/action/package_search");
                 
                 log.info("Sent request to get data on LMIA datasets by NOC.");
@@ -94,12 +149,11 @@ public class DatasetDownloader {
                 // Check HTTP status code before processing
                 int statusCode = response.getStatusCode();
                 if (statusCode < 200 || statusCode >= 300) {
-                    log.error("HTTP error {} when requesting dataset list from open.canada.ca API", statusCode);
+                    log.error("HTTP error {} when requesting dataset list from CKAN API {}", statusCode, ckanBaseUrl);
                     log.debug("Response body: {}", response.prettyPrint());
                     throw new RuntimeException("Failed to retrieve dataset list: HTTP " + statusCode);
                 }
                 
-                log.debug(response.prettyPrint());
                 return response;
             } catch (Exception e) {
                 lastException = e;
@@ -125,234 +179,386 @@ public class DatasetDownloader {
         throw new RuntimeException("Failed to retrieve dataset list after " + maxRetries + " attempts", lastException);
     }
 
-    private List<String> parseResponseAndExtractLinks(Response response) {
-        List<String> urls = new ArrayList<>();
-        
-        // Verify response is successful before parsing JSON
-        if (response.getStatusCode() < 200 || response.getStatusCode() >= 300) {
-            log.error("Cannot parse response: HTTP status code {}", response.getStatusCode());
-            return urls; // Return empty list
+    /**
+     * Fetches all packages matching the LMIA query, following rows/start pagination
+     * until result.count packages have been read.
+     * 
+     * @param modifiedSince Only return packages with metadata_modified at or after this
+     *                      CKAN timestamp (null for a full catalogue scan)
+     * @return Raw package metadata as returned by package_search
+     */
+    private List<LinkedHashMap<String, Object>> fetchPackages(String modifiedSince) {
+        Map<String, String> headers = createHeaders();
+        List<LinkedHashMap<String, Object>> packages = new ArrayList<>();
+        int start = 0;
+
+        for (int page = 0; page < catalogMaxPages; page++) {
+            Map<String, Object> queryParams = new LinkedHashMap<>();
+            queryParams.put("q", CATALOG_QUERY);
+            if (modifiedSince != null) {
+                queryParams.put("fq", "metadata_modified:[" + toSolrDate(modifiedSince, false) + " TO *]");
+            }
+            // Stable ordering so that pages do not shift while we read them
+            queryParams.put("sort", "metadata_modified asc");
+            queryParams.put("rows", catalogPageSize);
+            queryParams.put("start", start);
+
+            Response response = sendRequestAndGetResponse(headers, queryParams);
+            int total = response.jsonPath().getInt("result.count");
+            List<LinkedHashMap<String, Object>> results = response.jsonPath().getList("result.results");
+            if (results == null || results.isEmpty()) {
+                break;
+            }
+
+            packages.addAll(results);
+            start += results.size();
+            log.debug("Fetched catalogue page {}: {} packages ({} of {})", page + 1, results.size(), start, total);
+            if (start >= total) {
+                return packages;
+            }
         }
-        
-        try {
-            // Get all results from the API response
-            List<LinkedHashMap<String, Object>> results = response.jsonPath().get("result.results");
-            log.debug("Found {} datasets in API response", results != null ? results.size() : 0);
-            
-            if (results != null) {
-                for (LinkedHashMap<String, Object> dataset : results) {
-                    // Get resources from each dataset
-                    Object resourcesObj = dataset.get("resources");
-                    if (resourcesObj == null) {
-                        continue;
-                    }
-                    
-                    List<LinkedHashMap<String, Object>> resources;
-                    if (resourcesObj instanceof List) {
-                        @SuppressWarnings("unchecked")
-                        List<LinkedHashMap<String, Object>> resourcesList = (List<LinkedHashMap<String, Object>>) resourcesObj;
-                        resources = resourcesList;
-                    } else {
-                        continue;
-                    }
-                    
-                    if (resources != null) {
-                        for (LinkedHashMap<String, Object> r : resources) {
-                            Object nameObj = r.get("name");
-                            Object urlObj = r.get("url");
-                            Object formatObj = r.get("format");
-                            
-                            // Null check for name and url fields
-                            if (nameObj == null || urlObj == null) {
-                                log.debug("Skipping resource with missing name or url field");
-                                continue;
-                            }
-                            
-                            String name = nameObj.toString();
-                            String format = formatObj != null ? formatObj.toString().toUpperCase() : "";
-                            String lcase = name.toLowerCase();
-                            String urlString = urlObj.toString().toLowerCase();
-                            
-                            // Filter for CSV/Excel files related to LMIA/NOC, English only
-                            // Check if it's a data file (CSV, Excel, or XLS) and contains relevant keywords
-                            boolean isDataFile = format.equals("CSV") || format.equals("XLSX") || format.equals("XLS") ||
-                                               lcase.endsWith(".csv") || lcase.endsWith(".xlsx") || lcase.endsWith(".xls") ||
-                                               urlString.endsWith(".csv") || urlString.endsWith(".xlsx") || urlString.endsWith(".xls");
-                            
-                            // Check for English (must contain "en" and NOT contain French indicators)
-                            // Exclude French files: check for "_fr", "/fr/", or "_f" before file extension (e.g., "file_f.csv")
-                            // Also check for files ending with "_f." before extension
-                            boolean hasFrenchIndicator = lcase.contains("_fr") || urlString.contains("_fr") || 
-                                                         urlString.contains("/fr/") ||
-                                                         (lcase.contains("_f.") && (lcase.endsWith(".csv") || lcase.endsWith(".xlsx") || lcase.endsWith(".xls"))) ||
-                                                         (urlString.contains("_f.") && (urlString.endsWith(".csv") || urlString.endsWith(".xlsx") || urlString.endsWith(".xls")));
-                            boolean isEnglish = (lcase.contains("en") || urlString.contains("_en") || urlString.contains("/en/")) &&
-                                              !hasFrenchIndicator;
-                            
-                            // Check if relevant to LMIA/NOC/TFWP
-                            boolean isRelevant = (lcase.contains("noc") || lcase.contains("lmia") || lcase.contains("tfwp") || 
-                                                 urlString.contains("noc") || urlString.contains("lmia") || urlString.contains("tfwp"));
-                            
-                            if (isDataFile && isEnglish && isRelevant) {
-                                log.info("Found file to download: {} (format: {})", name, format);
-                                urls.add(urlObj.toString());
-                            }
-                        }
-                    }
+
+        if (packages.size() >= catalogMaxPages * catalogPageSize) {
+            log.warn("Stopped catalogue discovery after {} pages; increase app.download.catalog-max-pages", catalogMaxPages);
+        }
+        return packages;
+    }
+
+    /**
+     * Extracts relevant (English LMIA/NOC CSV and Excel) resources from a package.
+     */
+    private List<CkanResource> extractRelevantResources(Map<String, Object> dataset) {
+        List<CkanResource> relevant = new ArrayList<>();
+        String packageId = Objects.toString(dataset.get("id"), null);
+        String packageModified = Objects.toString(dataset.get("metadata_modified"), null);
+
+        // Get resources from each dataset
+        Object resourcesObj = dataset.get("resources");
+        if (!(resourcesObj instanceof List)) {
+            return relevant;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<LinkedHashMap<String, Object>> resources = (List<LinkedHashMap<String, Object>>) resourcesObj;
+        for (LinkedHashMap<String, Object> r : resources) {
+            Object nameObj = r.get("name");
+            Object urlObj = r.get("url");
+            Object formatObj = r.get("format");
+
+            // Null check for name and url fields
+            if (nameObj == null || urlObj == null) {
+                log.debug("Skipping resource with missing name or url field");
+                continue;
+            }
+
+            String name = nameObj.toString();
+            String format = formatObj != null ? formatObj.toString().toUpperCase() : "";
+            if (isRelevantResource(name, urlObj.toString(), format)) {
+                Object lastModified = r.get("last_modified") != null ? r.get("last_modified") : r.get("metadata_modified");
+                String version = lastModified != null ? lastModified.toString() : packageModified;
+                log.info("Found file to download: {} (format: {})", name, format);
+                relevant.add(new CkanResource(packageId, name, urlObj.toString(), format, version));
+            }
+        }
+        return relevant;
+    }
+
+    private boolean isRelevantResource(String name, String url, String format) {
+        String lcase = name.toLowerCase();
+        String urlString = url.toLowerCase();
+
+        // Filter for CSV/Excel files related to LMIA/NOC, English only
+        // Check if it's a data file (CSV, Excel, or XLS) and contains relevant keywords
+        boolean isDataFile = format.equals("CSV") || format.equals("XLSX") || format.equals("XLS") ||
+                           lcase.endsWith(".csv") || lcase.endsWith(".xlsx") || lcase.endsWith(".xls") ||
+                           urlString.endsWith(".csv") || urlString.endsWith(".xlsx") || urlString.endsWith(".xls");
+
+        // Check for English (must contain "en" and NOT contain French indicators)
+        // Exclude French files: check for "_fr", "/fr/", or "_f" before file extension (e.g., "file_f.csv")
+        // Also check for files ending with "_f." before extension
+        boolean hasFrenchIndicator = lcase.contains("_fr") || urlString.contains("_fr") || 
+                                     urlString.contains("/fr/") ||
+                                     (lcase.contains("_f.") && (lcase.endsWith(".csv") || lcase.endsWith(".xlsx") || lcase.endsWith(".xls"))) ||
+                                     (urlString.contains("_f.") && (urlString.endsWith(".csv") || urlString.endsWith(".xlsx") || urlString.endsWith(".xls")));
+        boolean isEnglish = (lcase.contains("en") || urlString.contains("_en") || urlString.contains("/en/")) &&
+                          !hasFrenchIndicator;
+
+        // Check if relevant to LMIA/NOC/TFWP
+        boolean isRelevant = (lcase.contains("noc") || lcase.contains("lmia") || lcase.contains("tfwp") || 
+                             urlString.contains("noc") || urlString.contains("lmia") || urlString.contains("tfwp"));
+
+        return isDataFile && isEnglish && isRelevant;
+    }
+
+    /**
+     * Discovers resources that need to be downloaded.
+     * 
+     * Only packages modified since the cached high watermark are requested from CKAN; packages
+     * whose metadata_modified is unchanged reuse their cached resource list without re-filtering.
+     * A resource is returned when its version differs from the last downloaded version or it
+     * is missing from the raw store (e.g. a previous download failed).
+     * 
+     * @param state Cached catalogue state, updated in place with new package metadata
+     * @return Resources that changed since the last run
+     */
+    private List<CkanResource> discoverChangedResources(CatalogState state) {
+        String since = state.getPackages().isEmpty() ? null : state.getHighWatermark();
+        List<LinkedHashMap<String, Object>> packages = fetchPackages(since);
+        log.info("Catalogue discovery returned {} packages modified since {}", packages.size(),
+                since != null ? since : "the beginning");
+
+        int changedPackages = 0;
+        for (LinkedHashMap<String, Object> dataset : packages) {
+            String packageId = Objects.toString(dataset.get("id"), null);
+            String modified = Objects.toString(dataset.get("metadata_modified"), null);
+            if (packageId == null) {
+                continue;
+            }
+
+            CatalogState.PackageEntry cached = state.getPackages().get(packageId);
+            if (cached == null || !Objects.equals(cached.getMetadataModified(), modified)) {
+                state.getPackages().put(packageId, new CatalogState.PackageEntry(modified, extractRelevantResources(dataset)));
+                changedPackages++;
+            }
+            if (modified != null && (state.getHighWatermark() == null || isAfter(modified, state.getHighWatermark()))) {
+                state.setHighWatermark(modified);
+            }
+        }
+        log.info("{} packages changed since last run", changedPackages);
+
+        List<CkanResource> changed = new ArrayList<>();
+        for (CatalogState.PackageEntry entry : state.getPackages().values()) {
+            for (CkanResource resource : entry.getResources()) {
+                String downloadedVersion = state.getDownloadedVersions().get(resource.getUrl());
+                boolean versionChanged = !Objects.equals(downloadedVersion, resource.getVersion());
+                boolean missingLocally = rawDatasetStore.findByUrl(resource.getUrl()).isEmpty();
+                if (versionChanged || missingLocally) {
+                    changed.add(resource);
                 }
             }
-        } catch (Exception e) {
-            log.error("Error parsing JSON response from API: {}", e.getMessage(), e);
-            log.debug("Response body: {}", response.prettyPrint());
         }
+        return changed;
+    }
+
+    /**
+     * Cheap freshness probe: asks CKAN how many LMIA packages were modified after the
+     * cached high watermark without fetching any package bodies (rows=0).
+     * 
+     * @return Freshness information for health checks
+     */
+    public CatalogFreshness checkCatalogFreshness() {
+        CatalogState state = catalogStateStore.load();
+        Map<String, Object> queryParams = new LinkedHashMap<>();
+        queryParams.put("q", CATALOG_QUERY);
+        if (state.getHighWatermark() != null) {
+            queryParams.put("fq", "metadata_modified:[" + toSolrDate(state.getHighWatermark(), true) + " TO *]");
+        }
+        queryParams.put("rows", 0);
 
-        return urls;
+        Response response = sendRequestAndGetResponse(createHeaders(), queryParams);
+        int pendingPackages = response.jsonPath().getInt("result.count");
+        return new CatalogFreshness(pendingPackages, state.getHighWatermark(), state.getLastSyncedAt());
     }
 
-    private List<String> getCsvFilesLinks() {
-        Map<String, String> headers = createHeaders();
-        Response response = sendRequestAndGetResponse(headers);
-        return parseResponseAndExtractLinks(response);
+    /**
+     * Converts a CKAN metadata_modified timestamp (UTC, no zone suffix) into Solr date syntax.
+     * Timestamps are truncated to milliseconds; exclusive bounds start one millisecond later.
+     */
+    private String toSolrDate(String ckanTimestamp, boolean exclusive) {
+        Instant instant = LocalDateTime.parse(ckanTimestamp).toInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS);
+        if (exclusive) {
+            instant = instant.plusMillis(1);
+        }
+        return SOLR_DATE_FORMAT.format(instant.atOffset(ZoneOffset.UTC));
     }
 
-    private void writeToFile(byte[] fileContents, File outputFile) {
-        try (FileOutputStream outStream = new FileOutputStream(outputFile)) {
-            outStream.write(fileContents);
-            log.info(String.format("Writing to file %s", outputFile.getAbsolutePath()));
+    private boolean isAfter(String ckanTimestamp, String other) {
+        try {
+            return LocalDateTime.parse(ckanTimestamp).isAfter(LocalDateTime.parse(other));
         } catch (Exception e) {
-            log.info(String.format("Error writing to file %s", outputFile.getAbsolutePath()), e);
+            return ckanTimestamp.compareTo(other) > 0;
         }
     }
 
+    private String fileNameFor(String url) {
+        String fileName = url.substring(url.lastIndexOf('/') + 1);
+        // Clean filename from query parameters
+        if (fileName.contains("?")) {
+            fileName = fileName.substring(0, fileName.indexOf('?'));
+        }
+        return fileName;
+    }
+
     /**
      * Downloads files asynchronously and in parallel for improved performance.
      * Multiple files are downloaded concurrently using CompletableFuture.
+     * Only resources that changed since the previous run are downloaded.
+     */
+    public void downloadFiles() {
+        List<CompletableFuture<RawDatasetStore.Entry>> downloadTasks = downloadFilesAsync();
+        
+        // Wait for all downloads to complete (including rejected ones)
+        // Failed futures are already logged and counted, so swallow their exceptions here
+        CompletableFuture.allOf(downloadTasks.toArray(new CompletableFuture[0]))
+                .exceptionally(ex -> null)
+                .join();
+    }
+
+    /**
+     * Starts downloading all changed files and returns one future per file without waiting.
+     * Each future completes with the raw store entry as soon as that file is stored, or
+     * exceptionally if that file could not be downloaded, so callers can start processing
+     * files while other downloads are still in flight.
+     * 
+     * A downloaded file's version is not recorded yet: callers record it with
+     * {@link #recordIngested} once its rows are committed, so a file that fails to load is
+     * downloaded and loaded again on the next run.
      * 
-     * @param outputDirectory Directory where files will be saved
+     * @return One future per changed file (empty if nothing changed)
      */
-    public void downloadFiles(File outputDirectory) {
-        if (!outputDirectory.exists()) {
-            boolean created = outputDirectory.mkdirs();
-            if (!created) {
-                log.error("Failed to create output directory: {}", outputDirectory.getAbsolutePath());
-                return;
-            }
-        }
+    public List<CompletableFuture<RawDatasetStore.Entry>> downloadFilesAsync() {
+        CatalogState state = catalogStateStore.load();
+        List<CkanResource> resources = discoverChangedResources(state);
+        state.setLastSyncedAt(Instant.now().toString());
+        catalogStateStore.save(state);
         
-        List<String> urls = getCsvFilesLinks();
-        log.info("Found {} files to download. Starting parallel download...", urls.size());
+        int totalResources = state.getPackages().values().stream().mapToInt(p -> p.getResources().size()).sum();
+        log.info("Found {} changed files to download ({} unchanged). Starting parallel download...",
+                resources.size(), totalResources - resources.size());
         
-        if (urls.isEmpty()) {
-            log.warn("No files to download");
-            return;
+        if (resources.isEmpty()) {
+            return List.of();
         }
         
         AtomicInteger successCount = new AtomicInteger(0);
         AtomicInteger errorCount = new AtomicInteger(0);
-        AtomicInteger skippedCount = new AtomicInteger(0);
         
         // Create parallel download tasks using the configured downloadTaskExecutor
         // This ensures the thread pool size, max pool size, and queue capacity settings are respected
-        List<CompletableFuture<Void>> downloadTasks = urls.stream()
-                .map(url -> {
+        List<CompletableFuture<RawDatasetStore.Entry>> downloadTasks = resources.stream()
+                .map(resource -> {
+                    String url = resource.getUrl();
+                    long queuedAt = System.nanoTime();
                     try {
-                        return CompletableFuture.runAsync(() -> {
+                        return CompletableFuture.supplyAsync(() -> {
+                            metricsService.recordDownloadQueueWait(System.nanoTime() - queuedAt);
+                            Timer.Sample sample = metricsService.startDownloadTimer();
+                            RawDatasetStore.Entry entry;
                             try {
-                                downloadSingleFile(url, outputDirectory, successCount, errorCount, skippedCount);
-                            } catch (Exception e) {
-                                errorCount.incrementAndGet();
-                                log.error("Error downloading file from URL {}: {}", url, e.getMessage(), e);
+                                entry = downloadSingleFile(url, successCount, errorCount);
+                            } finally {
+                                metricsService.stopDownloadTimer(sample);
                             }
+                            if (entry == null) {
+                                throw new IllegalStateException("Download failed for URL " + url);
+                            }
+                            pendingVersions.put(url, resource.getVersion() != null ? resource.getVersion() : "");
+                            return entry;
                         }, downloadTaskExecutor);
                     } catch (java.util.concurrent.RejectedExecutionException e) {
                         // If task is rejected, create a completed future with error
                         errorCount.incrementAndGet();
+                        metricsService.recordDownloadRejected();
+                        metricsService.recordFileDownload(false);
                         log.warn("Download task rejected for URL {} (queue full): {}", url, e.getMessage());
-                        CompletableFuture<Void> rejected = new CompletableFuture<>();
+                        CompletableFuture<RawDatasetStore.Entry> rejected = new CompletableFuture<>();
                         rejected.completeExceptionally(e);
                         return rejected;
                     }
                 })
                 .collect(Collectors.toList());
         
-        // Wait for all downloads to complete (including rejected ones)
-        CompletableFuture.allOf(downloadTasks.toArray(new CompletableFuture[0])).join();
+        CompletableFuture.allOf(downloadTasks.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, ex) -> log.info("Download completed. Success: {}, Errors: {}, Total: {}", 
+                        successCount.get(), errorCount.get(), resources.size()));
         
-        log.info("Download completed. Success: {}, Errors: {}, Skipped: {}, Total: {}", 
-                successCount.get(), errorCount.get(), skippedCount.get(), urls.size());
+        return downloadTasks;
+    }
+    
+    /**
+     * Records the resource version the file was downloaded at, so later runs skip it until it
+     * changes upstream. Call only after the file's rows are committed.
+     * 
+     * @param entry Entry returned by a download future of {@link #downloadFilesAsync}
+     */
+    public void recordIngested(RawDatasetStore.Entry entry) {
+        String version = pendingVersions.remove(entry.getUrl());
+        if (version != null) {
+            catalogStateStore.recordDownload(entry.getUrl(), version);
+        }
     }
     
     /**
      * Downloads a single file from the given URL with retry logic.
      * 
      * @param url URL to download from
-     * @param outputDirectory Directory to save the file
      * @param successCount Counter for successful downloads
      * @param errorCount Counter for failed downloads
-     * @param skippedCount Counter for skipped downloads (already exists)
+     * @return Raw store entry, or null if the download failed
      */
-    private void downloadSingleFile(String url, File outputDirectory, 
-                                   AtomicInteger successCount, 
-                                   AtomicInteger errorCount, 
-                                   AtomicInteger skippedCount) {
-        downloadSingleFileWithRetry(url, outputDirectory, successCount, errorCount, skippedCount, 3, 3000);
+    private RawDatasetStore.Entry downloadSingleFile(String url, AtomicInteger successCount, AtomicInteger errorCount) {
+        return downloadSingleFileWithRetry(url, successCount, errorCount, maxRetries, retryDelayMs);
     }
     
     /**
      * Downloads a single file from the given URL with retry logic.
+     * The response body is streamed straight into the raw store (hashed and compressed
+     * on the fly) instead of being buffered in memory.
      * 
      * @param url URL to download from
-     * @param outputDirectory Directory to save the file
      * @param successCount Counter for successful downloads
      * @param errorCount Counter for failed downloads
-     * @param skippedCount Counter for skipped downloads (already exists)
      * @param maxRetries Maximum number of retry attempts
      * @param retryDelayMs Initial delay between retries in milliseconds
+     * @return Raw store entry, or null if the download failed
      */
-    private void downloadSingleFileWithRetry(String url, File outputDirectory, 
-                                            AtomicInteger successCount, 
-                                            AtomicInteger errorCount, 
-                                            AtomicInteger skippedCount,
-                                            int maxRetries,
-                                            long retryDelayMs) {
-        String fileName = url.substring(url.lastIndexOf('/') + 1);
-        // Clean filename from query parameters
-        if (fileName.contains("?")) {
-            fileName = fileName.substring(0, fileName.indexOf('?'));
-        }
-        File outputFile = new File(outputDirectory, fileName);
-        
-        // Skip if file already exists
-        if (outputFile.exists()) {
-            log.debug("File already exists, skipping: {}", fileName);
-            skippedCount.incrementAndGet();
-            return;
-        }
-        
+    private RawDatasetStore.Entry downloadSingleFileWithRetry(String url, 
+                                                              AtomicInteger successCount, 
+                                                              AtomicInteger errorCount, 
+                                                              int maxRetries,
+                                                              long retryDelayMs) {
+        String fileName = fileNameFor(url);
         Exception lastException = null;
         long currentRetryDelay = retryDelayMs;
         
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            HttpURLConnection connection = null;
+            long requestStarted = System.nanoTime();
             try {
                 if (attempt > 1) {
                     log.debug("Retrying download of {} (attempt {}/{})", fileName, attempt, maxRetries);
                 }
                 
-                Response response = given().when().get(url);
+                // HttpURLConnection honours the SOCKS system properties set for Tor
+                connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                connection.setReadTimeout(READ_TIMEOUT_MS);
+                connection.setRequestProperty("User-Agent", createHeaders().get("User-Agent"));
+                connection.setRequestProperty("Accept", "*/*");
                 
                 // Check HTTP status code before processing
-                int statusCode = response.getStatusCode();
+                int statusCode = connection.getResponseCode();
+                metricsService.recordDownloadTimeToFirstByte(System.nanoTime() - requestStarted);
+                if (statusCode >= 500 || statusCode == 429) {
+                    // Server-side or throttling errors are transient: go through the retry path
+                    throw new TransientHttpException(statusCode);
+                }
                 if (statusCode < 200 || statusCode >= 300) {
                     log.warn("HTTP error {} when downloading file from URL: {}. Skipping.", statusCode, url);
                     errorCount.incrementAndGet();
-                    return;
+                    metricsService.recordFileDownload(false);
+                    return null;
                 }
                 
-                byte[] fileContents = response.asByteArray();
-                writeToFile(fileContents, outputFile);
+                RawDatasetStore.Entry entry;
+                try (InputStream in = connection.getInputStream()) {
+                    entry = rawDatasetStore.store(url, fileName, in);
+                }
+                metricsService.recordDownloadTransfer(entry.getSize(), System.nanoTime() - requestStarted);
+                metricsService.recordFileDownload(true);
                 successCount.incrementAndGet();
                 log.debug("Successfully downloaded: {}", fileName);
-                return; // Success, exit method
+                return entry; // Success, exit method
                 
             } catch (Exception e) {
                 lastException = e;
@@ -361,22 +567,69 @@ public class DatasetDownloader {
                 if (attempt < maxRetries) {
                     log.warn("Error downloading {} (attempt {}/{}): {}. Retrying in {} ms...", 
                             fileName, attempt, maxRetries, errorMsg, currentRetryDelay);
+                    metricsService.recordDownloadRetry(retryCause(e));
                     try {
                         Thread.sleep(currentRetryDelay);
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
                         errorCount.incrementAndGet();
+                        metricsService.recordFileDownload(false);
                         log.error("Interrupted during retry delay for {}", fileName);
-                        return;
+                        return null;
                     }
                     // Exponential backoff: increase delay for next retry
                     currentRetryDelay = (long) (currentRetryDelay * 1.5);
                 } else {
                     errorCount.incrementAndGet();
+                    metricsService.recordFileDownload(false);
                     log.error("Error downloading file from URL {} after {} attempts: {}", 
                             url, maxRetries, errorMsg, lastException);
                 }
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
             }
         }
+        return null;
+    }
+
+    /**
+     * Maps a download failure to a low-cardinality retry cause for metrics.
+     */
+    private static String retryCause(Exception e) {
+        if (e instanceof TransientHttpException httpException) {
+            return "http_" + httpException.statusCode;
+        } else if (e instanceof SocketTimeoutException) {
+            return "timeout";
+        } else if (e instanceof ConnectException || e instanceof UnknownHostException) {
+            return "connection";
+        } else if (e instanceof IOException) {
+            return "io";
+        }
+        return "other";
+    }
+
+    /**
+     * HTTP status that is worth retrying (5xx or 429).
+     */
+    private static class TransientHttpException extends IOException {
+        private final int statusCode;
+
+        private TransientHttpException(int statusCode) {
+            super("HTTP " + statusCode);
+            this.statusCode = statusCode;
+        }
+    }
+
+    /**
+     * Result of a catalogue freshness probe.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CatalogFreshness {
+        private final int pendingPackages;
+        private final String highWatermark;
+        private final String lastSyncedAt;
     }
 }
\ No newline at end of file
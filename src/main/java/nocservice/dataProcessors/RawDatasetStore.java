@@ -0,0 +1,229 @@
+package nocservice.dataProcessors;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store for raw downloaded dataset files.
+ *
+ * Files are gzip-compressed and stored under their SHA-256 (blobs/ab/abcdef...gz), so
+ * identical content downloaded from different URLs is stored once and two URLs ending
+ * in the same file name no longer overwrite each other. index.json maps each source URL
+ * to its blob and original file name.
+ */
+@Slf4j
+@Component
+public class RawDatasetStore {
+
+    private static final String LEGACY_URL_PREFIX = "legacy:";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File rootDirectory;
+    private final File blobDirectory;
+    private final File indexFile;
+    private final File legacyDirectory;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // source URL -> stored entry
+    private Map<String, Entry> index = new LinkedHashMap<>();
+
+    public RawDatasetStore(@Value("${app.raw-store.directory:savedDatasets/raw}") String rootDirectory,
+                           @Value("${app.raw-store.legacy-directory:savedDatasets/NOCs}") String legacyDirectory) {
+        this.rootDirectory = new File(rootDirectory);
+        this.blobDirectory = new File(this.rootDirectory, "blobs");
+        this.indexFile = new File(this.rootDirectory, "index.json");
+        this.legacyDirectory = new File(legacyDirectory);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        loadIndex();
+        importLegacyFiles();
+    }
+
+    /**
+     * Streams content into the store. The content is hashed and compressed in a single pass
+     * into a temporary file, which is then moved to its content address (or discarded if a
+     * blob with the same hash already exists).
+     *
+     * @param url Source URL (the index key)
+     * @param originalName Original file name, used by the parser for date and status detection
+     * @param content Uncompressed content, read to the end but not closed
+     * @return Index entry for the stored content
+     */
+    public Entry store(String url, String originalName, InputStream content) throws IOException {
+        if (!blobDirectory.exists() && !blobDirectory.mkdirs() && !blobDirectory.exists()) {
+            throw new IOException("Failed to create raw store directory: " + blobDirectory.getAbsolutePath());
+        }
+
+        File tempFile = File.createTempFile("download-", ".tmp", blobDirectory);
+        try {
+            MessageDigest digest = newDigest();
+            long size = 0;
+            try (OutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE), BUFFER_SIZE);
+                 DigestOutputStream out = new DigestOutputStream(gzip, digest)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            File blob = blobFile(sha256);
+            if (blob.exists()) {
+                log.debug("Content of {} already stored as {}, skipping duplicate blob", originalName, sha256);
+            } else {
+                File parent = blob.getParentFile();
+                if (!parent.exists() && !parent.mkdirs() && !parent.exists()) {
+                    throw new IOException("Failed to create blob directory: " + parent.getAbsolutePath());
+                }
+                try {
+                    Files.move(tempFile.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same content finished downloading on another thread first
+                    log.debug("Blob {} was stored concurrently, keeping existing copy", sha256);
+                }
+            }
+
+            Entry entry = new Entry(url, originalName, sha256, size, blob.length(), Instant.now().toString());
+            synchronized (this) {
+                index.put(url, entry);
+                saveIndex();
+            }
+            log.info("Stored {} ({} bytes, {} compressed) as {}", originalName, size, entry.getCompressedSize(), sha256);
+            return entry;
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Opens a streaming, decompressing reader over a stored blob.
+     */
+    public InputStream open(Entry entry) throws IOException {
+        return new GZIPInputStream(new FileInputStream(blobFile(entry.getSha256())), BUFFER_SIZE);
+    }
+
+    public synchronized Optional<Entry> findByUrl(String url) {
+        return Optional.ofNullable(index.get(url));
+    }
+
+    /**
+     * Returns one entry per distinct blob, so content stored under several URLs is listed once.
+     */
+    public synchronized List<Entry> distinctEntries() {
+        Map<String, Entry> byHash = new LinkedHashMap<>();
+        for (Entry entry : index.values()) {
+            byHash.putIfAbsent(entry.getSha256(), entry);
+        }
+        return new ArrayList<>(byHash.values());
+    }
+
+    private File blobFile(String sha256) {
+        return new File(new File(blobDirectory, sha256.substring(0, 2)), sha256 + ".gz");
+    }
+
+    private synchronized void loadIndex() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        try {
+            Index stored = objectMapper.readValue(indexFile, Index.class);
+            index = new LinkedHashMap<>(stored.getEntries());
+            log.info("Loaded raw dataset store index with {} entries", index.size());
+        } catch (IOException e) {
+            log.error("Could not read raw store index {}: {}", indexFile.getAbsolutePath(), e.getMessage(), e);
+        }
+    }
+
+    private void saveIndex() {
+        try {
+            File tempFile = new File(indexFile.getAbsolutePath() + ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile, new Index(index));
+            Files.move(tempFile.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Error writing raw store index {}: {}", indexFile.getAbsolutePath(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Imports uncompressed files from the old savedDatasets/NOCs layout once.
+     * The original files are left in place and can be deleted after the import.
+     */
+    private void importLegacyFiles() {
+        File[] files = legacyDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        int imported = 0;
+        for (File file : files) {
+            String url = LEGACY_URL_PREFIX + file.getName();
+            if (!file.isFile() || findByUrl(url).isPresent()) {
+                continue;
+            }
+            try (InputStream in = new FileInputStream(file)) {
+                store(url, file.getName(), in);
+                imported++;
+            } catch (IOException e) {
+                log.warn("Could not import legacy dataset file {}: {}", file.getName(), e.getMessage());
+            }
+        }
+        if (imported > 0) {
+            log.info("Imported {} files from {} into the raw dataset store; the originals can be removed",
+                    imported, legacyDirectory.getAbsolutePath());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A stored file: where it came from and which blob holds its content.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String url;
+        private String originalName;
+        private String sha256;
+        private long size;
+        private long compressedSize;
+        private String storedAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Index {
+        private Map<String, Entry> entries = new LinkedHashMap<>();
+    }
+}
@@ -2,33 +2,61 @@ package org.example;
 
 import nocservice.dataProcessors.DataParser;
 import nocservice.dataProcessors.DatasetDownloader;
+import nocservice.dataProcessors.RawDatasetStore;
 import lombok.extern.slf4j.Slf4j;
 import model.Dataset;
+import model.EmployerKeys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import repository.DatasetRepository;
+import service.DatasetsChangedEvent;
+import service.DimensionCache;
+import service.IngestionFinishedEvent;
+import service.IngestionStartedEvent;
+import service.PartitionManager;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
 public class AppBody {
 
+    private static final String DOWNLOAD_RUN = "download";
+    private static final String STORED_FILES_RUN = "stored files";
+
     @Autowired
     private DatasetRepository datasetRepository;
 
-    private static final File OUTPUT_DIRECTORY = new File("savedDatasets/NOCs/");
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private PartitionManager partitionManager;
 
     private final DatasetDownloader datasetDownloader;
     private final DataParser dataParser;
+    private final RawDatasetStore rawDatasetStore;
     private final Executor downloadTaskExecutor;
+    private final Executor ingestTaskExecutor;
     
     // Self-injection to ensure Spring AOP proxy is used for @Transactional methods
     // @Lazy breaks the circular dependency cycle
@@ -39,76 +67,101 @@ public class AppBody {
     @Autowired
     public AppBody(DatasetDownloader datasetDownloader, 
                    DataParser dataParser,
-                   @Qualifier("downloadTaskExecutor") Executor downloadTaskExecutor) {
+                   RawDatasetStore rawDatasetStore,
+                   @Qualifier("downloadTaskExecutor") Executor downloadTaskExecutor,
+                   @Qualifier("ingestTaskExecutor") Executor ingestTaskExecutor) {
         this.datasetDownloader = datasetDownloader;
         this.dataParser = dataParser;
+        this.rawDatasetStore = rawDatasetStore;
         this.downloadTaskExecutor = downloadTaskExecutor;
+        this.ingestTaskExecutor = ingestTaskExecutor;
     }
 
     /**
      * Downloads datasets from open.canada.ca and processes them asynchronously.
-     * Note: This method is NOT transactional because it performs file I/O operations
-     * (network downloads and file writes) which should not hold database connections.
-     * Only processAndSaveDatasets() handles database transactions.
+     * Note: This method is NOT transactional because it performs I/O operations
+     * (network downloads and raw store writes) which should not hold database connections.
+     * Only saveNewDatasets() handles database transactions.
      * Uses self-injection to ensure @Transactional annotation is properly applied via Spring AOP proxy.
      * 
-     * Processing is guaranteed to run even if download encounters errors, as long as some files were downloaded.
+     * Download, parse and load are pipelined per file: as soon as one file finishes downloading
+     * it is parsed and saved on the ingest executor while other downloads are still running.
+     * Each file has its own end-to-end future, so a failed download or a failed load only
+     * affects that file.
      * 
-     * This method manually creates and manages a CompletableFuture instead of using @Async,
-     * which allows proper async execution and correct future completion tracking.
+     * If catalogue discovery fails, any previously downloaded files are processed instead.
      * 
-     * @return CompletableFuture that completes when download and processing are finished
+     * @return CompletableFuture that completes when every file has been downloaded and processed
      */
     public CompletableFuture<Void> downloadDatasetsAsync() {
         log.info("Starting async dataset download process...");
+        // Unchanged files are normally skipped; an empty database needs them ingested again
+        boolean reingestUnchanged = datasetRepository.count() == 0;
+        eventPublisher.publishEvent(new IngestionStartedEvent(DOWNLOAD_RUN));
         
-        // Create a CompletableFuture that will be completed asynchronously
-        CompletableFuture<Void> future = new CompletableFuture<>();
+        return CompletableFuture
+                .supplyAsync(datasetDownloader::downloadFilesAsync, downloadTaskExecutor)
+                .thenCompose(downloads -> runIngestionPipeline(downloads, reingestUnchanged))
+                .exceptionally(ex -> {
+                    // Discovery failed: still process files downloaded by earlier runs
+                    log.warn("Download encountered errors, but will attempt to process any downloaded files: {}", ex.getMessage());
+                    self.processAndSaveDatasets();
+                    return null;
+                })
+                .whenComplete((result, ex) -> eventPublisher.publishEvent(new IngestionFinishedEvent(DOWNLOAD_RUN)));
+    }
+    
+    /**
+     * Chains parse and load stages onto each download future and waits for all of them.
+     * 
+     * @param downloads One future per file being downloaded
+     * @param reingestUnchanged Whether stored files that did not change upstream should be ingested too
+     * @return Future that completes when every file pipeline has finished (successfully or not)
+     */
+    private CompletableFuture<Void> runIngestionPipeline(List<CompletableFuture<RawDatasetStore.Entry>> downloads,
+                                                         boolean reingestUnchanged) {
+        AtomicInteger filesProcessed = new AtomicInteger(0);
+        AtomicInteger filesWithErrors = new AtomicInteger(0);
+        AtomicInteger totalParsed = new AtomicInteger(0);
+        AtomicInteger totalSaved = new AtomicInteger(0);
+        Set<String> pipelinedHashes = ConcurrentHashMap.newKeySet();
         
-        // Execute the work asynchronously using the configured executor
-        downloadTaskExecutor.execute(() -> {
-            boolean downloadSucceeded = false;
-            Exception downloadError = null;
-            
-            try {
-                datasetDownloader.downloadFiles(OUTPUT_DIRECTORY);
-                downloadSucceeded = true;
-                log.info("Download completed successfully. Starting data processing...");
-            } catch (Exception e) {
-                downloadError = e;
-                log.warn("Download encountered errors, but will attempt to process any downloaded files: {}", e.getMessage());
-            }
-            
-            // Always attempt processing, even if download had errors
-            // This ensures that partially downloaded files are still processed
-            try {
-                log.info("Starting data processing...");
-                // Use self-injected proxy to ensure @Transactional is applied
-                self.processAndSaveDatasets();
-                log.info("Data processing completed successfully");
-                
-                if (downloadSucceeded) {
-                    log.info("Async dataset download and processing completed successfully");
-                    future.complete(null);
-                } else {
-                    log.warn("Processing completed, but download had errors. Some files may be missing.");
-                    // Still complete successfully if processing worked, even if download had issues
-                    future.complete(null);
-                }
-            } catch (Exception e) {
-                log.error("Error during data processing", e);
-                // If download also failed, combine errors
-                if (downloadError != null) {
-                    Exception combinedError = new RuntimeException("Both download and processing failed", e);
-                    combinedError.addSuppressed(downloadError);
-                    future.completeExceptionally(combinedError);
-                } else {
-                    future.completeExceptionally(e);
-                }
-            }
-        });
+        List<CompletableFuture<Void>> pipelines = new ArrayList<>();
+        for (CompletableFuture<RawDatasetStore.Entry> download : downloads) {
+            pipelines.add(download
+                    .thenApplyAsync(entry -> {
+                        pipelinedHashes.add(entry.getSha256());
+                        return new ParsedFile(entry, parseEntry(entry));
+                    }, ingestTaskExecutor)
+                    .thenAccept(parsed -> {
+                        int saved = self.saveNewDatasets(parsed.name, parsed.datasets);
+                        // Only now is the file done: a failed load leaves it to be retried next run
+                        datasetDownloader.recordIngested(parsed.entry);
+                        filesProcessed.incrementAndGet();
+                        totalParsed.addAndGet(parsed.datasets.size());
+                        totalSaved.addAndGet(saved);
+                        log.info("Processed file {}: {} records parsed, {} saved to database",
+                                parsed.name, parsed.datasets.size(), saved);
+                    })
+                    .exceptionally(ex -> {
+                        // Isolate failures: log and count, other files keep going
+                        filesWithErrors.incrementAndGet();
+                        log.error("Error downloading or processing file: {}", ex.getMessage(), ex);
+                        return null;
+                    }));
+        }
         
-        return future;
+        return CompletableFuture.allOf(pipelines.toArray(new CompletableFuture[0]))
+                .thenRun(() -> {
+                    if (reingestUnchanged) {
+                        log.info("Database is empty, processing unchanged stored files as well");
+                        processEntries(rawDatasetStore.distinctEntries().stream()
+                                .filter(entry -> !pipelinedHashes.contains(entry.getSha256()))
+                                .toList());
+                    }
+                    log.info("Pipeline completed. Files processed: {}, Files with errors: {}, Total records processed: {}, Total records saved: {}",
+                            filesProcessed.get(), filesWithErrors.get(), totalParsed.get(), totalSaved.get());
+                });
     }
     
     /**
@@ -116,57 +169,44 @@ public class AppBody {
      * Downloads datasets and waits for completion.
      */
     public void downloadDatasets() {
-        log.info("Starting dataset download process...");
-        datasetDownloader.downloadFiles(OUTPUT_DIRECTORY);
-        log.info("Download completed. Starting data processing...");
-        // Use self-injected proxy to ensure @Transactional is applied
-        self.processAndSaveDatasets();
+        downloadDatasetsAsync().join();
     }
 
     public void processAndSaveDatasets() {
-        if (!OUTPUT_DIRECTORY.exists() || !OUTPUT_DIRECTORY.isDirectory()) {
-            log.warn("Output directory does not exist: {}", OUTPUT_DIRECTORY.getAbsolutePath());
-            return;
-        }
+        eventPublisher.publishEvent(new IngestionStartedEvent(STORED_FILES_RUN));
+        try {
+            List<RawDatasetStore.Entry> entries = rawDatasetStore.distinctEntries();
+            if (entries.isEmpty()) {
+                log.warn("No files found in the raw dataset store");
+                return;
+            }
 
-        File[] files = OUTPUT_DIRECTORY.listFiles();
-        if (files == null || files.length == 0) {
-            log.warn("No files found in directory: {}", OUTPUT_DIRECTORY.getAbsolutePath());
-            return;
+            log.info("Found {} files to process", entries.size());
+            processEntries(entries);
+        } finally {
+            eventPublisher.publishEvent(new IngestionFinishedEvent(STORED_FILES_RUN));
         }
-
-        log.info("Found {} files to process", files.length);
+    }
+    
+    private void processEntries(List<RawDatasetStore.Entry> entries) {
         int totalProcessed = 0;
         int totalSaved = 0;
         int filesProcessed = 0;
         int filesWithErrors = 0;
 
-        for (File file : files) {
-            if (!file.isFile()) {
-                log.debug("Skipping non-file: {}", file.getName());
-                continue;
-            }
-
+        for (RawDatasetStore.Entry entry : entries) {
             try {
-                // Process and save each file in its own transaction
-                int fileSaved = self.processAndSaveFile(file);
+                // Parse once, then save each file in its own transaction
+                List<Dataset> datasets = parseEntry(entry);
+                int fileSaved = self.saveNewDatasets(entry.getOriginalName(), datasets);
                 totalSaved += fileSaved;
-                filesProcessed++;
-                
-                // Count total processed (including duplicates)
-                List<Dataset> datasets = new ArrayList<>();
-                String fileName = file.getName().toLowerCase();
-                if (fileName.endsWith(".csv")) {
-                    datasets = dataParser.parseCsvFile(file);
-                } else if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
-                    datasets = dataParser.parseExcelFile(file);
-                }
                 totalProcessed += datasets.size();
+                filesProcessed++;
                 
-                log.info("Processed file {}: {} records parsed, {} saved to database", file.getName(), datasets.size(), fileSaved);
+                log.info("Processed file {}: {} records parsed, {} saved to database", entry.getOriginalName(), datasets.size(), fileSaved);
 
             } catch (Exception e) {
-                log.error("Error processing file {}: {}", file.getName(), e.getMessage(), e);
+                log.error("Error processing file {}: {}", entry.getOriginalName(), e.getMessage(), e);
                 filesWithErrors++;
                 // Continue processing other files even if this one failed
             }
@@ -176,23 +216,42 @@ public class AppBody {
                 filesProcessed, filesWithErrors, totalProcessed, totalSaved);
     }
     
+    /**
+     * Parses one stored file, decompressing it on the fly.
+     * Parsing runs outside any transaction so no database connection is held while reading.
+     */
+    private List<Dataset> parseEntry(RawDatasetStore.Entry entry) {
+        try (InputStream in = rawDatasetStore.open(entry)) {
+            return dataParser.parse(in, entry.getOriginalName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stored file " + entry.getOriginalName(), e);
+        }
+    }
+    
+    /**
+     * Saves parsed records from one file in a single transaction, skipping duplicates.
+     * 
+     * The quarter partitions are created first, before that transaction reads lmia_datasets:
+     * creating a partition locks the parent table exclusively, which would wait forever on the
+     * transaction's own duplicate checks.
+     * 
+     * @param sourceName Name of the file the records came from (for logging)
+     * @param datasets Parsed records
+     * @return Number of new records saved
+     */
+    public int saveNewDatasets(String sourceName, List<Dataset> datasets) {
+        partitionManager.ensurePartitions(datasets);
+        return self.insertNewDatasets(sourceName, datasets);
+    }
+
+    /**
+     * The transaction of {@link #saveNewDatasets}; the partitions must already exist.
+     */
     @Transactional
-    public int processAndSaveFile(File file) {
+    public int insertNewDatasets(String sourceName, List<Dataset> datasets) {
         try {
-            List<Dataset> datasets = new ArrayList<>();
-            
-            String fileName = file.getName().toLowerCase();
-            if (fileName.endsWith(".csv")) {
-                datasets = dataParser.parseCsvFile(file);
-            } else if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) {
-                datasets = dataParser.parseExcelFile(file);
-            } else {
-                log.debug("Skipping unsupported file type: {}", file.getName());
-                return 0;
-            }
-
             if (datasets.isEmpty()) {
-                log.debug("No records parsed from file: {}", file.getName());
+                log.debug("No records parsed from file: {}", sourceName);
                 return 0;
             }
 
@@ -206,26 +265,75 @@ public class AppBody {
                         datasetsToSave.add(dataset);
                     }
                 } catch (Exception e) {
-                    log.warn("Error checking duplicate for dataset from file {}: {}", file.getName(), e.getMessage());
+                    log.warn("Error checking duplicate for dataset from file {}: {}", sourceName, e.getMessage());
                 }
             }
             
             // Batch save for better performance
             if (!datasetsToSave.isEmpty()) {
+                dimensionCache.assignKeys(datasetsToSave);
                 datasetRepository.saveAll(datasetsToSave);
                 // Explicitly flush to ensure data is written to database
                 datasetRepository.flush();
-                log.debug("Successfully saved {} records from file {} to database", datasetsToSave.size(), file.getName());
+                // Delivered after commit: search caches move to a new generation
+                eventPublisher.publishEvent(new DatasetsChangedEvent(sourceName, datasetsToSave.size()));
+                log.debug("Successfully saved {} records from file {} to database", datasetsToSave.size(), sourceName);
                 return datasetsToSave.size();
             }
             
             return 0;
         } catch (Exception e) {
-            log.error("Error processing file {}: {}", file.getName(), e.getMessage(), e);
+            log.error("Error processing file {}: {}", sourceName, e.getMessage(), e);
             throw e; // Re-throw to trigger transaction rollback
         }
     }
 
+    /**
+     * Output of the parse stage, handed to the load stage.
+     */
+    private static class ParsedFile {
+        private final RawDatasetStore.Entry entry;
+        private final String name;
+        private final List<Dataset> datasets;
+
+        private ParsedFile(RawDatasetStore.Entry entry, List<Dataset> datasets) {
+            this.entry = entry;
+            this.name = entry.getOriginalName();
+            this.datasets = datasets;
+        }
+    }
+
+    /**
+     * Rebuilds one quarter (by decision date) from the stored raw files and swaps it in as a new
+     * partition, replacing the rows currently in it. Duplicates are removed in memory by the same
+     * key fields as {@link #saveNewDatasets}, instead of one lookup per row against the table.
+     * 
+     * @return Number of rows in the reloaded quarter
+     * @throws IllegalStateException if lmia_datasets is not partitioned
+     */
+    public int reloadQuarter(int year, int quarter) {
+        LocalDate start = PartitionManager.quarterStart(year, quarter);
+        if (!partitionManager.isPartitioned()) {
+            throw new IllegalStateException("lmia_datasets is not partitioned; run db/partition_lmia_datasets.sql first");
+        }
+
+        Map<String, Dataset> unique = new LinkedHashMap<>();
+        for (RawDatasetStore.Entry entry : rawDatasetStore.distinctEntries()) {
+            for (Dataset dataset : parseEntry(entry)) {
+                LocalDate date = dataset.getDecisionDate();
+                if (date != null && PartitionManager.quarterStart(date).equals(start)) {
+                    unique.putIfAbsent(String.join("|", EmployerKeys.normalize(dataset.getEmployer()),
+                            dataset.getNocCode(), date.toString(), String.valueOf(dataset.getSourceFile())), dataset);
+                }
+            }
+        }
+        List<Dataset> rows = new ArrayList<>(unique.values());
+        dimensionCache.assignKeys(rows);
+        int loaded = partitionManager.replaceQuarter(start, rows);
+        eventPublisher.publishEvent(new DatasetsChangedEvent(PartitionManager.partitionName(start), loaded));
+        return loaded;
+    }
+
     private boolean isDuplicate(Dataset dataset) {
         // Check if a record with the same key fields already exists
         // Uses exact match query without pagination limit to find all duplicates
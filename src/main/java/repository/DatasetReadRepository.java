@@ -0,0 +1,217 @@
+package repository;
+
+import dto.DatasetDTO;
+import dto.EmployerSummary;
+import model.EmployerKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-only search path that maps result rows straight into {@link DatasetDTO}s over JDBC.
+ *
+ * Search results and exports are never modified, so loading them as managed {@code Dataset}
+ * entities only cost a persistence context entry, a dirty-checking snapshot and a second copy
+ * into the DTO per row. Here each row is read once into its DTO and nothing is retained.
+ *
+ * Queries run in read-only transactions with {@code app.search.jdbc-fetch-size} rows per round
+ * trip; PostgreSQL only streams with a fetch size inside a transaction.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class DatasetReadRepository {
+
+    // Selected in this order so the row mapper reads by index
+    static final String DTO_COLUMNS = "d.id, d.province, d.stream, d.employer, d.city, d.postal_code, d.noc_code, " +
+            "d.noc_title, d.positions_approved, d.status, d.decision_date, d.source_file, d.website_url";
+
+    private static final RowMapper<DatasetDTO> DTO_MAPPER = (rs, rowNum) -> new DatasetDTO(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getString(7),
+            rs.getString(8),
+            rs.getInt(9),
+            rs.getString(10),
+            rs.getObject(11, LocalDate.class),
+            rs.getString(12),
+            rs.getString(13));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private volatile Boolean postgreSQL;
+
+    public DatasetReadRepository(DataSource dataSource,
+                                 @Value("${app.search.jdbc-fetch-size:500}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    /**
+     * Rows {@code offset} to {@code offset + limit} of the search in the given order, without
+     * counting. Callers fetch one row more than they display to learn whether a next page exists.
+     */
+    public List<DatasetDTO> findSlice(DatasetSearchSpec spec, SearchSort sort, long offset, int limit) {
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+        MapSqlParameterSource parameters = new MapSqlParameterSource(query.getParameters())
+                .addValue("limit", limit)
+                .addValue("offset", offset);
+        return jdbcTemplate.query(query.selectSql(DTO_COLUMNS, sort, isPostgreSQL()) + " LIMIT :limit OFFSET :offset",
+                parameters, DTO_MAPPER);
+    }
+
+    /**
+     * Keyset page: up to {@code limit} rows in the given order, starting after {@code after}
+     * (or from the first row when null). The cursor must have been issued for the same order.
+     */
+    public List<DatasetDTO> searchAfter(DatasetSearchSpec spec, SearchSort sort, SearchCursor after, int limit) {
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+        MapSqlParameterSource parameters = new MapSqlParameterSource(query.getParameters())
+                .addValue("limit", limit);
+        if (after != null) {
+            parameters.addValue("cursorValue", after.typedValue());
+            parameters.addValue("cursorId", after.getId());
+        }
+        return jdbcTemplate.query(query.selectAfterSql(DTO_COLUMNS, sort, after, isPostgreSQL()) + " LIMIT :limit",
+                parameters, DTO_MAPPER);
+    }
+
+    /**
+     * Row counts per value of each facet, and the number of rows matching the spec, read in one
+     * pass. Rows without a value for a facet count towards the total only.
+     */
+    public FacetCounts facetCounts(DatasetSearchSpec spec, Set<SearchFacet> facets) {
+        Map<SearchFacet, Map<String, Long>> counts = new EnumMap<>(SearchFacet.class);
+        if (facets.isEmpty()) {
+            return new FacetCounts(counts, 0);
+        }
+        List<SearchFacet> ordered = List.copyOf(EnumSet.copyOf(facets));
+        ordered.forEach(facet -> counts.put(facet, new HashMap<>()));
+        boolean groupingSets = ordered.size() > 1 && isPostgreSQL();
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+        int countColumn = ordered.size() + (groupingSets ? ordered.size() : 0) + 1;
+        long[] total = new long[1];
+        jdbcTemplate.query(query.facetSql(ordered, groupingSets), query.getParameters(), rs -> {
+            long rows = rs.getLong(countColumn);
+            boolean grandTotal = groupingSets;
+            for (int i = 0; i < ordered.size(); i++) {
+                if (groupingSets && rs.getInt(ordered.size() + i + 1) != 0) {
+                    continue;
+                }
+                grandTotal = false;
+                String value = rs.getString(i + 1);
+                if (value != null) {
+                    counts.get(ordered.get(i)).merge(value, rows, Long::sum);
+                }
+            }
+            if (grandTotal || !groupingSets) {
+                total[0] += rows;
+            }
+        });
+        return new FacetCounts(counts, total[0]);
+    }
+
+    /**
+     * Record totals for each employer name, in the order given, over the rows matching the spec
+     * (its employer filter is ignored). Names are matched by employer key, so spellings differing
+     * in case, punctuation or legal suffix count as the same employer.
+     *
+     * All names are resolved by one grouped query over the distinct keys. On PostgreSQL the keys
+     * are bound as a single text[] parameter ({@code = ANY(:keys)}), so the statement is the same
+     * for any batch size and each key is one probe of idx_employers_key; other databases get an
+     * IN list.
+     */
+    public List<EmployerSummary> summarizeEmployers(DatasetSearchSpec spec, List<String> employers) {
+        List<String> keys = employers.stream().map(EmployerKeys::normalize).toList();
+        Set<String> distinctKeys = new HashSet<>();
+        keys.stream().filter(key -> key != null && !key.isEmpty()).forEach(distinctKeys::add);
+
+        Map<String, EmployerSummary> found = new HashMap<>();
+        if (!distinctKeys.isEmpty()) {
+            DatasetSearchQuery query = DatasetSearchQuery.from(spec.toBuilder().employer(null).build());
+            MapSqlParameterSource parameters = new MapSqlParameterSource(query.getParameters());
+            String keyPredicate;
+            if (isPostgreSQL()) {
+                keyPredicate = "e.employer_key = ANY(:employerKeys)";
+                parameters.addValue("employerKeys", distinctKeys.toArray(String[]::new));
+            } else {
+                keyPredicate = "e.employer_key IN (:employerKeys)";
+                parameters.addValue("employerKeys", List.copyOf(distinctKeys));
+            }
+            jdbcTemplate.query(query.employerSummarySql(keyPredicate), parameters, rs -> {
+                found.put(rs.getString(1), new EmployerSummary(null, rs.getString(1), rs.getString(2),
+                        rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                        rs.getObject(6, LocalDate.class), rs.getObject(7, LocalDate.class)));
+            });
+        }
+
+        List<EmployerSummary> summaries = new ArrayList<>(employers.size());
+        for (int i = 0; i < employers.size(); i++) {
+            EmployerSummary match = found.get(keys.get(i));
+            summaries.add(match == null
+                    ? new EmployerSummary(employers.get(i), keys.get(i), null, 0, 0, 0, null, null)
+                    : new EmployerSummary(employers.get(i), match.getEmployerKey(), match.getEmployer(),
+                            match.getRecords(), match.getApprovedRecords(), match.getPositionsApproved(),
+                            match.getLatestDecisionDate(), match.getLatestApprovalDate()));
+        }
+        return summaries;
+    }
+
+    private boolean isPostgreSQL() {
+        if (postgreSQL == null) {
+            String databaseProduct = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgreSQL = "PostgreSQL".equalsIgnoreCase(databaseProduct);
+        }
+        return postgreSQL;
+    }
+
+    /**
+     * Rows with the given ids, in no particular order; ids without a row are skipped.
+     */
+    public List<DatasetDTO> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT " + DTO_COLUMNS + DatasetSearchQuery.FROM + " WHERE d.id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), DTO_MAPPER);
+    }
+
+    /**
+     * Streams up to {@code maxRows} matching rows to {@code action} one at a time, for exports.
+     * Only the current fetch batch is held in memory.
+     *
+     * @return Number of rows passed to the action
+     */
+    public int forEach(DatasetSearchSpec spec, int maxRows, Consumer<DatasetDTO> action) {
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+        MapSqlParameterSource parameters = new MapSqlParameterSource(query.getParameters())
+                .addValue("limit", maxRows);
+        int[] rows = {0};
+        jdbcTemplate.query(query.selectSql(DTO_COLUMNS) + " LIMIT :limit", parameters, rs -> {
+            action.accept(DTO_MAPPER.mapRow(rs, rows[0]++));
+        });
+        return rows[0];
+    }
+}
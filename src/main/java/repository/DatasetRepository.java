@@ -1,6 +1,7 @@
 package repository;
 
 import model.Dataset;
+import model.EmployerKeys;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,16 +13,35 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface DatasetRepository extends JpaRepository<Dataset, Long> {
+public interface DatasetRepository extends JpaRepository<Dataset, Long>, DatasetRepositoryCustom {
+    
+    // Multi-filter search is built at runtime from a DatasetSearchSpec (see DatasetRepositoryImpl)
+    
+    // Employer queries compare lmia_employers.employer_key against a name normalized the same
+    // way (see EmployerKeys) and match the records by employer_id: equality lookups use
+    // idx_employers_key, and substring patterns (see LikePatterns) match the pg_trgm GIN index
+    // idx_employers_key_trgm on PostgreSQL, so leading-wildcard searches don't need a scan.
     
     // Search by company name (partial match)
-    Page<Dataset> findByEmployerContainingIgnoreCase(String employer, Pageable pageable);
+    default Page<Dataset> findByEmployerContainingIgnoreCase(String employer, Pageable pageable) {
+        return findByEmployerPattern(LikePatterns.containing(EmployerKeys.normalize(employer)), pageable);
+    }
+    
+    @Query(value = "SELECT d FROM Dataset d WHERE d.employerId IN " +
+           "(SELECT e.id FROM EmployerDimension e WHERE e.employerKey LIKE :pattern ESCAPE '\\')",
+           countQuery = "SELECT COUNT(d) FROM Dataset d WHERE d.employerId IN " +
+           "(SELECT e.id FROM EmployerDimension e WHERE e.employerKey LIKE :pattern ESCAPE '\\')")
+    Page<Dataset> findByEmployerPattern(@Param("pattern") String pattern, Pageable pageable);
     
     // Search by NOC code
     Page<Dataset> findByNocCode(String nocCode, Pageable pageable);
     
     // Search by province
-    Page<Dataset> findByProvince(String province, Pageable pageable);
+    @Query(value = "SELECT d FROM Dataset d WHERE d.provinceId IN " +
+           "(SELECT p.id FROM ProvinceDimension p WHERE p.name = :province)",
+           countQuery = "SELECT COUNT(d) FROM Dataset d WHERE d.provinceId IN " +
+           "(SELECT p.id FROM ProvinceDimension p WHERE p.name = :province)")
+    Page<Dataset> findByProvince(@Param("province") String province, Pageable pageable);
     
     // Search by decision status
     Page<Dataset> findByStatus(Dataset.DecisionStatus status, Pageable pageable);
@@ -29,79 +49,73 @@ public interface DatasetRepository extends JpaRepository<Dataset, Long> {
     // Search by decision date
     Page<Dataset> findByDecisionDateBetween(LocalDate startDate, LocalDate endDate, Pageable pageable);
     
-    // Complex search - using native query to avoid PostgreSQL type inference issues with LOWER()
-    @Query(value = "SELECT * FROM lmia_datasets d WHERE " +
-           "(:employer IS NULL OR LOWER(CAST(d.employer AS TEXT)) LIKE LOWER('%' || CAST(:employer AS TEXT) || '%')) AND " +
-           "(:nocCode IS NULL OR d.noc_code = :nocCode) AND " +
-           "(:province IS NULL OR LOWER(CAST(d.province AS TEXT)) = LOWER(CAST(:province AS TEXT))) AND " +
-           "(:status IS NULL OR d.status = CAST(:status AS TEXT)) AND " +
-           "(:startDate IS NULL OR d.decision_date >= :startDate) AND " +
-           "(:endDate IS NULL OR d.decision_date <= :endDate)",
-           countQuery = "SELECT COUNT(*) FROM lmia_datasets d WHERE " +
-           "(:employer IS NULL OR LOWER(CAST(d.employer AS TEXT)) LIKE LOWER('%' || CAST(:employer AS TEXT) || '%')) AND " +
-           "(:nocCode IS NULL OR d.noc_code = :nocCode) AND " +
-           "(:province IS NULL OR LOWER(CAST(d.province AS TEXT)) = LOWER(CAST(:province AS TEXT))) AND " +
-           "(:status IS NULL OR d.status = CAST(:status AS TEXT)) AND " +
-           "(:startDate IS NULL OR d.decision_date >= :startDate) AND " +
-           "(:endDate IS NULL OR d.decision_date <= :endDate)",
-           nativeQuery = true)
-    Page<Dataset> searchDatasets(
-            @Param("employer") String employer,
-            @Param("nocCode") String nocCode,
-            @Param("province") String province,
-            @Param("status") String status,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate,
-            Pageable pageable);
-    
     // Statistics by company - using native query to avoid PostgreSQL type inference issues
-    @Query(value = "SELECT COUNT(*) FROM lmia_datasets d WHERE LOWER(CAST(d.employer AS TEXT)) LIKE LOWER('%' || CAST(:employer AS TEXT) || '%')",
+    default Long countByEmployer(String employer) {
+        return countByEmployerPattern(LikePatterns.containing(EmployerKeys.normalize(employer)));
+    }
+    
+    @Query(value = "SELECT COUNT(*) FROM lmia_datasets d WHERE d.employer_id IN " +
+           "(SELECT e.id FROM lmia_employers e WHERE e.employer_key LIKE CAST(:pattern AS TEXT) ESCAPE '\\')",
            nativeQuery = true)
-    Long countByEmployer(@Param("employer") String employer);
+    Long countByEmployerPattern(@Param("pattern") String pattern);
     
     // Statistics by NOC
-    @Query("SELECT d.nocCode, d.nocTitle, COUNT(d) as count FROM Dataset d WHERE d.nocCode = :nocCode GROUP BY d.nocCode, d.nocTitle")
+    @Query("SELECT o.nocCode, o.nocTitle, COUNT(d) as count FROM Dataset d, OccupationDimension o " +
+           "WHERE o.id = d.nocId AND d.nocCode = :nocCode GROUP BY o.nocCode, o.nocTitle")
     List<Object[]> getStatisticsByNoc(@Param("nocCode") String nocCode);
     
     // Check for exact duplicate by key fields (employer, NOC code, decision date, source file)
-    // Using native query to avoid PostgreSQL type inference issues with LOWER()
+    default boolean existsByKeyFields(String employer, String nocCode, LocalDate decisionDate, String sourceFile) {
+        return existsByEmployerKeyAndFields(EmployerKeys.normalize(employer), nocCode, decisionDate, sourceFile);
+    }
+    
     @Query(value = "SELECT COUNT(*) > 0 FROM lmia_datasets d WHERE " +
-           "LOWER(CAST(d.employer AS TEXT)) = LOWER(CAST(:employer AS TEXT)) AND " +
+           "d.employer_id IN (SELECT e.id FROM lmia_employers e WHERE e.employer_key = :employerKey) AND " +
            "d.noc_code = :nocCode AND " +
            "d.decision_date = :decisionDate AND " +
            "((:sourceFile IS NULL AND d.source_file IS NULL) OR (:sourceFile IS NOT NULL AND d.source_file = :sourceFile))",
            nativeQuery = true)
-    boolean existsByKeyFields(
-            @Param("employer") String employer,
+    boolean existsByEmployerKeyAndFields(
+            @Param("employerKey") String employerKey,
             @Param("nocCode") String nocCode,
             @Param("decisionDate") LocalDate decisionDate,
             @Param("sourceFile") String sourceFile);
     
     // Find distinct companies with their website URLs
     // Returns companies that have a website URL set
-    @Query(value = "SELECT DISTINCT d.employer, d.website_url FROM lmia_datasets d " +
+    default List<Object[]> findCompanyWebsiteUrl(String employer) {
+        return findCompanyWebsiteUrlByKey(EmployerKeys.normalize(employer));
+    }
+    
+    @Query(value = "SELECT DISTINCT e.name, d.website_url FROM lmia_datasets d " +
+           "JOIN lmia_employers e ON e.id = d.employer_id " +
            "WHERE d.website_url IS NOT NULL AND d.website_url != '' " +
-           "AND LOWER(CAST(d.employer AS TEXT)) = LOWER(CAST(:employer AS TEXT)) " +
+           "AND e.employer_key = :employerKey " +
            "LIMIT 1",
            nativeQuery = true)
-    List<Object[]> findCompanyWebsiteUrl(@Param("employer") String employer);
+    List<Object[]> findCompanyWebsiteUrlByKey(@Param("employerKey") String employerKey);
     
     // Find all records for a company that need website URL update
-    @Query(value = "SELECT * FROM lmia_datasets d WHERE " +
-           "LOWER(CAST(d.employer AS TEXT)) = LOWER(CAST(:employer AS TEXT)) AND " +
-           "(d.website_url IS NULL OR d.website_url = '' OR d.website_url LIKE 'https://www.google.com/search%')",
-           nativeQuery = true)
-    List<Dataset> findRecordsNeedingWebsiteUrl(@Param("employer") String employer);
+    default List<Dataset> findRecordsNeedingWebsiteUrl(String employer) {
+        return findRecordsNeedingWebsiteUrlByKey(EmployerKeys.normalize(employer));
+    }
+    
+    @Query("SELECT d FROM Dataset d WHERE " +
+           "d.employerId IN (SELECT e.id FROM EmployerDimension e WHERE e.employerKey = :employerKey) AND " +
+           "(d.websiteUrl IS NULL OR d.websiteUrl = '' OR d.websiteUrl LIKE 'https://www.google.com/search%')")
+    List<Dataset> findRecordsNeedingWebsiteUrlByKey(@Param("employerKey") String employerKey);
     
     // Find distinct company names that need website URLs
-    @Query(value = "SELECT DISTINCT d.employer FROM lmia_datasets d WHERE " +
-           "(d.website_url IS NULL OR d.website_url = '' OR d.website_url LIKE 'https://www.google.com/search%') " +
-           "ORDER BY d.employer",
+    @Query(value = "SELECT e.name FROM lmia_employers e WHERE EXISTS (SELECT 1 FROM lmia_datasets d " +
+           "WHERE d.employer_id = e.id AND " +
+           "(d.website_url IS NULL OR d.website_url = '' OR d.website_url LIKE 'https://www.google.com/search%')) " +
+           "ORDER BY e.name",
            nativeQuery = true)
     List<String> findCompaniesWithoutWebsiteUrl();
     
     // Optimized queries for reference data (cached)
-    @Query(value = "SELECT DISTINCT d.province FROM lmia_datasets d ORDER BY d.province",
+    @Query(value = "SELECT p.name FROM lmia_provinces p " +
+           "WHERE EXISTS (SELECT 1 FROM lmia_datasets d WHERE d.province_id = p.id) ORDER BY p.name",
            nativeQuery = true)
     List<String> findDistinctProvinces();
     
@@ -109,14 +123,15 @@ public interface DatasetRepository extends JpaRepository<Dataset, Long> {
            nativeQuery = true)
     List<String> findDistinctNocCodes();
     
-    @Query(value = "SELECT DISTINCT d.noc_code, d.noc_title FROM lmia_datasets d " +
-           "WHERE d.noc_code IS NOT NULL AND d.noc_title IS NOT NULL " +
-           "ORDER BY d.noc_code",
+    @Query(value = "SELECT DISTINCT o.noc_code, o.noc_title FROM lmia_occupations o " +
+           "WHERE o.noc_title IS NOT NULL AND EXISTS (SELECT 1 FROM lmia_datasets d WHERE d.noc_id = o.id) " +
+           "ORDER BY o.noc_code",
            nativeQuery = true)
     List<Object[]> findDistinctNocCodesWithTitles();
     
-    @Query(value = "SELECT d.province, COUNT(*) as count FROM lmia_datasets d " +
-           "GROUP BY d.province ORDER BY d.province",
+    @Query(value = "SELECT p.name, COUNT(*) as count FROM lmia_datasets d " +
+           "JOIN lmia_provinces p ON p.id = d.province_id " +
+           "GROUP BY p.name ORDER BY p.name",
            nativeQuery = true)
     List<Object[]> findProvinceCounts();
 }
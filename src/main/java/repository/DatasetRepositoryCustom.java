@@ -0,0 +1,28 @@
+package repository;
+
+import model.Dataset;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.OptionalLong;
+
+/**
+ * Search queries built at runtime from a {@link DatasetSearchSpec}.
+ */
+public interface DatasetRepositoryCustom {
+
+    /**
+     * Returns one page of datasets matching the spec, newest decision first (ties by id). The
+     * count query only runs when the total can't be derived from the page itself (e.g. a
+     * partial first page).
+     */
+    Page<Dataset> search(DatasetSearchSpec spec, Pageable pageable);
+
+    long countMatching(DatasetSearchSpec spec);
+
+    /**
+     * The query planner's estimate of how many rows match, or empty when the database can't
+     * provide one (anything other than PostgreSQL).
+     */
+    OptionalLong estimateMatching(DatasetSearchSpec spec);
+}
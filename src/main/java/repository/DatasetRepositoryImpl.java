@@ -0,0 +1,107 @@
+package repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import model.Dataset;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link DatasetRepositoryCustom}, picked up by Spring Data as a
+ * fragment of {@link DatasetRepository}. All of its queries are reads, so they run in
+ * read-only transactions and can be served by the read replica when one is configured.
+ */
+@Slf4j
+@Transactional(readOnly = true)
+public class DatasetRepositoryImpl implements DatasetRepositoryCustom {
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\\brows=(\\d+)");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public DatasetRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<Dataset> search(DatasetSearchSpec spec, Pageable pageable) {
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+
+        // The page's ids come from the native query; the entities are loaded by id, since their
+        // employer, NOC title, province and stream are read from the dimensions (@Formula). The
+        // date order is written the same for every database.
+        Query idQuery = entityManager.createNativeQuery(query.selectSql("d.id", SearchSort.DECISION_DATE, false));
+        query.getParameters().forEach(idQuery::setParameter);
+        if (pageable.isPaged()) {
+            idQuery.setFirstResult((int) pageable.getOffset());
+            idQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<Long> ids = ((List<?>) idQuery.getResultList()).stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+
+        List<Dataset> content = List.of();
+        if (!ids.isEmpty()) {
+            Map<Long, Dataset> byId = entityManager
+                    .createQuery("SELECT d FROM Dataset d WHERE d.id IN :ids", Dataset.class)
+                    .setParameter("ids", ids)
+                    .getResultStream()
+                    .collect(Collectors.toMap(Dataset::getId, Function.identity()));
+            content = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(query));
+    }
+
+    @Override
+    public long countMatching(DatasetSearchSpec spec) {
+        return count(DatasetSearchQuery.from(spec));
+    }
+
+    /**
+     * Runs outside any transaction, over JDBC: a failed EXPLAIN through the entity manager would
+     * mark the surrounding transaction rollback-only (and PostgreSQL aborts it), so the exact
+     * count the caller falls back to could no longer run in it.
+     */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.NOT_SUPPORTED)
+    public OptionalLong estimateMatching(DatasetSearchSpec spec) {
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+        try {
+            List<String> plan = jdbcTemplate.queryForList(query.explainSql(), query.getParameters(), String.class);
+            if (plan.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            // First line is the top node, e.g. "Seq Scan on lmia_datasets d  (cost=0.00..1.23 rows=4567 width=99)"
+            Matcher matcher = PLAN_ROWS.matcher(plan.get(0));
+            return matcher.find() ? OptionalLong.of(Long.parseLong(matcher.group(1))) : OptionalLong.empty();
+        } catch (DataAccessException e) {
+            log.debug("Row estimate not available: {}", e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
+    private long count(DatasetSearchQuery query) {
+        Query countQuery = entityManager.createNativeQuery(query.countSql());
+        query.getParameters().forEach(countQuery::setParameter);
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+}
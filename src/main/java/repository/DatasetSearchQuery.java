@@ -0,0 +1,171 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * SQL for a {@link DatasetSearchSpec}: the data and count statements share one WHERE clause
+ * that contains only the filters actually present.
+ *
+ * Rows are read from the lmia_datasets_star view. Each predicate is written against a bare
+ * fact column, so PostgreSQL can pick idx_noc_status, idx_province_id_status, idx_date_status
+ * etc. for the concrete combination instead of planning a generic "(:x IS NULL OR ...)" query.
+ * Employer, province and stream filters select the dimension keys first (the employer pattern
+ * through the trigram index on lmia_employers.employer_key) and match the records by key.
+ */
+final class DatasetSearchQuery {
+
+    static final String FROM = " FROM lmia_datasets_star d";
+
+    private final String whereClause;
+    private final Map<String, Object> parameters;
+
+    private DatasetSearchQuery(String whereClause, Map<String, Object> parameters) {
+        this.whereClause = whereClause;
+        this.parameters = parameters;
+    }
+
+    static DatasetSearchQuery from(DatasetSearchSpec spec) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (spec.getEmployer() != null) {
+            predicates.add("d.employer_id IN (SELECT e.id FROM lmia_employers e " +
+                    "WHERE e.employer_key LIKE :employerPattern ESCAPE '\\')");
+            parameters.put("employerPattern", LikePatterns.containing(spec.getEmployer()));
+        }
+        addValueFilter(predicates, parameters, "d.noc_code", "nocCode", spec.getNocCodes());
+        addNameFilter(predicates, parameters, "d.province_id", "lmia_provinces", "province", spec.getProvinces());
+        addNameFilter(predicates, parameters, "d.stream_id", "lmia_streams", "stream", spec.getStreams());
+        addValueFilter(predicates, parameters, "d.status", "status",
+                spec.getStatuses().stream().map(Enum::name).toList());
+        if (spec.getStartDate() != null) {
+            predicates.add("d.decision_date >= :startDate");
+            parameters.put("startDate", spec.getStartDate());
+        }
+        if (spec.getEndDate() != null) {
+            predicates.add("d.decision_date <= :endDate");
+            parameters.put("endDate", spec.getEndDate());
+        }
+
+        String where = predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+        return new DatasetSearchQuery(where, Collections.unmodifiableMap(parameters));
+    }
+
+    /**
+     * {@code column = :name} for one value, {@code column IN (:names)} for several. The driver
+     * expands the list; PostgreSQL plans it as {@code = ANY(ARRAY[...])}, a single index scan
+     * over all values.
+     */
+    private static void addValueFilter(List<String> predicates, Map<String, Object> parameters,
+                                       String column, String name, Collection<String> values) {
+        if (values.size() == 1) {
+            predicates.add(column + " = :" + name);
+            parameters.put(name, values.iterator().next());
+        } else if (values.size() > 1) {
+            predicates.add(column + " IN (:" + name + "s)");
+            parameters.put(name + "s", List.copyOf(values));
+        }
+    }
+
+    /**
+     * {@link #addValueFilter} on a dimension's name, matching the records by the dimension key.
+     */
+    private static void addNameFilter(List<String> predicates, Map<String, Object> parameters, String keyColumn,
+                                      String dimensionTable, String name, Collection<String> values) {
+        List<String> namePredicates = new ArrayList<>();
+        addValueFilter(namePredicates, parameters, "x.name", name, values);
+        if (!namePredicates.isEmpty()) {
+            predicates.add(keyColumn + " IN (SELECT x.id FROM " + dimensionTable + " x WHERE " + namePredicates.get(0) + ")");
+        }
+    }
+
+    String selectSql() {
+        return selectSql("d.*");
+    }
+
+    String selectSql(String columns) {
+        return "SELECT " + columns + FROM + whereClause;
+    }
+
+    /**
+     * {@link #selectSql(String)} in the given order, for LIMIT/OFFSET pages. The order ends with
+     * the id, so a page holds the same rows every time it is requested. PostgreSQL either walks
+     * the sort's (column, id) index and stops at the limit, or keeps only the top rows in a
+     * bounded heap (top-N heapsort) when the filters are selective; it never sorts every match.
+     *
+     * @param postgreSQL Whether the SQL runs on PostgreSQL, which needs the text collation spelled out
+     */
+    String selectSql(String columns, SearchSort sort, boolean postgreSQL) {
+        return selectSql(columns) + sort.orderBy(postgreSQL);
+    }
+
+    /**
+     * Keyset variant of {@link #selectSql(String, SearchSort, boolean)}: rows in the sort order,
+     * starting after {@code after} (bound to :cursorValue and :cursorId) when it isn't null. The
+     * row-value comparison matches the sort's (column, id) index, so every page costs the same
+     * regardless of depth.
+     */
+    String selectAfterSql(String columns, SearchSort sort, SearchCursor after, boolean postgreSQL) {
+        String where = whereClause;
+        if (after != null) {
+            String keyset = sort.keysetPredicate(postgreSQL, after.getValue() == null);
+            where = where.isEmpty() ? " WHERE " + keyset : where + " AND " + keyset;
+        }
+        return "SELECT " + columns + FROM + where + sort.orderBy(postgreSQL);
+    }
+
+    /**
+     * Row counts per value of each facet over the matching rows, in one statement. With
+     * grouping sets (PostgreSQL) each result row counts one value of one facet and GROUPING(col)
+     * is 0 for the facet it belongs to, except the grand total row of the empty set, where every
+     * GROUPING(col) is 1. Without them the facets are grouped together and the caller adds up
+     * the combinations per value and in total; both read the matching rows once.
+     */
+    String facetSql(List<SearchFacet> facets, boolean groupingSets) {
+        List<String> columns = facets.stream().map(SearchFacet::getColumn).toList();
+        String select = String.join(", ", columns);
+        if (!groupingSets) {
+            return "SELECT " + select + ", COUNT(*)" + FROM + whereClause + " GROUP BY " + select;
+        }
+        String grouping = columns.stream().map(column -> "GROUPING(" + column + ")").collect(Collectors.joining(", "));
+        String sets = columns.stream().map(column -> "(" + column + ")").collect(Collectors.joining(", "));
+        return "SELECT " + select + ", " + grouping + ", COUNT(*)" + FROM + whereClause +
+                " GROUP BY GROUPING SETS (" + sets + ", ())";
+    }
+
+    /**
+     * Record totals per employer key over the matching rows of the employers satisfying
+     * {@code keyPredicate} (a condition on e.employer_key), so PostgreSQL probes idx_employers_key
+     * once per key and then idx_employer_id per employer instead of scanning.
+     */
+    String employerSummarySql(String keyPredicate) {
+        String employers = "d.employer_id IN (SELECT e.id FROM lmia_employers e WHERE " + keyPredicate + ")";
+        String where = whereClause.isEmpty() ? " WHERE " + employers : whereClause + " AND " + employers;
+        return "SELECT d.employer_key, MIN(d.employer), COUNT(*), " +
+                "SUM(CASE WHEN d.status = 'APPROVED' THEN 1 ELSE 0 END), SUM(d.positions_approved), " +
+                "MAX(d.decision_date), MAX(CASE WHEN d.status = 'APPROVED' THEN d.decision_date END)" +
+                FROM + where + " GROUP BY d.employer_key";
+    }
+
+    String countSql() {
+        return "SELECT COUNT(*)" + FROM + whereClause;
+    }
+
+    /**
+     * PostgreSQL EXPLAIN of the select; the top plan node's rows= is the planner's estimate of
+     * the match count, computed from table statistics without reading any rows.
+     */
+    String explainSql() {
+        return "EXPLAIN " + selectSql();
+    }
+
+    Map<String, Object> getParameters() {
+        return parameters;
+    }
+}
@@ -0,0 +1,102 @@
+package repository;
+
+import lombok.Builder;
+import lombok.Value;
+import model.Dataset;
+import model.EmployerKeys;
+import model.Provinces;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Filters for a dataset search. Null fields and empty sets are not filtered on; a set matches
+ * rows having any of its values.
+ *
+ * Blank strings are treated as absent, the employer is reduced to its employer_key form and
+ * provinces are canonicalized when the spec is built, so the generated SQL only contains
+ * predicates that can use an index. Sets are sorted, so equal filters produce equal SQL.
+ * An employer with no letters or digits ("...", "&") has no employer_key and is rejected with
+ * IllegalArgumentException rather than dropped, which would match every dataset.
+ */
+@Value
+public class DatasetSearchSpec {
+    String employer;
+    Set<String> nocCodes;
+    Set<String> provinces;
+    Set<String> streams;
+    Set<Dataset.DecisionStatus> statuses;
+    LocalDate startDate;
+    LocalDate endDate;
+
+    @Builder(toBuilder = true)
+    private DatasetSearchSpec(String employer, Collection<String> nocCodes, Collection<String> provinces,
+                              Collection<String> streams, Collection<Dataset.DecisionStatus> statuses,
+                              LocalDate startDate, LocalDate endDate) {
+        this.employer = blankToNull(EmployerKeys.normalize(employer));
+        if (this.employer == null && blankToNull(employer) != null) {
+            throw new IllegalArgumentException("Employer must contain a letter or digit: " + employer);
+        }
+        this.nocCodes = normalize(nocCodes, DatasetSearchSpec::blankToNull);
+        this.provinces = normalize(provinces, Provinces::canonicalize);
+        this.streams = normalize(streams, DatasetSearchSpec::blankToNull);
+        Set<Dataset.DecisionStatus> statusSet = EnumSet.noneOf(Dataset.DecisionStatus.class);
+        if (statuses != null) {
+            statuses.stream().filter(Objects::nonNull).forEach(statusSet::add);
+        }
+        this.statuses = Collections.unmodifiableSet(statusSet);
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Set<String> normalize(Collection<String> values, Function<String, String> normalizer) {
+        if (values == null) {
+            return Collections.emptySet();
+        }
+        Set<String> normalized = new TreeSet<>();
+        for (String value : values) {
+            String canonical = value == null ? null : normalizer.apply(value);
+            if (canonical != null) {
+                normalized.add(canonical);
+            }
+        }
+        return Collections.unmodifiableSet(normalized);
+    }
+
+    /**
+     * Single-value setters for the set filters, for callers filtering on one value.
+     */
+    public static class DatasetSearchSpecBuilder {
+
+        public DatasetSearchSpecBuilder nocCode(String nocCode) {
+            this.nocCodes = nocCode == null ? null : List.of(nocCode);
+            return this;
+        }
+
+        public DatasetSearchSpecBuilder province(String province) {
+            this.provinces = province == null ? null : List.of(province);
+            return this;
+        }
+
+        public DatasetSearchSpecBuilder stream(String stream) {
+            this.streams = stream == null ? null : List.of(stream);
+            return this;
+        }
+
+        public DatasetSearchSpecBuilder status(Dataset.DecisionStatus status) {
+            this.statuses = status == null ? null : List.of(status);
+            return this;
+        }
+    }
+}
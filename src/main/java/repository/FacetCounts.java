@@ -0,0 +1,16 @@
+package repository;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Facet counts of a search and the number of rows they were counted over. A row without a
+ * value for a facet (the star view's dimensions are outer joins, and a record may have no
+ * province or stream) is part of the total but of none of that facet's values.
+ */
+@Value
+public class FacetCounts {
+    Map<SearchFacet, Map<String, Long>> counts;
+    long total;
+}
@@ -0,0 +1,40 @@
+package repository;
+
+import java.util.Locale;
+
+/**
+ * Builds LIKE patterns for the native employer queries.
+ *
+ * Patterns are lower-cased here so the SQL side can compare against the stored employer_key,
+ * the column the trigram index is built on. LIKE wildcards in user input are escaped
+ * with '\' (queries declare ESCAPE '\'), so "50%" or "A_B" match literally.
+ */
+public final class LikePatterns {
+
+    public static final char ESCAPE = '\\';
+
+    private LikePatterns() {
+    }
+
+    /**
+     * Returns a lower-case "contains" pattern for the term, or null if the term is null.
+     */
+    public static String containing(String term) {
+        if (term == null) {
+            return null;
+        }
+        return "%" + escape(term.toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    static String escape(String term) {
+        StringBuilder escaped = new StringBuilder(term.length() + 8);
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == ESCAPE || c == '%' || c == '_') {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
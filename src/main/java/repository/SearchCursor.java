@@ -0,0 +1,85 @@
+package repository;
+
+import dto.DatasetDTO;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a {@link SearchSort} order: the sort value and id of the last row a client has
+ * seen. The next page starts strictly after it, so the database seeks into the (column, id)
+ * index instead of skipping OFFSET rows.
+ *
+ * Clients get the cursor as an opaque URL-safe token and pass it back unchanged. A cursor only
+ * continues the order it was issued for. The value is null after a row without an employer.
+ */
+@Value
+public class SearchCursor {
+    SearchSort sort;
+    String value;
+    long id;
+
+    /**
+     * Cursor in the default (decision_date DESC, id DESC) order.
+     */
+    public SearchCursor(LocalDate decisionDate, long id) {
+        this(SearchSort.DECISION_DATE, decisionDate.toString(), id);
+    }
+
+    public SearchCursor(SearchSort sort, String value, long id) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Cursor just after {@code row} in the given order.
+     */
+    public static SearchCursor after(DatasetDTO row, SearchSort sort) {
+        return new SearchCursor(sort, sort.valueOf(row), row.getId());
+    }
+
+    /**
+     * The sort value converted to the column type: a LocalDate, Integer or String.
+     */
+    public Object typedValue() {
+        return sort.parseValue(value);
+    }
+
+    public String encode() {
+        // Decision date cursors keep the original "date:id" form, so issued tokens stay valid
+        String raw = sort == SearchSort.DECISION_DATE
+                ? value + ":" + id
+                : sort.getParameterName() + ":" + id + (value == null ? "" : ":" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static SearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            SearchCursor cursor;
+            if (parts.length == 2 && parts[0].equals(SearchSort.EMPLOYER.getParameterName())) {
+                cursor = new SearchCursor(SearchSort.EMPLOYER, null, Long.parseLong(parts[1]));
+            } else if (parts.length == 2) {
+                cursor = new SearchCursor(SearchSort.DECISION_DATE, parts[0], Long.parseLong(parts[1]));
+            } else if (parts.length == 3) {
+                cursor = new SearchCursor(SearchSort.parse(parts[0]), parts[2], Long.parseLong(parts[1]));
+            } else {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            cursor.typedValue();
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package repository;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dimension a search can return counts for alongside its results. Province and stream are
+ * null for records without that dimension, so a facet's counts can add up to fewer than the
+ * matching rows; the total comes with them in {@link FacetCounts}.
+ */
+public enum SearchFacet {
+    PROVINCE("province", "d.province"),
+    STATUS("status", "d.status"),
+    NOC_CODE("nocCode", "d.noc_code"),
+    STREAM("stream", "d.stream");
+
+    private final String parameterName;
+    private final String column;
+
+    SearchFacet(String parameterName, String column) {
+        this.parameterName = parameterName;
+        this.column = column;
+    }
+
+    /**
+     * Name used in the facets request parameter and as the key in responses.
+     */
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    String getColumn() {
+        return column;
+    }
+
+    /**
+     * Parses a comma-separated list such as "province,status"; blank or null means none.
+     *
+     * @throws IllegalArgumentException for an unknown facet name
+     */
+    public static Set<SearchFacet> parse(String facets) {
+        if (facets == null || facets.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<SearchFacet> parsed = EnumSet.noneOf(SearchFacet.class);
+        for (String name : facets.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            parsed.add(fromParameterName(name.trim()));
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    /**
+     * Response form of facet counts: keyed by parameter name, values with the most rows first.
+     */
+    public static Map<String, Map<String, Long>> toResponse(Map<SearchFacet, Map<String, Long>> counts) {
+        Map<String, Map<String, Long>> response = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(facet -> {
+                    Map<String, Long> values = new LinkedHashMap<>();
+                    facet.getValue().entrySet().stream()
+                            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                            .forEach(value -> values.put(value.getKey(), value.getValue()));
+                    response.put(facet.getKey().parameterName, values);
+                });
+        return response;
+    }
+
+    private static SearchFacet fromParameterName(String name) {
+        for (SearchFacet facet : values()) {
+            if (facet.parameterName.equalsIgnoreCase(name)) {
+                return facet;
+            }
+        }
+        throw new IllegalArgumentException("Unknown facet '" + name + "'. Use province, status, nocCode or stream");
+    }
+}
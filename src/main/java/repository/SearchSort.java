@@ -0,0 +1,139 @@
+package repository;
+
+import dto.DatasetDTO;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Order of search results. Every order ends with the row id in the same direction, so it is
+ * total (pages never overlap or skip rows between equal values). For the fact columns a single
+ * composite index on (column, id), scanned forwards or backwards, returns the rows already
+ * sorted: idx_date_id and idx_positions_id. Employer names live in lmia_employers, so that
+ * order is a bounded top-N sort of the matching rows (an index on the names can't return the
+ * joined rows in order).
+ */
+public enum SearchSort {
+    DECISION_DATE("decisionDate", "d.decision_date", true),
+    POSITIONS_APPROVED("positionsApproved", "d.positions_approved", true),
+    /**
+     * Employer name A to Z by code point, rows without an employer last: {@link #EMPLOYER_ORDER}
+     * in memory, and PostgreSQL's order under the C collation, which the SQL asks for explicitly
+     * since the database default (e.g. en_US.UTF-8) sorts "apple" before "Banana". H2 compares
+     * UTF-16 units, which only differs for characters above U+FFFF.
+     */
+    EMPLOYER("employer", "d.employer", false);
+
+    /**
+     * Employer names in {@link #EMPLOYER} order; null (no employer) after every name.
+     */
+    public static final Comparator<String> EMPLOYER_ORDER = Comparator.nullsLast(SearchSort::compareCodePoints);
+
+    private final String parameterName;
+    private final String column;
+    private final boolean descending;
+
+    SearchSort(String parameterName, String column, boolean descending) {
+        this.parameterName = parameterName;
+        this.column = column;
+        this.descending = descending;
+    }
+
+    /**
+     * Name used in the sort request parameter and in cursors.
+     */
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Parses the sort request parameter; blank or null means newest decision first.
+     *
+     * @throws IllegalArgumentException for an unknown sort name
+     */
+    public static SearchSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return DECISION_DATE;
+        }
+        for (SearchSort candidate : values()) {
+            if (candidate.parameterName.equalsIgnoreCase(sort.trim())) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort '" + sort.trim() +
+                "'. Use decisionDate, positionsApproved or employer");
+    }
+
+    String orderBy(boolean postgreSQL) {
+        String direction = descending ? " DESC" : " ASC";
+        // PostgreSQL's default for ascending order; H2 would put the nulls first
+        String nulls = this == EMPLOYER ? " NULLS LAST" : "";
+        return " ORDER BY " + sortColumn(postgreSQL) + direction + nulls + ", d.id" + direction;
+    }
+
+    /**
+     * Rows strictly after the cursor bound to :cursorValue and :cursorId. The row-value
+     * comparison is a single range condition on the (column, id) index. A row-value comparison
+     * with a null is never true, so rows without an employer are matched separately, and a
+     * cursor on such a row ({@code nullValue}) binds no :cursorValue.
+     */
+    String keysetPredicate(boolean postgreSQL, boolean nullValue) {
+        String after = "(" + sortColumn(postgreSQL) + ", d.id) " + (descending ? "<" : ">") + " (:cursorValue, :cursorId)";
+        if (this != EMPLOYER) {
+            return after;
+        }
+        return nullValue
+                ? "(" + column + " IS NULL AND d.id > :cursorId)"
+                : "(" + after + " OR " + column + " IS NULL)";
+    }
+
+    private String sortColumn(boolean postgreSQL) {
+        return this == EMPLOYER && postgreSQL ? column + " COLLATE \"C\"" : column;
+    }
+
+    /**
+     * The row's value of the sort column, as stored in a cursor.
+     */
+    String valueOf(DatasetDTO row) {
+        return switch (this) {
+            case DECISION_DATE -> row.getDecisionDate().toString();
+            case POSITIONS_APPROVED -> String.valueOf(row.getPositionsApproved());
+            case EMPLOYER -> row.getEmployer();
+        };
+    }
+
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * A cursor value converted to the column type, for binding.
+     *
+     * @throws IllegalArgumentException if the value is not of the column's type
+     */
+    Object parseValue(String value) {
+        if (value == null && this != EMPLOYER) {
+            throw new IllegalArgumentException("Missing " + parameterName + " value");
+        }
+        return switch (this) {
+            case DECISION_DATE -> LocalDate.parse(value);
+            case POSITIONS_APPROVED -> Integer.valueOf(value);
+            case EMPLOYER -> value;
+        };
+    }
+}
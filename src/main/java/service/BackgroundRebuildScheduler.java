@@ -0,0 +1,163 @@
+package service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the rebuilds of structures derived from lmia_datasets (search indexes, snapshots,
+ * employer clusters) on one background thread.
+ *
+ * Each registered rebuild runs once when the application is ready. After that a committed
+ * {@link DatasetsChangedEvent} requests all of them again, debounced: a rebuild starts
+ * {@code app.rebuild.debounce-millis} after the last change, and changes made during an
+ * ingestion run (between {@link IngestionStartedEvent} and {@link IngestionFinishedEvent}) only
+ * rebuild once the run has finished, so a run of many files rebuilds everything once instead of
+ * once per file. A rebuild requested while it is running runs again afterwards.
+ */
+@Slf4j
+@Service
+public class BackgroundRebuildScheduler {
+
+    private final long debounceMillis;
+    private final List<Rebuild> rebuilds = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "background-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guarded by this
+    private int ingestionRuns;
+
+    public BackgroundRebuildScheduler(@Value("${app.rebuild.debounce-millis:5000}") long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Registers a rebuild; a disabled one never runs.
+     *
+     * @param name Used in log messages, e.g. "Employer typeahead index build"
+     */
+    public Rebuild register(String name, boolean enabled, Runnable action) {
+        Rebuild rebuild = new Rebuild(name, enabled, action);
+        rebuilds.add(rebuild);
+        return rebuild;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onApplicationReady() {
+        // The first build doesn't wait for an ingestion run started at startup
+        rebuilds.forEach(rebuild -> rebuild.schedule(0));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onDatasetsChanged(DatasetsChangedEvent event) {
+        rebuilds.forEach(rebuild -> rebuild.request(true));
+    }
+
+    @EventListener
+    public synchronized void onIngestionStarted(IngestionStartedEvent event) {
+        ingestionRuns++;
+    }
+
+    @EventListener
+    public synchronized void onIngestionFinished(IngestionFinishedEvent event) {
+        ingestionRuns = Math.max(0, ingestionRuns - 1);
+        if (ingestionRuns == 0) {
+            rebuilds.stream().filter(rebuild -> rebuild.deferred).forEach(rebuild -> rebuild.schedule(debounceMillis));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Handle of one registered rebuild.
+     */
+    public final class Rebuild {
+        private final String name;
+        private final boolean enabled;
+        private final Runnable action;
+        // Guarded by the scheduler
+        private ScheduledFuture<?> next;
+        private long scheduledRun;
+        private boolean deferred;
+
+        private Rebuild(String name, boolean enabled, Runnable action) {
+            this.name = name;
+            this.enabled = enabled;
+            this.action = action;
+        }
+
+        /**
+         * Requests a rebuild after the debounce delay, unless one is already waiting to start.
+         * Waits for a running ingestion run to finish.
+         */
+        public void request() {
+            synchronized (BackgroundRebuildScheduler.this) {
+                request(false);
+            }
+        }
+
+        /**
+         * Also requests a rebuild every {@code period}.
+         */
+        public void requestEvery(long period, TimeUnit unit) {
+            if (enabled && period > 0) {
+                executor.scheduleWithFixedDelay(this::request, period, period, unit);
+            }
+        }
+
+        private void request(boolean restartDelay) {
+            if (!enabled) {
+                return;
+            }
+            if (ingestionRuns > 0) {
+                deferred = true;
+            } else if (next == null || restartDelay) {
+                schedule(debounceMillis);
+            }
+        }
+
+        private void schedule(long delayMillis) {
+            if (!enabled) {
+                return;
+            }
+            deferred = false;
+            if (next != null) {
+                next.cancel(false);
+            }
+            // A run that starts after being replaced sees a newer number and skips itself
+            long run = ++scheduledRun;
+            next = executor.schedule(() -> run(run), delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void run(long run) {
+            synchronized (BackgroundRebuildScheduler.this) {
+                if (run != scheduledRun) {
+                    return;
+                }
+                next = null;
+            }
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.warn("{} failed; keeping the previous result", name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the dataset generation: a counter that advances every time ingested rows are committed.
+ *
+ * Caches of search-derived values (counts, result pages) include the generation in their keys,
+ * so advancing it invalidates all of them at once without walking any cache. Entries from older
+ * generations are never read again and age out through the caches' size bounds.
+ */
+@Slf4j
+@Service
+public class DatasetGenerationService {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * Advances the generation once the change is committed, so no reader can cache a value
+     * computed from the old rows under the new generation.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDatasetsChanged(DatasetsChangedEvent event) {
+        long next = generation.incrementAndGet();
+        log.info("Dataset generation advanced to {} ({} records from {})",
+                next, event.getRecordsChanged(), event.getSource());
+    }
+}
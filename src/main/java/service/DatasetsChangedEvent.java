@@ -0,0 +1,13 @@
+package service;
+
+import lombok.Value;
+
+/**
+ * Published when the contents of lmia_datasets change (an ingested file committed new rows).
+ * Caches derived from search results listen for it through {@link DatasetGenerationService}.
+ */
+@Value
+public class DatasetsChangedEvent {
+    String source;
+    int recordsChanged;
+}
@@ -0,0 +1,125 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import model.Dataset;
+import model.EmployerKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Surrogate keys of the star schema dimensions (employers, NOC occupations, provinces, streams).
+ *
+ * Ingestion resolves each record's dimension values to integer ids through an in-memory cache,
+ * so a file with thousands of rows for the same employer costs one lookup, not one per row.
+ * Missing dimension rows are inserted in their own transaction: if the ingestion rolls back,
+ * the ids already cached still exist, and an unused dimension row is harmless.
+ */
+@Service
+public class DimensionCache {
+
+    private static final String EMPLOYER_ID = "SELECT id FROM lmia_employers WHERE name = ?";
+    private static final String PROVINCE_ID = "SELECT id FROM lmia_provinces WHERE name = ?";
+    private static final String STREAM_ID = "SELECT id FROM lmia_streams WHERE name = ?";
+    private static final String OCCUPATION_ID = "SELECT id FROM lmia_occupations WHERE noc_code = ? " +
+            "AND (noc_title = CAST(? AS TEXT) OR (noc_title IS NULL AND CAST(? AS TEXT) IS NULL))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Cache<Key, Integer> ids;
+
+    public DimensionCache(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.dimensions.cache-size:200000}") long cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ids = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ids, "dimensionKeys");
+    }
+
+    /**
+     * Sets the employer, NOC, province and stream ids of each record, creating dimension rows
+     * for values not seen before.
+     */
+    public void assignKeys(Collection<Dataset> datasets) {
+        for (Dataset dataset : datasets) {
+            dataset.setEmployerId(employerId(dataset.getEmployer()));
+            dataset.setNocId(occupationId(dataset.getNocCode(), dataset.getNocTitle()));
+            dataset.setProvinceId(provinceId(dataset.getProvince()));
+            dataset.setStreamId(streamId(dataset.getStream()));
+        }
+    }
+
+    public Integer employerId(String name) {
+        if (name == null) {
+            return null;
+        }
+        return ids.get(new Key("employer", name, null), key -> resolve(EMPLOYER_ID, new Object[]{name},
+                "INSERT INTO lmia_employers (name, employer_key) VALUES (?, ?)",
+                new Object[]{name, EmployerKeys.normalize(name)}));
+    }
+
+    public Integer occupationId(String nocCode, String nocTitle) {
+        if (nocCode == null) {
+            return null;
+        }
+        return ids.get(new Key("occupation", nocCode, nocTitle), key -> resolve(OCCUPATION_ID,
+                new Object[]{nocCode, nocTitle, nocTitle},
+                "INSERT INTO lmia_occupations (noc_code, noc_title) VALUES (?, ?)",
+                new Object[]{nocCode, nocTitle}));
+    }
+
+    public Integer provinceId(String name) {
+        if (name == null) {
+            return null;
+        }
+        return ids.get(new Key("province", name, null), key -> resolve(PROVINCE_ID, new Object[]{name},
+                "INSERT INTO lmia_provinces (name) VALUES (?)", new Object[]{name}));
+    }
+
+    public Integer streamId(String name) {
+        if (name == null) {
+            return null;
+        }
+        return ids.get(new Key("stream", name, null), key -> resolve(STREAM_ID, new Object[]{name},
+                "INSERT INTO lmia_streams (name) VALUES (?)", new Object[]{name}));
+    }
+
+    private Integer resolve(String selectSql, Object[] selectArgs, String insertSql, Object[] insertArgs) {
+        try {
+            return newTransaction.execute(status -> {
+                List<Integer> existing = jdbcTemplate.queryForList(selectSql, Integer.class, selectArgs);
+                if (!existing.isEmpty()) {
+                    return existing.get(0);
+                }
+                jdbcTemplate.update(insertSql, insertArgs);
+                return jdbcTemplate.queryForObject(selectSql, Integer.class, selectArgs);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted the same value first; its row is committed now
+            return newTransaction.execute(status -> jdbcTemplate.queryForObject(selectSql, Integer.class, selectArgs));
+        }
+    }
+
+    @lombok.Value
+    private static class Key {
+        String dimension;
+        String value;
+        String detail;
+    }
+}
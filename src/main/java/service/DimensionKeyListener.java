@@ -0,0 +1,31 @@
+package service;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import model.Dataset;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+/**
+ * Resolves a {@link Dataset}'s employer, NOC, province and stream to their dimension keys before
+ * it is written, since only the keys are stored. Ingestion assigns keys for a whole file first,
+ * so here they are cache hits.
+ *
+ * Created by Hibernate through Spring; the cache is looked up on first use because the entity
+ * manager factory that creates this listener is itself a dependency of the cache.
+ */
+public class DimensionKeyListener {
+
+    private final ObjectProvider<DimensionCache> dimensionCache;
+
+    public DimensionKeyListener(ObjectProvider<DimensionCache> dimensionCache) {
+        this.dimensionCache = dimensionCache;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void assignKeys(Dataset dataset) {
+        dimensionCache.getObject().assignKeys(List.of(dataset));
+    }
+}
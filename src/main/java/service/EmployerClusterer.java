@@ -0,0 +1,219 @@
+package service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups near-duplicate employer keys ("abc foods" / "abc food" / "a b c foods") without
+ * comparing every pair.
+ *
+ * Each key is reduced to its set of character shingles (spaces removed, so word breaks don't
+ * matter). A MinHash signature of {@code bands * rows} values estimates the Jaccard similarity
+ * of two shingle sets; locality-sensitive hashing splits it into bands, and keys whose band
+ * values are all equal in at least one band land in the same bucket. Only keys sharing a bucket
+ * are compared, with their exact shingle Jaccard similarity, and matches are merged with
+ * union-find, so clusters are transitive. With 20 bands of 5 rows a pair at similarity 0.7 shares
+ * a bucket with probability 0.97, at 0.5 with 0.47 and at 0.3 with 0.05. One changed letter
+ * inside a word costs up to three trigrams, e.g. "northern lights bakery" and "northern light
+ * bakery" are at 0.75.
+ *
+ * Band buckets are found by sorting one long per key (40 bits of band hash, 24 bits of key
+ * number) per band, so memory stays linear in the number of keys.
+ */
+public final class EmployerClusterer {
+
+    // Low bits of a bucket entry holding the key number
+    private static final int KEY_BITS = 24;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+
+    private final int bands;
+    private final int rows;
+    private final int shingleLength;
+    private final double similarity;
+    private final int maxBucketPeers;
+    private final long[] seeds;
+
+    /**
+     * @param maxBucketPeers Keys in a bucket are compared with at most this many keys before
+     *                       them, which bounds the cost of buckets of very common short names
+     */
+    public EmployerClusterer(int bands, int rows, int shingleLength, double similarity, int maxBucketPeers) {
+        this.bands = bands;
+        this.rows = rows;
+        this.shingleLength = shingleLength;
+        this.similarity = similarity;
+        this.maxBucketPeers = maxBucketPeers;
+        this.seeds = new long[bands * rows];
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < seeds.length; i++) {
+            seed = mix(seed + i);
+            seeds[i] = seed;
+        }
+    }
+
+    /**
+     * Clusters the keys.
+     *
+     * @return For each key, the number of the cluster's first key
+     * @throws IllegalArgumentException for more keys than bucket entries can number
+     */
+    public Result cluster(List<String> keys) {
+        int count = keys.size();
+        if (count > KEY_MASK) {
+            throw new IllegalArgumentException("At most " + KEY_MASK + " employer keys can be clustered");
+        }
+        int[][] shingles = new int[count][];
+        for (int i = 0; i < count; i++) {
+            shingles[i] = shingles(keys.get(i));
+        }
+
+        int[] parent = new int[count];
+        int[] size = new int[count];
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        long candidates = 0;
+        long matches = 0;
+        long[] entries = new long[count];
+        for (int band = 0; band < bands; band++) {
+            for (int key = 0; key < count; key++) {
+                entries[key] = (bandHash(shingles[key], band) & ~KEY_MASK) | key;
+            }
+            Arrays.sort(entries);
+            int start = 0;
+            while (start < count) {
+                int end = start + 1;
+                while (end < count && (entries[end] & ~KEY_MASK) == (entries[start] & ~KEY_MASK)) {
+                    end++;
+                }
+                for (int i = start + 1; i < end; i++) {
+                    int key = (int) (entries[i] & KEY_MASK);
+                    for (int j = Math.max(start, i - maxBucketPeers); j < i; j++) {
+                        int other = (int) (entries[j] & KEY_MASK);
+                        if (find(parent, key) == find(parent, other)) {
+                            continue;
+                        }
+                        candidates++;
+                        if (jaccard(shingles[key], shingles[other]) >= similarity) {
+                            union(parent, size, key, other);
+                            matches++;
+                        }
+                    }
+                }
+                start = end;
+            }
+        }
+
+        // Number clusters by their first key, so equal input gives equal output
+        int[] clusters = new int[count];
+        int[] firstKey = new int[count];
+        Arrays.fill(firstKey, -1);
+        for (int key = 0; key < count; key++) {
+            int root = find(parent, key);
+            if (firstKey[root] < 0) {
+                firstKey[root] = key;
+            }
+            clusters[key] = firstKey[root];
+        }
+        return new Result(clusters, candidates, matches);
+    }
+
+    /**
+     * Sorted, distinct hashes of the key's character shingles; a key shorter than a shingle is
+     * its own single shingle.
+     */
+    int[] shingles(String key) {
+        String compact = key.replace(" ", "");
+        if (compact.length() <= shingleLength) {
+            return new int[]{compact.hashCode()};
+        }
+        int[] hashes = new int[compact.length() - shingleLength + 1];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = compact.substring(i, i + shingleLength).hashCode();
+        }
+        Arrays.sort(hashes);
+        int distinct = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+        return Arrays.copyOf(hashes, distinct);
+    }
+
+    /**
+     * Hash of one band of the MinHash signature: the minimum of each of the band's hash
+     * functions over the shingles, combined.
+     */
+    private long bandHash(int[] shingles, int band) {
+        long hash = band;
+        for (int row = band * rows; row < (band + 1) * rows; row++) {
+            long min = Long.MAX_VALUE;
+            for (int shingle : shingles) {
+                min = Math.min(min, mix(shingle ^ seeds[row]));
+            }
+            hash = mix(hash * 31 + min);
+        }
+        return hash;
+    }
+
+    static double jaccard(int[] a, int[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static int find(int[] parent, int key) {
+        while (parent[key] != key) {
+            parent[key] = parent[parent[key]];
+            key = parent[key];
+        }
+        return key;
+    }
+
+    private static void union(int[] parent, int[] size, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+
+    /**
+     * Cluster of each key plus how many candidate pairs LSH produced and how many of them were
+     * similar enough to merge.
+     */
+    @lombok.Value
+    public static class Result {
+        int[] clusters;
+        long candidatePairs;
+        long mergedPairs;
+    }
+}
@@ -0,0 +1,154 @@
+package service;
+
+import dto.EmployerSuggestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import model.EmployerKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns lmia_employers.canonical_id, so every spelling of the same company points at one
+ * employer row.
+ *
+ * Spellings that normalize to the same employer_key are one employer already; the distinct keys
+ * are then clustered with {@link EmployerClusterer} (MinHash/LSH plus union-find), which finds
+ * near-duplicates such as "abc food" and "abc foods" without comparing every pair. Within a
+ * cluster the spelling with the most records is canonical, and its id becomes the canonical_id
+ * of every spelling in the cluster (its own included). Employer rows created since the last run
+ * have no canonical_id yet and stand for themselves.
+ *
+ * Run by the {@link BackgroundRebuildScheduler} at startup and after ingestion; only rows whose
+ * canonical_id changed are updated. Ingestion's exact-duplicate check is unchanged: similar
+ * names can still be different companies, so records are grouped, never merged.
+ */
+@Slf4j
+@Service
+public class EmployerClusteringService {
+
+    private static final String LOAD_SQL = "SELECT e.id, e.name, e.employer_key, e.canonical_id, COUNT(d.id) " +
+            "FROM lmia_employers e LEFT JOIN lmia_datasets d ON d.employer_id = e.id " +
+            "GROUP BY e.id, e.name, e.employer_key, e.canonical_id";
+
+    // Several spellings can share the key, so the cluster is a filter rather than a join
+    private static final String VARIANTS_SQL = "SELECT v.name, v.employer_key, COUNT(d.id) AS records " +
+            "FROM lmia_employers v " +
+            "LEFT JOIN lmia_datasets d ON d.employer_id = v.id " +
+            "WHERE v.canonical_id IN (SELECT canonical_id FROM lmia_employers WHERE employer_key = ?) " +
+            "OR v.employer_key = ? " +
+            "GROUP BY v.id, v.name, v.employer_key ORDER BY records DESC, v.name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmployerClusterer clusterer;
+    private final AtomicInteger clusteredEmployers = new AtomicInteger();
+    private final Timer runTimer;
+
+    public EmployerClusteringService(JdbcTemplate jdbcTemplate,
+                                     BackgroundRebuildScheduler rebuildScheduler,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.employers.clustering.enabled:true}") boolean enabled,
+                                     @Value("${app.employers.clustering.similarity:0.7}") double similarity,
+                                     @Value("${app.employers.clustering.bands:20}") int bands,
+                                     @Value("${app.employers.clustering.rows:5}") int rows,
+                                     @Value("${app.employers.clustering.shingle-length:3}") int shingleLength,
+                                     @Value("${app.employers.clustering.max-bucket-peers:32}") int maxBucketPeers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterer = new EmployerClusterer(bands, rows, shingleLength, similarity, maxBucketPeers);
+        this.runTimer = Timer.builder("lmia.employers.clustering")
+                .description("Time to cluster employer spellings and update canonical ids")
+                .register(meterRegistry);
+        Gauge.builder("lmia.employers.clustered", clusteredEmployers, AtomicInteger::get)
+                .description("Employer spellings sharing their canonical employer with another spelling")
+                .register(meterRegistry);
+        rebuildScheduler.register("Employer clustering", enabled, this::cluster);
+    }
+
+    /**
+     * Recomputes the clusters and stores the canonical ids that changed.
+     *
+     * @return Number of employer rows updated
+     */
+    public int cluster() {
+        return runTimer.record(() -> {
+            List<Employer> employers = jdbcTemplate.query(LOAD_SQL, (rs, rowNum) -> new Employer(
+                    rs.getInt(1), rs.getString(2), rs.getString(3), (Integer) rs.getObject(4), rs.getLong(5)));
+
+            // Cluster distinct keys; spellings sharing a key share its cluster
+            Map<String, Integer> keyNumbers = new HashMap<>();
+            List<String> keys = new ArrayList<>();
+            int[] keyOfEmployer = new int[employers.size()];
+            for (int i = 0; i < employers.size(); i++) {
+                Employer employer = employers.get(i);
+                String key = employer.key != null ? employer.key : EmployerKeys.normalize(employer.name);
+                keyOfEmployer[i] = keyNumbers.computeIfAbsent(key, k -> {
+                    keys.add(k);
+                    return keys.size() - 1;
+                });
+            }
+            EmployerClusterer.Result result = clusterer.cluster(keys);
+
+            // Canonical employer per cluster: most records, then lowest id
+            Map<Integer, Employer> canonical = new HashMap<>();
+            Map<Integer, Integer> clusterSizes = new HashMap<>();
+            for (int i = 0; i < employers.size(); i++) {
+                Employer employer = employers.get(i);
+                int cluster = result.getClusters()[keyOfEmployer[i]];
+                clusterSizes.merge(cluster, 1, Integer::sum);
+                canonical.merge(cluster, employer, (a, b) ->
+                        b.records > a.records || (b.records == a.records && b.id < a.id) ? b : a);
+            }
+
+            List<Object[]> changes = new ArrayList<>();
+            int clustered = 0;
+            for (int i = 0; i < employers.size(); i++) {
+                Employer employer = employers.get(i);
+                int cluster = result.getClusters()[keyOfEmployer[i]];
+                int canonicalId = canonical.get(cluster).id;
+                if (clusterSizes.get(cluster) > 1) {
+                    clustered++;
+                }
+                if (employer.canonicalId == null || employer.canonicalId != canonicalId) {
+                    changes.add(new Object[]{canonicalId, employer.id});
+                }
+            }
+            if (!changes.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE lmia_employers SET canonical_id = ? WHERE id = ?", changes);
+            }
+            clusteredEmployers.set(clustered);
+            log.info("Employer clustering: {} spellings, {} keys, {} candidate pairs, {} merged; {} canonical ids changed",
+                    employers.size(), keys.size(), result.getCandidatePairs(), result.getMergedPairs(), changes.size());
+            return changes.size();
+        });
+    }
+
+    /**
+     * Every spelling in the cluster of the employer named {@code name} (compared as employer
+     * keys), most records first. Empty when no employer has that key.
+     */
+    public List<EmployerSuggestion> variants(String name) {
+        String key = EmployerKeys.normalize(name);
+        if (key == null || key.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(VARIANTS_SQL, (rs, rowNum) ->
+                new EmployerSuggestion(rs.getString(1), rs.getString(2), rs.getLong(3)), key, key);
+    }
+
+    @lombok.Value
+    private static class Employer {
+        int id;
+        String name;
+        String key;
+        Integer canonicalId;
+        long records;
+    }
+}
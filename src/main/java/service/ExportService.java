@@ -1,35 +1,37 @@
 package service;
 
+import dto.DatasetDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import model.Dataset;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
-import repository.DatasetRepository;
+import repository.DatasetReadRepository;
+import repository.DatasetSearchSpec;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ExportService {
 
-    private final DatasetRepository datasetRepository;
+    private static final int MAX_EXPORT_ROWS = 100_000;
+    private static final int EXCEL_ROW_WINDOW = 100;
+
+    private final DatasetReadRepository datasetReadRepository;
 
     public byte[] exportToCsv(String employer, String nocCode, String province, 
                               Dataset.DecisionStatus status) throws IOException {
-        List<Dataset> datasets = fetchAllMatchingDatasets(employer, nocCode, province, status);
-        
         StringWriter writer = new StringWriter();
         CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
                 .setHeader("ID", "Province", "Stream", "Employer", "City", "Postal Code",
@@ -37,23 +39,30 @@ public class ExportService {
                 .build();
         
         try (CSVPrinter csvPrinter = new CSVPrinter(writer, csvFormat)) {
-            for (Dataset dataset : datasets) {
-                csvPrinter.printRecord(
-                        dataset.getId(),
-                        dataset.getProvince(),
-                        dataset.getStream(),
-                        dataset.getEmployer(),
-                        dataset.getCity(),
-                        dataset.getPostalCode(),
-                        dataset.getNocCode(),
-                        dataset.getNocTitle(),
-                        dataset.getPositionsApproved(),
-                        dataset.getStatus().name(), // Use .name() to get string representation like "APPROVED" or "DENIED"
-                        dataset.getDecisionDate(),
-                        dataset.getSourceFile()
-                );
-            }
+            // Rows are written as they are read; no result list is built up
+            forEachMatchingDataset(employer, nocCode, province, status, dataset -> {
+                try {
+                    csvPrinter.printRecord(
+                            dataset.getId(),
+                            dataset.getProvince(),
+                            dataset.getStream(),
+                            dataset.getEmployer(),
+                            dataset.getCity(),
+                            dataset.getPostalCode(),
+                            dataset.getNocCode(),
+                            dataset.getNocTitle(),
+                            dataset.getPositionsApproved(),
+                            dataset.getStatus(), // "APPROVED" or "DENIED"
+                            dataset.getDecisionDate(),
+                            dataset.getSourceFile()
+                    );
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
             csvPrinter.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
         
         return writer.toString().getBytes(StandardCharsets.UTF_8);
@@ -61,12 +70,12 @@ public class ExportService {
 
     public byte[] exportToExcel(String employer, String nocCode, String province,
                                 Dataset.DecisionStatus status) throws IOException {
-        List<Dataset> datasets = fetchAllMatchingDatasets(employer, nocCode, province, status);
+        // Streaming workbook: only a window of rows is kept in memory, the rest is flushed to a temp file
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
 
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-
-            Sheet sheet = workbook.createSheet("LMIA Data");
+            SXSSFSheet sheet = workbook.createSheet("LMIA Data");
+            sheet.trackAllColumnsForAutoSizing();
             
             // Create styles
             CellStyle headerStyle = workbook.createCellStyle();
@@ -89,9 +98,9 @@ public class ExportService {
             }
 
             // Data
-            int rowNum = 1;
-            for (Dataset dataset : datasets) {
-                Row row = sheet.createRow(rowNum++);
+            int[] rowNum = {1};
+            forEachMatchingDataset(employer, nocCode, province, status, dataset -> {
+                Row row = sheet.createRow(rowNum[0]++);
                 row.createCell(0).setCellValue(dataset.getId());
                 row.createCell(1).setCellValue(dataset.getProvince());
                 row.createCell(2).setCellValue(dataset.getStream());
@@ -101,11 +110,11 @@ public class ExportService {
                 row.createCell(6).setCellValue(dataset.getNocCode());
                 row.createCell(7).setCellValue(dataset.getNocTitle() != null ? dataset.getNocTitle() : "");
                 row.createCell(8).setCellValue(dataset.getPositionsApproved());
-                row.createCell(9).setCellValue(dataset.getStatus().name());
+                row.createCell(9).setCellValue(dataset.getStatus());
                 // Defensive null check for decisionDate (though marked as non-nullable in entity)
                 row.createCell(10).setCellValue(dataset.getDecisionDate() != null ? dataset.getDecisionDate().toString() : "");
                 row.createCell(11).setCellValue(dataset.getSourceFile() != null ? dataset.getSourceFile() : "");
-            }
+            });
 
             // Auto-size columns
             for (int i = 0; i < headers.length; i++) {
@@ -114,36 +123,30 @@ public class ExportService {
 
             workbook.write(out);
             return out.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
-    private List<Dataset> fetchAllMatchingDatasets(String employer, String nocCode, 
-                                                   String province, Dataset.DecisionStatus status) {
-        // Fetch all data in chunks if there are many records
-        List<Dataset> allDatasets = new java.util.ArrayList<>();
-        int pageSize = 1000;
-        int page = 0;
-        boolean hasMore = true;
+    private void forEachMatchingDataset(String employer, String nocCode, String province,
+                                        Dataset.DecisionStatus status, Consumer<DatasetDTO> action) {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                .employer(employer)
+                .nocCode(nocCode)
+                .province(province)
+                .status(status)
+                .build();
 
-        while (hasMore) {
-            Pageable pageable = PageRequest.of(page, pageSize);
-            // Convert enum to string for native query
-            String statusString = status != null ? status.name() : null;
-            Page<Dataset> pageResult = datasetRepository.searchDatasets(
-                    employer, nocCode, province, statusString, null, null, pageable);
-            
-            allDatasets.addAll(pageResult.getContent());
-            hasMore = pageResult.hasNext();
-            page++;
-            
-            // Protection against infinite loop
-            if (page > 100) {
-                log.warn("Too many pages, limiting export to first 100,000 records");
-                break;
+        // One row past the limit shows whether the export was truncated
+        int[] exported = {0};
+        datasetReadRepository.forEach(spec, MAX_EXPORT_ROWS + 1, dataset -> {
+            if (exported[0]++ < MAX_EXPORT_ROWS) {
+                action.accept(dataset);
             }
+        });
+        if (exported[0] > MAX_EXPORT_ROWS) {
+            log.warn("Too many matching records, limiting export to first {} records", MAX_EXPORT_ROWS);
         }
-
-        return allDatasets;
     }
 }
-
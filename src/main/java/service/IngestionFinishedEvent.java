@@ -0,0 +1,12 @@
+package service;
+
+import lombok.Value;
+
+/**
+ * Published when an ingestion run announced with {@link IngestionStartedEvent} has finished,
+ * successfully or not.
+ */
+@Value
+public class IngestionFinishedEvent {
+    String source;
+}
@@ -0,0 +1,12 @@
+package service;
+
+import lombok.Value;
+
+/**
+ * Published when an ingestion run starts; {@link IngestionFinishedEvent} follows when all of its
+ * files have been processed. Rebuilds in {@link BackgroundRebuildScheduler} wait for it.
+ */
+@Value
+public class IngestionStartedEvent {
+    String source;
+}
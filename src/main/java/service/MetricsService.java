@@ -1,6 +1,7 @@
 package service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
@@ -14,7 +15,7 @@ import java.util.concurrent.TimeUnit;
  * This service provides methods to track:
  * - Search operations and their performance
  * - Data processing statistics
- * - File download metrics
+ * - File download metrics (queue wait, time to first byte, bytes, bandwidth, retries)
  * - Website URL lookup metrics
  * - Error rates
  */
@@ -144,6 +145,73 @@ public class MetricsService {
         sample.stop(timer);
     }
 
+    /**
+     * Records how long a download task waited in the download executor queue before starting.
+     */
+    public void recordDownloadQueueWait(long durationNanos) {
+        Timer.builder("lmia.file.download.queue.wait")
+                .description("Time download tasks spend queued before a worker picks them up")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records time from sending a download request until the response headers arrive.
+     */
+    public void recordDownloadTimeToFirstByte(long durationNanos) {
+        Timer.builder("lmia.file.download.ttfb")
+                .description("Time to first byte of file download responses")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the size and effective bandwidth of a completed download.
+     * 
+     * @param bytes Bytes transferred
+     * @param transferNanos Time from sending the request until the body was fully stored
+     */
+    public void recordDownloadTransfer(long bytes, long transferNanos) {
+        DistributionSummary.builder("lmia.file.download.bytes")
+                .description("Bytes transferred per file download")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(bytes);
+        if (transferNanos > 0) {
+            DistributionSummary.builder("lmia.file.download.bandwidth")
+                    .description("Effective bandwidth per file download")
+                    .baseUnit("bytes_per_second")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(bytes * 1_000_000_000.0 / transferNanos);
+        }
+    }
+
+    /**
+     * Records a download retry.
+     * 
+     * @param cause Bounded retry cause (e.g. http_503, timeout, connection)
+     */
+    public void recordDownloadRetry(String cause) {
+        Counter.builder("lmia.file.download.retries")
+                .description("File download retries by cause")
+                .tag("cause", cause)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Records a download task rejected by a full download executor.
+     */
+    public void recordDownloadRejected() {
+        Counter.builder("lmia.file.download.rejected")
+                .description("Download tasks rejected because the executor queue was full")
+                .register(meterRegistry)
+                .increment();
+    }
+
     /**
      * Records website URL lookup time.
      */
@@ -0,0 +1,200 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import model.Dataset;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quarterly partitions of lmia_datasets, once the table has been converted with
+ * db/partition_lmia_datasets.sql.
+ *
+ * Ingestion calls {@link #ensurePartitions} before its save transaction starts, so a quarter's
+ * partition exists before its first row arrives. Creating a partition takes an ACCESS EXCLUSIVE
+ * lock on lmia_datasets, so it must not run while the caller's transaction has read the table. A quarter can be replaced as a whole with {@link #replaceQuarter}: the
+ * new rows are loaded into a staging table with the parent's indexes, which is swapped in for
+ * the old partition with DETACH/ATTACH in one short transaction instead of deleting and
+ * re-inserting row by row.
+ *
+ * On a table that isn't partitioned (including the H2 test database) ensuring partitions does
+ * nothing and replacing a quarter is refused.
+ */
+@Slf4j
+@Service
+public class PartitionManager {
+
+    static final String TABLE = "lmia_datasets";
+
+    // Written by the staging load; id and the generated columns come from the table defaults
+    private static final String STAGING_COLUMNS = "city, postal_code, noc_code, positions_approved, status, " +
+            "decision_date, source_file, website_url, employer_id, noc_id, province_id, stream_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Set<String> knownPartitions = ConcurrentHashMap.newKeySet();
+    private volatile Boolean partitioned;
+
+    public PartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Whether lmia_datasets is a partitioned table. Checked once; the conversion script is run
+     * while the application is stopped.
+     */
+    public boolean isPartitioned() {
+        if (partitioned == null) {
+            String databaseProduct = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            partitioned = "PostgreSQL".equalsIgnoreCase(databaseProduct) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+                    "WHERE c.relname = ?)", Boolean.class, TABLE));
+            log.info("{} is {}partitioned by quarter", TABLE, partitioned ? "" : "not ");
+        }
+        return partitioned;
+    }
+
+    /**
+     * Creates the quarter partitions the records' decision dates fall into, if missing. Each
+     * partition is created in its own short transaction, so the parent table's lock isn't held
+     * for the rest of the ingestion.
+     */
+    public void ensurePartitions(Collection<Dataset> datasets) {
+        if (!isPartitioned()) {
+            return;
+        }
+        datasets.stream()
+                .map(Dataset::getDecisionDate)
+                .filter(Objects::nonNull)
+                .map(PartitionManager::quarterStart)
+                .distinct()
+                .forEach(this::ensurePartition);
+    }
+
+    /**
+     * Replaces every row of the quarter starting at {@code quarterStart} with {@code rows}.
+     * Website URLs already found for an employer are carried over to the new rows.
+     *
+     * @return Number of rows in the new partition
+     * @throws IllegalStateException if lmia_datasets is not partitioned
+     */
+    public int replaceQuarter(LocalDate quarterStart, List<Dataset> rows) {
+        if (!isPartitioned()) {
+            throw new IllegalStateException(TABLE + " is not partitioned; run db/partition_lmia_datasets.sql first");
+        }
+        LocalDate start = quarterStart(quarterStart);
+        ensurePartition(start);
+
+        long started = System.currentTimeMillis();
+        loadStaging(start, rows);
+        swapStaging(start);
+        log.info("Replaced partition {} with {} rows ({} ms)", partitionName(start), rows.size(),
+                System.currentTimeMillis() - started);
+        return rows.size();
+    }
+
+    /**
+     * Creates and fills the staging table for the quarter. It copies the parent's indexes, so
+     * ATTACH only has to match them instead of building every index under its lock.
+     *
+     * @return Staging table name
+     */
+    String loadStaging(LocalDate start, List<Dataset> rows) {
+        String staging = partitionName(start) + "_staging";
+        newTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + staging);
+            jdbcTemplate.execute("CREATE TABLE " + staging + " (LIKE " + TABLE + " INCLUDING ALL)");
+            insertRows(staging, rows);
+            jdbcTemplate.update("UPDATE " + staging + " s SET website_url = (SELECT MAX(d.website_url) FROM " + TABLE +
+                    " d WHERE d.employer_id = s.employer_id AND d.website_url LIKE 'http%' " +
+                    "AND d.website_url NOT LIKE 'https://www.google.com/search%') WHERE s.website_url IS NULL");
+            // Lets ATTACH skip scanning the staging table to validate the range
+            jdbcTemplate.execute("ALTER TABLE " + staging + " ADD CONSTRAINT " + staging + "_range CHECK " +
+                    "(decision_date >= DATE '" + start + "' AND decision_date < DATE '" + start.plusMonths(3) + "')");
+        });
+        return staging;
+    }
+
+    /**
+     * Swaps the loaded staging table in for the quarter's partition in one transaction.
+     */
+    void swapStaging(LocalDate start) {
+        String partition = partitionName(start);
+        String staging = partition + "_staging";
+        String range = "FOR VALUES FROM ('" + start + "') TO ('" + start.plusMonths(3) + "')";
+        newTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + staging + " " + range);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + staging + " RENAME TO " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + partition + " DROP CONSTRAINT " + staging + "_range");
+        });
+    }
+
+    private void ensurePartition(LocalDate quarterStart) {
+        String partition = partitionName(quarterStart);
+        if (knownPartitions.contains(partition)) {
+            return;
+        }
+        newTransaction.executeWithoutResult(status -> jdbcTemplate.execute(
+                "CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + quarterStart + "') TO ('" + quarterStart.plusMonths(3) + "')"));
+        knownPartitions.add(partition);
+    }
+
+    private void insertRows(String table, List<Dataset> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + STAGING_COLUMNS + ") " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows, 1000, (ps, dataset) -> {
+            ps.setString(1, dataset.getCity());
+            ps.setString(2, dataset.getPostalCode());
+            ps.setString(3, dataset.getNocCode());
+            ps.setInt(4, dataset.getPositionsApproved());
+            ps.setString(5, dataset.getStatus().name());
+            ps.setObject(6, dataset.getDecisionDate());
+            ps.setString(7, dataset.getSourceFile());
+            ps.setString(8, dataset.getWebsiteUrl());
+            ps.setObject(9, dataset.getEmployerId(), Types.INTEGER);
+            ps.setObject(10, dataset.getNocId(), Types.INTEGER);
+            ps.setObject(11, dataset.getProvinceId(), Types.INTEGER);
+            ps.setObject(12, dataset.getStreamId(), Types.INTEGER);
+        });
+    }
+
+    /**
+     * First day of the quarter containing {@code date}.
+     */
+    public static LocalDate quarterStart(LocalDate date) {
+        return LocalDate.of(date.getYear(), (date.getMonthValue() - 1) / 3 * 3 + 1, 1);
+    }
+
+    /**
+     * First day of {@code quarter} (1-4) of {@code year}.
+     */
+    public static LocalDate quarterStart(int year, int quarter) {
+        if (quarter < 1 || quarter > 4) {
+            throw new IllegalArgumentException("Quarter must be between 1 and 4");
+        }
+        return LocalDate.of(year, (quarter - 1) * 3 + 1, 1);
+    }
+
+    /**
+     * Partition table name for the quarter containing {@code date}, e.g. lmia_datasets_2021q2.
+     */
+    public static String partitionName(LocalDate date) {
+        return TABLE + "_" + date.getYear() + "q" + ((date.getMonthValue() - 1) / 3 + 1);
+    }
+}
@@ -0,0 +1,117 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import repository.DatasetRepository;
+import repository.DatasetSearchSpec;
+
+import java.util.OptionalLong;
+
+/**
+ * Total counts for dataset searches.
+ *
+ * COUNT(*) over a broad filter (a whole province, status=APPROVED) is the slowest part of a
+ * search and used to run on every page turn. Exact counts are cached per filter signature
+ * (the normalized {@link DatasetSearchSpec}) and dataset generation, so they are recomputed
+ * only after an ingestion commits new rows.
+ *
+ * When the planner expects at least {@code app.search.count.estimate-threshold} matches, its
+ * estimate is returned instead, flagged as approximate: for that many results an exact figure
+ * isn't worth a full scan. Set the threshold to 0 to always count exactly.
+ */
+@Slf4j
+@Service
+public class SearchCountService {
+
+    private final DatasetRepository datasetRepository;
+    private final DatasetGenerationService generationService;
+    private final long estimateThreshold;
+    private final Cache<CountKey, Long> exactCounts;
+
+    public SearchCountService(DatasetRepository datasetRepository,
+                              DatasetGenerationService generationService,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.search.count.estimate-threshold:100000}") long estimateThreshold,
+                              @Value("${app.search.count.cache-size:10000}") long cacheSize) {
+        this.datasetRepository = datasetRepository;
+        this.generationService = generationService;
+        this.estimateThreshold = estimateThreshold;
+        this.exactCounts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, exactCounts, "searchCounts");
+    }
+
+    /**
+     * Total matches for the spec: a cached or freshly counted exact value, or the planner's
+     * estimate for very broad filters.
+     */
+    public TotalCount count(DatasetSearchSpec spec) {
+        CountKey key = new CountKey(generationService.current(), spec);
+        Long cached = exactCounts.getIfPresent(key);
+        if (cached != null) {
+            return TotalCount.exact(cached);
+        }
+
+        if (estimateThreshold > 0) {
+            OptionalLong estimate = datasetRepository.estimateMatching(spec);
+            if (estimate.isPresent() && estimate.getAsLong() >= estimateThreshold) {
+                log.debug("Using planner estimate {} for broad search {}", estimate.getAsLong(), spec);
+                return TotalCount.approximate(estimate.getAsLong());
+            }
+        }
+
+        return TotalCount.exact(exactCounts.get(key, k -> datasetRepository.countMatching(spec)));
+    }
+
+    /**
+     * Total for a page whose rows were already fetched. As with Spring Data's
+     * PageableExecutionUtils, no count is needed when the page is the last one.
+     *
+     * @param rowsOnPage Rows returned for this page
+     * @param hasNext Whether at least one more row exists after this page
+     */
+    public TotalCount countForPage(DatasetSearchSpec spec, Pageable pageable, int rowsOnPage, boolean hasNext) {
+        long seen = pageable.getOffset() + rowsOnPage;
+        if (!hasNext && (rowsOnPage > 0 || pageable.getOffset() == 0)) {
+            return TotalCount.exact(seen);
+        }
+        TotalCount total = count(spec);
+        // An estimate must not contradict the rows actually seen
+        long lowerBound = hasNext ? seen + 1 : seen;
+        if (!total.isExact() && total.getValue() < lowerBound) {
+            return TotalCount.approximate(lowerBound);
+        }
+        return total;
+    }
+
+    @lombok.Value
+    private static class CountKey {
+        long generation;
+        DatasetSearchSpec spec;
+    }
+
+    /**
+     * A result total and whether it is exact or a planner estimate.
+     */
+    @lombok.Value
+    public static class TotalCount {
+        long value;
+        boolean exact;
+
+        public static TotalCount exact(long value) {
+            return new TotalCount(value, true);
+        }
+
+        public static TotalCount approximate(long value) {
+            return new TotalCount(value, false);
+        }
+    }
+}
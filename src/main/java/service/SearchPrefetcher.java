@@ -0,0 +1,154 @@
+package service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import dto.DatasetDTO;
+import dto.PagedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fetches the next page of a search into the {@link SearchResultCache} in the background, so
+ * the client's request for it is a cache hit.
+ *
+ * Prefetches run on a few minimum-priority daemon threads with a small queue; when the queue is
+ * full the prefetch is dropped, never run by the caller. They give way to client requests: a
+ * prefetch is skipped, both when submitted and when it starts, while a thread is waiting for a
+ * database connection or more than {@code app.search.prefetch.max-pool-usage} of a Hikari
+ * pool's connections are in use. Pages served from the columnar snapshot don't touch the
+ * database, but the check doesn't know in advance which pages those are.
+ *
+ * Skipped and dropped prefetches are counted in {@code lmia.search.prefetch.skipped}; how many
+ * stored pages were used is reported by the cache.
+ */
+@Slf4j
+@Service
+public class SearchPrefetcher {
+
+    private final SearchResultCache searchResultCache;
+    private final ObjectProvider<HikariDataSource> pools;
+    private final boolean enabled;
+    private final double maxPoolUsage;
+    private final Set<SearchResultCache.Key> inFlight = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+    private final Counter skippedBusy;
+    private final Counter skippedQueueFull;
+
+    public SearchPrefetcher(SearchResultCache searchResultCache,
+                            ObjectProvider<HikariDataSource> pools,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.search.prefetch.enabled:false}") boolean enabled,
+                            @Value("${app.search.prefetch.threads:1}") int threads,
+                            @Value("${app.search.prefetch.queue-capacity:16}") int queueCapacity,
+                            @Value("${app.search.prefetch.max-pool-usage:0.5}") double maxPoolUsage) {
+        this.searchResultCache = searchResultCache;
+        this.pools = pools;
+        this.enabled = enabled;
+        this.maxPoolUsage = maxPoolUsage;
+        this.skippedBusy = Counter.builder("lmia.search.prefetch.skipped")
+                .tag("reason", "pool_busy")
+                .description("Next-page prefetches skipped to leave database connections to client requests")
+                .register(meterRegistry);
+        this.skippedQueueFull = Counter.builder("lmia.search.prefetch.skipped")
+                .tag("reason", "queue_full")
+                .description("Next-page prefetches dropped because the prefetch queue was full")
+                .register(meterRegistry);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-prefetch-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                (task, pool) -> {
+                    skippedQueueFull.increment();
+                    inFlight.remove(((PrefetchTask) task).key);
+                });
+    }
+
+    public boolean isEnabled() {
+        return enabled && searchResultCache.isEnabled();
+    }
+
+    /**
+     * Queues the page for the key to be fetched and cached, unless prefetching is disabled, the
+     * same page is already queued or the database is busy. Returns immediately.
+     */
+    public void prefetch(SearchResultCache.Key key, Supplier<PagedResponse<DatasetDTO>> query) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (poolBusy()) {
+            skippedBusy.increment();
+            return;
+        }
+        if (inFlight.add(key)) {
+            executor.execute(new PrefetchTask(key, query));
+        }
+    }
+
+    /**
+     * True when any Hikari pool has threads waiting for a connection or more than the allowed
+     * share of its connections in use.
+     */
+    boolean poolBusy() {
+        List<HikariDataSource> dataSources = pools.orderedStream().toList();
+        for (HikariDataSource dataSource : dataSources) {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool == null) {
+                continue;
+            }
+            if (pool.getThreadsAwaitingConnection() > 0
+                    || pool.getActiveConnections() > dataSource.getMaximumPoolSize() * maxPoolUsage) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private final class PrefetchTask implements Runnable {
+        private final SearchResultCache.Key key;
+        private final Supplier<PagedResponse<DatasetDTO>> query;
+
+        private PrefetchTask(SearchResultCache.Key key, Supplier<PagedResponse<DatasetDTO>> query) {
+            this.key = key;
+            this.query = query;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (poolBusy()) {
+                    skippedBusy.increment();
+                    return;
+                }
+                searchResultCache.prefetch(key, query);
+            } catch (RuntimeException e) {
+                log.debug("Search prefetch failed", e);
+            } finally {
+                inFlight.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dto.DatasetDTO;
+import dto.PagedResponse;
+import dto.SearchRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import model.Dataset;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import repository.DatasetSearchSpec;
+import repository.SearchFacet;
+import repository.SearchSort;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Result pages of the public search endpoints (/search, /employer/{name}, /noc/{code}).
+ *
+ * The data only changes when an ingestion commits, so pages are cached under a key made of the
+ * normalized request and the current dataset generation. Advancing the generation makes every
+ * cached page unreachable in O(1); the stale entries are evicted by the size bound.
+ *
+ * Website URLs are filled in by a background job without an ingestion, so entries also expire
+ * after {@code app.search.result-cache.ttl-minutes}.
+ *
+ * Pages stored ahead of time by {@link SearchPrefetcher} are remembered until first read, so
+ * {@code lmia.search.prefetch.hit.ratio} reports how many prefetches were actually used.
+ */
+@Service
+public class SearchResultCache {
+
+    private final DatasetGenerationService generationService;
+    private final Cache<Key, PagedResponse<DatasetDTO>> results;
+    // Keys of prefetched pages not requested yet
+    private final Cache<Key, Boolean> unreadPrefetches;
+    private final boolean enabled;
+    private final Counter prefetchesStored;
+    private final Counter prefetchesServed;
+
+    public SearchResultCache(DatasetGenerationService generationService,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.search.result-cache.enabled:true}") boolean enabled,
+                             @Value("${app.search.result-cache.max-size:5000}") long maxSize,
+                             @Value("${app.search.result-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.generationService = generationService;
+        this.enabled = enabled;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "searchResults");
+        this.unreadPrefetches = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+        this.prefetchesStored = Counter.builder("lmia.search.prefetch.stored")
+                .description("Next search pages fetched ahead of time and cached")
+                .register(meterRegistry);
+        this.prefetchesServed = Counter.builder("lmia.search.prefetch.served")
+                .description("Prefetched search pages later requested by a client")
+                .register(meterRegistry);
+        Gauge.builder("lmia.search.prefetch.hit.ratio", this, cache -> cache.prefetchesStored.count() == 0 ? 0
+                        : cache.prefetchesServed.count() / cache.prefetchesStored.count())
+                .description("Share of prefetched search pages that were requested")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached page, or runs the query and caches its result. Failed queries are not
+     * cached. Concurrent misses for the same key may both query; neither blocks other keys.
+     */
+    public PagedResponse<DatasetDTO> get(Key key, Supplier<PagedResponse<DatasetDTO>> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        PagedResponse<DatasetDTO> cached = results.getIfPresent(key);
+        if (cached != null) {
+            if (unreadPrefetches.asMap().remove(key) != null) {
+                prefetchesServed.increment();
+            }
+            return cached;
+        }
+        PagedResponse<DatasetDTO> page = query.get();
+        results.put(key, page);
+        return page;
+    }
+
+    /**
+     * Runs the query and caches its result ahead of a request for it, unless the key is
+     * already cached.
+     *
+     * @return Whether the page was queried and stored
+     */
+    public boolean prefetch(Key key, Supplier<PagedResponse<DatasetDTO>> query) {
+        if (!enabled || results.getIfPresent(key) != null) {
+            return false;
+        }
+        results.put(key, query.get());
+        unreadPrefetches.put(key, Boolean.TRUE);
+        prefetchesStored.increment();
+        return true;
+    }
+
+    /**
+     * Key for /search. The spec already holds the normalized employer key and canonical
+     * province, so equivalent filters share an entry. Paging fields that don't apply to the
+     * request's mode are left out. Facet counts are cached with the page they were requested
+     * with.
+     */
+    public Key keyForSearch(DatasetSearchSpec spec, Set<SearchFacet> facets, SearchSort sort, SearchRequest request) {
+        boolean cursorMode = request.isCursorMode();
+        return key("search", spec, facets, sort, cursorMode ? 0 : request.getPage(), request.getSize(),
+                cursorMode ? request.getCursor() : null, cursorMode && request.isIncludeTotal());
+    }
+
+    /**
+     * Key for a page-number search on a single-filter endpoint such as /employer/{name}.
+     */
+    public Key keyForPage(String endpoint, DatasetSearchSpec spec, Pageable pageable) {
+        return key(endpoint, spec, Set.of(), SearchSort.DECISION_DATE, pageable.getPageNumber(), pageable.getPageSize(),
+                null, false);
+    }
+
+    private Key key(String endpoint, DatasetSearchSpec spec, Set<SearchFacet> facets, SearchSort sort, int page,
+                    int size, String cursor, boolean includeTotal) {
+        return new Key(endpoint, generationService.current(), spec.getEmployer(), spec.getNocCodes(),
+                spec.getProvinces(), spec.getStreams(), spec.getStatuses(), spec.getStartDate(), spec.getEndDate(),
+                Set.copyOf(facets), sort, page, size, cursor, includeTotal);
+    }
+
+    /**
+     * Normalized request plus the generation it was computed for.
+     */
+    @lombok.Value
+    public static class Key {
+        String endpoint;
+        long generation;
+        String employer;
+        Set<String> nocCodes;
+        Set<String> provinces;
+        Set<String> streams;
+        Set<Dataset.DecisionStatus> statuses;
+        LocalDate startDate;
+        LocalDate endDate;
+        Set<SearchFacet> facets;
+        SearchSort sort;
+        int page;
+        int size;
+        String cursor;
+        boolean includeTotal;
+    }
+}
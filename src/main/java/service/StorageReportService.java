@@ -0,0 +1,51 @@
+package service;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage footprint of the fact table and the star schema dimensions, for the admin API.
+ *
+ * On PostgreSQL it reports heap, index and total bytes per table; other databases only get row
+ * counts.
+ */
+@Service
+@Transactional(readOnly = true)
+public class StorageReportService {
+
+    static final List<String> TABLES = List.of(
+            "lmia_datasets", "lmia_employers", "lmia_occupations", "lmia_provinces", "lmia_streams");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StorageReportService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<String, Object> report() {
+        boolean postgres = "PostgreSQL".equalsIgnoreCase(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+
+        Map<String, Object> tables = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            Map<String, Object> sizes = new LinkedHashMap<>();
+            sizes.put("rows", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class));
+            if (postgres) {
+                sizes.putAll(jdbcTemplate.queryForMap("SELECT pg_relation_size(?::regclass) AS \"tableBytes\", " +
+                        "pg_indexes_size(?::regclass) AS \"indexBytes\", " +
+                        "pg_total_relation_size(?::regclass) AS \"totalBytes\"", table, table, table));
+            }
+            tables.put(table, sizes);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("tables", tables);
+        return report;
+    }
+}
@@ -0,0 +1,182 @@
+package service.search;
+
+import dto.DatasetDTO;
+import dto.PagedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.DatasetSearchSpec;
+import repository.SearchCursor;
+import repository.SearchFacet;
+import repository.SearchSort;
+import service.DatasetGenerationService;
+import service.BackgroundRebuildScheduler;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Answers the public search from a {@link ColumnarSnapshot} of lmia_datasets held in memory,
+ * so the common filter combinations never reach the database.
+ *
+ * The snapshot is rebuilt by the {@link BackgroundRebuildScheduler} at startup, after ingestion
+ * and every {@code app.search.columnar.refresh-minutes} (website URLs are filled in without an
+ * ingestion). It is only used while its generation is the current dataset generation; until a
+ * fresh snapshot is ready, or when the engine is disabled, the search methods return empty and
+ * the caller queries the database as before.
+ */
+@Slf4j
+@Service
+public class ColumnarSearchEngine {
+
+    private static final String LOAD_SQL = "SELECT d.id, d.province, d.stream, d.employer, d.city, d.postal_code, " +
+            "d.noc_code, d.noc_title, d.positions_approved, d.status, d.decision_date, d.source_file, d.website_url, " +
+            "d.employer_key FROM lmia_datasets_star d ORDER BY d.decision_date DESC, d.id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate primaryTransaction;
+    private final DatasetGenerationService generationService;
+    private final boolean enabled;
+    private final AtomicReference<ColumnarSnapshot> snapshot = new AtomicReference<>();
+    private final BackgroundRebuildScheduler.Rebuild rebuild;
+    private final Timer buildTimer;
+    private final Counter served;
+    private final Counter fallback;
+
+    public ColumnarSearchEngine(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                DatasetGenerationService generationService,
+                                BackgroundRebuildScheduler rebuildScheduler,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.search.columnar.enabled:false}") boolean enabled,
+                                @Value("${app.search.columnar.refresh-minutes:30}") long refreshMinutes,
+                                @Value("${app.search.jdbc-fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // Not read-only: those may be routed to a replica that hasn't replayed the commit this
+        // snapshot is built for
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.generationService = generationService;
+        this.enabled = enabled;
+        this.buildTimer = Timer.builder("lmia.search.columnar.build")
+                .description("Time to load the columnar search snapshot")
+                .register(meterRegistry);
+        this.served = Counter.builder("lmia.search.columnar.requests").tag("result", "served").register(meterRegistry);
+        this.fallback = Counter.builder("lmia.search.columnar.requests").tag("result", "fallback").register(meterRegistry);
+        Gauge.builder("lmia.search.columnar.rows", snapshot, ref -> ref.get() == null ? 0 : ref.get().getRowCount())
+                .description("Rows in the columnar search snapshot")
+                .register(meterRegistry);
+        this.rebuild = rebuildScheduler.register("Columnar search snapshot build", enabled, this::rebuild);
+        this.rebuild.requestEvery(refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Page-number page in the given order with the requested facet counts, or empty when there
+     * is no current snapshot.
+     */
+    public Optional<PagedResponse<DatasetDTO>> searchPage(DatasetSearchSpec spec, Set<SearchFacet> facets,
+                                                          SearchSort sort, int page, int size) {
+        ColumnarSnapshot current = currentSnapshot();
+        if (current == null) {
+            return Optional.empty();
+        }
+        RoaringBitmap matches = current.match(spec);
+        long offset = (long) page * size;
+        List<DatasetDTO> rows = current.page(matches, sort, offset, size);
+        long total = matches.getLongCardinality();
+        PagedResponse<DatasetDTO> response = PagedResponse.of(rows, total, true, page, size, offset + rows.size() < total);
+        return Optional.of(withFacets(response, current, matches, facets));
+    }
+
+    /**
+     * Keyset page in the given order after {@code after} (from the start when null) with the
+     * requested facet counts, or empty when there is no current snapshot. The total is exact and
+     * free, but only returned when requested, like the database path.
+     */
+    public Optional<PagedResponse<DatasetDTO>> searchAfter(DatasetSearchSpec spec, Set<SearchFacet> facets,
+                                                           SearchSort sort, SearchCursor after, int size,
+                                                           boolean includeTotal) {
+        ColumnarSnapshot current = currentSnapshot();
+        if (current == null) {
+            return Optional.empty();
+        }
+        RoaringBitmap matches = current.match(spec);
+        List<DatasetDTO> rows = current.after(matches, sort, after, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<DatasetDTO> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            nextCursor = SearchCursor.after(pageRows.get(pageRows.size() - 1), sort).encode();
+        }
+        Long total = includeTotal ? matches.getLongCardinality() : null;
+        PagedResponse<DatasetDTO> response = PagedResponse.ofCursor(pageRows, total, true, size, after != null, nextCursor);
+        return Optional.of(withFacets(response, current, matches, facets));
+    }
+
+    private static PagedResponse<DatasetDTO> withFacets(PagedResponse<DatasetDTO> response, ColumnarSnapshot snapshot,
+                                                        RoaringBitmap matches, Set<SearchFacet> facets) {
+        if (!facets.isEmpty()) {
+            response.setFacets(SearchFacet.toResponse(snapshot.facetCounts(matches, facets)));
+        }
+        return response;
+    }
+
+    private ColumnarSnapshot currentSnapshot() {
+        if (!enabled) {
+            return null;
+        }
+        ColumnarSnapshot current = snapshot.get();
+        if (current == null || current.getGeneration() != generationService.current()) {
+            // Normally already queued by the change event; this also covers a build that raced it
+            rebuild.request();
+            fallback.increment();
+            return null;
+        }
+        served.increment();
+        return current;
+    }
+
+    private void rebuild() {
+        // Read before loading: rows committed during the load advance the generation, and the
+        // snapshot is then not served until the next rebuild picks them up
+        long generation = generationService.current();
+        ColumnarSnapshot built = buildTimer.record(() -> load(generation));
+        snapshot.set(built);
+        log.info("Columnar search snapshot built: {} rows at generation {}", built.getRowCount(), generation);
+    }
+
+    ColumnarSnapshot load(long generation) {
+        ColumnarSnapshot.Builder builder = ColumnarSnapshot.builder(generation);
+        primaryTransaction.executeWithoutResult(status -> jdbcTemplate.query(LOAD_SQL, rs -> {
+            builder.add(new DatasetDTO(
+                    rs.getLong(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getString(4),
+                    rs.getString(5),
+                    rs.getString(6),
+                    rs.getString(7),
+                    rs.getString(8),
+                    rs.getInt(9),
+                    rs.getString(10),
+                    rs.getObject(11, LocalDate.class),
+                    rs.getString(12),
+                    rs.getString(13)), rs.getString(14));
+        }));
+        return builder.build();
+    }
+}
@@ -0,0 +1,541 @@
+package service.search;
+
+import dto.DatasetDTO;
+import model.EmployerKeys;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import repository.DatasetSearchSpec;
+import repository.SearchCursor;
+import repository.SearchFacet;
+import repository.SearchSort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable in-memory copy of lmia_datasets, laid out column by column.
+ *
+ * Rows are stored in (decision_date DESC, id DESC) order, the order search results are returned
+ * in, so a row's position doubles as its rank and a date range is a contiguous run of positions.
+ * Text columns are dictionary-encoded into int codes. Province, NOC code, stream and status
+ * have one compressed bitmap of row positions per value.
+ *
+ * A search intersects the bitmaps of its filters with the date range; a filter with several
+ * values uses the union of their bitmaps. An employer term is matched once per distinct key in
+ * the employer key dictionary, in parallel, and only candidate rows with a matching key are
+ * kept. Facet counts are cardinalities of the result intersected with the same bitmaps.
+ *
+ * Pages in the other {@link SearchSort} orders keep the best offset + limit matches in a bounded
+ * heap while scanning the matches once, instead of sorting all of them.
+ */
+public final class ColumnarSnapshot {
+
+    // Employer filters without other filters scan the rows in chunks of this many, in parallel
+    private static final int SCAN_CHUNK = 1 << 16;
+
+    private final long generation;
+    private final int rowCount;
+    private final long[] ids;
+    private final int[] epochDays;
+    private final int[] positionsApproved;
+    private final Column province;
+    private final Column stream;
+    private final Column employer;
+    private final Column employerKey;
+    private final Column city;
+    private final Column postalCode;
+    private final Column nocCode;
+    private final Column nocTitle;
+    private final Column status;
+    private final Column sourceFile;
+    private final Column websiteUrl;
+    // Position of each employer dictionary code in name order
+    private final int[] employerRanks;
+
+    private ColumnarSnapshot(Builder builder) {
+        this.generation = builder.generation;
+        this.rowCount = builder.rowCount;
+        this.ids = Arrays.copyOf(builder.ids, rowCount);
+        this.epochDays = Arrays.copyOf(builder.epochDays, rowCount);
+        this.positionsApproved = Arrays.copyOf(builder.positionsApproved, rowCount);
+        this.province = builder.province.freeze(rowCount, true);
+        this.stream = builder.stream.freeze(rowCount, true);
+        this.employer = builder.employer.freeze(rowCount, false);
+        this.employerKey = builder.employerKey.freeze(rowCount, false);
+        this.city = builder.city.freeze(rowCount, false);
+        this.postalCode = builder.postalCode.freeze(rowCount, false);
+        this.nocCode = builder.nocCode.freeze(rowCount, true);
+        this.nocTitle = builder.nocTitle.freeze(rowCount, false);
+        this.status = builder.status.freeze(rowCount, true);
+        this.sourceFile = builder.sourceFile.freeze(rowCount, false);
+        this.websiteUrl = builder.websiteUrl.freeze(rowCount, false);
+        this.employerRanks = ranks(employer.dictionary);
+    }
+
+    private static int[] ranks(String[] dictionary) {
+        Integer[] codes = IntStream.range(0, dictionary.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(codes, Comparator.comparing(code -> dictionary[code], SearchSort.EMPLOYER_ORDER));
+        int[] ranks = new int[dictionary.length];
+        for (int rank = 0; rank < codes.length; rank++) {
+            ranks[codes[rank]] = rank;
+        }
+        return ranks;
+    }
+
+    public static Builder builder(long generation) {
+        return new Builder(generation);
+    }
+
+    /**
+     * Dataset generation the snapshot was loaded at; it answers searches only while this is
+     * still the current generation.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Positions of the rows matching every filter of the spec, in result order.
+     */
+    public RoaringBitmap match(DatasetSearchSpec spec) {
+        RoaringBitmap matches = dateRange(spec.getStartDate(), spec.getEndDate());
+        matches = and(matches, province.rowsWithAny(spec.getProvinces()));
+        matches = and(matches, nocCode.rowsWithAny(spec.getNocCodes()));
+        matches = and(matches, stream.rowsWithAny(spec.getStreams()));
+        matches = and(matches, status.rowsWithAny(spec.getStatuses().stream().map(Enum::name).toList()));
+        if (spec.getEmployer() != null) {
+            matches = employerContaining(spec.getEmployer(), matches);
+        }
+        return matches != null ? matches : RoaringBitmap.bitmapOfRange(0, rowCount);
+    }
+
+    /**
+     * Row counts per value of each facet among the matches: one intersection cardinality per
+     * value, without materializing the intersections.
+     */
+    public Map<SearchFacet, Map<String, Long>> facetCounts(RoaringBitmap matches, Set<SearchFacet> facets) {
+        Map<SearchFacet, Map<String, Long>> counts = new EnumMap<>(SearchFacet.class);
+        for (SearchFacet facet : facets) {
+            Column column = facetColumn(facet);
+            Map<String, Long> values = new HashMap<>();
+            for (int code = 0; code < column.dictionary.length; code++) {
+                long rows = RoaringBitmap.andCardinality(matches, column.rowsByCode[code]);
+                if (rows > 0) {
+                    values.put(column.dictionary[code], rows);
+                }
+            }
+            counts.put(facet, values);
+        }
+        return counts;
+    }
+
+    private Column facetColumn(SearchFacet facet) {
+        return switch (facet) {
+            case PROVINCE -> province;
+            case STATUS -> status;
+            case NOC_CODE -> nocCode;
+            case STREAM -> stream;
+        };
+    }
+
+    /**
+     * Up to {@code limit} matching rows, skipping the first {@code offset}.
+     */
+    public List<DatasetDTO> page(RoaringBitmap matches, long offset, int limit) {
+        if (offset >= matches.getLongCardinality()) {
+            return List.of();
+        }
+        return collect(matches, matches.select((int) offset), limit);
+    }
+
+    /**
+     * As {@link #page(RoaringBitmap, long, int)}, in the given order.
+     */
+    public List<DatasetDTO> page(RoaringBitmap matches, SearchSort sort, long offset, int limit) {
+        if (sort == SearchSort.DECISION_DATE) {
+            return page(matches, offset, limit);
+        }
+        if (offset >= matches.getLongCardinality()) {
+            return List.of();
+        }
+        int[] top = top(matches, sort, position -> true, (int) Math.min(offset + limit, Integer.MAX_VALUE));
+        return rows(top, (int) offset);
+    }
+
+    /**
+     * Up to {@code limit} matching rows after {@code cursor} in result order, or from the first
+     * row when the cursor is null.
+     */
+    public List<DatasetDTO> after(RoaringBitmap matches, SearchCursor cursor, int limit) {
+        int from = cursor == null ? 0 : firstPositionAfter(cursor);
+        return from >= rowCount ? List.of() : collect(matches, from, limit);
+    }
+
+    /**
+     * As {@link #after(RoaringBitmap, SearchCursor, int)}, in the given order; the cursor must
+     * belong to that order.
+     */
+    public List<DatasetDTO> after(RoaringBitmap matches, SearchSort sort, SearchCursor cursor, int limit) {
+        if (sort == SearchSort.DECISION_DATE) {
+            return after(matches, cursor, limit);
+        }
+        return rows(top(matches, sort, cursor == null ? position -> true : follows(sort, cursor), limit), 0);
+    }
+
+    /**
+     * Positions of the first {@code k} matches in the given order among those accepted by the
+     * filter, in that order. The heap holds at most k positions, worst first, so a scan over n
+     * matches costs O(n log k) and never sorts the whole match set.
+     */
+    private int[] top(RoaringBitmap matches, SearchSort sort, IntPredicate filter, int k) {
+        Comparator<Integer> order = order(sort);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, order.reversed());
+        matches.forEach((int position) -> {
+            if (!filter.test(position)) {
+                return;
+            }
+            if (heap.size() < k) {
+                heap.add(position);
+            } else if (order.compare(position, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(position);
+            }
+        });
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return top;
+    }
+
+    private List<DatasetDTO> rows(int[] positions, int from) {
+        List<DatasetDTO> rows = new ArrayList<>(Math.max(0, positions.length - from));
+        for (int i = from; i < positions.length; i++) {
+            rows.add(row(positions[i]));
+        }
+        return rows;
+    }
+
+    /**
+     * Comparator of row positions: negative when the first row comes first in the sort order.
+     */
+    private Comparator<Integer> order(SearchSort sort) {
+        return switch (sort) {
+            case DECISION_DATE -> Integer::compare;
+            case POSITIONS_APPROVED -> (a, b) -> {
+                int byPositions = Integer.compare(positionsApproved[b], positionsApproved[a]);
+                return byPositions != 0 ? byPositions : Long.compare(ids[b], ids[a]);
+            };
+            case EMPLOYER -> (a, b) -> {
+                int byName = Integer.compare(employerRank(a), employerRank(b));
+                return byName != 0 ? byName : Long.compare(ids[a], ids[b]);
+            };
+        };
+    }
+
+    /**
+     * Rows strictly after the cursor in the sort order.
+     */
+    private IntPredicate follows(SearchSort sort, SearchCursor cursor) {
+        long id = cursor.getId();
+        return switch (sort) {
+            case DECISION_DATE -> {
+                int from = firstPositionAfter(cursor);
+                yield position -> position >= from;
+            }
+            case POSITIONS_APPROVED -> {
+                int positions = (Integer) cursor.typedValue();
+                yield position -> positionsApproved[position] < positions
+                        || (positionsApproved[position] == positions && ids[position] < id);
+            }
+            case EMPLOYER -> position -> {
+                int byName = SearchSort.EMPLOYER_ORDER.compare(employer.valueAt(position), cursor.getValue());
+                return byName > 0 || (byName == 0 && ids[position] > id);
+            };
+        };
+    }
+
+    private int employerRank(int position) {
+        int code = employer.codes[position];
+        // Rows without an employer come after every name
+        return code < 0 ? Integer.MAX_VALUE : employerRanks[code];
+    }
+
+    private List<DatasetDTO> collect(RoaringBitmap matches, int fromPosition, int limit) {
+        List<DatasetDTO> rows = new ArrayList<>(Math.min(limit, 256));
+        PeekableIntIterator positions = matches.getIntIterator();
+        positions.advanceIfNeeded(fromPosition);
+        while (positions.hasNext() && rows.size() < limit) {
+            rows.add(row(positions.next()));
+        }
+        return rows;
+    }
+
+    DatasetDTO row(int position) {
+        return new DatasetDTO(
+                ids[position],
+                province.valueAt(position),
+                stream.valueAt(position),
+                employer.valueAt(position),
+                city.valueAt(position),
+                postalCode.valueAt(position),
+                nocCode.valueAt(position),
+                nocTitle.valueAt(position),
+                positionsApproved[position],
+                status.valueAt(position),
+                LocalDate.ofEpochDay(epochDays[position]),
+                sourceFile.valueAt(position),
+                websiteUrl.valueAt(position));
+    }
+
+    /**
+     * Rows within [start, end] as a position range; null means all rows.
+     */
+    private RoaringBitmap dateRange(LocalDate start, LocalDate end) {
+        if (start == null && end == null) {
+            return null;
+        }
+        // Dates descend with position: newer than end come first, older than start come last
+        int from = end == null ? 0 : firstPositionAtOrBefore((int) end.toEpochDay());
+        int to = start == null ? rowCount : firstPositionAtOrBefore((int) start.toEpochDay() - 1);
+        return from < to ? RoaringBitmap.bitmapOfRange(from, to) : new RoaringBitmap();
+    }
+
+    private int firstPositionAtOrBefore(int epochDay) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] > epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstPositionAfter(SearchCursor cursor) {
+        int day = (int) ((LocalDate) cursor.typedValue()).toEpochDay();
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            boolean beforeOrAtCursor = epochDays[mid] > day || (epochDays[mid] == day && ids[mid] >= cursor.getId());
+            if (beforeOrAtCursor) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Same semantics as employer_key LIKE '%term%': the term is matched against each distinct
+     * key once, then rows are kept by their key code.
+     */
+    private RoaringBitmap employerContaining(String term, RoaringBitmap candidates) {
+        String[] keys = employerKey.dictionary;
+        BitSet matchedKeys = new BitSet(keys.length);
+        IntStream.range(0, keys.length).parallel()
+                .filter(code -> keys[code] != null && keys[code].contains(term))
+                .forEachOrdered(matchedKeys::set);
+        if (matchedKeys.isEmpty()) {
+            return new RoaringBitmap();
+        }
+
+        int[] codes = employerKey.codes;
+        if (candidates != null) {
+            RoaringBitmap matches = new RoaringBitmap();
+            candidates.forEach((int position) -> {
+                if (codes[position] >= 0 && matchedKeys.get(codes[position])) {
+                    matches.add(position);
+                }
+            });
+            return matches;
+        }
+        RoaringBitmap[] chunks = IntStream.range(0, (rowCount + SCAN_CHUNK - 1) / SCAN_CHUNK).parallel()
+                .mapToObj(chunk -> {
+                    RoaringBitmap matches = new RoaringBitmap();
+                    int end = Math.min(rowCount, (chunk + 1) * SCAN_CHUNK);
+                    for (int position = chunk * SCAN_CHUNK; position < end; position++) {
+                        if (codes[position] >= 0 && matchedKeys.get(codes[position])) {
+                            matches.add(position);
+                        }
+                    }
+                    return matches;
+                })
+                .toArray(RoaringBitmap[]::new);
+        return chunks.length == 0 ? new RoaringBitmap() : FastAggregation.or(chunks);
+    }
+
+    /**
+     * Intersection with {@code filter}; a null filter leaves the matches unchanged and null
+     * matches stand for all rows.
+     */
+    private static RoaringBitmap and(RoaringBitmap matches, RoaringBitmap filter) {
+        if (filter == null) {
+            return matches;
+        }
+        return matches == null ? filter : RoaringBitmap.and(matches, filter);
+    }
+
+    /**
+     * Collects rows in result order, (decision_date DESC, id DESC).
+     */
+    public static final class Builder {
+        private final long generation;
+        private int rowCount;
+        private long[] ids = new long[1024];
+        private int[] epochDays = new int[1024];
+        private int[] positionsApproved = new int[1024];
+        private final ColumnBuilder province = new ColumnBuilder();
+        private final ColumnBuilder stream = new ColumnBuilder();
+        private final ColumnBuilder employer = new ColumnBuilder();
+        private final ColumnBuilder employerKey = new ColumnBuilder();
+        private final ColumnBuilder city = new ColumnBuilder();
+        private final ColumnBuilder postalCode = new ColumnBuilder();
+        private final ColumnBuilder nocCode = new ColumnBuilder();
+        private final ColumnBuilder nocTitle = new ColumnBuilder();
+        private final ColumnBuilder status = new ColumnBuilder();
+        private final ColumnBuilder sourceFile = new ColumnBuilder();
+        private final ColumnBuilder websiteUrl = new ColumnBuilder();
+
+        private Builder(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Appends a row. Rows must arrive in result order.
+         *
+         * @param employerKeyValue Stored employer_key, or null to derive it from the employer
+         */
+        public Builder add(DatasetDTO row, String employerKeyValue) {
+            if (rowCount == ids.length) {
+                int capacity = rowCount * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                positionsApproved = Arrays.copyOf(positionsApproved, capacity);
+            }
+            ids[rowCount] = row.getId();
+            epochDays[rowCount] = (int) row.getDecisionDate().toEpochDay();
+            positionsApproved[rowCount] = row.getPositionsApproved() == null ? 0 : row.getPositionsApproved();
+            province.add(row.getProvince());
+            stream.add(row.getStream());
+            employer.add(row.getEmployer());
+            employerKey.add(employerKeyValue != null ? employerKeyValue : EmployerKeys.normalize(row.getEmployer()));
+            city.add(row.getCity());
+            postalCode.add(row.getPostalCode());
+            nocCode.add(row.getNocCode());
+            nocTitle.add(row.getNocTitle());
+            status.add(row.getStatus());
+            sourceFile.add(row.getSourceFile());
+            websiteUrl.add(row.getWebsiteUrl());
+            rowCount++;
+            return this;
+        }
+
+        public ColumnarSnapshot build() {
+            return new ColumnarSnapshot(this);
+        }
+    }
+
+    /**
+     * Dictionary-encoded column under construction. Null values get code -1.
+     */
+    private static final class ColumnBuilder {
+        private final Map<String, Integer> codesByValue = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] codes = new int[1024];
+        private int size;
+
+        void add(String value) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = value == null ? -1 : codesByValue.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        Column freeze(int rowCount, boolean indexed) {
+            RoaringBitmap[] rows = null;
+            if (indexed) {
+                rows = new RoaringBitmap[values.size()];
+                for (int code = 0; code < rows.length; code++) {
+                    rows[code] = new RoaringBitmap();
+                }
+                for (int position = 0; position < rowCount; position++) {
+                    if (codes[position] >= 0) {
+                        rows[codes[position]].add(position);
+                    }
+                }
+                for (RoaringBitmap bitmap : rows) {
+                    bitmap.runOptimize();
+                }
+            }
+            return new Column(Map.copyOf(codesByValue), values.toArray(new String[0]), Arrays.copyOf(codes, rowCount), rows);
+        }
+    }
+
+    /**
+     * Frozen column: the value dictionary, one code per row and, for filter columns, the
+     * bitmap of row positions per code.
+     */
+    private static final class Column {
+        private final Map<String, Integer> codesByValue;
+        private final String[] dictionary;
+        private final int[] codes;
+        private final RoaringBitmap[] rowsByCode;
+
+        private Column(Map<String, Integer> codesByValue, String[] dictionary, int[] codes, RoaringBitmap[] rowsByCode) {
+            this.codesByValue = codesByValue;
+            this.dictionary = dictionary;
+            this.codes = codes;
+            this.rowsByCode = rowsByCode;
+        }
+
+        String valueAt(int position) {
+            int code = codes[position];
+            return code < 0 ? null : dictionary[code];
+        }
+
+        RoaringBitmap rowsWith(String value) {
+            Integer code = codesByValue.get(value);
+            return code == null ? new RoaringBitmap() : rowsByCode[code];
+        }
+
+        /**
+         * Rows holding any of the values (the union of their bitmaps), or null for no values,
+         * meaning no filter.
+         */
+        RoaringBitmap rowsWithAny(Collection<String> values) {
+            if (values.isEmpty()) {
+                return null;
+            }
+            if (values.size() == 1) {
+                return rowsWith(values.iterator().next());
+            }
+            return FastAggregation.or(values.stream().map(this::rowsWith).iterator());
+        }
+    }
+}
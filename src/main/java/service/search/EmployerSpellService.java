@@ -0,0 +1,102 @@
+package service.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import model.EmployerKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import service.BackgroundRebuildScheduler;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * "Did you mean" for employer searches, from a {@link SymSpellIndex} over the words of all
+ * employer keys held in memory.
+ *
+ * Built from one GROUP BY over the employer keys of lmia_datasets at startup and rebuilt by the
+ * {@link BackgroundRebuildScheduler} after ingestion, like {@link EmployerSuggestService}. Lookup time is exported as
+ * {@code lmia.search.spell.lookup}.
+ */
+@Slf4j
+@Service
+public class EmployerSpellService {
+
+    private static final String LOAD_SQL = "SELECT e.employer_key, COUNT(*) FROM lmia_datasets d " +
+            "JOIN lmia_employers e ON e.id = d.employer_id " +
+            "WHERE e.employer_key IS NOT NULL GROUP BY e.employer_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxEditDistance;
+    private final int prefixLength;
+    private final AtomicReference<SymSpellIndex> index = new AtomicReference<>();
+    private final Timer buildTimer;
+    private final Timer lookupTimer;
+    private final Counter corrected;
+
+    public EmployerSpellService(JdbcTemplate jdbcTemplate,
+                                BackgroundRebuildScheduler rebuildScheduler,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.search.spell.enabled:true}") boolean enabled,
+                                @Value("${app.search.spell.max-edit-distance:2}") int maxEditDistance,
+                                @Value("${app.search.spell.prefix-length:7}") int prefixLength) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+        rebuildScheduler.register("Employer spelling index build", enabled, this::rebuild);
+        this.buildTimer = Timer.builder("lmia.search.spell.build")
+                .description("Time to build the employer spelling index")
+                .register(meterRegistry);
+        this.lookupTimer = Timer.builder("lmia.search.spell.lookup")
+                .description("Time to look up a correction for an employer search")
+                .register(meterRegistry);
+        this.corrected = Counter.builder("lmia.search.spell.corrections")
+                .description("Employer searches answered with a corrected spelling")
+                .register(meterRegistry);
+        Gauge.builder("lmia.search.spell.memory", index, ref -> ref.get() == null ? 0 : ref.get().estimatedBytes())
+                .description("Estimated heap size of the employer spelling index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The employer search term (normalized like employer keys) with misspelled words replaced
+     * by the closest known employer words, or empty when every word is known or has no close
+     * match. Empty until the first index has been built.
+     */
+    public Optional<String> correct(String employer) {
+        SymSpellIndex current = index.get();
+        if (current == null || employer == null) {
+            return Optional.empty();
+        }
+        String key = EmployerKeys.normalize(employer);
+        return lookupTimer.record(() -> current.correct(key));
+    }
+
+    /**
+     * Counts a search that was answered with the corrected spelling.
+     */
+    public void recordCorrection() {
+        corrected.increment();
+    }
+
+    /**
+     * Builds a new index from the current rows and swaps it in.
+     */
+    public void rebuild() {
+        SymSpellIndex.Builder builder = SymSpellIndex.builder();
+        SymSpellIndex built = buildTimer.record(() -> {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                builder.add(rs.getString(1), rs.getLong(2));
+            });
+            return builder.build(maxEditDistance, prefixLength);
+        });
+        index.set(built);
+        log.info("Employer spelling index built: {} words, {} deletes, ~{} KB",
+                built.getWordCount(), built.getEntryCount(), built.estimatedBytes() / 1024);
+    }
+}
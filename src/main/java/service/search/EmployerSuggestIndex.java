@@ -0,0 +1,260 @@
+package service.search;
+
+import dto.EmployerSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix index over employer keys for typeahead.
+ *
+ * Every employer key is indexed in full and from the start of each of its words, so "farms"
+ * finds "maple farms". The terms are stored in a compressed (radix) trie: chains of single-child
+ * nodes are merged into one node with a multi-character label. Employers are numbered by
+ * descending record count, and every node keeps the numbers of the best {@code topK} employers
+ * below it, so a lookup is one walk down the prefix with no ranking at query time.
+ */
+public final class EmployerSuggestIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] names;
+    private final String[] keys;
+    private final long[] records;
+    private final Node root;
+    private final int topK;
+    private final int termCount;
+    private final int nodeCount;
+    private final long estimatedBytes;
+
+    private EmployerSuggestIndex(Builder builder, int topK) {
+        // Rank employers: most records first, ties by key for a stable order
+        List<Builder.Employer> ranked = new ArrayList<>(builder.employers.values());
+        ranked.sort((a, b) -> a.records != b.records ? Long.compare(b.records, a.records) : a.key.compareTo(b.key));
+        this.names = new String[ranked.size()];
+        this.keys = new String[ranked.size()];
+        this.records = new long[ranked.size()];
+        TreeMap<String, List<Integer>> employersByTerm = new TreeMap<>();
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            Builder.Employer employer = ranked.get(rank);
+            names[rank] = employer.name;
+            keys[rank] = employer.key;
+            records[rank] = employer.records;
+            for (int start = 0; start >= 0; start = nextWordStart(employer.key, start)) {
+                employersByTerm.computeIfAbsent(employer.key.substring(start), term -> new ArrayList<>()).add(rank);
+            }
+        }
+        this.topK = topK;
+        this.termCount = employersByTerm.size();
+
+        String[] terms = employersByTerm.keySet().toArray(new String[0]);
+        int[][] termEmployers = employersByTerm.values().stream()
+                .map(ranks -> ranks.stream().mapToInt(Integer::intValue).distinct().sorted().toArray())
+                .toArray(int[][]::new);
+        int[] nodes = {0};
+        this.root = terms.length == 0 ? new Node("", new char[0], new Node[0], NONE)
+                : build(terms, termEmployers, 0, terms.length, 0, nodes);
+        this.nodeCount = nodes[0];
+        this.estimatedBytes = measure();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Up to {@code limit} employers (at most the index's top-K) having a word that starts with
+     * {@code prefix}, most records first. The prefix must already be in employer key form.
+     */
+    public List<EmployerSuggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int[] ranks = lookup(prefix);
+        List<EmployerSuggestion> suggestions = new ArrayList<>(Math.min(limit, ranks.length));
+        for (int i = 0; i < ranks.length && i < limit; i++) {
+            suggestions.add(new EmployerSuggestion(names[ranks[i]], keys[ranks[i]], records[ranks[i]]));
+        }
+        return suggestions;
+    }
+
+    public int getEmployerCount() {
+        return names.length;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Approximate heap size in bytes, assuming compressed oops: object headers, references,
+     * arrays and string contents (Latin-1 strings take a byte per character).
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private long measure() {
+        long bytes = arrayBytes(names.length, 4) * 2 + arrayBytes(records.length, 8);
+        for (int rank = 0; rank < names.length; rank++) {
+            bytes += stringBytes(names[rank]) + stringBytes(keys[rank]);
+        }
+        return bytes + nodeBytes(root);
+    }
+
+    private int[] lookup(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (true) {
+            String label = node.label;
+            for (int i = 0; i < label.length(); i++, position++) {
+                if (position == prefix.length()) {
+                    return node.top;
+                }
+                if (label.charAt(i) != prefix.charAt(position)) {
+                    return NONE;
+                }
+            }
+            if (position == prefix.length()) {
+                return node.top;
+            }
+            int child = Arrays.binarySearch(node.childChars, prefix.charAt(position));
+            if (child < 0) {
+                return NONE;
+            }
+            node = node.children[child];
+        }
+    }
+
+    /**
+     * Builds the node for the sorted, distinct terms [from, to), which all share their first
+     * {@code depth} characters. Its label starts at {@code depth}.
+     */
+    private Node build(String[] terms, int[][] termEmployers, int from, int to, int depth, int[] nodes) {
+        nodes[0]++;
+        // Sorted, so the common prefix of the range is the common prefix of its ends
+        String first = terms[from];
+        String last = terms[to - 1];
+        int end = depth;
+        while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+            end++;
+        }
+        String label = first.substring(depth, end);
+
+        List<int[]> ranked = new ArrayList<>();
+        int next = from;
+        if (first.length() == end) {
+            // The only term that can end here sorts first
+            ranked.add(termEmployers[from]);
+            next++;
+        }
+        List<Node> children = new ArrayList<>();
+        StringBuilder childChars = new StringBuilder();
+        while (next < to) {
+            char c = terms[next].charAt(end);
+            int groupEnd = next + 1;
+            while (groupEnd < to && terms[groupEnd].charAt(end) == c) {
+                groupEnd++;
+            }
+            Node child = build(terms, termEmployers, next, groupEnd, end, nodes);
+            children.add(child);
+            childChars.append(c);
+            ranked.add(child.top);
+            next = groupEnd;
+        }
+        return new Node(label, childChars.toString().toCharArray(), children.toArray(new Node[0]), smallest(ranked));
+    }
+
+    /**
+     * The {@code topK} smallest distinct ranks across sorted arrays; smaller ranks have more
+     * records.
+     */
+    private int[] smallest(List<int[]> sortedRanks) {
+        int[] merged = sortedRanks.stream().flatMapToInt(Arrays::stream).distinct().sorted().limit(topK).toArray();
+        return merged.length == 0 ? NONE : merged;
+    }
+
+    private static int nextWordStart(String key, int from) {
+        int space = key.indexOf(' ', from);
+        return space < 0 || space + 1 >= key.length() ? -1 : space + 1;
+    }
+
+    private static long nodeBytes(Node node) {
+        // Header plus four references
+        long bytes = 32 + stringBytes(node.label) + arrayBytes(node.childChars.length, 2)
+                + arrayBytes(node.children.length, 4) + (node.top == NONE ? 0 : arrayBytes(node.top.length, 4));
+        for (Node child : node.children) {
+            bytes += nodeBytes(child);
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + arrayBytes(value.length(), 1);
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return (16 + (long) length * elementBytes + 7) / 8 * 8;
+    }
+
+    /**
+     * Collects record counts per employer key, from rows grouped by key and name spelling.
+     */
+    public static final class Builder {
+        private final Map<String, Employer> employers = new HashMap<>();
+
+        /**
+         * Adds {@code records} rows whose employer is spelled {@code name} and normalizes to
+         * {@code key}. The spelling with the most rows becomes the employer's display name.
+         */
+        public Builder add(String key, String name, long records) {
+            if (key == null || key.isEmpty()) {
+                return this;
+            }
+            Employer employer = employers.computeIfAbsent(key, Employer::new);
+            employer.records += records;
+            if (records > employer.nameRecords || (records == employer.nameRecords && name.compareTo(employer.name) < 0)) {
+                employer.name = name;
+                employer.nameRecords = records;
+            }
+            return this;
+        }
+
+        public EmployerSuggestIndex build(int topK) {
+            return new EmployerSuggestIndex(this, topK);
+        }
+
+        private static final class Employer {
+            private final String key;
+            private String name;
+            private long nameRecords = -1;
+            private long records;
+
+            private Employer(String key) {
+                this.key = key;
+            }
+        }
+    }
+
+    private static final class Node {
+        private final String label;
+        private final char[] childChars;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(String label, char[] childChars, Node[] children, int[] top) {
+            this.label = label;
+            this.childChars = childChars;
+            this.children = children;
+            this.top = top;
+        }
+    }
+}
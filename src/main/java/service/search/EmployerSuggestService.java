@@ -0,0 +1,95 @@
+package service.search;
+
+import dto.EmployerSuggestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import model.EmployerKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import service.BackgroundRebuildScheduler;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Employer name typeahead from an {@link EmployerSuggestIndex} held in memory.
+ *
+ * The index is built from one GROUP BY over lmia_datasets at startup and rebuilt by the
+ * {@link BackgroundRebuildScheduler} after ingestion; lookups keep using the previous index until the
+ * new one is swapped in. Its estimated size is exported as {@code lmia.search.suggest.memory}.
+ */
+@Slf4j
+@Service
+public class EmployerSuggestService {
+
+    private static final String LOAD_SQL = "SELECT e.employer_key, e.name, COUNT(*) FROM lmia_datasets d " +
+            "JOIN lmia_employers e ON e.id = d.employer_id " +
+            "WHERE e.employer_key IS NOT NULL GROUP BY e.employer_key, e.name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int topK;
+    private final AtomicReference<EmployerSuggestIndex> index = new AtomicReference<>();
+    private final Timer buildTimer;
+
+    public EmployerSuggestService(JdbcTemplate jdbcTemplate,
+                                  BackgroundRebuildScheduler rebuildScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.search.suggest.enabled:true}") boolean enabled,
+                                  @Value("${app.search.suggest.top-k:10}") int topK) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topK = topK;
+        rebuildScheduler.register("Employer typeahead index build", enabled, this::rebuild);
+        this.buildTimer = Timer.builder("lmia.search.suggest.build")
+                .description("Time to build the employer typeahead index")
+                .register(meterRegistry);
+        Gauge.builder("lmia.search.suggest.memory", index, ref -> ref.get() == null ? 0 : ref.get().estimatedBytes())
+                .description("Estimated heap size of the employer typeahead index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("lmia.search.suggest.employers", index, ref -> ref.get() == null ? 0 : ref.get().getEmployerCount())
+                .description("Employers in the typeahead index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Employers with a word starting with {@code query}, most LMIA records first. Empty until the
+     * first index has been built.
+     *
+     * The query is folded without dropping legal-suffix words, since "co" may be the start of
+     * "costco"; only when that finds nothing is it tried in full employer key form, so a
+     * completely typed "ABC Foods Inc." still finds the key "abc foods".
+     */
+    public List<EmployerSuggestion> suggest(String query, int limit) {
+        EmployerSuggestIndex current = index.get();
+        if (current == null || query == null) {
+            return List.of();
+        }
+        int max = Math.min(limit, topK);
+        String prefix = EmployerKeys.normalizePrefix(query);
+        List<EmployerSuggestion> suggestions = current.suggest(prefix, max);
+        String key = EmployerKeys.normalize(query);
+        if (suggestions.isEmpty() && !key.equals(prefix)) {
+            suggestions = current.suggest(key, max);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Builds a new index from the current rows and swaps it in.
+     */
+    public void rebuild() {
+        EmployerSuggestIndex.Builder builder = EmployerSuggestIndex.builder();
+        EmployerSuggestIndex built = buildTimer.record(() -> {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                builder.add(rs.getString(1), rs.getString(2), rs.getLong(3));
+            });
+            return builder.build(topK);
+        });
+        index.set(built);
+        log.info("Employer typeahead index built: {} employers, {} terms, {} nodes, ~{} KB",
+                built.getEmployerCount(), built.getTermCount(), built.getNodeCount(), built.estimatedBytes() / 1024);
+    }
+}
@@ -0,0 +1,251 @@
+package service.search;
+
+import dto.DatasetDTO;
+import dto.PagedResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.DatasetReadRepository;
+import service.BackgroundRebuildScheduler;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Ranked full-text search over employer name, NOC title, city and stream, using an embedded
+ * Lucene index.
+ *
+ * Text is analyzed with Lucene's English analyzer (lowercasing, stop words, Porter stemming), so
+ * "engineers" finds "engineer", and hits are ranked with BM25. Queries use the simple query
+ * syntax: all words must match (in any of the fields), "quoted words" must appear as a phrase,
+ * -word excludes and word* is a prefix. Only the record id is stored; hits are resolved to
+ * {@link DatasetDTO}s from the database.
+ *
+ * The index lives in {@code app.search.fulltext.path} (in memory when blank). Rows newer than
+ * the last indexed id are added by the {@link BackgroundRebuildScheduler} after ingestion and
+ * the searcher is reopened near-real-time. Ids are assigned at insert but rows become visible
+ * at commit, so a row can appear below the last indexed id; whenever the rows up to that id no
+ * longer number the indexed documents (such a late commit, or rows removed by a quarter reload)
+ * the index is rebuilt from scratch.
+ */
+@Slf4j
+@Service
+public class FullTextSearchService {
+
+    static final String ID = "id";
+    static final String EMPLOYER = "employer";
+    static final String NOC_TITLE = "noc_title";
+    static final String CITY = "city";
+    static final String STREAM = "stream";
+
+    // Where a word matched matters: an employer name match ranks above a matching stream
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(
+            EMPLOYER, 2.0f, NOC_TITLE, 1.5f, CITY, 1.0f, STREAM, 0.5f);
+
+    private static final String LOAD_SQL = "SELECT id, employer, noc_title, city, stream FROM lmia_datasets_star " +
+            "WHERE id > ? ORDER BY id";
+
+    // Commit user data key holding the highest id in the index
+    private static final String MAX_ID = "maxId";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate primaryTransaction;
+    private final DatasetReadRepository datasetReadRepository;
+    private final int maxResults;
+    private final Analyzer analyzer = new EnglishAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final Timer searchTimer;
+    private long maxIndexedId;
+
+    public FullTextSearchService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 DatasetReadRepository datasetReadRepository,
+                                 BackgroundRebuildScheduler rebuildScheduler,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.search.fulltext.enabled:true}") boolean enabled,
+                                 @Value("${app.search.fulltext.path:}") String path,
+                                 @Value("${app.search.fulltext.max-results:10000}") int maxResults,
+                                 @Value("${app.search.jdbc-fetch-size:500}") int fetchSize) throws IOException {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // Not read-only: those may be routed to a replica that hasn't replayed the commit this
+        // index is built for
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.datasetReadRepository = datasetReadRepository;
+        this.maxResults = maxResults;
+        this.directory = path.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(path));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        Map<String, String> commitData = new HashMap<>();
+        if (writer.getLiveCommitData() != null) {
+            writer.getLiveCommitData().forEach(entry -> commitData.put(entry.getKey(), entry.getValue()));
+        }
+        this.maxIndexedId = Long.parseLong(commitData.getOrDefault(MAX_ID, "0"));
+        this.searchTimer = Timer.builder("lmia.search.fulltext")
+                .description("Full-text search time, including resolving the hits")
+                .register(meterRegistry);
+        Gauge.builder("lmia.search.fulltext.documents", writer, w -> w.getDocStats().numDocs)
+                .description("Records in the full-text index")
+                .register(meterRegistry);
+        rebuildScheduler.register("Full-text index update", enabled, () -> {
+            try {
+                update();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Page of records matching {@code text}, best match first. The total is exact up to
+     * Lucene's counting threshold (1000 hits) and a lower bound beyond it.
+     *
+     * @throws IllegalArgumentException if the page lies beyond {@code app.search.fulltext.max-results}
+     */
+    public PagedResponse<DatasetDTO> search(String text, int page, int size) {
+        if ((long) (page + 1) * size > maxResults) {
+            throw new IllegalArgumentException("Full-text results are limited to the first " + maxResults + " hits");
+        }
+        return searchTimer.record(() -> {
+            int offset = page * size;
+            TopDocs topDocs;
+            List<Long> ids = new ArrayList<>(size);
+            IndexSearcher searcher = acquire();
+            try {
+                topDocs = searcher.search(parse(text), offset + size + 1);
+                ScoreDoc[] hits = topDocs.scoreDocs;
+                for (int i = offset; i < hits.length && i < offset + size; i++) {
+                    ids.add(searcher.storedFields().document(hits[i].doc).getField(ID).numericValue().longValue());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                release(searcher);
+            }
+
+            Map<Long, DatasetDTO> rows = new HashMap<>();
+            datasetReadRepository.findByIds(ids).forEach(row -> rows.put(row.getId(), row));
+            List<DatasetDTO> content = ids.stream().map(rows::get).filter(Objects::nonNull).toList();
+            boolean hasNext = topDocs.scoreDocs.length > offset + size;
+            return PagedResponse.of(content, topDocs.totalHits.value,
+                    topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO, page, size, hasNext);
+        });
+    }
+
+    Query parse(String text) {
+        if (text == null || text.isBlank()) {
+            return new MatchNoDocsQuery();
+        }
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = parser.parse(text);
+        // Null when the text is only stop words, e.g. "the"
+        return query == null ? new MatchNoDocsQuery() : query;
+    }
+
+    /**
+     * Adds the rows committed since the last update and reopens the searcher. Rebuilds the
+     * whole index when the rows up to the last indexed id don't match the indexed documents.
+     */
+    public synchronized void update() throws IOException {
+        long started = System.currentTimeMillis();
+        Long indexedRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lmia_datasets WHERE id <= ?",
+                Long.class, maxIndexedId);
+        if (indexedRows != null && writer.getDocStats().numDocs != indexedRows) {
+            log.info("lmia_datasets has {} rows up to id {} but the full-text index has {}; rebuilding the index",
+                    indexedRows, maxIndexedId, writer.getDocStats().numDocs);
+            writer.deleteAll();
+            maxIndexedId = 0;
+        }
+
+        long[] lastId = {maxIndexedId};
+        int[] added = {0};
+        primaryTransaction.executeWithoutResult(status -> jdbcTemplate.query(LOAD_SQL, rs -> {
+            long id = rs.getLong(1);
+            try {
+                writer.addDocument(document(id, rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            lastId[0] = id;
+            added[0]++;
+        }, maxIndexedId));
+
+        maxIndexedId = lastId[0];
+        writer.setLiveCommitData(Map.of(MAX_ID, Long.toString(maxIndexedId)).entrySet());
+        writer.commit();
+        searcherManager.maybeRefresh();
+        log.info("Full-text index updated: {} records added, {} in total ({} ms)",
+                added[0], writer.getDocStats().numDocs, System.currentTimeMillis() - started);
+    }
+
+    static Document document(long id, String employer, String nocTitle, String city, String stream) {
+        Document document = new Document();
+        document.add(new StoredField(ID, id));
+        document.add(new TextField(EMPLOYER, Objects.toString(employer, ""), Field.Store.NO));
+        document.add(new TextField(NOC_TITLE, Objects.toString(nocTitle, ""), Field.Store.NO));
+        document.add(new TextField(CITY, Objects.toString(city, ""), Field.Store.NO));
+        document.add(new TextField(STREAM, Objects.toString(stream, ""), Field.Store.NO));
+        return document;
+    }
+
+    private IndexSearcher acquire() {
+        try {
+            return searcherManager.acquire();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void release(IndexSearcher searcher) {
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+}
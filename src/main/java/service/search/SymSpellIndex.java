@@ -0,0 +1,247 @@
+package service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable spelling corrector for the words of employer keys, using symmetric deletes
+ * (SymSpell).
+ *
+ * Every dictionary word is indexed under all strings obtained by deleting up to
+ * {@code maxDistance} characters from its first {@code prefixLength} characters. A misspelling
+ * generates its own deletes the same way; two words within the edit distance share at least one
+ * delete, so the candidates are found with lookups only, never by comparing against the whole
+ * dictionary. Candidates are then checked with the real (optimal string alignment) distance.
+ *
+ * The deletes are not kept as strings: each index entry is a long holding the delete's hash in
+ * the high half and the word number in the low half, in one sorted array. A hash collision only
+ * adds a candidate that the distance check rejects.
+ */
+public final class SymSpellIndex {
+
+    // Words shorter than this are too ambiguous to correct ("co" is one edit from dozens of words)
+    static final int MIN_WORD_LENGTH = 4;
+
+    private final String[] words;
+    private final long[] frequencies;
+    private final Map<String, Integer> wordNumbers;
+    private final long[] entries;
+    private final int maxDistance;
+    private final int prefixLength;
+    private final long estimatedBytes;
+
+    private SymSpellIndex(Builder builder, int maxDistance, int prefixLength) {
+        this.words = builder.frequencies.keySet().stream().sorted().toArray(String[]::new);
+        this.frequencies = new long[words.length];
+        this.wordNumbers = new HashMap<>(words.length * 2);
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+
+        long[] collected = new long[Math.max(16, words.length * 8)];
+        int size = 0;
+        for (int number = 0; number < words.length; number++) {
+            frequencies[number] = builder.frequencies.get(words[number]);
+            wordNumbers.put(words[number], number);
+            for (String delete : deletes(words[number])) {
+                if (size == collected.length) {
+                    collected = Arrays.copyOf(collected, size * 2);
+                }
+                collected[size++] = entry(delete.hashCode(), number);
+            }
+        }
+        Arrays.sort(collected, 0, size);
+        this.entries = Arrays.copyOf(collected, size);
+
+        long bytes = 16 + (long) entries.length * 8 + 16 + (long) frequencies.length * 8;
+        for (String word : words) {
+            // Word string plus its map entry and boxed number
+            bytes += 24 + 16 + word.length() + 48;
+        }
+        this.estimatedBytes = bytes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The closest dictionary word to {@code word}: the smallest edit distance, then the most
+     * frequent, then alphabetical. Empty when the word is already in the dictionary, is shorter
+     * than {@value #MIN_WORD_LENGTH} characters or has no word within the edit distance (one edit
+     * for words of up to 5 characters).
+     */
+    public Optional<String> correctWord(String word) {
+        if (word.length() < MIN_WORD_LENGTH || wordNumbers.containsKey(word)) {
+            return Optional.empty();
+        }
+        int allowed = word.length() <= 5 ? Math.min(1, maxDistance) : maxDistance;
+        Set<Integer> checked = new HashSet<>();
+        int best = -1;
+        int bestDistance = allowed + 1;
+        for (String delete : deletes(word)) {
+            long from = entry(delete.hashCode(), 0);
+            for (int i = lowerBound(from); i < entries.length && (entries[i] >>> 32) == (from >>> 32); i++) {
+                int number = (int) entries[i];
+                String candidate = words[number];
+                if (Math.abs(candidate.length() - word.length()) > allowed || !checked.add(number)) {
+                    continue;
+                }
+                int distance = distance(word, candidate, Math.min(allowed, bestDistance));
+                if (distance < bestDistance || (distance == bestDistance && best >= 0 && better(number, best))) {
+                    best = number;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best < 0 ? Optional.empty() : Optional.of(words[best]);
+    }
+
+    /**
+     * {@code phrase} (in employer key form) with each word corrected, or empty when no word
+     * needed a correction.
+     */
+    public Optional<String> correct(String phrase) {
+        if (phrase == null || phrase.isEmpty()) {
+            return Optional.empty();
+        }
+        String[] parts = phrase.split(" ");
+        boolean corrected = false;
+        for (int i = 0; i < parts.length; i++) {
+            Optional<String> correction = correctWord(parts[i]);
+            if (correction.isPresent()) {
+                parts[i] = correction.get();
+                corrected = true;
+            }
+        }
+        return corrected ? Optional.of(String.join(" ", parts)) : Optional.empty();
+    }
+
+    public int getWordCount() {
+        return words.length;
+    }
+
+    public int getEntryCount() {
+        return entries.length;
+    }
+
+    /**
+     * Approximate heap size in bytes, assuming compressed oops.
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private boolean better(int number, int best) {
+        return frequencies[number] != frequencies[best]
+                ? frequencies[number] > frequencies[best]
+                : words[number].compareTo(words[best]) < 0;
+    }
+
+    /**
+     * The prefix of {@code word} and every string made by deleting up to maxDistance of its
+     * characters.
+     */
+    private Set<String> deletes(String word) {
+        Set<String> deletes = new HashSet<>();
+        String prefix = word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+        deletes.add(prefix);
+        List<String> current = List.of(prefix);
+        for (int distance = 1; distance <= maxDistance; distance++) {
+            List<String> next = new ArrayList<>();
+            for (String value : current) {
+                for (int i = 0; i < value.length(); i++) {
+                    String delete = value.substring(0, i) + value.substring(i + 1);
+                    if (deletes.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            current = next;
+        }
+        return deletes;
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long entry(int hash, int number) {
+        return ((long) hash << 32) | (number & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions), or
+     * {@code limit + 1} as soon as it must exceed {@code limit}.
+     */
+    static int distance(String a, String b, int limit) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    /**
+     * Collects word frequencies from employer keys.
+     */
+    public static final class Builder {
+        private final Map<String, Long> frequencies = new HashMap<>();
+
+        /**
+         * Adds the words of an employer key, each counted {@code records} times.
+         */
+        public Builder add(String key, long records) {
+            if (key == null || key.isEmpty()) {
+                return this;
+            }
+            for (String word : key.split(" ")) {
+                if (!word.isEmpty()) {
+                    frequencies.merge(word, records, Long::sum);
+                }
+            }
+            return this;
+        }
+
+        public SymSpellIndex build(int maxDistance, int prefixLength) {
+            return new SymSpellIndex(this, maxDistance, prefixLength);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+-- Converts lmia_datasets into a table range-partitioned by quarter of decision_date.
+--
+-- Run once against PostgreSQL (11+) with the application stopped, after the application has
+-- started at least once on this schema version (so the star schema keys are backfilled and the
+-- inline employer, NOC title, province and stream columns dropped):
+--   psql -d lmia_db -f src/main/resources/db/partition_lmia_datasets.sql
+-- After that PartitionManager creates a partition for each new quarter during ingestion, and
+-- POST /api/admin/partitions/{year}/{quarter}/reload replaces a quarter by swapping partitions.
+-- Searches with startDate/endDate only scan the partitions of the quarters in range.
+--
+-- The previous table is kept as lmia_datasets_unpartitioned; drop it once the application has
+-- been verified against the partitioned table.
+
+BEGIN;
+
+-- Depends on lmia_datasets; recreated at startup by StarSchemaInitializer
+DROP VIEW IF EXISTS lmia_datasets_star;
+
+ALTER TABLE lmia_datasets RENAME TO lmia_datasets_unpartitioned;
+
+-- Free the index names for the partitioned table
+DO $$
+DECLARE
+    idx record;
+BEGIN
+    FOR idx IN SELECT indexname FROM pg_indexes WHERE tablename = 'lmia_datasets_unpartitioned' LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', idx.indexname, idx.indexname || '_old');
+    END LOOP;
+END $$;
+
+CREATE SEQUENCE lmia_datasets_partitioned_id_seq;
+SELECT setval('lmia_datasets_partitioned_id_seq',
+              COALESCE((SELECT MAX(id) FROM lmia_datasets_unpartitioned), 0) + 1, false);
+
+-- The partition key has to be part of the primary key
+CREATE TABLE lmia_datasets (
+    id BIGINT NOT NULL DEFAULT nextval('lmia_datasets_partitioned_id_seq'),
+    city VARCHAR(200),
+    postal_code VARCHAR(20),
+    noc_code VARCHAR(10) NOT NULL,
+    positions_approved INTEGER NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    decision_date DATE NOT NULL,
+    source_file VARCHAR(50),
+    website_url VARCHAR(500),
+    employer_id INTEGER,
+    noc_id INTEGER,
+    province_id INTEGER,
+    stream_id INTEGER,
+    PRIMARY KEY (id, decision_date)
+) PARTITION BY RANGE (decision_date);
+
+ALTER SEQUENCE lmia_datasets_partitioned_id_seq OWNED BY lmia_datasets.id;
+
+-- One partition per quarter present in the data, named like PartitionManager.partitionName
+DO $$
+DECLARE
+    quarter_start date;
+BEGIN
+    FOR quarter_start IN
+        SELECT DISTINCT date_trunc('quarter', decision_date)::date FROM lmia_datasets_unpartitioned ORDER BY 1
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF lmia_datasets FOR VALUES FROM (%L) TO (%L)',
+                       'lmia_datasets_' || extract(year FROM quarter_start) || 'q' || extract(quarter FROM quarter_start),
+                       quarter_start, (quarter_start + interval '3 months')::date);
+    END LOOP;
+END $$;
+
+INSERT INTO lmia_datasets (id, city, postal_code, noc_code, positions_approved, status, decision_date,
+                           source_file, website_url, employer_id, noc_id, province_id, stream_id)
+SELECT id, city, postal_code, noc_code, positions_approved, status, decision_date, source_file, website_url,
+       employer_id, noc_id, province_id, stream_id
+FROM lmia_datasets_unpartitioned;
+
+-- Indexes on the parent are created on every partition, including ones added later
+CREATE INDEX idx_noc ON lmia_datasets(noc_code);
+CREATE INDEX idx_date ON lmia_datasets(decision_date);
+CREATE INDEX idx_status ON lmia_datasets(status);
+CREATE INDEX idx_date_id ON lmia_datasets(decision_date, id);
+CREATE INDEX idx_positions_id ON lmia_datasets(positions_approved, id);
+CREATE INDEX idx_employer_id ON lmia_datasets(employer_id);
+CREATE INDEX idx_noc_id ON lmia_datasets(noc_id);
+CREATE INDEX idx_noc_status ON lmia_datasets(noc_code, status);
+CREATE INDEX idx_province_id_status ON lmia_datasets(province_id, status);
+CREATE INDEX idx_date_status ON lmia_datasets(decision_date, status);
+CREATE INDEX idx_website_url ON lmia_datasets(website_url) WHERE website_url IS NOT NULL;
+
+ANALYZE lmia_datasets;
+
+COMMIT;
+
+-- After verification:
+-- DROP TABLE lmia_datasets_unpartitioned;
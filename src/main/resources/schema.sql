@@ -6,34 +6,85 @@
 
 CREATE TABLE IF NOT EXISTS lmia_datasets (
     id BIGSERIAL PRIMARY KEY,
-    province VARCHAR(255) NOT NULL,
-    stream VARCHAR(255) NOT NULL,
-    employer VARCHAR(500) NOT NULL,
     city VARCHAR(200),
     postal_code VARCHAR(20),
     noc_code VARCHAR(10) NOT NULL,
-    noc_title VARCHAR(500),
     positions_approved INTEGER NOT NULL,
     status VARCHAR(20) NOT NULL,
     decision_date DATE NOT NULL,
     source_file VARCHAR(50),
-    website_url VARCHAR(500)
+    website_url VARCHAR(500),
+    employer_id INTEGER,
+    noc_id INTEGER,
+    province_id INTEGER,
+    stream_id INTEGER
+);
+
+-- Star schema dimensions, keyed by lmia_datasets.employer_id / noc_id / province_id / stream_id.
+-- Filled by DimensionCache during ingestion and by StarSchemaInitializer for older rows.
+-- employer_key is the normalized name (model.EmployerKeys) every employer lookup compares.
+CREATE TABLE IF NOT EXISTS lmia_employers (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name TEXT NOT NULL CONSTRAINT uk_employers_name UNIQUE,
+    employer_key TEXT,
+    canonical_id INTEGER
+);
+CREATE INDEX IF NOT EXISTS idx_employers_key ON lmia_employers(employer_key);
+CREATE INDEX IF NOT EXISTS idx_employers_canonical ON lmia_employers(canonical_id);
+
+CREATE TABLE IF NOT EXISTS lmia_occupations (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    noc_code VARCHAR(10) NOT NULL,
+    noc_title TEXT,
+    CONSTRAINT uk_occupations_code_title UNIQUE (noc_code, noc_title)
+);
+
+CREATE TABLE IF NOT EXISTS lmia_provinces (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL CONSTRAINT uk_provinces_name UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS lmia_streams (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL CONSTRAINT uk_streams_name UNIQUE
 );
 
 -- Создание индексов для оптимизации поиска
-CREATE INDEX IF NOT EXISTS idx_employer ON lmia_datasets(employer);
 CREATE INDEX IF NOT EXISTS idx_noc ON lmia_datasets(noc_code);
-CREATE INDEX IF NOT EXISTS idx_province ON lmia_datasets(province);
 CREATE INDEX IF NOT EXISTS idx_date ON lmia_datasets(decision_date);
 CREATE INDEX IF NOT EXISTS idx_status ON lmia_datasets(status);
-CREATE INDEX IF NOT EXISTS idx_employer_lower ON lmia_datasets(LOWER(employer));
 
 -- Composite indexes for common query patterns
-CREATE INDEX IF NOT EXISTS idx_employer_status ON lmia_datasets(employer, status);
 CREATE INDEX IF NOT EXISTS idx_noc_status ON lmia_datasets(noc_code, status);
-CREATE INDEX IF NOT EXISTS idx_province_status ON lmia_datasets(province, status);
+CREATE INDEX IF NOT EXISTS idx_province_id_status ON lmia_datasets(province_id, status);
 CREATE INDEX IF NOT EXISTS idx_date_status ON lmia_datasets(decision_date, status);
 
+-- Keyset pagination order (decision_date DESC, id DESC) for cursor-mode search
+CREATE INDEX IF NOT EXISTS idx_date_id ON lmia_datasets(decision_date, id);
+
+-- The other search orders (repository.SearchSort), each with the id tie-break
+CREATE INDEX IF NOT EXISTS idx_positions_id ON lmia_datasets(positions_approved, id);
+
+-- Star schema keys (stream has too few values for an index to help)
+CREATE INDEX IF NOT EXISTS idx_employer_id ON lmia_datasets(employer_id);
+CREATE INDEX IF NOT EXISTS idx_noc_id ON lmia_datasets(noc_id);
+
 -- Index for website URL lookups
 CREATE INDEX IF NOT EXISTS idx_website_url ON lmia_datasets(website_url) WHERE website_url IS NOT NULL;
 
+-- Trigram index for substring employer search (employer_key LIKE '%term%').
+-- Requires the pg_trgm extension; created at startup by TrigramIndexInitializer:
+-- CREATE EXTENSION IF NOT EXISTS pg_trgm;
+-- CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_employers_key_trgm ON lmia_employers USING gin (employer_key gin_trgm_ops);
+
+-- Wide row shape rebuilt from the star schema, read by every search (created at startup by
+-- StarSchemaInitializer):
+-- CREATE VIEW lmia_datasets_star AS
+--   SELECT d.id, p.name AS province, s.name AS stream, e.name AS employer, e.employer_key, d.city,
+--          d.postal_code, d.noc_code, o.noc_title, d.positions_approved, d.status, d.decision_date,
+--          d.source_file, d.website_url, d.employer_id, d.noc_id, d.province_id, d.stream_id
+--   FROM lmia_datasets d
+--   LEFT JOIN lmia_employers e ON e.id = d.employer_id
+--   LEFT JOIN lmia_occupations o ON o.id = d.noc_id
+--   LEFT JOIN lmia_provinces p ON p.id = d.province_id
+--   LEFT JOIN lmia_streams s ON s.id = d.stream_id;
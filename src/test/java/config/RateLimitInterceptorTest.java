@@ -0,0 +1,43 @@
+package config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+    @Test
+    void testRequestCost_ProductOfFilterValueCounts() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/datasets/search");
+        assertEquals(1, RateLimitInterceptor.requestCost(request));
+
+        request.addParameter("province", "BC,AB");
+        request.addParameter("nocCode", "62200");
+        request.addParameter("nocCode", "63200,65201,");
+        request.addParameter("employer", "maple,farms");
+        assertEquals(6, RateLimitInterceptor.requestCost(request));
+    }
+
+    @Test
+    void testBatchCost_OneRequestPerFiftyEmployers() {
+        assertEquals(1, RateLimitInterceptor.batchCost(1));
+        assertEquals(1, RateLimitInterceptor.batchCost(50));
+        assertEquals(2, RateLimitInterceptor.batchCost(51));
+        assertEquals(100, RateLimitInterceptor.batchCost(5000));
+    }
+
+    @Test
+    void testTryIncrement_ChargesPermitsAndCapsAtLimit() {
+        RateLimitConfig.RequestCounter counter = new RateLimitConfig.RequestCounter();
+
+        assertTrue(counter.tryIncrement(60));
+        assertFalse(counter.tryIncrement(41));
+        assertTrue(counter.tryIncrement(40));
+        assertFalse(counter.tryIncrement());
+
+        RateLimitConfig.RequestCounter fresh = new RateLimitConfig.RequestCounter();
+        assertTrue(fresh.tryIncrement(10_000));
+        assertFalse(fresh.tryIncrement());
+    }
+}
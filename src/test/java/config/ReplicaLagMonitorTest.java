@@ -0,0 +1,57 @@
+package config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import service.DatasetsChangedEvent;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaLagMonitorTest {
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        primary = mock(JdbcTemplate.class);
+        replica = mock(JdbcTemplate.class);
+        monitor = new ReplicaLagMonitor(primary, replica, 30, new SimpleMeterRegistry());
+        when(replica.queryForObject(startsWith("SELECT CASE"), eq(Double.class))).thenReturn(0.5);
+        when(primary.queryForObject(anyString(), eq(String.class))).thenReturn("0/3000060");
+    }
+
+    @Test
+    void testCheckLag_UsesReplicaWithinLagLimit() {
+        monitor.checkLag();
+
+        assertTrue(monitor.isReplicaUsable());
+        assertEquals(0.5, monitor.getLagSeconds());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void testDatasetsChanged_KeepsReplicaOutUntilItReplaysTheCommit() {
+        monitor.checkLag();
+        monitor.onDatasetsChanged(new DatasetsChangedEvent("tfwp_2021q1_positive_en.csv", 10));
+        assertFalse(monitor.isReplicaUsable());
+
+        when(replica.queryForObject(contains("pg_last_wal_replay_lsn() >="), eq(Boolean.class), eq("0/3000060")))
+                .thenReturn(false);
+        monitor.checkLag();
+        assertFalse(monitor.isReplicaUsable());
+
+        when(replica.queryForObject(contains("pg_last_wal_replay_lsn() >="), eq(Boolean.class), eq("0/3000060")))
+                .thenReturn(true);
+        monitor.checkLag();
+        assertTrue(monitor.isReplicaUsable());
+
+        // Caught up: later checks don't ask the primary again
+        monitor.checkLag();
+        verify(primary, times(2)).queryForObject(anyString(), eq(String.class));
+    }
+}
@@ -132,5 +132,26 @@ class AdminControllerTest {
                         .contentType(org.springframework.http.MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(status().isUnauthorized());
     }
-}
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testGetStorageReport_Success() throws Exception {
+        mockMvc.perform(get("/api/admin/storage")
+                        .with(httpBasic("admin", "admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.tables.lmia_datasets.rows").exists())
+                .andExpect(jsonPath("$.data.tables.lmia_employers.rows").exists());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testReloadQuarter_NotPartitioned() throws Exception {
+        when(appBody.reloadQuarter(2021, 2)).thenThrow(new IllegalStateException("lmia_datasets is not partitioned"));
+
+        mockMvc.perform(post("/api/admin/partitions/2021/2/reload")
+                        .with(httpBasic("admin", "admin")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+}
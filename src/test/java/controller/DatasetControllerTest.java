@@ -1,9 +1,13 @@
 package controller;
 
+import dto.DatasetDTO;
+import dto.EmployerSuggestion;
+import dto.EmployerSummary;
 import model.Dataset;
 import org.example.AppMain;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -14,16 +18,34 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import repository.DatasetReadRepository;
 import repository.DatasetRepository;
+import repository.DatasetSearchSpec;
+import repository.FacetCounts;
+import repository.SearchCursor;
+import repository.SearchFacet;
+import repository.SearchSort;
+import service.EmployerClusteringService;
 import service.ExportService;
+import service.SearchPrefetcher;
+import service.search.EmployerSpellService;
+import service.search.EmployerSuggestService;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest(classes = AppMain.class)
@@ -38,9 +60,24 @@ class DatasetControllerTest {
     @MockBean
     private DatasetRepository datasetRepository;
 
+    @MockBean
+    private DatasetReadRepository datasetReadRepository;
+
     @MockBean
     private ExportService exportService;
 
+    @MockBean
+    private EmployerSuggestService employerSuggestService;
+
+    @MockBean
+    private EmployerSpellService employerSpellService;
+
+    @MockBean
+    private EmployerClusteringService employerClusteringService;
+
+    @MockBean
+    private SearchPrefetcher searchPrefetcher;
+
     private List<Dataset> testDatasets;
 
     @BeforeEach
@@ -58,13 +95,14 @@ class DatasetControllerTest {
         dataset.setStatus(Dataset.DecisionStatus.APPROVED);
         dataset.setDecisionDate(LocalDate.of(2021, 5, 15));
         testDatasets.add(dataset);
+        when(datasetReadRepository.facetCounts(any(DatasetSearchSpec.class), anySet()))
+                .thenReturn(new FacetCounts(Map.of(), 0));
     }
 
     @Test
     void testSearchDatasets_Success() throws Exception {
-        Page<Dataset> page = new PageImpl<>(testDatasets, PageRequest.of(0, 20), 1);
-        when(datasetRepository.searchDatasets(any(), any(), any(), any(), any(), any(), any(Pageable.class)))
-                .thenReturn(page);
+        when(datasetReadRepository.findSlice(any(DatasetSearchSpec.class), eq(SearchSort.DECISION_DATE), eq(0L), eq(21)))
+                .thenReturn(testRows());
 
         mockMvc.perform(get("/api/datasets/search")
                         .param("employer", "Test")
@@ -74,7 +112,134 @@ class DatasetControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.content").isArray())
+                .andExpect(jsonPath("$.data.content[0].employer").value("Test Company"))
+                .andExpect(jsonPath("$.data.totalElements").value(1))
+                .andExpect(jsonPath("$.data.totalExact").value(true));
+    }
+
+    @Test
+    void testSearchDatasets_CursorModeFetchesOneExtraRow() throws Exception {
+        DatasetDTO second = new DatasetDTO();
+        second.setId(2L);
+        second.setEmployer("Other Company");
+        second.setDecisionDate(LocalDate.of(2021, 2, 15));
+        List<DatasetDTO> rows = testRows();
+        rows.add(second);
+        when(datasetReadRepository.searchAfter(any(DatasetSearchSpec.class), eq(SearchSort.DECISION_DATE), isNull(), eq(2)))
+                .thenReturn(rows);
+
+        String expectedCursor = new SearchCursor(LocalDate.of(2021, 5, 15), 1L).encode();
+        mockMvc.perform(get("/api/datasets/search")
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content.length()").value(1))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andExpect(jsonPath("$.data.nextCursor").value(expectedCursor))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
+    }
+
+    @Test
+    void testSearchDatasets_PagesPastEmployerWithLongName() throws Exception {
+        String longName = "9876543 Canada Inc. o/a Northern Lights Bakery and Catering Services of Greater Sudbury";
+        testDatasets.get(0).setEmployer(longName);
+        DatasetDTO second = new DatasetDTO();
+        second.setId(2L);
+        second.setEmployer("Other Company");
+        List<DatasetDTO> rows = testRows();
+        rows.add(second);
+        when(datasetReadRepository.searchAfter(any(DatasetSearchSpec.class), eq(SearchSort.EMPLOYER), isNull(), eq(2)))
+                .thenReturn(rows);
+        SearchCursor cursor = new SearchCursor(SearchSort.EMPLOYER, longName, 1L);
+        when(datasetReadRepository.searchAfter(any(DatasetSearchSpec.class), eq(SearchSort.EMPLOYER), eq(cursor), eq(2)))
+                .thenReturn(List.of(second));
+
+        mockMvc.perform(get("/api/datasets/search").param("sort", "employer").param("cursor", "").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.nextCursor").value(cursor.encode()));
+        mockMvc.perform(get("/api/datasets/search").param("sort", "employer").param("cursor", cursor.encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].employer").value("Other Company"))
+                .andExpect(jsonPath("$.data.hasNext").value(false));
+    }
+
+    @Test
+    void testSearchDatasets_PrefetchesTheNextCursorPage() throws Exception {
+        DatasetDTO second = new DatasetDTO();
+        second.setId(2L);
+        second.setDecisionDate(LocalDate.of(2021, 2, 15));
+        List<DatasetDTO> rows = testRows();
+        rows.add(second);
+        when(datasetReadRepository.searchAfter(any(DatasetSearchSpec.class), eq(SearchSort.DECISION_DATE), isNull(), eq(2)))
+                .thenReturn(rows);
+        when(searchPrefetcher.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(get("/api/datasets/search")
+                        .param("employer", "Test")
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk());
+
+        String nextCursor = new SearchCursor(LocalDate.of(2021, 5, 15), 1L).encode();
+        verify(searchPrefetcher).prefetch(argThat(key -> nextCursor.equals(key.getCursor())
+                && "test".equals(key.getEmployer()) && !key.isIncludeTotal()), any());
+    }
+
+    @Test
+    void testSearchDatasets_InvalidCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/datasets/search")
+                        .param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchDatasets_EmployerWithoutLettersOrDigitsIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/datasets/search").param("employer", "..."))
+                .andExpect(status().isBadRequest());
+
+        verify(datasetReadRepository, never()).findSlice(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testSearchText_PageSizeOverLimitIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/datasets/search/text").param("q", "maple").param("size", "101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/datasets/search/text").param("q", "maple").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchDatasets_SortSelectsOrderAndCursorMustMatchIt() throws Exception {
+        when(datasetReadRepository.findSlice(any(DatasetSearchSpec.class), eq(SearchSort.POSITIONS_APPROVED), eq(0L), eq(21)))
+                .thenReturn(testRows());
+
+        mockMvc.perform(get("/api/datasets/search").param("sort", "positionsApproved"))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.content[0].employer").value("Test Company"));
+        mockMvc.perform(get("/api/datasets/search").param("sort", "city"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/datasets/search")
+                        .param("sort", "employer")
+                        .param("cursor", new SearchCursor(LocalDate.of(2021, 5, 15), 1L).encode()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchDatasets_EmptyEmployerSearchFallsBackToCorrectedSpelling() throws Exception {
+        when(employerSpellService.correct("tim hortns")).thenReturn(Optional.of("tim hortons"));
+        when(datasetReadRepository.findSlice(argThat(spec -> "tim hortons".equals(spec.getEmployer())),
+                eq(SearchSort.DECISION_DATE), eq(0L), eq(21)))
+                .thenReturn(testRows());
+
+        mockMvc.perform(get("/api/datasets/search").param("employer", "Tim Hortns"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.correctedEmployer").value("tim hortons"))
+                .andExpect(jsonPath("$.data.content[0].employer").value("Test Company"));
+        mockMvc.perform(get("/api/datasets/search").param("employer", "Tim Hortns").param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.correctedEmployer").doesNotExist())
+                .andExpect(jsonPath("$.data.content").isEmpty());
     }
 
     @Test
@@ -97,9 +262,8 @@ class DatasetControllerTest {
 
     @Test
     void testSearchByEmployer_Success() throws Exception {
-        Page<Dataset> page = new PageImpl<>(testDatasets, PageRequest.of(0, 20), 1);
-        when(datasetRepository.findByEmployerContainingIgnoreCase(anyString(), any(Pageable.class)))
-                .thenReturn(page);
+        when(datasetReadRepository.findSlice(any(DatasetSearchSpec.class), eq(SearchSort.DECISION_DATE), eq(0L), eq(21)))
+                .thenReturn(testRows());
 
         mockMvc.perform(get("/api/datasets/employer/Test")
                         .param("page", "0")
@@ -112,9 +276,8 @@ class DatasetControllerTest {
 
     @Test
     void testSearchByNoc_Success() throws Exception {
-        Page<Dataset> page = new PageImpl<>(testDatasets, PageRequest.of(0, 20), 1);
-        when(datasetRepository.findByNocCode(anyString(), any(Pageable.class)))
-                .thenReturn(page);
+        when(datasetReadRepository.findSlice(any(DatasetSearchSpec.class), eq(SearchSort.DECISION_DATE), eq(0L), eq(21)))
+                .thenReturn(testRows());
 
         mockMvc.perform(get("/api/datasets/noc/0211")
                         .param("page", "0")
@@ -124,5 +287,110 @@ class DatasetControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data.content").isArray());
     }
-}
 
+    @Test
+    void testSearchDatasets_ListFiltersBindCommaSeparatedAndRepeatedValues() throws Exception {
+        when(datasetReadRepository.findSlice(any(DatasetSearchSpec.class), eq(SearchSort.DECISION_DATE), eq(0L), eq(21)))
+                .thenReturn(testRows());
+
+        mockMvc.perform(get("/api/datasets/search")
+                        .param("province", "BC,AB")
+                        .param("nocCode", "62200", "63200")
+                        .param("status", "approved"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<DatasetSearchSpec> spec = ArgumentCaptor.forClass(DatasetSearchSpec.class);
+        verify(datasetReadRepository).findSlice(spec.capture(), eq(SearchSort.DECISION_DATE), eq(0L), eq(21));
+        assertEquals(Set.of("Alberta", "British Columbia"), spec.getValue().getProvinces());
+        assertEquals(Set.of("62200", "63200"), spec.getValue().getNocCodes());
+        assertEquals(Set.of(Dataset.DecisionStatus.APPROVED), spec.getValue().getStatuses());
+    }
+
+    @Test
+    void testSearchDatasets_FacetsReplaceTheCountQuery() throws Exception {
+        when(datasetReadRepository.findSlice(any(DatasetSearchSpec.class), eq(SearchSort.DECISION_DATE), eq(0L), eq(2)))
+                .thenReturn(List.of(testRows().get(0), testRows().get(0)));
+        when(datasetReadRepository.facetCounts(any(DatasetSearchSpec.class), eq(EnumSet.of(SearchFacet.PROVINCE, SearchFacet.STATUS))))
+                .thenReturn(new FacetCounts(Map.of(
+                        SearchFacet.PROVINCE, Map.of("Ontario", 7L, "Quebec", 5L),
+                        SearchFacet.STATUS, Map.of("APPROVED", 12L, "DENIED", 1L)), 13));
+
+        // One matching row has no province: the total is the query's, not a facet's sum
+        mockMvc.perform(get("/api/datasets/search")
+                        .param("size", "1")
+                        .param("facets", "status,province"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(13))
+                .andExpect(jsonPath("$.data.totalExact").value(true))
+                .andExpect(jsonPath("$.data.facets.province.Ontario").value(7))
+                .andExpect(jsonPath("$.data.facets.status.APPROVED").value(12));
+        verify(datasetRepository, never()).countMatching(any());
+    }
+
+    @Test
+    void testSearchDatasets_UnknownFacetIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/datasets/search").param("facets", "employer"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSuggestEmployers_Success() throws Exception {
+        when(employerSuggestService.suggest("test co", 5))
+                .thenReturn(List.of(new EmployerSuggestion("Test Company", "test company", 12)));
+
+        mockMvc.perform(get("/api/datasets/employers/suggest")
+                        .param("q", "test co")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].employer").value("Test Company"))
+                .andExpect(jsonPath("$.data[0].records").value(12));
+    }
+
+    @Test
+    void testLookupEmployers_AppliesFiltersToEveryName() throws Exception {
+        when(datasetReadRepository.summarizeEmployers(any(DatasetSearchSpec.class), eq(List.of("Test Company", "Other Co"))))
+                .thenReturn(List.of(
+                        new EmployerSummary("Test Company", "test company", "Test Company", 3, 3, 5,
+                                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1)),
+                        new EmployerSummary("Other Co", "other", null, 0, 0, 0, null, null)));
+
+        mockMvc.perform(post("/api/datasets/employers/batch")
+                        .contentType("application/json")
+                        .content("{\"employers\": [\"Test Company\", \"Other Co\"], \"status\": [\"approved\"], " +
+                                "\"startDate\": \"2023-01-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].approvedRecords").value(3))
+                .andExpect(jsonPath("$.data[1].records").value(0));
+
+        ArgumentCaptor<DatasetSearchSpec> spec = ArgumentCaptor.forClass(DatasetSearchSpec.class);
+        verify(datasetReadRepository).summarizeEmployers(spec.capture(), anyList());
+        assertEquals(Set.of(Dataset.DecisionStatus.APPROVED), spec.getValue().getStatuses());
+        assertEquals(LocalDate.of(2023, 1, 1), spec.getValue().getStartDate());
+    }
+
+    @Test
+    void testLookupEmployers_RejectsEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/datasets/employers/batch")
+                        .contentType("application/json")
+                        .content("{\"employers\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testEmployerVariants_Success() throws Exception {
+        when(employerClusteringService.variants("ABC Foods"))
+                .thenReturn(List.of(new EmployerSuggestion("ABC Foods Ltd", "abc foods", 7),
+                        new EmployerSuggestion("A.B.C. Food Inc.", "abc food", 2)));
+
+        mockMvc.perform(get("/api/datasets/employers/variants").param("name", "ABC Foods"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[1].employer").value("A.B.C. Food Inc."));
+    }
+
+    private List<DatasetDTO> testRows() {
+        List<DatasetDTO> rows = new ArrayList<>();
+        testDatasets.forEach(dataset -> rows.add(DatasetDTO.fromEntity(dataset)));
+        return rows;
+    }
+}
@@ -0,0 +1,65 @@
+package dataProcessors;
+
+import nocservice.dataProcessors.CatalogState;
+import nocservice.dataProcessors.CatalogStateStore;
+import nocservice.dataProcessors.CkanResource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogStateStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testLoad_MissingFileReturnsEmptyState() {
+        CatalogStateStore store = new CatalogStateStore(tempDir.resolve("missing.json").toString());
+
+        CatalogState state = store.load();
+
+        assertNotNull(state);
+        assertTrue(state.getPackages().isEmpty());
+        assertTrue(state.getDownloadedVersions().isEmpty());
+        assertNull(state.getHighWatermark());
+    }
+
+    @Test
+    void testSaveAndLoad_RoundTrip() {
+        CatalogStateStore store = new CatalogStateStore(tempDir.resolve("state/catalog-state.json").toString());
+        CatalogState state = new CatalogState();
+        CkanResource resource = new CkanResource("pkg-1", "tfwp_2021q2_positive_en.csv",
+                "https://example.org/tfwp_2021q2_positive_en.csv", "CSV", "2021-08-01T10:00:00.000000");
+        state.getPackages().put("pkg-1", new CatalogState.PackageEntry("2021-08-01T10:00:00.000000", List.of(resource)));
+        state.getDownloadedVersions().put(resource.getUrl(), resource.getVersion());
+        state.setHighWatermark("2021-08-01T10:00:00.000000");
+
+        store.save(state);
+        CatalogState loaded = store.load();
+
+        assertEquals("2021-08-01T10:00:00.000000", loaded.getHighWatermark());
+        assertEquals(1, loaded.getPackages().size());
+        assertEquals(resource, loaded.getPackages().get("pkg-1").getResources().get(0));
+        assertEquals(resource.getVersion(), loaded.getDownloadedVersions().get(resource.getUrl()));
+    }
+
+    @Test
+    void testLoad_CorruptFileReturnsEmptyState() throws IOException {
+        Path stateFile = tempDir.resolve("corrupt.json");
+        try (FileWriter writer = new FileWriter(stateFile.toFile())) {
+            writer.write("{not json");
+        }
+        CatalogStateStore store = new CatalogStateStore(stateFile.toString());
+
+        CatalogState state = store.load();
+
+        assertNotNull(state);
+        assertTrue(state.getPackages().isEmpty());
+    }
+}
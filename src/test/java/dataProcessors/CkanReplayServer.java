@@ -0,0 +1,336 @@
+package dataProcessors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the open.canada.ca CKAN API, replaying a recorded package_search
+ * response and resource files from src/test/resources/ckan.
+ *
+ * Supports rows/start paging, metadata_modified fq filtering, per-request latency, a
+ * per-response bandwidth cap, error injection, ETag/If-None-Match and byte ranges.
+ * Resource URLs in the recording use a {{baseUrl}} placeholder that is replaced with
+ * the server's own address.
+ */
+public class CkanReplayServer implements AutoCloseable {
+
+    private static final String RECORDING_ROOT = "/ckan/";
+    private static final String PACKAGE_SEARCH_PATH = "/data/en/api/3/action/package_search";
+    private static final String RESOURCE_PATH = "/resources/";
+    private static final Pattern MODIFIED_FILTER = Pattern.compile("metadata_modified:\\[(\\S+) TO \\*]");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<ObjectNode> packages = new ArrayList<>();
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pendingFailures = new ConcurrentHashMap<>();
+    private final AtomicInteger catalogRequests = new AtomicInteger();
+    private final AtomicInteger resourceRequests = new AtomicInteger();
+    private final Random random = new Random(42);
+
+    private volatile long latencyMs;
+    private volatile long bytesPerSecond;
+    private volatile double errorRate;
+
+    public CkanReplayServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(PACKAGE_SEARCH_PATH, this::handlePackageSearch);
+        server.createContext(RESOURCE_PATH, this::handleResource);
+        server.setExecutor(executor);
+        loadRecording();
+    }
+
+    public CkanReplayServer start() {
+        server.start();
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /** Delay before every response. */
+    public CkanReplayServer withLatency(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    /** Caps each response body at this many bytes per second (0 = unlimited). */
+    public CkanReplayServer withBandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /** Fraction of resource requests answered with HTTP 503. */
+    public CkanReplayServer withErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /** Answers the next {@code count} requests for this resource with HTTP 503. */
+    public CkanReplayServer failNext(String fileName, int count) {
+        pendingFailures.put(fileName, count);
+        return this;
+    }
+
+    /**
+     * Adds {@code copies} copies of every recorded package, each with its own package id and
+     * resource URLs, so benchmarks can download more files than the recording contains.
+     */
+    public CkanReplayServer replicate(int copies) {
+        List<ObjectNode> originals = List.copyOf(packages);
+        for (int copy = 1; copy <= copies; copy++) {
+            for (ObjectNode original : originals) {
+                ObjectNode clone = original.deepCopy();
+                clone.put("id", original.get("id").asText() + "-copy" + copy);
+                for (var resource : clone.withArray("resources")) {
+                    String url = resource.get("url").asText();
+                    ((ObjectNode) resource).put("url", url.replace(RESOURCE_PATH, RESOURCE_PATH + "copy" + copy + "/"));
+                }
+                packages.add(clone);
+            }
+        }
+        return this;
+    }
+
+    /** Marks a package as modified now, as if it had been republished upstream. */
+    public void touchPackage(String packageId, String metadataModified) {
+        packages.stream()
+                .filter(p -> p.get("id").asText().equals(packageId))
+                .forEach(p -> p.put("metadata_modified", metadataModified));
+    }
+
+    public int getCatalogRequests() {
+        return catalogRequests.get();
+    }
+
+    public int getResourceRequests() {
+        return resourceRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void loadRecording() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(RECORDING_ROOT + "package_search.json")) {
+            if (in == null) {
+                throw new IOException("Recording not found on classpath: " + RECORDING_ROOT + "package_search.json");
+            }
+            ObjectNode recording = (ObjectNode) objectMapper.readTree(in);
+            for (var result : recording.path("result").path("results")) {
+                ObjectNode pkg = (ObjectNode) result;
+                for (var resource : pkg.withArray("resources")) {
+                    String fileName = fileName(resource.get("url").asText());
+                    resources.computeIfAbsent(fileName, this::readResource);
+                }
+                packages.add(pkg);
+            }
+        }
+    }
+
+    private byte[] readResource(String fileName) {
+        try (InputStream in = getClass().getResourceAsStream(RECORDING_ROOT + "resources/" + fileName)) {
+            return in != null ? in.readAllBytes() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void handlePackageSearch(HttpExchange exchange) throws IOException {
+        catalogRequests.incrementAndGet();
+        delay();
+        Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+        int rows = Integer.parseInt(params.getOrDefault("rows", "10"));
+        int start = Integer.parseInt(params.getOrDefault("start", "0"));
+
+        List<ObjectNode> matching = new ArrayList<>();
+        Instant modifiedSince = modifiedSince(params.get("fq"));
+        for (ObjectNode pkg : packages) {
+            Instant modified = LocalDateTime.parse(pkg.get("metadata_modified").asText()).toInstant(ZoneOffset.UTC);
+            if (modifiedSince == null || !modified.isBefore(modifiedSince)) {
+                matching.add(pkg);
+            }
+        }
+        matching.sort(Comparator.comparing(p -> p.get("metadata_modified").asText()));
+
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("success", true);
+        ObjectNode result = body.putObject("result");
+        result.put("count", matching.size());
+        ArrayNode results = result.putArray("results");
+        matching.stream().skip(start).limit(rows).forEach(results::add);
+
+        String json = objectMapper.writeValueAsString(body).replace("{{baseUrl}}", getBaseUrl());
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, 200, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleResource(HttpExchange exchange) throws IOException {
+        resourceRequests.incrementAndGet();
+        delay();
+        String fileName = fileName(exchange.getRequestURI().getPath());
+        byte[] content = resources.get(fileName);
+        if (content == null) {
+            send(exchange, 404, new byte[0]);
+            return;
+        }
+        if (shouldFail(fileName)) {
+            send(exchange, 503, new byte[0]);
+            return;
+        }
+
+        String etag = "\"" + sha256(content) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null) {
+            Matcher matcher = RANGE.matcher(range);
+            if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+                send(exchange, 416, new byte[0]);
+                return;
+            }
+            int first;
+            int last;
+            if (matcher.group(1).isEmpty()) {
+                // Suffix range: the last N bytes
+                first = Math.max(0, content.length - Integer.parseInt(matcher.group(2)));
+                last = content.length - 1;
+            } else {
+                first = Integer.parseInt(matcher.group(1));
+                last = matcher.group(2).isEmpty() ? content.length - 1
+                        : Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+            }
+            if (first >= content.length || first > last) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+                send(exchange, 416, new byte[0]);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+            send(exchange, 206, Arrays.copyOfRange(content, first, last + 1));
+            return;
+        }
+
+        send(exchange, 200, content);
+    }
+
+    private boolean shouldFail(String fileName) {
+        Integer remaining = pendingFailures.computeIfPresent(fileName, (name, count) -> count > 0 ? count - 1 : null);
+        if (remaining != null) {
+            return true;
+        }
+        synchronized (random) {
+            return errorRate > 0 && random.nextDouble() < errorRate;
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            long started = System.nanoTime();
+            for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, body.length - offset);
+                out.write(body, offset, length);
+                throttle(started, offset + length);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void throttle(long startedNanos, long bytesSent) {
+        long limit = bytesPerSecond;
+        if (limit <= 0) {
+            return;
+        }
+        long expectedNanos = bytesSent * 1_000_000_000L / limit;
+        long aheadMillis = (expectedNanos - (System.nanoTime() - startedNanos)) / 1_000_000L;
+        if (aheadMillis > 0) {
+            sleep(aheadMillis);
+        }
+    }
+
+    private void delay() {
+        if (latencyMs > 0) {
+            sleep(latencyMs);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Instant modifiedSince(String filter) {
+        if (filter == null) {
+            return null;
+        }
+        Matcher matcher = MODIFIED_FILTER.matcher(filter);
+        return matcher.find() ? Instant.parse(matcher.group(1)) : null;
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static String fileName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
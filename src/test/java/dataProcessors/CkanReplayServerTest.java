@@ -0,0 +1,54 @@
+package dataProcessors;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CkanReplayServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void testResource_HonoursIfNoneMatch() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer().start()) {
+            HttpResponse<byte[]> first = get(server, "/resources/tfwp_2021q1_positive_en.csv", null, null);
+            String etag = first.headers().firstValue("ETag").orElseThrow();
+
+            HttpResponse<byte[]> second = get(server, "/resources/tfwp_2021q1_positive_en.csv", etag, null);
+
+            assertEquals(200, first.statusCode());
+            assertEquals(304, second.statusCode());
+        }
+    }
+
+    @Test
+    void testResource_ServesByteRanges() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer().start()) {
+            HttpResponse<byte[]> full = get(server, "/resources/tfwp_2021q1_positive_en.csv", null, null);
+            HttpResponse<byte[]> partial = get(server, "/resources/tfwp_2021q1_positive_en.csv", null, "bytes=10-19");
+            HttpResponse<byte[]> invalid = get(server, "/resources/tfwp_2021q1_positive_en.csv", null, "bytes=999999-");
+
+            assertEquals(206, partial.statusCode());
+            assertEquals("bytes 10-19/" + full.body().length, partial.headers().firstValue("Content-Range").orElseThrow());
+            assertArrayEquals(Arrays.copyOfRange(full.body(), 10, 20), partial.body());
+            assertEquals(416, invalid.statusCode());
+        }
+    }
+
+    private HttpResponse<byte[]> get(CkanReplayServer server, String path, String ifNoneMatch, String range) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(server.getBaseUrl() + path));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        if (range != null) {
+            request.header("Range", range);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
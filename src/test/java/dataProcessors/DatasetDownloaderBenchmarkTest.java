@@ -0,0 +1,80 @@
+package dataProcessors;
+
+import nocservice.dataProcessors.CatalogStateStore;
+import nocservice.dataProcessors.DatasetDownloader;
+import nocservice.dataProcessors.RawDatasetStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import service.MetricsService;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Download throughput against the local CKAN replay server at several thread pool sizes.
+ * Run with: mvn test -Dtest=DatasetDownloaderBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DatasetDownloaderBenchmarkTest {
+
+    private static final int COPIES = 10;
+    private static final long LATENCY_MS = 100;
+    private static final long BANDWIDTH_BYTES_PER_SECOND = 16 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkDownloadThroughput() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer()
+                .replicate(COPIES)
+                .withLatency(LATENCY_MS)
+                .withBandwidth(BANDWIDTH_BYTES_PER_SECOND)
+                .withErrorRate(0.05)
+                .start()) {
+
+            System.out.printf("%-12s %8s %8s %12s %12s %14s%n",
+                    "concurrency", "files", "failed", "seconds", "files/sec", "bytes/sec");
+            for (int concurrency : new int[]{1, 2, 4, 8, 16}) {
+                Path runDir = tempDir.resolve("run-" + concurrency);
+                ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+                executor.setCorePoolSize(concurrency);
+                executor.setMaxPoolSize(concurrency);
+                executor.setQueueCapacity(1000);
+                executor.initialize();
+                try {
+                    DatasetDownloader downloader = new DatasetDownloader(executor,
+                            new CatalogStateStore(runDir.resolve("catalog-state.json").toString()),
+                            new RawDatasetStore(runDir.resolve("raw").toString(), runDir.resolve("legacy").toString()),
+                            new MetricsService(new SimpleMeterRegistry()));
+                    ReflectionTestUtils.setField(downloader, "ckanBaseUrl", server.getBaseUrl());
+                    ReflectionTestUtils.setField(downloader, "retryDelayMs", 50L);
+
+                    long started = System.nanoTime();
+                    List<CompletableFuture<RawDatasetStore.Entry>> downloads = downloader.downloadFilesAsync();
+                    // Injected errors can outlast the retries; count those files instead of failing the run
+                    List<RawDatasetStore.Entry> entries = downloads.stream()
+                            .map(download -> download.exceptionally(ex -> null).join())
+                            .filter(Objects::nonNull)
+                            .toList();
+                    double seconds = (System.nanoTime() - started) / 1e9;
+                    long bytes = entries.stream().mapToLong(RawDatasetStore.Entry::getSize).sum();
+
+                    System.out.printf("%-12d %8d %8d %12.2f %12.2f %14.0f%n", concurrency, entries.size(),
+                            downloads.size() - entries.size(), seconds, entries.size() / seconds, bytes / seconds);
+                    assertFalse(entries.isEmpty());
+                } finally {
+                    executor.shutdown();
+                }
+            }
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package dataProcessors;
 
+import nocservice.dataProcessors.CatalogStateStore;
 import nocservice.dataProcessors.DatasetDownloader;
+import nocservice.dataProcessors.RawDatasetStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import service.MetricsService;
 
-import java.io.File;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,6 +22,8 @@ class DatasetDownloaderTest {
 
     private DatasetDownloader datasetDownloader;
     private Executor mockExecutor;
+    private RawDatasetStore rawDatasetStore;
+    private SimpleMeterRegistry meterRegistry;
 
     @TempDir
     Path tempDir;
@@ -24,7 +32,12 @@ class DatasetDownloaderTest {
     void setUp() {
         // Create a simple executor for testing (runs tasks in the current thread)
         mockExecutor = Runnable::run;
-        datasetDownloader = new DatasetDownloader(mockExecutor);
+        CatalogStateStore catalogStateStore = new CatalogStateStore(tempDir.resolve("catalog-state.json").toString());
+        rawDatasetStore = new RawDatasetStore(tempDir.resolve("raw").toString(),
+                tempDir.resolve("legacy").toString());
+        meterRegistry = new SimpleMeterRegistry();
+        datasetDownloader = new DatasetDownloader(mockExecutor, catalogStateStore, rawDatasetStore,
+                new MetricsService(meterRegistry));
     }
 
     @Test
@@ -41,17 +54,106 @@ class DatasetDownloaderTest {
     }
 
     @Test
-    void testDownloadFiles_CreatesDirectory() {
-        File outputDirectory = tempDir.resolve("test_downloads").toFile();
-
-        // This will fail to download actual files but should create directory
+    void testDownloadFiles_DoesNotThrowWithoutNetwork() {
+        // This will fail to download actual files but should not propagate the failure
         assertDoesNotThrow(() -> {
             try {
-                datasetDownloader.downloadFiles(outputDirectory);
+                datasetDownloader.downloadFiles();
             } catch (Exception e) {
-                // Expected to fail without actual network, but directory should be created
+                // Expected to fail without actual network
             }
         });
     }
-}
 
+    @Test
+    void testDownloadFiles_FromReplayServerDownloadsOnlyChangedResources() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer().start()) {
+            pointAt(server);
+
+            List<RawDatasetStore.Entry> firstRun = join(datasetDownloader.downloadFilesAsync());
+
+            // French resource is filtered out, the other four are stored
+            assertEquals(4, firstRun.size());
+            assertTrue(rawDatasetStore.findByUrl(server.getBaseUrl() + "/resources/tfwp_2021q2_negative_en.csv").isPresent());
+            assertEquals(4, server.getResourceRequests());
+            assertEquals(4, meterRegistry.counter("lmia.file.downloads").count());
+            assertEquals(4, meterRegistry.timer("lmia.file.download.queue.wait").count());
+            assertEquals(firstRun.stream().mapToLong(RawDatasetStore.Entry::getSize).sum(),
+                    (long) meterRegistry.summary("lmia.file.download.bytes").totalAmount());
+
+            // Nothing changed upstream: no resource is downloaded again
+            firstRun.forEach(datasetDownloader::recordIngested);
+            assertTrue(datasetDownloader.downloadFilesAsync().isEmpty());
+            assertEquals(4, server.getResourceRequests());
+        }
+    }
+
+    @Test
+    void testDownloadFiles_RetriesFileWhoseLoadFailed() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer().start()) {
+            pointAt(server);
+
+            List<RawDatasetStore.Entry> firstRun = join(datasetDownloader.downloadFilesAsync());
+            // Every file but one was loaded; that one failed and was never recorded
+            RawDatasetStore.Entry failedLoad = firstRun.get(0);
+            firstRun.stream().skip(1).forEach(datasetDownloader::recordIngested);
+
+            List<RawDatasetStore.Entry> secondRun = join(datasetDownloader.downloadFilesAsync());
+
+            assertEquals(1, secondRun.size());
+            assertEquals(failedLoad.getUrl(), secondRun.get(0).getUrl());
+            assertEquals(failedLoad.getSha256(), secondRun.get(0).getSha256());
+            assertEquals(5, server.getResourceRequests());
+        }
+    }
+
+    @Test
+    void testDownloadFiles_FollowsCatalogPagination() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer().start()) {
+            pointAt(server);
+            ReflectionTestUtils.setField(datasetDownloader, "catalogPageSize", 1);
+
+            List<RawDatasetStore.Entry> entries = join(datasetDownloader.downloadFilesAsync());
+
+            assertEquals(4, entries.size());
+            assertEquals(3, server.getCatalogRequests());
+        }
+    }
+
+    @Test
+    void testDownloadFiles_RetriesTransientErrors() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer().start()) {
+            pointAt(server);
+            server.failNext("tfwp_2021q3_positive_en.csv", 2);
+
+            List<RawDatasetStore.Entry> entries = join(datasetDownloader.downloadFilesAsync());
+
+            assertEquals(4, entries.size());
+            assertEquals(6, server.getResourceRequests());
+            assertEquals(2, meterRegistry.counter("lmia.file.download.retries", "cause", "http_503").count());
+        }
+    }
+
+    @Test
+    void testCheckCatalogFreshness_ReportsPackagesModifiedAfterSync() throws Exception {
+        try (CkanReplayServer server = new CkanReplayServer().start()) {
+            pointAt(server);
+            join(datasetDownloader.downloadFilesAsync());
+
+            assertEquals(0, datasetDownloader.checkCatalogFreshness().getPendingPackages());
+
+            server.touchPackage("tfwp-2021q1", "2022-02-01T10:00:00.000000");
+            assertEquals(1, datasetDownloader.checkCatalogFreshness().getPendingPackages());
+        }
+    }
+
+    private void pointAt(CkanReplayServer server) {
+        ReflectionTestUtils.setField(datasetDownloader, "ckanBaseUrl", server.getBaseUrl());
+        ReflectionTestUtils.setField(datasetDownloader, "retryDelayMs", 10L);
+        ReflectionTestUtils.setField(datasetDownloader, "catalogRetryDelayMs", 10L);
+    }
+
+    private static List<RawDatasetStore.Entry> join(List<CompletableFuture<RawDatasetStore.Entry>> downloads) {
+        return downloads.stream().map(CompletableFuture::join).toList();
+    }
+}
@@ -0,0 +1,87 @@
+package dataProcessors;
+
+import nocservice.dataProcessors.RawDatasetStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawDatasetStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testStoreAndOpen_RoundTrip() throws IOException {
+        RawDatasetStore store = newStore();
+        String content = "Province,Employer\nOntario,Test Company\n";
+
+        RawDatasetStore.Entry entry = store.store("https://example.org/a/tfwp_2021q1_positive_en.csv",
+                "tfwp_2021q1_positive_en.csv", stream(content));
+
+        assertEquals(content.length(), entry.getSize());
+        assertEquals(content, read(store, entry));
+        assertEquals(entry, store.findByUrl("https://example.org/a/tfwp_2021q1_positive_en.csv").orElseThrow());
+    }
+
+    @Test
+    void testStore_IdenticalContentStoredOnce() throws IOException {
+        RawDatasetStore store = newStore();
+
+        RawDatasetStore.Entry first = store.store("https://example.org/a/data.csv", "data.csv", stream("same"));
+        RawDatasetStore.Entry second = store.store("https://example.org/b/copy.csv", "copy.csv", stream("same"));
+
+        assertEquals(first.getSha256(), second.getSha256());
+        assertEquals(1, store.distinctEntries().size());
+    }
+
+    @Test
+    void testStore_SameFileNameFromDifferentUrlsKeepsBoth() throws IOException {
+        RawDatasetStore store = newStore();
+
+        RawDatasetStore.Entry first = store.store("https://example.org/2021/data.csv", "data.csv", stream("2021"));
+        RawDatasetStore.Entry second = store.store("https://example.org/2022/data.csv", "data.csv", stream("2022"));
+
+        assertNotEquals(first.getSha256(), second.getSha256());
+        assertEquals("2021", read(store, first));
+        assertEquals("2022", read(store, second));
+    }
+
+    @Test
+    void testInitialize_ReloadsIndexAndImportsLegacyFiles() throws IOException {
+        Path legacy = Files.createDirectories(tempDir.resolve("legacy"));
+        Files.writeString(legacy.resolve("tfwp_2020q4_negative_en.csv"), "legacy content");
+
+        RawDatasetStore store = newStore();
+        store.initialize();
+        store.store("https://example.org/data.csv", "data.csv", stream("downloaded"));
+
+        RawDatasetStore reopened = newStore();
+        reopened.initialize();
+
+        assertEquals(2, reopened.distinctEntries().size());
+        assertEquals("legacy content", read(reopened, reopened.findByUrl("legacy:tfwp_2020q4_negative_en.csv").orElseThrow()));
+        assertTrue(reopened.findByUrl("https://example.org/data.csv").isPresent());
+    }
+
+    private RawDatasetStore newStore() {
+        return new RawDatasetStore(tempDir.resolve("raw").toString(), tempDir.resolve("legacy").toString());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(RawDatasetStore store, RawDatasetStore.Entry entry) throws IOException {
+        try (InputStream in = store.open(entry)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -67,7 +67,7 @@ class DatasetSearchIntegrationTest {
         if (body.getData() != null) {
             @SuppressWarnings("unchecked")
             PagedResponse<Object> pagedResponse = (PagedResponse<Object>) body.getData();
-            assertEquals(0, pagedResponse.getTotalElements());
+            assertEquals(0L, pagedResponse.getTotalElements().longValue());
         }
     }
 
@@ -0,0 +1,39 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployerKeysTest {
+
+    @Test
+    void testNormalize_FoldsCasePunctuationAndWhitespace() {
+        assertEquals("tim hortons", EmployerKeys.normalize("  TIM   Hortons, Inc. "));
+        assertEquals("tim hortons", EmployerKeys.normalize("Tim Hortons Inc"));
+        assertEquals("abc plumbing", EmployerKeys.normalize("A.B.C. Plumbing Ltd."));
+        assertEquals("oneil farms", EmployerKeys.normalize("O'Neil Farms"));
+    }
+
+    @Test
+    void testNormalize_StripsAccentsAndStackedSuffixes() {
+        assertEquals("les serres gagnon", EmployerKeys.normalize("Les Serres Gagnon Ltée"));
+        assertEquals("smith", EmployerKeys.normalize("Smith & Co. Ltd."));
+        assertEquals("1234567 ontario", EmployerKeys.normalize("1234567 Ontario Inc."));
+    }
+
+    @Test
+    void testNormalizePrefix_FoldsButKeepsSuffixWords() {
+        assertEquals("co", EmployerKeys.normalizePrefix("Co"));
+        assertEquals("tim hortons inc", EmployerKeys.normalizePrefix("  TIM   Hortons, Inc. "));
+        assertEquals("les serres gagnon lt", EmployerKeys.normalizePrefix("Les Serres Gagnon Lt"));
+        assertEquals("oneil", EmployerKeys.normalizePrefix("O'Neil"));
+        assertNull(EmployerKeys.normalizePrefix(null));
+    }
+
+    @Test
+    void testNormalize_KeepsNameMadeOnlyOfSuffix() {
+        assertEquals("limited", EmployerKeys.normalize("Limited"));
+        assertEquals("", EmployerKeys.normalize("..."));
+        assertNull(EmployerKeys.normalize(null));
+    }
+}
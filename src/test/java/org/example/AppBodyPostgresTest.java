@@ -0,0 +1,113 @@
+package org.example;
+
+import model.Dataset;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ingestion into a partitioned lmia_datasets on PostgreSQL: the application runs against a
+ * scratch schema converted with db/partition_lmia_datasets.sql.
+ *
+ * mvn test -Dtest=AppBodyPostgresTest -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/lmia_db \
+ *     -Dbenchmark.postgres.user=postgres -Dbenchmark.postgres.password=postgres
+ */
+@SpringBootTest(classes = AppMain.class)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark.postgres.url", matches = ".+")
+class AppBodyPostgresTest {
+
+    private static final String SCHEMA = "lmia_ingest_test";
+
+    @Autowired
+    private AppBody appBody;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) throws Exception {
+        JdbcTemplate admin = admin();
+        admin.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        admin.execute("CREATE SCHEMA " + SCHEMA);
+
+        String url = System.getProperty("benchmark.postgres.url");
+        String schemaUrl = url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA;
+        JdbcTemplate schema = new JdbcTemplate(new DriverManagerDataSource(schemaUrl,
+                System.getProperty("benchmark.postgres.user", "postgres"),
+                System.getProperty("benchmark.postgres.password", "postgres")));
+        schema.execute(script("schema.sql"));
+        schema.execute(script("db/partition_lmia_datasets.sql"));
+
+        // A lock wait fails the test instead of hanging it
+        registry.add("spring.datasource.url", () -> schemaUrl + "&options=-c%20lock_timeout=10s");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.username", () -> System.getProperty("benchmark.postgres.user", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("benchmark.postgres.password", "postgres"));
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        admin().execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void testSaveNewDatasets_CreatesPartitionOfNewQuarter() {
+        assertEquals(0, partitionCount("lmia_datasets_2031q1"));
+
+        // Used to deadlock: the partition DDL waited on the save transaction's duplicate check
+        int saved = appBody.saveNewDatasets("tfwp_2031q1_positive_en.csv", List.of(dataset()));
+
+        assertEquals(1, saved);
+        assertEquals(1, partitionCount("lmia_datasets_2031q1"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lmia_datasets_2031q1", Integer.class));
+        assertEquals(0, appBody.saveNewDatasets("tfwp_2031q1_positive_en.csv", List.of(dataset())));
+    }
+
+    private int partitionCount(String partition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE c.relname = ? AND n.nspname = ?",
+                Integer.class, partition, SCHEMA);
+    }
+
+    private static JdbcTemplate admin() {
+        return new JdbcTemplate(new DriverManagerDataSource(System.getProperty("benchmark.postgres.url"),
+                System.getProperty("benchmark.postgres.user", "postgres"),
+                System.getProperty("benchmark.postgres.password", "postgres")));
+    }
+
+    private static String script(String path) throws Exception {
+        return new String(new ClassPathResource(path).getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static Dataset dataset() {
+        Dataset dataset = new Dataset();
+        dataset.setEmployer("Harbour Seafood Ltd.");
+        dataset.setNocCode("9463");
+        dataset.setNocTitle("Fish and seafood plant workers");
+        dataset.setProvince("Nova Scotia");
+        dataset.setStream("Low-wage");
+        dataset.setCity("Halifax");
+        dataset.setPositionsApproved(4);
+        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setDecisionDate(LocalDate.of(2031, 2, 1));
+        dataset.setSourceFile("tfwp_2031q1_positive_en.csv");
+        return dataset;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import model.Dataset;
+import nocservice.dataProcessors.DataParser;
+import nocservice.dataProcessors.DatasetDownloader;
+import nocservice.dataProcessors.RawDatasetStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import repository.DatasetRepository;
+import service.DatasetsChangedEvent;
+import service.DimensionCache;
+import service.IngestionFinishedEvent;
+import service.PartitionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppBodyTest {
+
+    @Mock
+    private DatasetDownloader datasetDownloader;
+
+    @Mock
+    private DataParser dataParser;
+
+    @Mock
+    private DatasetRepository datasetRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private DimensionCache dimensionCache;
+
+    @Mock
+    private PartitionManager partitionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private RawDatasetStore rawDatasetStore;
+    private AppBody appBody;
+
+    @BeforeEach
+    void setUp() {
+        rawDatasetStore = new RawDatasetStore(tempDir.resolve("raw").toString(), tempDir.resolve("legacy").toString());
+        // Inline executors keep the pipeline deterministic
+        appBody = new AppBody(datasetDownloader, dataParser, rawDatasetStore, Runnable::run, Runnable::run);
+        ReflectionTestUtils.setField(appBody, "datasetRepository", datasetRepository);
+        ReflectionTestUtils.setField(appBody, "self", appBody);
+        ReflectionTestUtils.setField(appBody, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(appBody, "dimensionCache", dimensionCache);
+        ReflectionTestUtils.setField(appBody, "partitionManager", partitionManager);
+        when(datasetRepository.count()).thenReturn(10L);
+    }
+
+    @Test
+    void testDownloadDatasetsAsync_ProcessesFileBeforeOtherDownloadsFinish() throws IOException {
+        RawDatasetStore.Entry first = store("tfwp_2021q1_positive_en.csv", "first");
+        CompletableFuture<RawDatasetStore.Entry> slowDownload = new CompletableFuture<>();
+        when(datasetDownloader.downloadFilesAsync())
+                .thenReturn(List.of(CompletableFuture.completedFuture(first), slowDownload));
+        when(dataParser.parse(any(InputStream.class), eq("tfwp_2021q1_positive_en.csv"))).thenReturn(List.of(createDataset()));
+
+        CompletableFuture<Void> result = appBody.downloadDatasetsAsync();
+
+        // First file is parsed and saved while the second download is still running
+        verify(dataParser).parse(any(InputStream.class), eq("tfwp_2021q1_positive_en.csv"));
+        verify(dimensionCache).assignKeys(anyList());
+        verify(datasetRepository).saveAll(anyList());
+        verify(eventPublisher).publishEvent(any(DatasetsChangedEvent.class));
+        verify(datasetDownloader).recordIngested(first);
+        assertFalse(result.isDone());
+        verify(eventPublisher, never()).publishEvent(any(IngestionFinishedEvent.class));
+
+        slowDownload.complete(store("tfwp_2021q2_positive_en.csv", "second"));
+        assertTrue(result.isDone());
+        assertFalse(result.isCompletedExceptionally());
+        verify(eventPublisher).publishEvent(new IngestionFinishedEvent("download"));
+    }
+
+    @Test
+    void testDownloadDatasetsAsync_FailedFileDoesNotFailOthers() throws IOException {
+        RawDatasetStore.Entry good = store("tfwp_2021q1_positive_en.csv", "good");
+        CompletableFuture<RawDatasetStore.Entry> failedDownload = CompletableFuture.failedFuture(new IllegalStateException("HTTP 500"));
+        when(datasetDownloader.downloadFilesAsync())
+                .thenReturn(List.of(failedDownload, CompletableFuture.completedFuture(good)));
+        when(dataParser.parse(any(InputStream.class), eq("tfwp_2021q1_positive_en.csv"))).thenReturn(List.of(createDataset()));
+
+        CompletableFuture<Void> result = appBody.downloadDatasetsAsync();
+
+        assertDoesNotThrow(result::join);
+        verify(dataParser).parse(any(InputStream.class), eq("tfwp_2021q1_positive_en.csv"));
+        verify(datasetRepository).saveAll(anyList());
+    }
+
+    @Test
+    void testDownloadDatasetsAsync_FailedLoadIsNotRecordedAsIngested() throws IOException {
+        RawDatasetStore.Entry entry = store("tfwp_2021q1_positive_en.csv", "content");
+        when(datasetDownloader.downloadFilesAsync()).thenReturn(List.of(CompletableFuture.completedFuture(entry)));
+        when(dataParser.parse(any(InputStream.class), eq("tfwp_2021q1_positive_en.csv"))).thenReturn(List.of(createDataset()));
+        when(datasetRepository.saveAll(anyList())).thenThrow(new IllegalStateException("connection lost"));
+
+        assertDoesNotThrow(() -> appBody.downloadDatasetsAsync().join());
+
+        // The version stays unrecorded, so the next run downloads and loads the file again
+        verify(datasetDownloader, never()).recordIngested(any());
+    }
+
+    private RawDatasetStore.Entry store(String name, String content) throws IOException {
+        return rawDatasetStore.store("https://example.org/" + name, name,
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Dataset createDataset() {
+        Dataset dataset = new Dataset();
+        dataset.setEmployer("Test Company");
+        dataset.setNocCode("0211");
+        dataset.setProvince("Ontario");
+        dataset.setStream("High Wage");
+        dataset.setPositionsApproved(1);
+        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setDecisionDate(LocalDate.of(2021, 2, 15));
+        dataset.setSourceFile("tfwp_2021q1_positive_en.csv");
+        return dataset;
+    }
+}
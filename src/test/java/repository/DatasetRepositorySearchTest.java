@@ -0,0 +1,303 @@
+package repository;
+
+import config.EmployerKeyBackfill;
+import dto.DatasetDTO;
+import dto.EmployerSummary;
+import model.Dataset;
+import org.example.AppMain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import service.SearchCountService;
+import service.SearchCountService.TotalCount;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(classes = AppMain.class)
+@ActiveProfiles("test")
+class DatasetRepositorySearchTest {
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private DatasetReadRepository datasetReadRepository;
+
+    @Autowired
+    private EmployerKeyBackfill employerKeyBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private SearchCountService searchCountService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        datasetRepository.deleteAll();
+        datasetRepository.saveAll(List.of(
+                dataset("Maple Farms Ltd.", "8431", "Ontario", Dataset.DecisionStatus.APPROVED, LocalDate.of(2021, 2, 15)),
+                dataset("Maple_Logistics Inc.", "7511", "Alberta", Dataset.DecisionStatus.APPROVED, LocalDate.of(2021, 5, 15)),
+                dataset("Pacific Foods", "6322", "Ontario", Dataset.DecisionStatus.DENIED, LocalDate.of(2021, 8, 15))));
+    }
+
+    @Test
+    void testSearch_CombinesPresentFilters() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                .employer("MAPLE")
+                .province("ON")
+                .build();
+
+        Page<Dataset> page = datasetRepository.search(spec, PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("Maple Farms Ltd.", page.getContent().get(0).getEmployer());
+    }
+
+    @Test
+    void testSearch_MatchesNormalizedEmployerKey() {
+        Page<Dataset> page = datasetRepository.search(DatasetSearchSpec.builder().employer("maple-logistics, INC").build(), PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("Maple_Logistics Inc.", page.getContent().get(0).getEmployer());
+    }
+
+    @Test
+    void testEmployerLookups_IgnoreCasePunctuationAndLegalSuffix() {
+        assertTrue(datasetRepository.existsByKeyFields("MAPLE FARMS LIMITED", "8431", LocalDate.of(2021, 2, 15),
+                "tfwp_2021q1_positive_en.csv"));
+        assertEquals(1, datasetRepository.findRecordsNeedingWebsiteUrl("maple farms").size());
+        assertEquals(1L, datasetRepository.countByEmployer("Pacific Foods Inc"));
+    }
+
+    @Test
+    void testBackfill_FillsKeysOfExistingRows() {
+        jdbcTemplate.update("UPDATE lmia_employers SET employer_key = NULL " +
+                "WHERE name IN ('Maple Farms Ltd.', 'Maple_Logistics Inc.', 'Pacific Foods')");
+
+        assertEquals(3, employerKeyBackfill.backfill());
+        assertEquals("maple farms", jdbcTemplate.queryForObject(
+                "SELECT employer_key FROM lmia_employers WHERE name = 'Maple Farms Ltd.'", String.class));
+        assertEquals(0, employerKeyBackfill.backfill());
+    }
+
+    @Test
+    void testSearch_PagesWithCount() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                .startDate(LocalDate.of(2021, 1, 1))
+                .endDate(LocalDate.of(2021, 12, 31))
+                .build();
+
+        Page<Dataset> page = datasetRepository.search(spec, PageRequest.of(0, 2));
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(3, page.getTotalElements());
+        assertEquals(3, datasetRepository.countMatching(spec));
+        assertEquals(1, datasetRepository.countMatching(DatasetSearchSpec.builder().status(Dataset.DecisionStatus.DENIED).build()));
+    }
+
+    @Test
+    void testFindSlice_ReturnsRequestedWindowAndNoEstimateOnH2() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().employer("maple").build();
+
+        List<DatasetDTO> slice = datasetReadRepository.findSlice(spec, SearchSort.DECISION_DATE, 0, 3);
+        assertEquals(2, slice.size());
+        assertEquals("APPROVED", slice.get(0).getStatus());
+        assertNotNull(slice.get(0).getDecisionDate());
+        assertEquals(1, datasetReadRepository.findSlice(spec, SearchSort.DECISION_DATE, 1, 3).size());
+        // Planner estimates are PostgreSQL-only; callers fall back to an exact count
+        assertTrue(datasetRepository.estimateMatching(spec).isEmpty());
+    }
+
+    @Test
+    void testCount_FailedEstimateStillCountsExactlyInCallersTransaction() {
+        // The EXPLAIN fails in the database, e.g. a statement timeout on the replica
+        doAnswer(invocation -> namedParameterJdbcTemplate.getJdbcOperations()
+                .queryForList("EXPLAIN SELECT no_such_column FROM lmia_datasets_star", String.class))
+                .when(namedParameterJdbcTemplate).queryForList(startsWith("EXPLAIN "), anyMap(), eq(String.class));
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().employer("pacific").province("ON").build();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TotalCount total = readOnly.execute(status -> {
+            TotalCount count = searchCountService.count(spec);
+            assertFalse(status.isRollbackOnly());
+            return count;
+        });
+
+        assertEquals(TotalCount.exact(1), total);
+        verify(namedParameterJdbcTemplate).queryForList(startsWith("EXPLAIN "), anyMap(), eq(String.class));
+    }
+
+    @Test
+    void testSearchAfter_WalksAllRowsInStableOrder() {
+        datasetRepository.save(dataset("Maple Bakery", "6332", "Ontario", Dataset.DecisionStatus.APPROVED, LocalDate.of(2021, 5, 15)));
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().build();
+
+        List<DatasetDTO> seen = new ArrayList<>();
+        SearchCursor cursor = null;
+        List<DatasetDTO> page;
+        do {
+            page = datasetReadRepository.searchAfter(spec, SearchSort.DECISION_DATE, cursor, 2);
+            seen.addAll(page);
+            if (!page.isEmpty()) {
+                DatasetDTO last = page.get(page.size() - 1);
+                cursor = new SearchCursor(last.getDecisionDate(), last.getId());
+            }
+        } while (page.size() == 2);
+
+        assertEquals(4, seen.size());
+        assertEquals(LocalDate.of(2021, 8, 15), seen.get(0).getDecisionDate());
+        // Rows sharing a decision date are split across pages without gaps or duplicates
+        assertEquals(seen.get(1).getDecisionDate(), seen.get(2).getDecisionDate());
+        assertTrue(seen.get(1).getId() > seen.get(2).getId());
+        assertEquals(LocalDate.of(2021, 2, 15), seen.get(3).getDecisionDate());
+    }
+
+    @Test
+    void testSorts_OffsetAndKeysetPagesAgree() {
+        Dataset bakery = dataset("Maple Bakery", "6332", "Ontario", Dataset.DecisionStatus.APPROVED, LocalDate.of(2021, 5, 15));
+        bakery.setPositionsApproved(5);
+        Dataset grain = dataset("Atlantic Grain", "8431", "Ontario", Dataset.DecisionStatus.APPROVED, LocalDate.of(2021, 3, 1));
+        grain.setPositionsApproved(5);
+        datasetRepository.saveAll(List.of(bakery, grain));
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().build();
+
+        List<DatasetDTO> byPositions = datasetReadRepository.findSlice(spec, SearchSort.POSITIONS_APPROVED, 0, 10);
+        assertEquals(List.of("Atlantic Grain", "Maple Bakery"),
+                byPositions.subList(0, 2).stream().map(DatasetDTO::getEmployer).toList());
+        List<DatasetDTO> byEmployer = datasetReadRepository.findSlice(spec, SearchSort.EMPLOYER, 0, 10);
+        assertEquals(List.of("Atlantic Grain", "Maple Bakery", "Maple Farms Ltd.", "Maple_Logistics Inc.", "Pacific Foods"),
+                byEmployer.stream().map(DatasetDTO::getEmployer).toList());
+
+        for (SearchSort sort : List.of(SearchSort.POSITIONS_APPROVED, SearchSort.EMPLOYER)) {
+            List<Long> walked = new ArrayList<>();
+            SearchCursor cursor = null;
+            List<DatasetDTO> page;
+            do {
+                page = datasetReadRepository.searchAfter(spec, sort, cursor, 2);
+                page.forEach(row -> walked.add(row.getId()));
+                cursor = page.isEmpty() ? cursor : SearchCursor.after(page.get(page.size() - 1), sort);
+            } while (page.size() == 2);
+            List<DatasetDTO> offsetRows = sort == SearchSort.EMPLOYER ? byEmployer : byPositions;
+            assertEquals(offsetRows.stream().map(DatasetDTO::getId).toList(), walked, sort.name());
+        }
+    }
+
+    @Test
+    void testSearch_MultiValueFiltersMatchAnyValue() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                .provinces(List.of("ON", "AB"))
+                .nocCodes(List.of("8431", "7511", "6322"))
+                .statuses(List.of(Dataset.DecisionStatus.APPROVED))
+                .build();
+
+        Page<Dataset> page = datasetRepository.search(spec, PageRequest.of(0, 1));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertEquals(2, datasetReadRepository.findSlice(spec, SearchSort.DECISION_DATE, 0, 10).size());
+        assertEquals(1, datasetRepository.countMatching(DatasetSearchSpec.builder()
+                .provinces(List.of("Ontario", "Quebec")).nocCodes(List.of("6322", "9999")).build()));
+    }
+
+    @Test
+    void testFacetCounts_OnePassOverMatchingRows() {
+        FacetCounts facetCounts = datasetReadRepository.facetCounts(
+                DatasetSearchSpec.builder().startDate(LocalDate.of(2021, 1, 1)).build(),
+                EnumSet.of(SearchFacet.PROVINCE, SearchFacet.STATUS));
+
+        assertEquals(Map.of("Ontario", 2L, "Alberta", 1L), facetCounts.getCounts().get(SearchFacet.PROVINCE));
+        assertEquals(Map.of("APPROVED", 2L, "DENIED", 1L), facetCounts.getCounts().get(SearchFacet.STATUS));
+        assertEquals(3, facetCounts.getTotal());
+        assertEquals(Map.of("Ontario", 1L), datasetReadRepository.facetCounts(
+                DatasetSearchSpec.builder().employer("maple farms").build(), EnumSet.of(SearchFacet.PROVINCE))
+                .getCounts().get(SearchFacet.PROVINCE));
+    }
+
+    @Test
+    void testFacetCounts_RowWithoutProvinceCountsInTotalOnly() {
+        datasetRepository.save(dataset("Yukon Outfitters", "6322", null, Dataset.DecisionStatus.APPROVED, LocalDate.of(2021, 9, 1)));
+
+        FacetCounts facetCounts = datasetReadRepository.facetCounts(DatasetSearchSpec.builder().build(),
+                EnumSet.of(SearchFacet.PROVINCE, SearchFacet.STATUS));
+
+        assertEquals(Map.of("Ontario", 2L, "Alberta", 1L), facetCounts.getCounts().get(SearchFacet.PROVINCE));
+        assertEquals(Map.of("APPROVED", 3L, "DENIED", 1L), facetCounts.getCounts().get(SearchFacet.STATUS));
+        assertEquals(4, facetCounts.getTotal());
+    }
+
+    @Test
+    void testSummarizeEmployers_OneSummaryPerNameInRequestOrder() {
+        List<EmployerSummary> summaries = datasetReadRepository.summarizeEmployers(
+                DatasetSearchSpec.builder().employer("ignored").build(),
+                List.of("PACIFIC FOODS INC", "Unknown Employer", "maple farms", "Maple Farms Limited"));
+
+        assertEquals(4, summaries.size());
+        EmployerSummary pacific = summaries.get(0);
+        assertEquals("PACIFIC FOODS INC", pacific.getName());
+        assertEquals("Pacific Foods", pacific.getEmployer());
+        assertEquals(1, pacific.getRecords());
+        assertEquals(0, pacific.getApprovedRecords());
+        assertEquals(LocalDate.of(2021, 8, 15), pacific.getLatestDecisionDate());
+        assertNull(pacific.getLatestApprovalDate());
+        assertEquals(0, summaries.get(1).getRecords());
+        assertNull(summaries.get(1).getEmployer());
+        assertEquals(LocalDate.of(2021, 2, 15), summaries.get(2).getLatestApprovalDate());
+        assertEquals("Maple Farms Limited", summaries.get(3).getName());
+        assertEquals(1, summaries.get(3).getApprovedRecords());
+
+        List<EmployerSummary> approved = datasetReadRepository.summarizeEmployers(
+                DatasetSearchSpec.builder().status(Dataset.DecisionStatus.APPROVED).build(),
+                List.of("Pacific Foods", "Maple Logistics"));
+        assertEquals(0, approved.get(0).getRecords());
+        assertEquals(1, approved.get(1).getPositionsApproved());
+    }
+
+    @Test
+    void testForEach_StreamsUpToLimit() {
+        List<String> employers = new ArrayList<>();
+
+        int rows = datasetReadRepository.forEach(DatasetSearchSpec.builder().province("Ontario").build(), 1,
+                dto -> employers.add(dto.getEmployer()));
+
+        assertEquals(1, rows);
+        assertEquals(1, employers.size());
+    }
+
+    private Dataset dataset(String employer, String nocCode, String province, Dataset.DecisionStatus status, LocalDate date) {
+        Dataset dataset = new Dataset();
+        dataset.setEmployer(employer);
+        dataset.setNocCode(nocCode);
+        dataset.setProvince(province);
+        dataset.setStream("High Wage");
+        dataset.setPositionsApproved(1);
+        dataset.setStatus(status);
+        dataset.setDecisionDate(date);
+        dataset.setSourceFile("tfwp_2021q1_positive_en.csv");
+        return dataset;
+    }
+}
@@ -0,0 +1,158 @@
+package repository;
+
+import model.Dataset;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetSearchQueryTest {
+
+    private static final SearchCursor CURSOR = new SearchCursor(LocalDate.of(2021, 5, 15), 1L);
+    private static final SearchCursor EMPLOYER_CURSOR = new SearchCursor(SearchSort.EMPLOYER, "Maple Farms Ltd.", 1L);
+
+    @Test
+    void testFrom_EmitsOnlyPresentPredicates() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                .nocCode("0211")
+                .status(Dataset.DecisionStatus.APPROVED)
+                .build();
+
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+
+        assertEquals("SELECT d.* FROM lmia_datasets_star d WHERE d.noc_code = :nocCode AND d.status = :status", query.selectSql());
+        assertEquals("SELECT COUNT(*) FROM lmia_datasets_star d WHERE d.noc_code = :nocCode AND d.status = :status", query.countSql());
+        assertEquals("APPROVED", query.getParameters().get("status"));
+        assertEquals(2, query.getParameters().size());
+    }
+
+    @Test
+    void testFrom_NoFiltersHasNoWhereClause() {
+        DatasetSearchQuery query = DatasetSearchQuery.from(DatasetSearchSpec.builder().employer("  ").build());
+
+        assertEquals("SELECT COUNT(*) FROM lmia_datasets_star d", query.countSql());
+        assertTrue(query.getParameters().isEmpty());
+    }
+
+    @Test
+    void testBuild_EmployerWithoutLettersOrDigitsIsRejected() {
+        // Dropping it would leave no employer filter, matching every dataset
+        for (String employer : List.of("...", "&", " - ")) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> DatasetSearchSpec.builder().employer(employer).build(), employer);
+        }
+    }
+
+    @Test
+    void testFrom_CanonicalizesProvinceAndNormalizesEmployerPattern() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                .employer("MAPLE  Farms, Ltd.")
+                .province("on")
+                .startDate(LocalDate.of(2021, 1, 1))
+                .build();
+
+        DatasetSearchQuery query = DatasetSearchQuery.from(spec);
+
+        assertTrue(query.selectSql().contains("d.employer_id IN (SELECT e.id FROM lmia_employers e " +
+                "WHERE e.employer_key LIKE :employerPattern"));
+        assertTrue(query.selectSql().contains("d.province_id IN (SELECT x.id FROM lmia_provinces x " +
+                "WHERE x.name = :province)"));
+        assertFalse(query.selectSql().contains("LOWER(d.province)"));
+        assertEquals("%maple farms%", query.getParameters().get("employerPattern"));
+        assertEquals("Ontario", query.getParameters().get("province"));
+        assertEquals(LocalDate.of(2021, 1, 1), query.getParameters().get("startDate"));
+    }
+
+    @Test
+    void testSelectAfterSql_AddsKeysetPredicateAndStableOrder() {
+        DatasetSearchQuery query = DatasetSearchQuery.from(DatasetSearchSpec.builder().nocCode("0211").build());
+
+        assertEquals("SELECT d.* FROM lmia_datasets_star d WHERE d.noc_code = :nocCode " +
+                "AND (d.decision_date, d.id) < (:cursorValue, :cursorId) " +
+                "ORDER BY d.decision_date DESC, d.id DESC", query.selectAfterSql("d.*", SearchSort.DECISION_DATE, CURSOR, true));
+        assertEquals("SELECT d.* FROM lmia_datasets_star d ORDER BY d.decision_date DESC, d.id DESC",
+                DatasetSearchQuery.from(DatasetSearchSpec.builder().build()).selectAfterSql("d.*", SearchSort.DECISION_DATE, null, true));
+        assertEquals("SELECT d.* FROM lmia_datasets_star d WHERE d.noc_code = :nocCode " +
+                "AND ((d.employer, d.id) > (:cursorValue, :cursorId) OR d.employer IS NULL) " +
+                "ORDER BY d.employer ASC NULLS LAST, d.id ASC", query.selectAfterSql("d.*", SearchSort.EMPLOYER, EMPLOYER_CURSOR, false));
+    }
+
+    @Test
+    void testSelectAfterSql_PostgreSQLComparesEmployersByCodePoint() {
+        DatasetSearchQuery query = DatasetSearchQuery.from(DatasetSearchSpec.builder().build());
+
+        assertEquals("SELECT d.* FROM lmia_datasets_star d " +
+                "WHERE ((d.employer COLLATE \"C\", d.id) > (:cursorValue, :cursorId) OR d.employer IS NULL) " +
+                "ORDER BY d.employer COLLATE \"C\" ASC NULLS LAST, d.id ASC",
+                query.selectAfterSql("d.*", SearchSort.EMPLOYER, EMPLOYER_CURSOR, true));
+        assertEquals("SELECT d.* FROM lmia_datasets_star d WHERE (d.employer IS NULL AND d.id > :cursorId) " +
+                "ORDER BY d.employer COLLATE \"C\" ASC NULLS LAST, d.id ASC",
+                query.selectAfterSql("d.*", SearchSort.EMPLOYER, new SearchCursor(SearchSort.EMPLOYER, null, 7L), true));
+        assertEquals("SELECT d.id FROM lmia_datasets_star d ORDER BY d.employer COLLATE \"C\" ASC NULLS LAST, d.id ASC",
+                query.selectSql("d.id", SearchSort.EMPLOYER, true));
+    }
+
+    @Test
+    void testSelectSql_SortOrdersEndWithId() {
+        DatasetSearchQuery query = DatasetSearchQuery.from(DatasetSearchSpec.builder().build());
+
+        assertEquals("SELECT d.id FROM lmia_datasets_star d ORDER BY d.positions_approved DESC, d.id DESC",
+                query.selectSql("d.id", SearchSort.POSITIONS_APPROVED, true));
+        assertEquals(SearchSort.DECISION_DATE, SearchSort.parse(null));
+        assertEquals(SearchSort.POSITIONS_APPROVED, SearchSort.parse(" positionsapproved"));
+        assertThrows(IllegalArgumentException.class, () -> SearchSort.parse("city"));
+    }
+
+    @Test
+    void testFrom_MultiValueFiltersUseInLists() {
+        DatasetSearchQuery query = DatasetSearchQuery.from(DatasetSearchSpec.builder()
+                .nocCodes(List.of("65201", "62200", " ", "63200"))
+                .provinces(List.of("bc", "AB"))
+                .statuses(List.of(Dataset.DecisionStatus.APPROVED))
+                .build());
+
+        assertEquals("SELECT COUNT(*) FROM lmia_datasets_star d WHERE d.noc_code IN (:nocCodes) " +
+                "AND d.province_id IN (SELECT x.id FROM lmia_provinces x WHERE x.name IN (:provinces)) " +
+                "AND d.status = :status", query.countSql());
+        assertEquals(List.of("62200", "63200", "65201"), query.getParameters().get("nocCodes"));
+        assertEquals(List.of("Alberta", "British Columbia"), query.getParameters().get("provinces"));
+        assertEquals("APPROVED", query.getParameters().get("status"));
+    }
+
+    @Test
+    void testFacetSql_GroupingSetsOrCombinedGroups() {
+        DatasetSearchQuery query = DatasetSearchQuery.from(DatasetSearchSpec.builder().nocCode("0211").build());
+        List<SearchFacet> facets = List.of(SearchFacet.PROVINCE, SearchFacet.STATUS);
+
+        assertEquals("SELECT d.province, d.status, GROUPING(d.province), GROUPING(d.status), COUNT(*) " +
+                "FROM lmia_datasets_star d WHERE d.noc_code = :nocCode " +
+                "GROUP BY GROUPING SETS ((d.province), (d.status), ())", query.facetSql(facets, true));
+        assertEquals("SELECT d.province, d.status, COUNT(*) FROM lmia_datasets_star d WHERE d.noc_code = :nocCode " +
+                "GROUP BY d.province, d.status", query.facetSql(facets, false));
+        assertEquals(EnumSet.of(SearchFacet.NOC_CODE, SearchFacet.STREAM), SearchFacet.parse(" nocCode,stream,"));
+        assertThrows(IllegalArgumentException.class, () -> SearchFacet.parse("province,employer"));
+    }
+
+    @Test
+    void testSearchCursor_RoundTripsAndRejectsGarbage() {
+        SearchCursor cursor = new SearchCursor(LocalDate.of(2021, 5, 15), 42L);
+
+        assertEquals(cursor, SearchCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("MjAyMS0wNS0xNQ"));
+
+        SearchCursor employerCursor = new SearchCursor(SearchSort.EMPLOYER, "Café: Bistro", 7L);
+        assertEquals(employerCursor, SearchCursor.decode(employerCursor.encode()));
+        SearchCursor noEmployerCursor = new SearchCursor(SearchSort.EMPLOYER, null, 7L);
+        assertEquals(noEmployerCursor, SearchCursor.decode(noEmployerCursor.encode()));
+        assertEquals(new SearchCursor(SearchSort.EMPLOYER, "null", 7L),
+                SearchCursor.decode(new SearchCursor(SearchSort.EMPLOYER, "null", 7L).encode()));
+        SearchCursor positionsCursor = new SearchCursor(SearchSort.POSITIONS_APPROVED, "12", 3L);
+        assertEquals(12, SearchCursor.decode(positionsCursor.encode()).typedValue());
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(
+                new SearchCursor(SearchSort.POSITIONS_APPROVED, "many", 3L).encode()));
+    }
+}
@@ -0,0 +1,23 @@
+package repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LikePatternsTest {
+
+    @Test
+    void testContaining_LowerCasesAndWraps() {
+        assertEquals("%acme foods%", LikePatterns.containing("ACME Foods"));
+    }
+
+    @Test
+    void testContaining_EscapesWildcards() {
+        assertEquals("%100\\% canadian\\_owned\\\\inc%", LikePatterns.containing("100% Canadian_Owned\\Inc"));
+    }
+
+    @Test
+    void testContaining_NullStaysNull() {
+        assertNull(LikePatterns.containing(null));
+    }
+}
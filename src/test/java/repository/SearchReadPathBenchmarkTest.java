@@ -0,0 +1,105 @@
+package repository;
+
+import dto.DatasetDTO;
+import model.Dataset;
+import org.example.AppMain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation and time per returned row: managed entities copied into DTOs versus the JDBC
+ * projection in {@link DatasetReadRepository}, on the in-memory test database.
+ * Run with: mvn test -Dtest=SearchReadPathBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest(classes = AppMain.class)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SearchReadPathBenchmarkTest {
+
+    private static final int ROWS = 20_000;
+    private static final int PAGE_SIZE = 1000;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private DatasetReadRepository datasetReadRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void benchmarkReadPaths() {
+        datasetRepository.deleteAll();
+        List<Dataset> datasets = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Dataset dataset = new Dataset();
+            dataset.setEmployer("Employer " + i);
+            dataset.setNocCode(String.valueOf(1000 + i % 500));
+            dataset.setNocTitle("Occupation " + i % 500);
+            dataset.setProvince("Ontario");
+            dataset.setCity("Toronto");
+            dataset.setStream("High Wage");
+            dataset.setPositionsApproved(1 + i % 5);
+            dataset.setStatus(i % 3 == 0 ? Dataset.DecisionStatus.DENIED : Dataset.DecisionStatus.APPROVED);
+            dataset.setDecisionDate(LocalDate.of(2020, 1, 1).plusDays(i % 1000));
+            dataset.setSourceFile("tfwp_2021q1_positive_en.csv");
+            datasets.add(dataset);
+        }
+        datasetRepository.saveAll(datasets);
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().province("Ontario").build();
+
+        // Entity path as it ran before: one transaction per page, entities copied into DTOs
+        IntSupplier entityPath = () -> transactionTemplate.execute(status -> {
+            int rows = 0;
+            for (int page = 0; page * PAGE_SIZE < ROWS; page++) {
+                rows += datasetRepository.search(spec, PageRequest.of(page, PAGE_SIZE)).getContent().stream()
+                        .map(DatasetDTO::fromEntity)
+                        .toList()
+                        .size();
+            }
+            return rows;
+        });
+        IntSupplier projectionPath = () -> {
+            int rows = 0;
+            for (int page = 0; page * PAGE_SIZE < ROWS; page++) {
+                rows += datasetReadRepository.findSlice(spec, SearchSort.DECISION_DATE, (long) page * PAGE_SIZE, PAGE_SIZE).size();
+            }
+            return rows;
+        };
+
+        System.out.printf("%-12s %14s %14s%n", "path", "bytes/row", "ns/row");
+        for (String name : new String[]{"entity", "projection", "entity", "projection"}) {
+            measure(name, name.equals("entity") ? entityPath : projectionPath);
+        }
+    }
+
+    private void measure(String name, IntSupplier path) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long rows = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            rows += path.getAsInt();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertEquals((long) ROWS * ROUNDS, rows);
+        System.out.printf("%-12s %14d %14d%n", name, allocated / rows, elapsed / rows);
+    }
+}
@@ -0,0 +1,98 @@
+package repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Employer substring search latency on PostgreSQL with and without the pg_trgm GIN index.
+ * Uses a scratch table so it can run against any database the user may create extensions in:
+ *
+ * mvn test -Dtest=TrigramSearchBenchmarkTest -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/lmia_db \
+ *     -Dbenchmark.postgres.user=postgres -Dbenchmark.postgres.password=postgres [-Dbenchmark.rows=1000000]
+ */
+@EnabledIfSystemProperty(named = "benchmark.postgres.url", matches = ".+")
+class TrigramSearchBenchmarkTest {
+
+    private static final String TABLE = "lmia_trgm_benchmark";
+    private static final String[] TERMS = {"maple", "logistics", "farms ltd", "ontario inc", "zz"};
+    private static final int RUNS = 20;
+
+    @Test
+    void benchmarkEmployerSubstringSearch() throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("benchmark.postgres.url"),
+                System.getProperty("benchmark.postgres.user", "postgres"),
+                System.getProperty("benchmark.postgres.password", "postgres"));
+             Statement statement = connection.createStatement()) {
+
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE UNLOGGED TABLE " + TABLE + " (id BIGSERIAL PRIMARY KEY, employer VARCHAR(500) NOT NULL)");
+            // Synthetic employer names built from word lists, roughly the shape of the real data
+            statement.execute("INSERT INTO " + TABLE + " (employer) " +
+                    "SELECT (ARRAY['Maple','Northern','Pacific','Prairie','Golden','Atlantic','Summit','Royal'])[1 + (i % 8)] || ' ' || " +
+                    "(ARRAY['Logistics','Farms','Construction','Foods','Health','Software','Transport','Hospitality'])[1 + ((i / 8) % 8)] || ' ' || " +
+                    "(i % 50000) || ' ' || " +
+                    "(ARRAY['Ltd.','Inc.','Corp.','Ontario Inc.','LLP'])[1 + ((i / 64) % 5)] " +
+                    "FROM generate_series(1, " + rows + ") AS i");
+            statement.execute("ANALYZE " + TABLE);
+
+            System.out.printf("Rows: %d%n", rows);
+            List<long[]> withoutIndex = measure(connection);
+
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            long started = System.currentTimeMillis();
+            statement.execute("CREATE INDEX " + TABLE + "_trgm ON " + TABLE + " USING gin (LOWER(employer) gin_trgm_ops)");
+            System.out.printf("Index build: %d ms%n", System.currentTimeMillis() - started);
+            statement.execute("ANALYZE " + TABLE);
+            List<long[]> withIndex = measure(connection);
+
+            System.out.printf("%-14s %10s %10s %10s %10s %10s%n", "term", "matches", "seq p50", "seq p95", "trgm p50", "trgm p95");
+            for (int i = 0; i < TERMS.length; i++) {
+                System.out.printf("%-14s %10d %8.1fms %8.1fms %8.1fms %8.1fms%n", TERMS[i], withIndex.get(i)[0],
+                        withoutIndex.get(i)[1] / 1e6, withoutIndex.get(i)[2] / 1e6,
+                        withIndex.get(i)[1] / 1e6, withIndex.get(i)[2] / 1e6);
+                assertEquals(withoutIndex.get(i)[0], withIndex.get(i)[0]);
+            }
+
+            statement.execute("DROP TABLE " + TABLE);
+        }
+    }
+
+    /**
+     * Returns {matches, p50 nanos, p95 nanos} per term using the repository query form.
+     */
+    private List<long[]> measure(Connection connection) throws Exception {
+        List<long[]> results = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT COUNT(*) FROM " + TABLE + " d WHERE LOWER(d.employer) LIKE CAST(? AS TEXT) ESCAPE '\\'")) {
+            for (String term : TERMS) {
+                List<Long> timings = new ArrayList<>();
+                long matches = 0;
+                for (int run = 0; run < RUNS; run++) {
+                    query.setString(1, LikePatterns.containing(term));
+                    long started = System.nanoTime();
+                    try (ResultSet rs = query.executeQuery()) {
+                        rs.next();
+                        matches = rs.getLong(1);
+                    }
+                    timings.add(System.nanoTime() - started);
+                }
+                Collections.sort(timings);
+                results.add(new long[]{matches, timings.get(RUNS / 2), timings.get((int) Math.ceil(RUNS * 0.95) - 1)});
+            }
+        }
+        return results;
+    }
+}
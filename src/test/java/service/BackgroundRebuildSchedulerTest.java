@@ -0,0 +1,84 @@
+package service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundRebuildSchedulerTest {
+
+    private final BackgroundRebuildScheduler scheduler = new BackgroundRebuildScheduler(200);
+    private final AtomicInteger runs = new AtomicInteger();
+    private final Semaphore finished = new Semaphore(0);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testChangesDuringIngestionRun_RebuildOnceAfterIt() throws InterruptedException {
+        scheduler.register("Test rebuild", true, this::rebuild);
+
+        scheduler.onIngestionStarted(new IngestionStartedEvent("download"));
+        for (int file = 0; file < 5; file++) {
+            scheduler.onDatasetsChanged(new DatasetsChangedEvent("file" + file, 10));
+        }
+        assertFalse(finished.tryAcquire(400, TimeUnit.MILLISECONDS));
+
+        scheduler.onIngestionFinished(new IngestionFinishedEvent("download"));
+        assertTrue(finished.tryAcquire(2, TimeUnit.SECONDS));
+        assertFalse(finished.tryAcquire(400, TimeUnit.MILLISECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testChangesOutsideRun_AreDebounced() throws InterruptedException {
+        scheduler.register("Test rebuild", true, this::rebuild);
+
+        for (int change = 0; change < 4; change++) {
+            scheduler.onDatasetsChanged(new DatasetsChangedEvent("reload", 1));
+            Thread.sleep(50);
+        }
+        assertEquals(0, runs.get());
+        assertTrue(finished.tryAcquire(2, TimeUnit.SECONDS));
+        assertFalse(finished.tryAcquire(400, TimeUnit.MILLISECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testStartupBuild_DoesNotWaitForIngestionAndDisabledNeverRuns() throws InterruptedException {
+        scheduler.register("Test rebuild", true, this::rebuild);
+        scheduler.register("Disabled rebuild", false, () -> fail("disabled rebuild ran"));
+        scheduler.onIngestionStarted(new IngestionStartedEvent("download"));
+
+        scheduler.onApplicationReady();
+
+        assertTrue(finished.tryAcquire(2, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testFailedRebuild_RunsAgainOnNextRequest() throws InterruptedException {
+        BackgroundRebuildScheduler.Rebuild rebuild = scheduler.register("Failing rebuild", true, () -> {
+            runs.incrementAndGet();
+            finished.release();
+            throw new IllegalStateException("database unavailable");
+        });
+
+        rebuild.request();
+        assertTrue(finished.tryAcquire(2, TimeUnit.SECONDS));
+        rebuild.request();
+        assertTrue(finished.tryAcquire(2, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    private void rebuild() {
+        runs.incrementAndGet();
+        finished.release();
+    }
+}
@@ -0,0 +1,96 @@
+package service;
+
+import config.StarSchemaInitializer;
+import model.Dataset;
+import org.example.AppMain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import repository.DatasetRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = AppMain.class)
+@ActiveProfiles("test")
+class DimensionCacheTest {
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private StarSchemaInitializer starSchemaInitializer;
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        datasetRepository.deleteAll();
+    }
+
+    @Test
+    void testAssignKeys_ReusesIdsForRepeatedValues() {
+        Dataset first = dataset("Maple Farms Ltd.", "Ontario");
+        Dataset second = dataset("Maple Farms Ltd.", "Alberta");
+
+        dimensionCache.assignKeys(List.of(first, second));
+
+        assertNotNull(first.getEmployerId());
+        assertEquals(first.getEmployerId(), second.getEmployerId());
+        assertEquals(first.getNocId(), second.getNocId());
+        assertNotEquals(first.getProvinceId(), second.getProvinceId());
+        assertEquals("maple farms", jdbcTemplate.queryForObject(
+                "SELECT employer_key FROM lmia_employers WHERE id = ?", String.class, first.getEmployerId()));
+    }
+
+    @Test
+    void testMigrate_BackfillsKeysAndDropsInlineColumns() {
+        // A table from before the star schema: inline dimension text and no keys
+        jdbcTemplate.execute("ALTER TABLE lmia_datasets ADD COLUMN employer TEXT");
+        jdbcTemplate.execute("ALTER TABLE lmia_datasets ADD COLUMN employer_key TEXT");
+        jdbcTemplate.execute("ALTER TABLE lmia_datasets ADD COLUMN noc_title TEXT");
+        jdbcTemplate.execute("ALTER TABLE lmia_datasets ADD COLUMN province VARCHAR(255)");
+        jdbcTemplate.execute("ALTER TABLE lmia_datasets ADD COLUMN stream VARCHAR(255)");
+        for (String province : List.of("Ontario", "Quebec")) {
+            jdbcTemplate.update("INSERT INTO lmia_datasets (employer, noc_code, noc_title, province, stream, " +
+                    "positions_approved, status, decision_date) VALUES ('Pacific Foods', '8431', " +
+                    "'General farm workers', ?, 'Agricultural', 1, 'APPROVED', DATE '2021-03-01')", province);
+        }
+
+        starSchemaInitializer.run(null);
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE LOWER(table_name) = 'lmia_datasets' AND LOWER(column_name) IN " +
+                "('employer', 'employer_key', 'noc_title', 'province', 'stream')", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM lmia_datasets WHERE employer_id IS NULL OR province_id IS NULL", Integer.class));
+        List<String> provinces = jdbcTemplate.queryForList(
+                "SELECT province FROM lmia_datasets_star WHERE employer = 'Pacific Foods' ORDER BY province", String.class);
+        assertEquals(List.of("Ontario", "Quebec"), provinces);
+        assertEquals(List.of("Ontario", "Quebec"), datasetRepository.findAll().stream()
+                .map(Dataset::getProvince).sorted().toList());
+    }
+
+    private Dataset dataset(String employer, String province) {
+        Dataset dataset = new Dataset();
+        dataset.setEmployer(employer);
+        dataset.setNocCode("8431");
+        dataset.setNocTitle("General farm workers");
+        dataset.setProvince(province);
+        dataset.setStream("Agricultural");
+        dataset.setPositionsApproved(1);
+        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setDecisionDate(LocalDate.of(2021, 3, 1));
+        dataset.setSourceFile("tfwp_2021q1_positive_en.csv");
+        return dataset;
+    }
+}
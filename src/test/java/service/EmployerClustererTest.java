@@ -0,0 +1,36 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployerClustererTest {
+
+    private final EmployerClusterer clusterer = new EmployerClusterer(20, 5, 3, 0.7, 32);
+
+    @Test
+    void testCluster_MergesNearDuplicates() {
+        EmployerClusterer.Result result = clusterer.cluster(List.of(
+                "abc foods", "tim hortons", "abc food", "a b c foods", "tim horton"));
+
+        assertArrayEquals(new int[]{0, 1, 0, 0, 1}, result.getClusters());
+        assertTrue(result.getMergedPairs() >= 3);
+    }
+
+    @Test
+    void testCluster_KeepsDistinctNamesApart() {
+        EmployerClusterer.Result result = clusterer.cluster(List.of(
+                "pacific seafood", "atlantic seafood", "maple leaf farms", "maple leaf foods"));
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, result.getClusters());
+        assertEquals(0, result.getMergedPairs());
+    }
+
+    @Test
+    void testJaccard() {
+        assertEquals(5.0 / 6, EmployerClusterer.jaccard(clusterer.shingles("abc foods"), clusterer.shingles("abc food")), 1e-9);
+        assertEquals(1.0, EmployerClusterer.jaccard(clusterer.shingles("abc foods"), clusterer.shingles("a b c foods")), 1e-9);
+    }
+}
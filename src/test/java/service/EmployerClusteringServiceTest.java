@@ -0,0 +1,100 @@
+package service;
+
+import dto.EmployerSuggestion;
+import model.Dataset;
+import org.example.AppMain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import repository.DatasetRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = AppMain.class)
+@ActiveProfiles("test")
+class EmployerClusteringServiceTest {
+
+    @Autowired
+    private EmployerClusteringService employerClusteringService;
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        datasetRepository.deleteAll();
+    }
+
+    @Test
+    void testCluster_PointsSpellingsAtMostCommonOne() {
+        List<Dataset> datasets = List.of(
+                dataset("Northern Lights Bakery Ltd."),
+                dataset("Northern Lights Bakery Ltd."),
+                dataset("Northern Light Bakery"),
+                dataset("Southern Cross Roofing"));
+        dimensionCache.assignKeys(datasets);
+        datasetRepository.saveAll(datasets);
+
+        employerClusteringService.cluster();
+
+        int lights = datasets.get(0).getEmployerId();
+        assertEquals(lights, canonicalId(lights));
+        assertEquals(lights, canonicalId(datasets.get(2).getEmployerId()));
+        assertEquals(datasets.get(3).getEmployerId(), canonicalId(datasets.get(3).getEmployerId()));
+        assertEquals(0, employerClusteringService.cluster());
+
+        List<EmployerSuggestion> variants = employerClusteringService.variants("northern light bakery inc");
+        assertEquals(2, variants.size());
+        assertEquals("Northern Lights Bakery Ltd.", variants.get(0).getEmployer());
+        assertEquals(2, variants.get(0).getRecords());
+        assertEquals("Northern Light Bakery", variants.get(1).getEmployer());
+        assertTrue(employerClusteringService.variants("Unknown Employer").isEmpty());
+    }
+
+    @Test
+    void testVariants_SpellingsSharingTheKeyCountedOnce() {
+        List<Dataset> datasets = List.of(
+                dataset("ABC Foods Inc."),
+                dataset("ABC Foods Inc."),
+                dataset("ABC FOODS INC"));
+        dimensionCache.assignKeys(datasets);
+        datasetRepository.saveAll(datasets);
+        employerClusteringService.cluster();
+
+        List<EmployerSuggestion> variants = employerClusteringService.variants("ABC Foods");
+        assertEquals(List.of("ABC Foods Inc.", "ABC FOODS INC"),
+                variants.stream().map(EmployerSuggestion::getEmployer).toList());
+        assertEquals(List.of(2L, 1L), variants.stream().map(EmployerSuggestion::getRecords).toList());
+    }
+
+    private Integer canonicalId(int employerId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT canonical_id FROM lmia_employers WHERE id = ?", Integer.class, employerId);
+    }
+
+    private Dataset dataset(String employer) {
+        Dataset dataset = new Dataset();
+        dataset.setEmployer(employer);
+        dataset.setNocCode("6332");
+        dataset.setNocTitle("Bakers");
+        dataset.setProvince("Manitoba");
+        dataset.setStream("High-wage");
+        dataset.setPositionsApproved(1);
+        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setDecisionDate(LocalDate.of(2022, 5, 1));
+        dataset.setSourceFile("tfwp_2022q2_positive_en.csv");
+        return dataset;
+    }
+}
@@ -1,24 +1,22 @@
 package service;
 
-import model.Dataset;
+import dto.DatasetDTO;
 import org.example.AppMain;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
-import repository.DatasetRepository;
+import repository.DatasetReadRepository;
+import repository.DatasetSearchSpec;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,14 +32,14 @@ class ExportServiceTest {
     private ExportService exportService;
 
     @MockBean
-    private DatasetRepository datasetRepository;
+    private DatasetReadRepository datasetReadRepository;
 
-    private List<Dataset> testDatasets;
+    private List<DatasetDTO> testDatasets;
 
     @BeforeEach
     void setUp() {
         testDatasets = new ArrayList<>();
-        Dataset dataset = new Dataset();
+        DatasetDTO dataset = new DatasetDTO();
         dataset.setId(1L);
         dataset.setProvince("Ontario");
         dataset.setStream("High Wage");
@@ -50,16 +48,14 @@ class ExportServiceTest {
         dataset.setNocCode("0211");
         dataset.setNocTitle("Engineering managers");
         dataset.setPositionsApproved(5);
-        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setStatus("APPROVED");
         dataset.setDecisionDate(LocalDate.of(2021, 5, 15));
         testDatasets.add(dataset);
     }
 
     @Test
     void testExportToCsv_Success() throws IOException {
-        Page<Dataset> page = new PageImpl<>(testDatasets, PageRequest.of(0, 1000), 1);
-        when(datasetRepository.searchDatasets(any(), any(), any(), any(), any(), any(), any(Pageable.class)))
-                .thenReturn(page);
+        stubRows(testDatasets);
 
         byte[] result = exportService.exportToCsv(null, null, null, null);
 
@@ -72,9 +68,7 @@ class ExportServiceTest {
 
     @Test
     void testExportToExcel_Success() throws IOException {
-        Page<Dataset> page = new PageImpl<>(testDatasets, PageRequest.of(0, 1000), 1);
-        when(datasetRepository.searchDatasets(any(), any(), any(), any(), any(), any(), any(Pageable.class)))
-                .thenReturn(page);
+        stubRows(testDatasets);
 
         byte[] result = exportService.exportToExcel(null, null, null, null);
 
@@ -86,9 +80,7 @@ class ExportServiceTest {
 
     @Test
     void testExportToCsv_EmptyResults() throws IOException {
-        Page<Dataset> emptyPage = new PageImpl<>(new ArrayList<>(), PageRequest.of(0, 1000), 0);
-        when(datasetRepository.searchDatasets(any(), any(), any(), any(), any(), any(), any(Pageable.class)))
-                .thenReturn(emptyPage);
+        stubRows(new ArrayList<>());
 
         byte[] result = exportService.exportToCsv(null, null, null, null);
 
@@ -96,5 +88,14 @@ class ExportServiceTest {
         String csvContent = new String(result);
         assertTrue(csvContent.contains("ID")); // Should have headers
     }
-}
 
+    @SuppressWarnings("unchecked")
+    private void stubRows(List<DatasetDTO> rows) {
+        when(datasetReadRepository.forEach(any(DatasetSearchSpec.class), anyInt(), any(Consumer.class)))
+                .thenAnswer(invocation -> {
+                    Consumer<DatasetDTO> action = invocation.getArgument(2);
+                    rows.forEach(action);
+                    return rows.size();
+                });
+    }
+}
@@ -0,0 +1,117 @@
+package service;
+
+import model.Dataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Quarter replacement against PostgreSQL: converts a scratch schema with
+ * db/partition_lmia_datasets.sql and swaps a quarter in twice.
+ *
+ * mvn test -Dtest=PartitionManagerPostgresTest -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/lmia_db \
+ *     -Dbenchmark.postgres.user=postgres -Dbenchmark.postgres.password=postgres
+ */
+@EnabledIfSystemProperty(named = "benchmark.postgres.url", matches = ".+")
+class PartitionManagerPostgresTest {
+
+    private static final String SCHEMA = "lmia_partition_test";
+    private static final LocalDate QUARTER = LocalDate.of(2021, 4, 1);
+    private static final String PARTITION = "lmia_datasets_2021q2";
+
+    private JdbcTemplate jdbcTemplate;
+    private PartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String user = System.getProperty("benchmark.postgres.user", "postgres");
+        String password = System.getProperty("benchmark.postgres.password", "postgres");
+        JdbcTemplate admin = new JdbcTemplate(new DriverManagerDataSource(
+                System.getProperty("benchmark.postgres.url"), user, password));
+        admin.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        admin.execute("CREATE SCHEMA " + SCHEMA);
+
+        Properties properties = new Properties();
+        properties.setProperty("user", user);
+        properties.setProperty("password", password);
+        properties.setProperty("currentSchema", SCHEMA);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty("benchmark.postgres.url"), properties);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute(script("schema.sql"));
+        jdbcTemplate.update("INSERT INTO lmia_datasets (noc_code, positions_approved, status, decision_date, " +
+                "website_url, employer_id) VALUES ('8431', 1, 'APPROVED', DATE '2021-05-01', 'https://maple.example', 1), " +
+                "('8431', 1, 'APPROVED', DATE '2021-05-02', NULL, 2), ('7511', 1, 'DENIED', DATE '2021-08-01', NULL, 2)");
+        jdbcTemplate.execute(script("db/partition_lmia_datasets.sql"));
+
+        partitionManager = new PartitionManager(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void testReplaceQuarter_StagingCarriesParentIndexesSoAttachBuildsNone() {
+        assertTrue(partitionManager.isPartitioned());
+        int parentIndexes = indexCount(PartitionManager.TABLE);
+
+        String staging = partitionManager.loadStaging(QUARTER, List.of(dataset(1, "2021-06-01"), dataset(3, "2021-06-02")));
+        assertEquals(parentIndexes, indexCount(staging));
+
+        partitionManager.swapStaging(QUARTER);
+        assertEquals(parentIndexes, indexCount(PARTITION));
+        assertEquals(parentIndexes, attachedIndexCount(PARTITION));
+        assertEquals(List.of("https://maple.example"), jdbcTemplate.queryForList(
+                "SELECT website_url FROM " + PARTITION + " WHERE employer_id = 1", String.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM lmia_datasets WHERE decision_date >= DATE '2021-07-01'", Integer.class));
+
+        // Index names of the first swap are taken; the second staging table picks its own
+        assertEquals(1, partitionManager.replaceQuarter(QUARTER, List.of(dataset(2, "2021-04-15"))));
+        assertEquals(parentIndexes, indexCount(PARTITION));
+        assertEquals(parentIndexes, attachedIndexCount(PARTITION));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + PARTITION, Integer.class));
+    }
+
+    private int indexCount(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_indexes WHERE schemaname = current_schema() " +
+                "AND tablename = ?", Integer.class, table);
+    }
+
+    private int attachedIndexCount(String partition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_index x " +
+                "JOIN pg_inherits i ON i.inhrelid = x.indexrelid WHERE x.indrelid = CAST(? AS regclass)",
+                Integer.class, partition);
+    }
+
+    private static String script(String path) throws Exception {
+        return new String(new ClassPathResource(path).getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static Dataset dataset(int employerId, String decisionDate) {
+        Dataset dataset = new Dataset();
+        dataset.setNocCode("8431");
+        dataset.setPositionsApproved(1);
+        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setDecisionDate(LocalDate.parse(decisionDate));
+        dataset.setEmployerId(employerId);
+        dataset.setNocId(1);
+        dataset.setProvinceId(1);
+        dataset.setStreamId(1);
+        return dataset;
+    }
+}
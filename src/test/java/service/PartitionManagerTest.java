@@ -0,0 +1,52 @@
+package service;
+
+import model.Dataset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testQuarterHelpers() {
+        assertEquals(LocalDate.of(2021, 4, 1), PartitionManager.quarterStart(LocalDate.of(2021, 6, 30)));
+        assertEquals(LocalDate.of(2021, 10, 1), PartitionManager.quarterStart(2021, 4));
+        assertEquals("lmia_datasets_2021q2", PartitionManager.partitionName(LocalDate.of(2021, 5, 15)));
+        assertThrows(IllegalArgumentException.class, () -> PartitionManager.quarterStart(2021, 5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUnpartitionedTable_EnsureIsNoOpAndReplaceIsRefused() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        PartitionManager partitionManager = new PartitionManager(jdbcTemplate, transactionManager);
+        Dataset dataset = new Dataset();
+        dataset.setDecisionDate(LocalDate.of(2021, 5, 15));
+
+        partitionManager.ensurePartitions(List.of(dataset));
+
+        assertFalse(partitionManager.isPartitioned());
+        assertThrows(IllegalStateException.class,
+                () -> partitionManager.replaceQuarter(LocalDate.of(2021, 4, 1), List.of(dataset)));
+        verifyNoInteractions(transactionManager);
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
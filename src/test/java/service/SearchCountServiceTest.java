@@ -0,0 +1,72 @@
+package service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import repository.DatasetRepository;
+import repository.DatasetSearchSpec;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchCountServiceTest {
+
+    @Mock
+    private DatasetRepository datasetRepository;
+
+    private DatasetGenerationService generationService;
+    private SearchCountService searchCountService;
+
+    @BeforeEach
+    void setUp() {
+        generationService = new DatasetGenerationService();
+        searchCountService = new SearchCountService(datasetRepository, generationService,
+                new SimpleMeterRegistry(), 1000, 100);
+    }
+
+    @Test
+    void testCount_CachedPerSignatureUntilGenerationAdvances() {
+        when(datasetRepository.estimateMatching(any())).thenReturn(OptionalLong.empty());
+        when(datasetRepository.countMatching(any())).thenReturn(42L, 43L);
+
+        // Differently written filters normalize to the same signature
+        assertEquals(42, searchCountService.count(DatasetSearchSpec.builder().province("ON").build()).getValue());
+        assertEquals(42, searchCountService.count(DatasetSearchSpec.builder().province(" ontario ").build()).getValue());
+        verify(datasetRepository, times(1)).countMatching(any());
+
+        generationService.onDatasetsChanged(new DatasetsChangedEvent("tfwp_2021q1_positive_en.csv", 1));
+
+        SearchCountService.TotalCount recounted = searchCountService.count(DatasetSearchSpec.builder().province("ON").build());
+        assertEquals(43, recounted.getValue());
+        assertTrue(recounted.isExact());
+    }
+
+    @Test
+    void testCount_BroadFilterUsesPlannerEstimate() {
+        when(datasetRepository.estimateMatching(any())).thenReturn(OptionalLong.of(250_000));
+
+        SearchCountService.TotalCount total = searchCountService.count(DatasetSearchSpec.builder().build());
+
+        assertEquals(250_000, total.getValue());
+        assertFalse(total.isExact());
+        verify(datasetRepository, never()).countMatching(any());
+    }
+
+    @Test
+    void testCountForPage_LastPageNeedsNoCount() {
+        SearchCountService.TotalCount total = searchCountService.countForPage(
+                DatasetSearchSpec.builder().build(), PageRequest.of(2, 20), 5, false);
+
+        assertEquals(45, total.getValue());
+        assertTrue(total.isExact());
+        verifyNoInteractions(datasetRepository);
+    }
+}
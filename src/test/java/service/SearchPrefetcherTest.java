@@ -0,0 +1,91 @@
+package service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import dto.DatasetDTO;
+import dto.PagedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import repository.DatasetSearchSpec;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchPrefetcherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+    private HikariDataSource dataSource;
+    private HikariPoolMXBean pool;
+    private SearchPrefetcher prefetcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(new DatasetGenerationService(), meterRegistry, true, 100, 30);
+        dataSource = mock(HikariDataSource.class);
+        pool = mock(HikariPoolMXBean.class);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        when(dataSource.getMaximumPoolSize()).thenReturn(10);
+        ObjectProvider<HikariDataSource> pools = mock(ObjectProvider.class);
+        when(pools.orderedStream()).thenAnswer(invocation -> Stream.of(dataSource));
+        prefetcher = new SearchPrefetcher(cache, pools, meterRegistry, true, 1, 4, 0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.shutdown();
+    }
+
+    @Test
+    void testPrefetch_CachesPageInBackground() throws InterruptedException {
+        SearchResultCache.Key key = key(1);
+        CountDownLatch queried = new CountDownLatch(1);
+
+        prefetcher.prefetch(key, () -> {
+            queried.countDown();
+            return PagedResponse.of(List.of(), 0, 0, 1, 20, false, true);
+        });
+
+        assertTrue(queried.await(5, TimeUnit.SECONDS));
+        waitForStoredPrefetch();
+        PagedResponse<DatasetDTO> served = cache.get(key, () -> fail("Prefetched page was not cached"));
+        assertEquals(1, served.getCurrentPage());
+        assertEquals(1.0, meterRegistry.get("lmia.search.prefetch.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void testPrefetch_SkippedWhilePoolIsBusy() {
+        when(pool.getActiveConnections()).thenReturn(6);
+        assertTrue(prefetcher.poolBusy());
+        when(pool.getActiveConnections()).thenReturn(1);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(2);
+
+        prefetcher.prefetch(key(1), () -> fail("Prefetch ran while the pool was busy"));
+
+        assertEquals(1, meterRegistry.get("lmia.search.prefetch.skipped").tag("reason", "pool_busy").counter().count());
+    }
+
+    private void waitForStoredPrefetch() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("lmia.search.prefetch.stored").counter().count() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Prefetched page was not cached");
+            Thread.sleep(10);
+        }
+    }
+
+    private SearchResultCache.Key key(int page) {
+        return cache.keyForPage("search", DatasetSearchSpec.builder().nocCode("0211").build(), PageRequest.of(page, 20));
+    }
+}
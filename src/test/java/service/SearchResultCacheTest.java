@@ -0,0 +1,104 @@
+package service;
+
+import dto.DatasetDTO;
+import dto.PagedResponse;
+import dto.SearchRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Dataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import repository.DatasetSearchSpec;
+import repository.SearchSort;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private DatasetGenerationService generationService;
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+    private AtomicInteger queries;
+
+    @BeforeEach
+    void setUp() {
+        generationService = new DatasetGenerationService();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(generationService, meterRegistry, true, 100, 30);
+        queries = new AtomicInteger();
+    }
+
+    @Test
+    void testGet_NormalizedRequestsShareOneEntry() {
+        SearchRequest request = new SearchRequest();
+        PagedResponse<DatasetDTO> first = cache.get(
+                cache.keyForSearch(spec(" Maple Farms ", "on", "approved"), Set.of(), SearchSort.DECISION_DATE, request), query());
+        PagedResponse<DatasetDTO> second = cache.get(
+                cache.keyForSearch(spec("maple farms", "Ontario", "APPROVED"), Set.of(), SearchSort.DECISION_DATE, request), query());
+
+        assertSame(first, second);
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void testGet_GenerationChangeMissesAndSeparatesEndpoints() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().nocCode("0211").build();
+        cache.get(cache.keyForPage("noc", spec, PageRequest.of(0, 20)), query());
+        cache.get(cache.keyForPage("search", spec, PageRequest.of(0, 20)), query());
+        assertEquals(2, queries.get());
+
+        generationService.onDatasetsChanged(new DatasetsChangedEvent("tfwp_2021q1_positive_en.csv", 10));
+        cache.get(cache.keyForPage("noc", spec, PageRequest.of(0, 20)), query());
+
+        assertEquals(3, queries.get());
+    }
+
+    @Test
+    void testGet_FailedQueryIsNotCached() {
+        SearchResultCache.Key key = cache.keyForPage("noc", DatasetSearchSpec.builder().nocCode("0211").build(), PageRequest.of(0, 20));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(key, () -> {
+            throw new IllegalArgumentException("Invalid cursor");
+        }));
+        cache.get(key, query());
+
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void testPrefetch_StoresOnceAndCountsServedPages() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().nocCode("0211").build();
+        SearchResultCache.Key next = cache.keyForPage("search", spec, PageRequest.of(1, 20));
+        SearchResultCache.Key unused = cache.keyForPage("search", spec, PageRequest.of(2, 20));
+
+        assertTrue(cache.prefetch(next, query()));
+        assertFalse(cache.prefetch(next, query()));
+        assertTrue(cache.prefetch(unused, query()));
+        cache.get(next, query());
+        cache.get(next, query());
+
+        assertEquals(2, queries.get());
+        assertEquals(1, meterRegistry.get("lmia.search.prefetch.served").counter().count());
+        assertEquals(0.5, meterRegistry.get("lmia.search.prefetch.hit.ratio").gauge().value());
+    }
+
+    private Supplier<PagedResponse<DatasetDTO>> query() {
+        return () -> {
+            queries.incrementAndGet();
+            return PagedResponse.of(List.of(), 0, 0, 0, 20, false, false);
+        };
+    }
+
+    private DatasetSearchSpec spec(String employer, String province, String status) {
+        return DatasetSearchSpec.builder()
+                .employer(employer)
+                .province(province)
+                .status(Dataset.DecisionStatus.valueOf(status.toUpperCase()))
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package service.search;
+
+import dto.DatasetDTO;
+import model.Dataset;
+import org.example.AppMain;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import repository.DatasetReadRepository;
+import repository.DatasetRepository;
+import repository.DatasetSearchSpec;
+import repository.SearchCursor;
+import repository.SearchSort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = AppMain.class)
+@ActiveProfiles("test")
+class ColumnarSearchEngineTest {
+
+    @Autowired
+    private ColumnarSearchEngine columnarSearchEngine;
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private DatasetReadRepository datasetReadRepository;
+
+    @Test
+    void testEmployerOrder_SameAsDatabaseAcrossEngines() {
+        datasetRepository.deleteAll();
+        datasetRepository.saveAll(List.of(
+                dataset(null, LocalDate.of(2023, 2, 1)),
+                dataset("𝔸lpine Farms", LocalDate.of(2023, 1, 1)),
+                dataset("Maple Farms Ltd.", LocalDate.of(2022, 6, 1)),
+                dataset(null, LocalDate.of(2022, 1, 1)),
+                dataset("Érable Foods", LocalDate.of(2021, 6, 1)),
+                dataset("Maple Farms Ltd.", LocalDate.of(2021, 1, 1))));
+        DatasetSearchSpec spec = DatasetSearchSpec.builder().build();
+        ColumnarSnapshot snapshot = columnarSearchEngine.load(0);
+        RoaringBitmap all = snapshot.match(spec);
+
+        List<DatasetDTO> database = datasetReadRepository.findSlice(spec, SearchSort.EMPLOYER, 0, 10);
+        assertEquals(ids(database), ids(snapshot.page(all, SearchSort.EMPLOYER, 0, 10)));
+        assertEquals(List.of("Maple Farms Ltd.", "Maple Farms Ltd.", "Érable Foods", "𝔸lpine Farms"),
+                database.subList(0, 4).stream().map(DatasetDTO::getEmployer).toList());
+        assertNull(database.get(5).getEmployer());
+
+        // Each engine continues from the other's cursor, through the rows without an employer
+        List<Long> walked = new ArrayList<>();
+        SearchCursor cursor = null;
+        for (int page = 0; page < 4; page++) {
+            List<DatasetDTO> rows = page % 2 == 0
+                    ? datasetReadRepository.searchAfter(spec, SearchSort.EMPLOYER, cursor, 2)
+                    : snapshot.after(all, SearchSort.EMPLOYER, cursor, 2);
+            rows.forEach(row -> walked.add(row.getId()));
+            cursor = rows.isEmpty() ? cursor : SearchCursor.decode(
+                    SearchCursor.after(rows.get(rows.size() - 1), SearchSort.EMPLOYER).encode());
+        }
+        assertEquals(ids(database), walked);
+    }
+
+    private static List<Long> ids(List<DatasetDTO> rows) {
+        return rows.stream().map(DatasetDTO::getId).toList();
+    }
+
+    private static Dataset dataset(String employer, LocalDate date) {
+        Dataset dataset = new Dataset();
+        dataset.setEmployer(employer);
+        dataset.setNocCode("8431");
+        dataset.setProvince("Ontario");
+        dataset.setStream("High Wage");
+        dataset.setPositionsApproved(1);
+        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setDecisionDate(date);
+        dataset.setSourceFile("tfwp_2021q1_positive_en.csv");
+        return dataset;
+    }
+}
@@ -0,0 +1,184 @@
+package service.search;
+
+import dto.DatasetDTO;
+import model.Dataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import repository.DatasetSearchSpec;
+import repository.SearchCursor;
+import repository.SearchFacet;
+import repository.SearchSort;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarSnapshotTest {
+
+    private ColumnarSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        // Result order: decision_date DESC, id DESC
+        snapshot = ColumnarSnapshot.builder(7)
+                .add(row(6, "Maple Farms Ltd.", "Ontario", "8431", "APPROVED", LocalDate.of(2023, 2, 1)), null)
+                .add(row(5, "Pacific Foods", "British Columbia", "6322", "APPROVED", LocalDate.of(2022, 11, 15)), null)
+                .add(row(4, "Maple Farms Ltd.", "Alberta", "8431", "DENIED", LocalDate.of(2022, 11, 15)), null)
+                .add(row(3, "Maple Leaf Foods", "Ontario", "9462", "APPROVED", LocalDate.of(2022, 6, 30)), "maple leaf foods")
+                .add(row(2, "Prairie Grain Co.", "Saskatchewan", "8431", "APPROVED", LocalDate.of(2021, 3, 1)), null)
+                .add(row(1, "Maple Farms Ltd.", "Ontario", "8431", "APPROVED", LocalDate.of(2021, 1, 10)), null)
+                .build();
+    }
+
+    @Test
+    void testMatch_CombinesFiltersInResultOrder() {
+        assertEquals(7, snapshot.getGeneration());
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L, 1L), ids(search(DatasetSearchSpec.builder().build())));
+        assertEquals(List.of(6L, 3L, 1L), ids(search(DatasetSearchSpec.builder().province("ON").build())));
+        assertEquals(List.of(6L, 1L), ids(search(DatasetSearchSpec.builder()
+                .province("Ontario").nocCode("8431").status(Dataset.DecisionStatus.APPROVED).build())));
+        assertEquals(List.of(), ids(search(DatasetSearchSpec.builder().province("Yukon").build())));
+        assertEquals(List.of(5L, 4L, 2L), ids(search(DatasetSearchSpec.builder()
+                .provinces(List.of("AB", "BC", "SK", "Yukon")).build())));
+        assertEquals(List.of(5L, 3L), ids(search(DatasetSearchSpec.builder()
+                .nocCodes(List.of("6322", "9462")).statuses(List.of(Dataset.DecisionStatus.APPROVED, Dataset.DecisionStatus.DENIED))
+                .build())));
+    }
+
+    @Test
+    void testMatch_EmployerSubstringOfNormalizedKey() {
+        assertEquals(List.of(6L, 4L, 3L, 1L), ids(search(DatasetSearchSpec.builder().employer("MAPLE").build())));
+        assertEquals(List.of(6L, 4L, 1L), ids(search(DatasetSearchSpec.builder().employer("Maple Farms, Inc.").build())));
+        assertEquals(List.of(4L), ids(search(DatasetSearchSpec.builder()
+                .employer("maple farms").status(Dataset.DecisionStatus.DENIED).build())));
+        assertEquals(List.of(), ids(search(DatasetSearchSpec.builder().employer("nothing like it").build())));
+    }
+
+    @Test
+    void testMatch_DateRangeIsInclusive() {
+        DatasetSearchSpec spec = DatasetSearchSpec.builder()
+                .startDate(LocalDate.of(2021, 3, 1))
+                .endDate(LocalDate.of(2022, 11, 15))
+                .build();
+        assertEquals(List.of(5L, 4L, 3L, 2L), ids(search(spec)));
+        assertEquals(List.of(6L, 5L, 4L), ids(search(DatasetSearchSpec.builder().startDate(LocalDate.of(2022, 7, 1)).build())));
+        assertEquals(List.of(), ids(search(DatasetSearchSpec.builder()
+                .startDate(LocalDate.of(2024, 1, 1)).endDate(LocalDate.of(2024, 12, 31)).build())));
+    }
+
+    @Test
+    void testPaging_OffsetAndCursorAgree() {
+        RoaringBitmap matches = snapshot.match(DatasetSearchSpec.builder().nocCode("8431").build());
+        assertEquals(4, matches.getLongCardinality());
+
+        List<DatasetDTO> firstPage = snapshot.page(matches, 0, 2);
+        assertEquals(List.of(6L, 4L), ids(firstPage));
+        assertEquals(List.of(2L, 1L), ids(snapshot.page(matches, 2, 2)));
+        assertEquals(List.of(), snapshot.page(matches, 4, 2));
+
+        DatasetDTO last = firstPage.get(1);
+        SearchCursor cursor = new SearchCursor(last.getDecisionDate(), last.getId());
+        assertEquals(List.of(2L, 1L), ids(snapshot.after(matches, cursor, 2)));
+        assertEquals(List.of(6L, 4L), ids(snapshot.after(matches, null, 2)));
+        // Same date as row 4 but a larger id sorts before it, so only row 4 onwards follows
+        assertEquals(List.of(4L, 2L, 1L), ids(snapshot.after(matches, new SearchCursor(LocalDate.of(2022, 11, 15), 5), 10)));
+    }
+
+    @Test
+    void testSortedPaging_TopKMatchesFullSort() {
+        ColumnarSnapshot sized = ColumnarSnapshot.builder(1)
+                .add(row(6, "Maple Farms Ltd.", "Ontario", "8431", "APPROVED", LocalDate.of(2023, 2, 1), 2), null)
+                .add(row(5, "Pacific Foods", "British Columbia", "6322", "APPROVED", LocalDate.of(2022, 11, 15), 7), null)
+                .add(row(4, "Atlantic Grain", "Alberta", "8431", "DENIED", LocalDate.of(2022, 11, 15), 2), null)
+                .add(row(3, "Maple Leaf Foods", "Ontario", "9462", "APPROVED", LocalDate.of(2022, 6, 30), 7), null)
+                .add(row(2, "Prairie Grain Co.", "Saskatchewan", "8431", "APPROVED", LocalDate.of(2021, 3, 1), 1), null)
+                .build();
+        RoaringBitmap all = sized.match(DatasetSearchSpec.builder().build());
+
+        assertEquals(List.of(5L, 3L, 6L, 4L, 2L), ids(sized.page(all, SearchSort.POSITIONS_APPROVED, 0, 10)));
+        assertEquals(List.of(6L, 4L), ids(sized.page(all, SearchSort.POSITIONS_APPROVED, 2, 2)));
+        assertEquals(List.of(4L, 6L, 3L), ids(sized.page(all, SearchSort.EMPLOYER, 0, 3)));
+        assertEquals(List.of(), sized.page(all, SearchSort.EMPLOYER, 5, 3));
+
+        // Cursor pages continue exactly where the previous page ended, ties broken by id
+        List<DatasetDTO> first = sized.after(all, SearchSort.POSITIONS_APPROVED, null, 3);
+        SearchCursor cursor = SearchCursor.after(first.get(2), SearchSort.POSITIONS_APPROVED);
+        assertEquals(List.of(4L, 2L), ids(sized.after(all, SearchSort.POSITIONS_APPROVED, cursor, 3)));
+        cursor = SearchCursor.after(sized.page(all, SearchSort.EMPLOYER, 0, 2).get(1), SearchSort.EMPLOYER);
+        assertEquals(List.of(3L, 5L, 2L), ids(sized.after(all, SearchSort.EMPLOYER, cursor, 10)));
+        RoaringBitmap grain = sized.match(DatasetSearchSpec.builder().nocCode("8431").build());
+        assertEquals(List.of(2L), ids(sized.after(grain, SearchSort.EMPLOYER,
+                new SearchCursor(SearchSort.EMPLOYER, "Maple Leaf Foods", 3L), 10)));
+    }
+
+    @Test
+    void testEmployerOrder_CodePointsThenRowsWithoutEmployer() {
+        // U+FF21 sorts before U+1D538 by code point, after it by UTF-16 unit
+        ColumnarSnapshot names = ColumnarSnapshot.builder(1)
+                .add(row(5, null, "Ontario", "8431", "APPROVED", LocalDate.of(2023, 2, 1)), null)
+                .add(row(4, "\uD835\uDD38lpine Farms", "Ontario", "8431", "APPROVED", LocalDate.of(2023, 1, 1)), null)
+                .add(row(3, null, "Ontario", "8431", "APPROVED", LocalDate.of(2022, 1, 1)), null)
+                .add(row(2, "\uFF21cme Foods", "Ontario", "8431", "APPROVED", LocalDate.of(2021, 1, 1)), null)
+                .add(row(1, "Zephyr Orchards", "Ontario", "8431", "APPROVED", LocalDate.of(2020, 1, 1)), null)
+                .build();
+        RoaringBitmap all = names.match(DatasetSearchSpec.builder().build());
+
+        assertEquals(List.of(1L, 2L, 4L, 3L, 5L), ids(names.page(all, SearchSort.EMPLOYER, 0, 10)));
+        assertEquals(List.of(4L, 3L, 5L), ids(names.after(all, SearchSort.EMPLOYER,
+                new SearchCursor(SearchSort.EMPLOYER, "\uFF21cme Foods", 2L), 10)));
+        assertEquals(List.of(5L), ids(names.after(all, SearchSort.EMPLOYER, new SearchCursor(SearchSort.EMPLOYER, null, 3L), 10)));
+    }
+
+    @Test
+    void testFacetCounts_CountOverAllMatches() {
+        RoaringBitmap matches = snapshot.match(DatasetSearchSpec.builder().employer("maple").build());
+
+        Map<SearchFacet, Map<String, Long>> counts = snapshot.facetCounts(matches,
+                EnumSet.of(SearchFacet.PROVINCE, SearchFacet.STATUS, SearchFacet.NOC_CODE));
+
+        assertEquals(Map.of("Ontario", 3L, "Alberta", 1L), counts.get(SearchFacet.PROVINCE));
+        assertEquals(Map.of("APPROVED", 3L, "DENIED", 1L), counts.get(SearchFacet.STATUS));
+        assertEquals(Map.of("8431", 3L, "9462", 1L), counts.get(SearchFacet.NOC_CODE));
+        assertEquals(List.of("province", "status", "nocCode"), List.copyOf(SearchFacet.toResponse(counts).keySet()));
+        assertEquals(List.of("Ontario", "Alberta"),
+                List.copyOf(SearchFacet.toResponse(counts).get("province").keySet()));
+    }
+
+    @Test
+    void testRow_RestoresAllColumns() {
+        DatasetDTO row = snapshot.page(snapshot.match(DatasetSearchSpec.builder().employer("prairie").build()), 0, 1).get(0);
+
+        assertEquals("Prairie Grain Co.", row.getEmployer());
+        assertEquals("Saskatchewan", row.getProvince());
+        assertEquals("Agricultural", row.getStream());
+        assertEquals("Regina", row.getCity());
+        assertNull(row.getPostalCode());
+        assertEquals("General farm workers", row.getNocTitle());
+        assertEquals(3, row.getPositionsApproved());
+        assertEquals("APPROVED", row.getStatus());
+        assertEquals(LocalDate.of(2021, 3, 1), row.getDecisionDate());
+        assertNull(row.getWebsiteUrl());
+    }
+
+    private List<DatasetDTO> search(DatasetSearchSpec spec) {
+        return snapshot.page(snapshot.match(spec), 0, 100);
+    }
+
+    private static List<Long> ids(List<DatasetDTO> rows) {
+        return rows.stream().map(DatasetDTO::getId).toList();
+    }
+
+    private static DatasetDTO row(long id, String employer, String province, String nocCode, String status, LocalDate date) {
+        return row(id, employer, province, nocCode, status, date, 3);
+    }
+
+    private static DatasetDTO row(long id, String employer, String province, String nocCode, String status, LocalDate date,
+                                  int positions) {
+        return new DatasetDTO(id, province, "Agricultural", employer, "Regina", null, nocCode, "General farm workers",
+                positions, status, date, "tfwp_test.csv", null);
+    }
+}
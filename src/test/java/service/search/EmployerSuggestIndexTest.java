@@ -0,0 +1,56 @@
+package service.search;
+
+import dto.EmployerSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployerSuggestIndexTest {
+
+    private final EmployerSuggestIndex index = EmployerSuggestIndex.builder()
+            .add("maple farms", "Maple Farms Ltd.", 3)
+            .add("maple farms", "MAPLE FARMS INC", 5)
+            .add("maple leaf foods", "Maple Leaf Foods", 4)
+            .add("pacific foods", "Pacific Foods", 12)
+            .add("map quest", "Map Quest", 1)
+            .add("farm fresh farms", "Farm Fresh Farms", 2)
+            .build(3);
+
+    @Test
+    void testSuggest_RanksByRecordsAndMergesSpellings() {
+        List<EmployerSuggestion> suggestions = index.suggest("map", 10);
+
+        assertEquals(List.of("maple farms", "maple leaf foods", "map quest"), keys(suggestions));
+        assertEquals("MAPLE FARMS INC", suggestions.get(0).getEmployer());
+        assertEquals(8, suggestions.get(0).getRecords());
+        assertEquals(List.of("maple farms"), keys(index.suggest("maple f", 10)));
+        assertEquals(List.of("maple farms", "maple leaf foods"), keys(index.suggest("maple", 2)));
+    }
+
+    @Test
+    void testSuggest_MatchesStartOfAnyWord() {
+        assertEquals(List.of("pacific foods", "maple leaf foods"), keys(index.suggest("foo", 10)));
+        // Counted once although two of its words start with "farm"
+        assertEquals(List.of("maple farms", "farm fresh farms"), keys(index.suggest("farm", 10)));
+        assertEquals(List.of("farm fresh farms"), keys(index.suggest("fresh farms", 10)));
+        assertEquals(List.of(), index.suggest("aple", 10));
+        assertEquals(List.of(), index.suggest("maple farmsx", 10));
+        assertEquals(List.of(), index.suggest("", 10));
+    }
+
+    @Test
+    void testSizeReporting() {
+        assertEquals(5, index.getEmployerCount());
+        // Each key from each word start; "farms" and "foods" are shared
+        assertEquals(10, index.getTermCount());
+        assertTrue(index.getNodeCount() < 2 * index.getTermCount());
+        assertTrue(index.estimatedBytes() > 0);
+        assertEquals(0, EmployerSuggestIndex.builder().build(10).suggest("a", 10).size());
+    }
+
+    private static List<String> keys(List<EmployerSuggestion> suggestions) {
+        return suggestions.stream().map(EmployerSuggestion::getEmployerKey).toList();
+    }
+}
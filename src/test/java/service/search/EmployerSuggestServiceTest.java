@@ -0,0 +1,62 @@
+package service.search;
+
+import dto.EmployerSuggestion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import service.BackgroundRebuildScheduler;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EmployerSuggestServiceTest {
+
+    private EmployerSuggestService service;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row("costco wholesale", "Costco Wholesale Canada Ltd.", 40));
+            handler.processRow(row("abc foods", "ABC Foods Inc.", 12));
+            handler.processRow(row("maple farms", "Maple Farms Ltd.", 8));
+            handler.processRow(row("maple cottage", "Maple Cottage Inn", 3));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        service = new EmployerSuggestService(jdbcTemplate, new BackgroundRebuildScheduler(0),
+                new SimpleMeterRegistry(), true, 10);
+        service.rebuild();
+    }
+
+    @Test
+    void testSuggest_KeepsSuffixWordsWhileTyping() {
+        assertEquals(List.of("maple cottage"), keys(service.suggest("Maple Co", 10)));
+        assertEquals(List.of("costco wholesale", "maple cottage"), keys(service.suggest("co", 10)));
+    }
+
+    @Test
+    void testSuggest_FullNameWithSuffixFallsBackToKey() {
+        assertEquals(List.of("abc foods"), keys(service.suggest("ABC Foods Inc.", 10)));
+        assertEquals(List.of(), service.suggest("xyz", 10));
+    }
+
+    private static List<String> keys(List<EmployerSuggestion> suggestions) {
+        return suggestions.stream().map(EmployerSuggestion::getEmployerKey).toList();
+    }
+
+    private static ResultSet row(String key, String name, long records) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(key);
+        when(rs.getString(2)).thenReturn(name);
+        when(rs.getLong(3)).thenReturn(records);
+        return rs;
+    }
+}
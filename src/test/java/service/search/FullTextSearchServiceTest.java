@@ -0,0 +1,127 @@
+package service.search;
+
+import dto.DatasetDTO;
+import dto.PagedResponse;
+import model.Dataset;
+import org.example.AppMain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.DatasetRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = AppMain.class)
+@ActiveProfiles("test")
+class FullTextSearchServiceTest {
+
+    @Autowired
+    private FullTextSearchService fullTextSearchService;
+
+    @Autowired
+    private DatasetRepository datasetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        datasetRepository.deleteAll();
+        datasetRepository.saveAll(List.of(
+                dataset("Northern Code Labs", "Software engineers and designers", "Toronto"),
+                dataset("Toronto Software Inc.", "Cooks", "Toronto"),
+                dataset("Prairie Bistro", "Restaurant and food service managers", "Calgary"),
+                dataset("Bow Valley Grill", "Cooks", "Calgary")));
+        fullTextSearchService.update();
+    }
+
+    @Test
+    void testSearch_AllWordsAcrossFieldsWithStemming() {
+        assertEquals(List.of("Northern Code Labs"), employers(fullTextSearchService.search("software engineer Toronto", 0, 10)));
+        assertEquals(List.of("Prairie Bistro"), employers(fullTextSearchService.search("restaurants Calgary", 0, 10)));
+        assertEquals(List.of(), employers(fullTextSearchService.search("the", 0, 10)));
+    }
+
+    @Test
+    void testSearch_RanksEmployerMatchesFirstAndSupportsPhrases() {
+        PagedResponse<DatasetDTO> page = fullTextSearchService.search("software", 0, 1);
+
+        assertEquals(List.of("Toronto Software Inc."), employers(page));
+        assertEquals(2, page.getTotalElements());
+        assertTrue(page.isTotalExact());
+        assertTrue(page.isHasNext());
+        assertEquals(List.of("Northern Code Labs"), employers(fullTextSearchService.search("\"software engineers\"", 0, 10)));
+        assertEquals(List.of(), employers(fullTextSearchService.search("\"engineers software\"", 0, 10)));
+        assertThrows(IllegalArgumentException.class, () -> fullTextSearchService.search("cooks", 1000, 20));
+    }
+
+    @Test
+    void testUpdate_AddsNewRowsAndRebuildsAfterDeletes() throws Exception {
+        datasetRepository.save(dataset("Harbour Seafood", "Fish plant workers", "Halifax"));
+        fullTextSearchService.update();
+        assertEquals(List.of("Harbour Seafood"), employers(fullTextSearchService.search("fish halifax", 0, 10)));
+
+        datasetRepository.deleteAll();
+        datasetRepository.save(dataset("Bow Valley Grill", "Cooks", "Banff"));
+        fullTextSearchService.update();
+        PagedResponse<DatasetDTO> cooks = fullTextSearchService.search("cook", 0, 10);
+        assertEquals(List.of("Bow Valley Grill"), employers(cooks));
+        assertEquals(1, cooks.getTotalElements());
+    }
+
+    @Test
+    void testUpdate_IndexesRowCommittedAfterAHigherId() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // Takes its id first but commits last
+        CompletableFuture<Void> slowWriter = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            datasetRepository.saveAndFlush(dataset("Harbour Seafood", "Fish plant workers", "Halifax"));
+            inserted.countDown();
+            try {
+                assertTrue(commit.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(inserted.await(10, TimeUnit.SECONDS));
+        datasetRepository.save(dataset("Kootenay Orchards", "Fruit farm workers", "Creston"));
+        fullTextSearchService.update();
+        assertEquals(List.of("Kootenay Orchards"), employers(fullTextSearchService.search("orchards", 0, 10)));
+
+        commit.countDown();
+        slowWriter.get(10, TimeUnit.SECONDS);
+        fullTextSearchService.update();
+        assertEquals(List.of("Harbour Seafood"), employers(fullTextSearchService.search("fish halifax", 0, 10)));
+        assertEquals(2, fullTextSearchService.search("workers", 0, 10).getTotalElements());
+    }
+
+    private static List<String> employers(PagedResponse<DatasetDTO> page) {
+        return page.getContent().stream().map(DatasetDTO::getEmployer).toList();
+    }
+
+    private static Dataset dataset(String employer, String nocTitle, String city) {
+        Dataset dataset = new Dataset();
+        dataset.setEmployer(employer);
+        dataset.setNocCode("2173");
+        dataset.setNocTitle(nocTitle);
+        dataset.setCity(city);
+        dataset.setProvince("Ontario");
+        dataset.setStream("High-wage");
+        dataset.setPositionsApproved(1);
+        dataset.setStatus(Dataset.DecisionStatus.APPROVED);
+        dataset.setDecisionDate(LocalDate.of(2023, 1, 15));
+        dataset.setSourceFile("tfwp_2023q1_positive_en.csv");
+        return dataset;
+    }
+}
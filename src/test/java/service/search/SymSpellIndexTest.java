@@ -0,0 +1,50 @@
+package service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymSpellIndexTest {
+
+    private final SymSpellIndex index = SymSpellIndex.builder()
+            .add("tim hortons", 120)
+            .add("maple leaf foods", 40)
+            .add("maple lodge farms", 15)
+            .add("mapel bakery", 1)
+            .add("pacific seafood", 8)
+            .add("atlantic seafoods", 3)
+            .build(2, 7);
+
+    @Test
+    void testCorrect_ReplacesMisspelledWordsOnly() {
+        assertEquals(Optional.of("tim hortons"), index.correct("tim hortns"));
+        assertEquals(Optional.of("maple leaf foods"), index.correct("mpale leaf fods"));
+        assertEquals(Optional.of("pacific seafood"), index.correct("pacfic seafood"));
+        assertEquals(Optional.empty(), index.correct("tim hortons"));
+        assertEquals(Optional.empty(), index.correct(""));
+    }
+
+    @Test
+    void testCorrectWord_PrefersCloserThenMoreFrequentWords() {
+        // "mapl" is one edit from both "maple" (55 records) and "mapel" (1 record)
+        assertEquals(Optional.of("maple"), index.correctWord("mapl"));
+        // "seafods" is one edit from "seafoods" and two from "seafood"
+        assertEquals(Optional.of("seafoods"), index.correctWord("seafods"));
+        // Short words allow a single edit, and the shortest are never corrected
+        assertEquals(Optional.empty(), index.correctWord("lef"));
+        assertEquals(Optional.empty(), index.correctWord("lodxx"));
+        assertEquals(Optional.empty(), index.correctWord("completely"));
+        assertEquals(Optional.of("atlantic"), index.correctWord("atlnatic"));
+        assertEquals(13, index.getWordCount());
+    }
+
+    @Test
+    void testDistance_CountsTranspositionsAsOneEdit() {
+        assertEquals(1, SymSpellIndex.distance("hortns", "hortons", 2));
+        assertEquals(1, SymSpellIndex.distance("mpale", "maple", 2));
+        assertEquals(3, SymSpellIndex.distance("kitten", "sitting", 5));
+        assertEquals(3, SymSpellIndex.distance("abcdef", "uvwxyz", 2));
+    }
+}